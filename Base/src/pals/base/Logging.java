@@ -34,7 +34,13 @@ import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
 import org.joda.time.DateTime;
+import pals.base.utils.ExtendedThread;
+import pals.base.utils.RingBuffer;
 
 /**
  * Used to log the runtime of PALS.
@@ -42,6 +48,12 @@ import org.joda.time.DateTime;
  * Messages/entries can span across multiple lines, with \EOE\ at the end of an
  * entry.
  * 
+ * Entries are either written by the invoking thread, or, for asynchronous
+ * instances, added to a bounded lock-free buffer and written in batches by a
+ * single writer thread; the message of an entry is only built by the thread
+ * writing the entry. When the buffer is full, the {@link OverflowPolicy}
+ * decides if the entry is dropped or the invoking thread waits.
+ * 
  * Thread-safe.
  * 
  * @version  1.0
@@ -112,6 +124,45 @@ public class Logging
             return types;
         }
     }
+    /**
+     * The action taken when an entry is logged, but the buffer of an
+     * asynchronous instance is full.
+     * 
+     * @since 1.0
+     */
+    public enum OverflowPolicy
+    {
+        /**
+         * The entry is discarded and counted as dropped.
+         * 
+         * @since 1.0
+         */
+        Drop,
+        /**
+         * The invoking thread waits until space is available.
+         * 
+         * @since 1.0
+         */
+        Block;
+        /**
+         * Parses a policy by its name, ignoring case.
+         * 
+         * @param data The name of the policy; can be null.
+         * @return The policy, or null if the name is not valid.
+         * @since 1.0
+         */
+        public static OverflowPolicy getPolicy(String data)
+        {
+            if(data != null)
+            {
+                for(OverflowPolicy op : values())
+                    if(op.name().equalsIgnoreCase(data.trim()))
+                        return op;
+            }
+            return null;
+        }
+    }
+
     // Fields - Constants ******************************************************
     /**
      * Maximum length of a logging alias, used to identify the source of a
@@ -120,14 +171,40 @@ public class Logging
      * @since 1.0
      */
     private final static int    ALIAS_MAX_LENGTH    = 16;
+    /**
+     * The maximum number of entries written by the writer thread before the
+     * log-file is flushed.
+     * 
+     * @since 1.0
+     */
+    private final static int    WRITER_BATCH        = 512;
+    /**
+     * The time the writer thread waits for further entries, when the buffer is
+     * empty, in nanoseconds.
+     * 
+     * @since 1.0
+     */
+    private final static long   WRITER_WAIT_NS      = 10000000L;
+    /**
+     * The time a thread waits for space in a full buffer, before checking
+     * again, in nanoseconds.
+     * 
+     * @since 1.0
+     */
+    private final static long   BLOCK_WAIT_NS       = 100000L;
     // Fields ******************************************************************
-    private String              path;           // The path of the log file.
-    private NodeCore            core;           // The current instance of the core.
-    private final String        alias;          // The name for the current log-file.
-    private PrintWriter         pw;             // The stream to the current log-file.
-    private DateTime            logDt;          // The current day of the current log-file, used for deciding if to switch logs when the day changes.
-    private boolean             stackTraces;    // Indicates if to log stack-traces of exceptions.
-    private EnumSet<EntryType>  typesLogged;    // The types of errors logged.
+    private String                                          path;           // The path of the log file.
+    private NodeCore                                        core;           // The current instance of the core.
+    private final String                                    alias;          // The name for the current log-file.
+    private PrintWriter                                     pw;             // The stream to the current log-file.
+    private DateTime                                        logDt;          // The current day of the current log-file, used for deciding if to switch logs when the day changes.
+    private volatile boolean                                stackTraces;    // Indicates if to log stack-traces of exceptions.
+    private EnumSet<EntryType>                              typesLogged;    // The types of errors logged.
+    private volatile HashMap<String,EnumSet<EntryType>>     aliasTypes;     // The types logged for specific aliases; never modified once published.
+    private final RingBuffer<Entry>                         buffer;         // The buffer of entries waiting to be written; null if synchronous.
+    private final OverflowPolicy                            overflow;       // The action taken when the buffer is full.
+    private final AtomicLong                                dropped;        // The number of entries dropped due to a full buffer.
+    private volatile Writer                                 writer;         // The thread writing buffered entries; null if synchronous or disposed.
     // Methods - Constructors **************************************************
     /**
      * Creates a new instance for logging system events.
@@ -137,9 +214,12 @@ public class Logging
      * @param stackTraces Indicates if to log stack-traces.
      * @param typesLogged The type of events to log; use bit-wise OR for multiple
      * types.
+     * @param capacity The capacity of the buffer for asynchronous logging;
+     * zero for synchronous logging.
+     * @param overflow The action taken when the buffer is full.
      * @since 1.0
      */
-    private Logging(NodeCore core, String alias, boolean stackTraces, EnumSet<EntryType> typesLogged)
+    private Logging(NodeCore core, String alias, boolean stackTraces, EnumSet<EntryType> typesLogged, int capacity, OverflowPolicy overflow)
     {
         this.path = null;
         this.core = core;
@@ -148,6 +228,11 @@ public class Logging
         this.logDt = DateTime.now();
         this.stackTraces = stackTraces;
         this.typesLogged = typesLogged;
+        this.aliasTypes = new HashMap<>();
+        this.buffer = capacity > 0 ? new RingBuffer<Entry>(capacity) : null;
+        this.overflow = overflow;
+        this.dropped = new AtomicLong();
+        this.writer = null;
     }
     // Methods *****************************************************************
     /**
@@ -159,7 +244,7 @@ public class Logging
      * @return The success of the operation.
      * @since 1.0
      */
-    public synchronized boolean logEx(String alias, Throwable ex, EntryType et)
+    public boolean logEx(String alias, Throwable ex, EntryType et)
     {
         return logEx(alias, null, ex, et);
     }
@@ -173,29 +258,11 @@ public class Logging
      * @return The success of the operation.
      * @since 1.0
      */
-    public synchronized boolean logEx(String alias, String message, Throwable ex, EntryType et)
+    public boolean logEx(String alias, String message, Throwable ex, EntryType et)
     {
-        Throwable cause = ex.getCause();
-        StringBuilder sb = new StringBuilder();
-        // Append message
-        if(message != null)
-            sb.append(message).append(" - ");
-        // Append exception
-        sb.append("Exception: '").append(ex.getMessage()).append("'; cause: ");
-        if(cause != null)
-            sb.append("'").append(cause.getMessage()).append("'");
-        else
-            sb.append("[unknown].");
-        // Append stack-trace (if enabled)
-        if(stackTraces)
-        {
-            StringWriter s = new StringWriter();
-            PrintWriter p = new PrintWriter(s);
-            ex.printStackTrace(p);
-            sb.append(" Stack-trace: '").append(s.toString()).append("'.");
-        }
-        // Log the message
-        return log(alias, sb.toString(), et);
+        if(!isLogged(alias, et))
+            return false;
+        return submit(new Entry(alias, et, message, null, ex, stackTraces));
     }
     /**
      * Logs a message.
@@ -206,30 +273,93 @@ public class Logging
      * @return The success of the operation.
      * @since 1.0
      */
-    public synchronized boolean log(String alias, String message, EntryType et)
+    public boolean log(String alias, String message, EntryType et)
     {
-        // Check the alias is valid
-        if(alias == null || alias.length() == 0)
+        // Verify the message is not null, else ignore...
+        if(message == null || !isLogged(alias, et))
             return false;
-        // Check we log the type of event
-        if(typesLogged != null && !typesLogged.contains(et))
+        return submit(new Entry(alias, et, message, null, null, false));
+    }
+    /**
+     * Logs a message, built from a format string and arguments; refer to
+     * {@link String#format(java.lang.String, java.lang.Object...)}.
+     * 
+     * The message is only built if the entry is logged, and by the thread
+     * writing the entry; thus the arguments should not be modified after
+     * invoking this method. An entry with a malformed format or arguments is
+     * discarded, rather than thrown to the caller.
+     * 
+     * @param alias The name of the component producing the message.
+     * @param et The log entry type.
+     * @param format The format of the message.
+     * @param args The arguments of the format.
+     * @return The success of the operation.
+     * @since 1.0
+     */
+    public boolean log(String alias, EntryType et, String format, Object... args)
+    {
+        if(format == null || !isLogged(alias, et))
             return false;
-        // Verify the message is not null, else ignore...
-        else if(message == null)
+        return submit(new Entry(alias, et, format, args, null, false));
+    }
+    private boolean isLogged(String alias, EntryType et)
+    {
+        // Check the alias is valid
+        if(alias == null || alias.length() == 0)
             return false;
+        // Check we log the type of event, for the alias or otherwise in general
+        EnumSet<EntryType> types = aliasTypes.get(alias);
+        if(types == null)
+            types = typesLogged;
+        return types == null || types.contains(et);
+    }
+    private boolean submit(Entry entry)
+    {
+        Writer w = writer;
+        // Write synchronous entries immediately
+        if(w == null)
+        {
+            try
+            {
+                return write(entry, true);
+            }
+            catch(RuntimeException ex)
+            {
+                // Malformed format or arguments; the entry is discarded, as with the writer
+                System.err.println("Failed to write log entry ~ " + ex.getMessage() + "!");
+                return false;
+            }
+        }
+        // Add the entry to the buffer
+        while(!buffer.offer(entry))
+        {
+            if(overflow == OverflowPolicy.Drop || writer == null)
+            {
+                dropped.incrementAndGet();
+                return false;
+            }
+            // Wake the writer and wait for space
+            LockSupport.unpark(w);
+            LockSupport.parkNanos(BLOCK_WAIT_NS);
+        }
+        return true;
+    }
+    private synchronized boolean write(Entry entry, boolean flush)
+    {
         // Check if the day has changed
-        DateTime dt = DateTime.now();
+        DateTime dt = new DateTime(entry.time);
         if(pw == null || (dt.getYear() != logDt.getYear() || dt.getMonthOfYear() != logDt.getMonthOfYear() || dt.getDayOfMonth()!= logDt.getDayOfMonth()))
         {
             this.logDt = dt;
-            switchLogFile();
+            if(!switchLogFile())
+                return false;
         }
         String logEntry;
         String logPrint;
         {
             StringBuilder sb = new StringBuilder();
             // Write the type of incident
-            switch(et)
+            switch(entry.type)
             {
                 case Error:
                     sb.append("ERROR\t"); break;
@@ -242,22 +372,28 @@ public class Logging
             sb.append(String.format("%04d-%02d-%02d %02d:%02d:%02d", dt.getYear(), dt.getMonthOfYear(), dt.getDayOfMonth(), dt.getHourOfDay(), dt.getMinuteOfHour(), dt.getSecondOfMinute()));
             sb.append("\t");
             // Write the alias
-            sb.append(padRestrictAlias(alias)).append("\t");
+            sb.append(padRestrictAlias(entry.alias)).append("\t");
             // Write the message -- escape EOR end tag too!
-            sb.append(message.replace("\\EOE\\", "\\//EOE\\//"));
+            sb.append(entry.getMessage().replace("\\EOE\\", "\\//EOE\\//"));
             logPrint = sb.toString();
             sb.append("\\EOE\\");
             logEntry = sb.toString();
         }
         // Output to console and the log-file
-        if(et == EntryType.Error)
+        if(entry.type == EntryType.Error)
             System.err.println(logPrint);
         else
             System.out.println(logPrint);
         pw.println(logEntry);
-        pw.flush();
+        if(flush)
+            pw.flush();
         return true;
     }
+    private synchronized void flush()
+    {
+        if(pw != null)
+            pw.flush();
+    }
     private static String padRestrictAlias(String alias)
     {
         // Ensure the alias is not too long
@@ -307,13 +443,31 @@ public class Logging
      * 
      * @since 1.0
      */
-    public synchronized void dispose()
+    public void dispose()
     {
-        if(pw != null)
+        // Stop the writer, which writes any remaining entries
+        Writer w = writer;
+        if(w != null)
         {
-            pw.flush();
-            pw.close();
-            pw = null;
+            writer = null;
+            w.extended_stop();
+            try
+            {
+                w.join();
+            }
+            catch(InterruptedException ex)
+            {
+                Thread.currentThread().interrupt();
+            }
+        }
+        synchronized(this)
+        {
+            if(pw != null)
+            {
+                pw.flush();
+                pw.close();
+                pw = null;
+            }
         }
     }
     // Methods - Static ********************************************************
@@ -334,14 +488,44 @@ public class Logging
      */
     public static Logging createInstance(NodeCore core, String alias, boolean stackTraces, EnumSet<EntryType> typesLogged)
     {
-        Logging l = new Logging(core, alias, stackTraces, typesLogged);
+        return createInstance(core, alias, stackTraces, typesLogged, 0, OverflowPolicy.Drop);
+    }
+    /**
+     * Creates a new instance of the logger for PALS, which writes entries
+     * asynchronously using a separate thread.
+     * 
+     * WARNING: only one instance should exist for the specified name, else
+     * another logging instance will not be able to access the file.
+     * 
+     * @param core The current instance of the core.
+     * @param alias The name of the logging file; the date of the current day
+     * is also appended.
+     * @param stackTraces Indicates if to log stack-traces.
+     * @param typesLogged The type of events logged.
+     * @param capacity The maximum number of entries waiting to be written;
+     * zero for synchronous logging.
+     * @param overflow The action taken when too many entries are waiting to be
+     * written.
+     * @return Instance or null if an error occurred.
+     * @since 1.0
+     */
+    public static Logging createInstance(NodeCore core, String alias, boolean stackTraces, EnumSet<EntryType> typesLogged, int capacity, OverflowPolicy overflow)
+    {
+        if(capacity < 0 || overflow == null)
+            return null;
+        Logging l = new Logging(core, alias, stackTraces, typesLogged, capacity, overflow);
         if(!l.switchLogFile())
         {
             l.dispose();
             return null;
         }
-        else
-            return l;
+        // Start the writer for asynchronous logging
+        if(l.buffer != null)
+        {
+            l.writer = l.new Writer();
+            l.writer.start();
+        }
+        return l;
     }
     // Methods - Mutators ******************************************************
     /**
@@ -354,6 +538,55 @@ public class Logging
     {
         this.stackTraces = enabled;
     }
+    /**
+     * Sets the types of events logged for an alias, overriding the types
+     * logged for this instance.
+     * 
+     * @param alias The name of the component producing messages.
+     * @param types The types logged; null to use the types of this instance.
+     * @since 1.0
+     */
+    public synchronized void setAliasTypes(String alias, EnumSet<EntryType> types)
+    {
+        HashMap<String,EnumSet<EntryType>> copy = new HashMap<>(aliasTypes);
+        if(types == null)
+            copy.remove(alias);
+        else
+            copy.put(alias, EnumSet.copyOf(types));
+        aliasTypes = copy;
+    }
+    /**
+     * Sets the types of events logged for aliases, from a list of aliases and
+     * types, separated by semi-colons, e.g.:
+     * 
+     * PALS Web Man.=Warning,Error;Ass. Marker=All
+     * 
+     * Refer to {@link EntryType#getSet(java.lang.String)} for the format of
+     * types.
+     * 
+     * @param data The list of aliases and types; can be empty or null.
+     * @return True = all the aliases were set, false = the list is malformed.
+     * @since 1.0
+     */
+    public boolean setAliasTypes(String data)
+    {
+        if(data == null || data.trim().length() == 0)
+            return true;
+        HashMap<String,EnumSet<EntryType>> parsed = new HashMap<>();
+        int sep;
+        EnumSet<EntryType> types;
+        for(String part : data.split(";"))
+        {
+            if(part.trim().length() == 0)
+                continue;
+            if((sep = part.lastIndexOf('=')) <= 0 || (types = EntryType.getSet(part.substring(sep+1).trim())) == null)
+                return false;
+            parsed.put(part.substring(0, sep).trim(), types);
+        }
+        for(Map.Entry<String,EnumSet<EntryType>> kv : parsed.entrySet())
+            setAliasTypes(kv.getKey(), kv.getValue());
+        return true;
+    }
     // Methods - Accessors *****************************************************
     /**
      * The path of the log file.
@@ -375,4 +608,128 @@ public class Logging
     {
         return stackTraces;
     }
+    /**
+     * Indicates if entries are written asynchronously.
+     * 
+     * @return True = asynchronous, false = synchronous.
+     * @since 1.0
+     */
+    public boolean isAsync()
+    {
+        return buffer != null;
+    }
+    /**
+     * The number of entries waiting to be written by the writer thread.
+     * 
+     * @return The number of entries; always zero when synchronous.
+     * @since 1.0
+     */
+    public int getPendingEntries()
+    {
+        return buffer != null ? buffer.size() : 0;
+    }
+    /**
+     * The number of entries dropped because the buffer was full.
+     * 
+     * @return The number of entries dropped.
+     * @since 1.0
+     */
+    public long getDroppedEntries()
+    {
+        return dropped.get();
+    }
+    // Classes *****************************************************************
+    /**
+     * An entry waiting to be written; the message is built when written.
+     */
+    private static class Entry
+    {
+        final String        alias;      // The name of the component producing the message.
+        final EntryType     type;       // The log entry type.
+        final long          time;       // The time of the entry.
+        final String        message;    // The message, or the format of the message; can be null for exceptions.
+        final Object[]      args;       // The arguments of the format; null if the message is not a format.
+        final Throwable     ex;         // The exception; can be null.
+        final boolean       trace;      // Indicates if to write the stack-trace of the exception.
+        
+        Entry(String alias, EntryType type, String message, Object[] args, Throwable ex, boolean trace)
+        {
+            this.alias = alias;
+            this.type = type;
+            this.time = System.currentTimeMillis();
+            this.message = message;
+            this.args = args;
+            this.ex = ex;
+            this.trace = trace;
+        }
+        String getMessage()
+        {
+            String msg = args != null ? String.format(message, args) : message;
+            if(ex == null)
+                return msg;
+            Throwable cause = ex.getCause();
+            StringBuilder sb = new StringBuilder();
+            // Append message
+            if(msg != null)
+                sb.append(msg).append(" - ");
+            // Append exception
+            sb.append("Exception: '").append(ex.getMessage()).append("'; cause: ");
+            if(cause != null)
+                sb.append("'").append(cause.getMessage()).append("'");
+            else
+                sb.append("[unknown].");
+            // Append stack-trace (if enabled)
+            if(trace)
+            {
+                StringWriter s = new StringWriter();
+                PrintWriter p = new PrintWriter(s);
+                ex.printStackTrace(p);
+                sb.append(" Stack-trace: '").append(s.toString()).append("'.");
+            }
+            return sb.toString();
+        }
+    }
+    /**
+     * Writes buffered entries to the log-file, flushing after each batch.
+     */
+    private class Writer extends ExtendedThread
+    {
+        Writer()
+        {
+            setName("PALS Logging - " + alias);
+            setDaemon(true);
+        }
+        @Override
+        public void run()
+        {
+            while(!extended_isStopped())
+            {
+                if(!drain())
+                    LockSupport.parkNanos(WRITER_WAIT_NS);
+            }
+            // Write any remaining entries
+            while(drain());
+        }
+        private boolean drain()
+        {
+            Entry e;
+            int written = 0;
+            while(written < WRITER_BATCH && (e = buffer.poll()) != null)
+            {
+                try
+                {
+                    write(e, false);
+                }
+                catch(RuntimeException ex)
+                {
+                    // Malformed format or arguments; the entry is discarded
+                    System.err.println("Failed to write log entry ~ " + ex.getMessage() + "!");
+                }
+                written++;
+            }
+            if(written > 0)
+                flush();
+            return written > 0;
+        }
+    }
 }
@@ -35,6 +35,8 @@ import java.net.UnknownHostException;
 import java.util.EnumSet;
 import java.util.Random;
 import org.apache.commons.io.FileUtils;
+import pals.base.assessment.AssessmentCache;
+import pals.base.auth.AuthCache;
 import pals.base.database.Connector;
 import pals.base.database.DatabaseException;
 import pals.base.database.Result;
@@ -131,7 +133,7 @@ public class NodeCore
     private static final String LOGGING_ALIAS_STOP  = "PALS CORE STOP";
     private static final long   STATE_CHANGE_TIMEOUT = 10000L;
     // Fields - Instance *******************************************************
-    private static NodeCore     currentInstance = null;             // The current instance of the NodeCore.
+    private static volatile NodeCore currentInstance = null;        // The current instance of the NodeCore.
     // Fields ******************************************************************
     private UUID                uuidNode;                           // The UUID used to represent this node.
     private State               state;                              // The current state of the core.
@@ -146,6 +148,8 @@ public class NodeCore
     private Logging             logging;                            // Logging of system events.
     private Settings            settings;                           // Read-only core settings loaded from file.
     private RMI                 comms;                              // RMI communications.
+    private final AuthCache     authCache;                          // Node-local cache of users, groups and enrollments.
+    private final AssessmentCache assessmentCache;                  // Node-local cache of questions and criteria.
     // Methods - Constructors **************************************************
     private NodeCore()
     {
@@ -160,6 +164,8 @@ public class NodeCore
         this.settings = null;
         this.comms = null;
         this.rng = null;
+        this.authCache = new AuthCache();
+        this.assessmentCache = new AssessmentCache();
     }
     // Methods - Core **********************************************************
     /**
@@ -259,12 +265,27 @@ public class NodeCore
                 stop(StopType.Failure);
                 return false;
             }
-            if((logging = Logging.createInstance(this, "system", true, loggingTypes)) == null)
+            // Asynchronous logging is optional; zero capacity logs synchronously
+            int loggingCapacity = settings.getBool("node/logging_async", false) ? settings.getInt("node/logging_async_capacity", 8192) : 0;
+            Logging.OverflowPolicy loggingOverflow = Logging.OverflowPolicy.getPolicy(settings.getStr("node/logging_async_overflow", "Drop"));
+            if(loggingOverflow == null)
+            {
+                System.err.println(LOGGING_ALIAS_START+" Invalid logging overflow policy specified on config (setting: node/logging_async_overflow), value: '" + settings.getStr("node/logging_async_overflow") + "'!");
+                stop(StopType.Failure);
+                return false;
+            }
+            if((logging = Logging.createInstance(this, "system", true, loggingTypes, loggingCapacity, loggingOverflow)) == null)
             {
                 System.err.println(LOGGING_ALIAS_START+" Failed to start core logging, aborted!");
                 stop(StopType.Failure);
                 return false;
             }
+            if(!logging.setAliasTypes(settings.getStr("node/logging_alias_types")))
+            {
+                System.err.println(LOGGING_ALIAS_START+" Invalid logging alias types specified on config (setting: node/logging_alias_types), value: '" + settings.getStr("node/logging_alias_types") + "'!");
+                stop(StopType.Failure);
+                return false;
+            }
             logging.log(LOGGING_ALIAS_START, "Started logging.", Logging.EntryType.Info);
         }
         // Ensure temp_plugins exists for plugins
@@ -343,6 +364,12 @@ public class NodeCore
             stop(StopType.Failure);
             return false;
         }
+        // Reset the cache of users, groups and enrollments
+        authCache.invalidateLocal(AuthCache.Type.All);
+        authCache.setCapacity(settings.getInt("auth/cache_size", 1024));
+        // Reset the cache of assessment definitions
+        assessmentCache.invalidateLocal(AssessmentCache.Type.All);
+        assessmentCache.setCapacity(settings.getInt("assessment/cache_size", 512));
         // Initialize the templates manager, load the required templates
         templates = new TemplateManager(this);
         logging.log(LOGGING_ALIAS_START, "Initialized templates.", Logging.EntryType.Info);
@@ -358,6 +385,12 @@ public class NodeCore
                     stop(StopType.Failure);
                     return false;
                 }
+                else if(!templates.precompile(null))
+                {
+                    logging.log(LOGGING_ALIAS_START, "Failed to precompile shared storage templates at '" + dirTemlates.getPath() + "'!", Logging.EntryType.Error);
+                    stop(StopType.Failure);
+                    return false;
+                }
                 else
                     logging.log(LOGGING_ALIAS_START, "Loaded shared storage templates.", Logging.EntryType.Info);
             }
@@ -618,11 +651,18 @@ public class NodeCore
      * @return The current instance of the core.
      * @since 1.0
      */
-    public synchronized static NodeCore getInstance()
+    public static NodeCore getInstance()
     {
-        if(currentInstance == null)
-            currentInstance = new NodeCore();
-        return currentInstance;
+        NodeCore core = currentInstance;
+        if(core == null)
+        {
+            synchronized(NodeCore.class)
+            {
+                if((core = currentInstance) == null)
+                    currentInstance = core = new NodeCore();
+            }
+        }
+        return core;
     }
     /**
      * The current state of the core.
@@ -750,6 +790,26 @@ public class NodeCore
     {
         return comms;
     }
+    /**
+     * The node-local cache of users, user-groups and enrollments.
+     * 
+     * @return The cache.
+     * @since 1.0
+     */
+    public AuthCache getAuthCache()
+    {
+        return authCache;
+    }
+    /**
+     * The node-local cache of assessment definitions; questions and criteria.
+     * 
+     * @return The cache.
+     * @since 1.0
+     */
+    public AssessmentCache getAssessmentCache()
+    {
+        return assessmentCache;
+    }
     /**
      * The UUID for this node.
      * 
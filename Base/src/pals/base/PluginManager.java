@@ -31,9 +31,11 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import org.apache.commons.io.FileUtils;
 import pals.base.database.Connector;
 import pals.base.database.DatabaseException;
@@ -50,6 +52,12 @@ import pals.base.utils.JarIOException;
  * a list of plugins associated with a hook/event. This allows open-ended events
  * for e.g. processing work and handling the start/end of web-requests.
  * 
+ * Hooks are held as an immutable map of events to arrays of plugins, which is
+ * copied and replaced whenever a hook is registered or unregistered; thus
+ * invoking hooks takes no lock and the same hook can be handled by many
+ * threads at once. A plugin may still be invoked shortly after its hooks are
+ * unregistered, by a thread which had already started invoking the event.
+ * 
  * Thread-safe.
  * 
  * @version 1.0
@@ -175,33 +183,48 @@ public class PluginManager
     // Fields - Constants ******************************************************
     private static final String                 LOGGING_ALIAS = "PALS Plugin Man.";
     // Fields ******************************************************************
-    private NodeCore                            core;                   // The current instance of the core.
-    private HashMap<String,ArrayList<Plugin>>   registerGlobalEvents;   // Global registered events; <event name,<list of plugins>>.
-    private HashMap<UUID,Plugin>                plugins;                // The plugins of the runtime.
+    private NodeCore                                core;                   // The current instance of the core.
+    private volatile HashMap<String,Plugin[]>       registerGlobalEvents;   // Global registered events; <event name,plugins>; never modified once published.
+    private HashMap<String,Plugin[]>                registerPending;        // Events being registered by globalHookRegisterAll; published once complete.
+    private final ConcurrentHashMap<UUID,Plugin>    plugins;                // The plugins of the runtime.
+    private final ConcurrentHashMap<String,Class<?>> classes;               // Cache of classes resolved from plugins; <class name,class>; cleared when plugins change.
     // Methods - Constructors **************************************************
     protected PluginManager(NodeCore core)
     {
         this.core = core;
         this.registerGlobalEvents = new HashMap<>();
-        this.plugins = new HashMap<>();
+        this.registerPending = null;
+        this.plugins = new ConcurrentHashMap<>();
+        this.classes = new ConcurrentHashMap<>();
     }
     // Methods - Hooks *********************************************************
     /**
      * Re-registers all the global events.
      * 
+     * The new events only replace the existing events once every plugin has
+     * registered; until then, hooks are invoked using the existing events.
+     * 
      * @return True if successful, false if failed.
      * @since 1.0
      */
     public synchronized boolean globalHookRegisterAll()
     {
         boolean allSuccess = true;
-        // Clear old events
-        registerGlobalEvents.clear();
-        // Invoke each plugin to register events
-        for(Map.Entry<UUID,Plugin> plugin : plugins.entrySet())
+        // Register to a new set of events
+        registerPending = new HashMap<>();
+        try
+        {
+            // Invoke each plugin to register events
+            for(Plugin plugin : plugins.values())
+            {
+                if(!plugin.eventHandler_registerHooks(core, this))
+                    allSuccess = false;
+            }
+            registerGlobalEvents = registerPending;
+        }
+        finally
         {
-            if(!plugin.getValue().eventHandler_registerHooks(core, this))
-                allSuccess = false;
+            registerPending = null;
         }
         return allSuccess;
     }
@@ -218,19 +241,20 @@ public class PluginManager
      */
     public synchronized boolean globalHookRegister(Plugin plugin, String event)
     {
-        // Check the event has an array-list
-        if(!registerGlobalEvents.containsKey(event))
-            registerGlobalEvents.put(event, new ArrayList<Plugin>());
-        // Grab the list of plugins already hooked
-        ArrayList<Plugin> pgs = registerGlobalEvents.get(event);
+        HashMap<String,Plugin[]> events = globalHookCopy();
+        // Grab the plugins already hooked
+        Plugin[] pgs = events.get(event);
+        if(pgs == null)
+            pgs = new Plugin[0];
         // Add the plugin if it doesnt exist
-        if(!pgs.contains(plugin))
-        {
-            pgs.add(plugin);
-            return true;
-        }
-        else
-            return false;
+        for(Plugin p : pgs)
+            if(p == plugin)
+                return false;
+        Plugin[] result = Arrays.copyOf(pgs, pgs.length+1);
+        result[pgs.length] = plugin;
+        events.put(event, result);
+        globalHookPublish(events);
+        return true;
     }
     /**
      * Unregisters a global hook for a plugin.
@@ -241,14 +265,18 @@ public class PluginManager
      */
     public synchronized void globalHookUnregister(Plugin plugin, String event)
     {
-        // Fetch arraylist of event
-        ArrayList<Plugin> pgs = registerGlobalEvents.get(event);
-        // Remove event
-        if(pgs != null)
-            pgs.remove(plugin);
-        // Remove the event list if it's now empty - waste of storage and potentially processing...
-        if(pgs.isEmpty())
-            registerGlobalEvents.remove(event);
+        HashMap<String,Plugin[]> events = globalHookCopy();
+        // Remove the plugin from the event
+        Plugin[] pgs = events.get(event);
+        if(pgs == null)
+            return;
+        pgs = globalHookRemove(pgs, plugin);
+        // Remove the event if it's now empty - waste of storage and potentially processing...
+        if(pgs.length == 0)
+            events.remove(event);
+        else
+            events.put(event, pgs);
+        globalHookPublish(events);
     }
     /**
      * Unregisters all global hooks associated with a plugin.
@@ -258,19 +286,48 @@ public class PluginManager
      */
     public synchronized void globalHookUnregister(Plugin plugin)
     {
-        ArrayList<Plugin> pgs;
-        Iterator<Map.Entry<String,ArrayList<Plugin>>> it = registerGlobalEvents.entrySet().iterator();
-        Map.Entry<String,ArrayList<Plugin>> p;
+        HashMap<String,Plugin[]> events = globalHookCopy();
+        Plugin[] pgs;
+        Iterator<Map.Entry<String,Plugin[]>> it = events.entrySet().iterator();
+        Map.Entry<String,Plugin[]> p;
         while(it.hasNext())
         {
             p = it.next();
-            pgs = p.getValue();
             // Remove plugin
-            pgs.remove(plugin);
-            // Remove the list if it's now empty
-            if(pgs.isEmpty())
+            pgs = globalHookRemove(p.getValue(), plugin);
+            // Remove the event if it's now empty
+            if(pgs.length == 0)
                 it.remove();
+            else
+                p.setValue(pgs);
         }
+        globalHookPublish(events);
+    }
+    private HashMap<String,Plugin[]> globalHookCopy()
+    {
+        return new HashMap<>(registerPending != null ? registerPending : registerGlobalEvents);
+    }
+    private void globalHookPublish(HashMap<String,Plugin[]> events)
+    {
+        // Events being re-registered are only published once complete
+        if(registerPending != null)
+            registerPending = events;
+        else
+            registerGlobalEvents = events;
+    }
+    private static Plugin[] globalHookRemove(Plugin[] pgs, Plugin plugin)
+    {
+        for(int i = 0; i < pgs.length; i++)
+        {
+            if(pgs[i] == plugin)
+            {
+                Plugin[] result = new Plugin[pgs.length-1];
+                System.arraycopy(pgs, 0, result, 0, i);
+                System.arraycopy(pgs, i+1, result, i, pgs.length-i-1);
+                return result;
+            }
+        }
+        return pgs;
     }
     /**
      * Fetches all of the plugins hooked to an event.
@@ -279,40 +336,50 @@ public class PluginManager
      * @return All of the plugins registered to an event, or an empty array.
      * @since 1.0
      */
-    public synchronized Plugin[] globalHookFetch(String event)
+    public Plugin[] globalHookFetch(String event)
     {
-        ArrayList<Plugin> result = registerGlobalEvents.get(event);
-        return result == null ? new Plugin[0] : result.toArray(new Plugin[result.size()]);
+        Plugin[] result = registerGlobalEvents.get(event);
+        return result == null ? new Plugin[0] : result.clone();
     }
     /**
      * Invokes all hooks registered to an event until a hook returns true.
      * 
+     * No lock is held whilst the hooks are invoked.
+     * 
      * @param event The name of the global event.
      * @param data The data to be passed to plugins.
      * @return True = a plugin handled the event, false = no plugins,
      * subscribed, have handled the event.
      * @since 1.0
      */
-    public synchronized boolean globalHookInvoke(String event, Object[] data)
+    public boolean globalHookInvoke(String event, Object[] data)
     {
-        Plugin[] plugins = globalHookFetch(event);
-        for(Plugin p : plugins)
-            if(p.eventHandler_handleHook(event, data))
-                return true;
+        Plugin[] plugins = registerGlobalEvents.get(event);
+        if(plugins != null)
+        {
+            for(Plugin p : plugins)
+                if(p.eventHandler_handleHook(event, data))
+                    return true;
+        }
         return false;
     }
     /**
      * Invokes all hooks registered to an event.
      * 
+     * No lock is held whilst the hooks are invoked.
+     * 
      * @param event The name of the global event.
      * @param data The data to be passed to plugins.
      * @since 1.0
      */
-    public synchronized void globalHookInvokeAll(String event, Object[] data)
+    public void globalHookInvokeAll(String event, Object[] data)
     {
-        Plugin[] plugins = globalHookFetch(event);
-        for(Plugin p : plugins)
-            p.eventHandler_handleHook(event, data);
+        Plugin[] plugins = registerGlobalEvents.get(event);
+        if(plugins != null)
+        {
+            for(Plugin p : plugins)
+                p.eventHandler_handleHook(event, data);
+        }
     }
     // Methods - Reloading *****************************************************
     /**
@@ -624,6 +691,7 @@ public class PluginManager
             }
             // Add the plugin to the runtime
             plugins.put(uuid, p);
+            classes.clear();
             // Inform the plugin to register to global events and templates/template-functions, urls and that's being loaded into the runtime
             if(!p.eventHandler_registerHooks(core, this))
             {
@@ -639,6 +707,13 @@ public class PluginManager
                 jar.dispose();
                 return PluginLoad.Failed;
             }
+            else if(!core.getTemplates().precompile(p))
+            {
+                core.getLogging().log(LOGGING_ALIAS, "Plugin '" + p.getTitle() + "' [" + uuid.getHexHyphens() + "] - failed to precompile templates!", Logging.EntryType.Error);
+                unload(p);
+                jar.dispose();
+                return PluginLoad.Failed;
+            }
             else if(!p.eventHandler_registerUrls(core, core.getWebManager()))
             {
                 core.getLogging().log(LOGGING_ALIAS, "Plugin '" + p.getTitle() + "' [" + uuid.getHexHyphens() + "] - failed to register paths/urls!", Logging.EntryType.Error);
@@ -695,6 +770,7 @@ public class PluginManager
         plugin.eventHandler_pluginUnload(core);
         // Remove from manager
         plugins.remove(plugin.getUUID());
+        classes.clear();
         // Dispose I/O
         JarIO jio = plugin.getJarIO();
         if(jio != null)
@@ -737,6 +813,7 @@ public class PluginManager
         if(uuid == null)
             return false;
         plugins.put(uuid, plugin);
+        classes.clear();
         return true;
     }
     // Methods - Accessors *****************************************************
@@ -747,18 +824,70 @@ public class PluginManager
      * @return The current instance of the plugin or null.
      * @since 1.0
      */
-    public synchronized Plugin getPlugin(UUID uuid)
+    public Plugin getPlugin(UUID uuid)
     {
         return plugins.get(uuid);
     }
+    /**
+     * Fetches a class from the class-loaders of the plugins loaded in the
+     * current runtime.
+     * 
+     * Resolved classes are cached until a plugin is loaded or unloaded, since
+     * searching every plugin is expensive.
+     * 
+     * @param className The full name of the class.
+     * @return The class; never null.
+     * @throws ClassNotFoundException Thrown if no plugin has the class.
+     * @since 1.0
+     */
+    public Class<?> getPluginClass(String className) throws ClassNotFoundException
+    {
+        Class<?> c = classes.get(className);
+        if(c != null)
+            return c;
+        // Iterate each plugin for the class
+        for(Plugin p : plugins.values())
+        {
+            try
+            {
+                c = Class.forName(className, false, p.getJarIO().getRawLoader());
+                // Only cache whilst the plugin is still loaded; unload removes
+                // the plugin before clearing the cache, thus re-check after
+                // adding, in case the clear occurred before the add
+                if(plugins.get(p.getUUID()) == p)
+                {
+                    classes.put(className, c);
+                    if(plugins.get(p.getUUID()) != p)
+                        classes.remove(className, c);
+                }
+                return c;
+            }
+            catch(ClassNotFoundException ex)
+            {
+            }
+        }
+        throw new ClassNotFoundException("PluginManager - cannot find class '"+className+"'");
+    }
+    /**
+     * Fetches a class previously resolved by {@link #getPluginClass(String)},
+     * without searching the plugins.
+     * 
+     * @param className The full name of the class.
+     * @return The class or null.
+     * @since 1.0
+     */
+    public Class<?> getPluginClassCached(String className)
+    {
+        return classes.get(className);
+    }
     /**
      * Fetches all of the active plugins loaded in the current runtime.
      * 
      * @return Array of plugins, can be empty.
      * @since 1.0
      */
-    public synchronized Plugin[] getPlugins()
+    public Plugin[] getPlugins()
     {
-        return plugins.values().toArray(new Plugin[plugins.size()]);
+        return plugins.values().toArray(new Plugin[0]);
     }
 }
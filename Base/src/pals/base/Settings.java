@@ -29,6 +29,7 @@ package pals.base;
 import java.io.IOException;
 import java.io.StringReader;
 import java.io.StringWriter;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
@@ -56,7 +57,13 @@ import pals.base.utils.Files;
  * A collection which holds key/value settings data, which can be loaded/saved
  * to file.
  * 
- * Thread-safe, with the exception of documented methods.
+ * Settings are held in a map which is never modified once published; a
+ * read-only collection cannot be changed once loaded, whereas changes to a
+ * writable collection replace the map with a modified copy. Thus reading
+ * settings never takes a lock. The data of each setting is parsed into its
+ * data-type once, when loaded or set.
+ * 
+ * Thread-safe.
  * 
  * @since 1.0
  */
@@ -88,14 +95,14 @@ public class Settings
      */
     private static final String SETTINGS_XML_NODE__DATATYPE = "datatype";
     // Fields ******************************************************************
-    private final boolean                       readOnly;       // Indicates if the collection is read-only.
-    private final HashMap<String,SettingsNode>  settings;       // Path,node with settings data.
+    private final boolean                               readOnly;       // Indicates if the collection is read-only.
+    private volatile HashMap<String,SettingsNode>       settings;       // Path,node with settings data; never modified once published.
     // Methods - Constructors **************************************************
     /**
      * Creates a new instance of a settings store.
      * 
      * @param readOnly Indicates if the collection is read-only; if true, the
-     * collection cannot be saved.
+     * collection cannot be modified or saved.
      * @since 1.0
      */
     public Settings(boolean readOnly)
@@ -143,8 +150,10 @@ public class Settings
             throw new SettingsException(SettingsException.Type.FailedToParse, null);
         try
         {
-            // Create new Settings collection
+            // Create new Settings collection; nodes are added to a new map,
+            // published once parsed, since read-only collections cannot be modified
             Settings settings = new Settings(readOnly);
+            HashMap<String,SettingsNode> nodeMap = new HashMap<>();
             // Turn XML into a stream for reading
             InputSource is = new InputSource(new StringReader(xml));
             // Parse the XML
@@ -182,10 +191,10 @@ public class Settings
                         else
                             data = n.getTextContent();
                         // Check the path does not exist
-                        if(settings.settings.containsKey(path))
+                        if(nodeMap.containsKey(path))
                             throw new SettingsException(SettingsException.Type.FailedToParse_DuplicateSetting, new Exception("Duplicate setting of '" + path + "' ~ paths must be unique!"));
                         else
-                            settings.settings.put(path, new SettingsNode(settings, path, data, dt));
+                            nodeMap.put(path, new SettingsNode(settings, path, data, dt));
                     }
                     catch(IllegalArgumentException ex)
                     {
@@ -193,6 +202,7 @@ public class Settings
                     }
                 }
             }
+            settings.settings = nodeMap;
             return settings;
         }
         catch(IOException | ParserConfigurationException | SAXException ex)
@@ -210,7 +220,7 @@ public class Settings
      * 
      * @since 1.0
      */
-    public synchronized void save(String path) throws SettingsException
+    public void save(String path) throws SettingsException
     {
         // Check the collection is not read-only
         if(readOnly)
@@ -234,47 +244,44 @@ public class Settings
      * @throws SettingsException Thrown if the setting cannot be built.
      * @since 1.0
      */
-    public synchronized String save() throws SettingsException
+    public String save() throws SettingsException
     {
-        // Lock the collection
-        synchronized(settings)
+        // Build the XML from the current snapshot
+        HashMap<String,SettingsNode> settings = this.settings;
+        try
         {
-            // Build the XML
-            try
-            {
-                DocumentBuilderFactory xmlFactory = DocumentBuilderFactory.newInstance();
-                DocumentBuilder xmlBuilder = xmlFactory.newDocumentBuilder();
-                Document xmlDocument = xmlBuilder.newDocument();
-                // Create root node
-                Node parent = xmlDocument.appendChild(xmlDocument.createElement(SETTINGS_XML_TOPNODE));
-                // Add each setting as a child
-                SettingsNode sn;
-                Element settingE;
-                for(Map.Entry<String,SettingsNode> node : settings.entrySet())
-                {
-                    sn = node.getValue();
-                    settingE = xmlDocument.createElement(SETTINGS_XML_NODE_NAME);
-                    settingE.setAttribute(SETTINGS_XML_NODE__PATH, sn.getPath());
-                    settingE.setAttribute(SETTINGS_XML_NODE__DATATYPE, String.valueOf(sn.getType().getDataType()));
-                    settingE.appendChild(xmlDocument.createCDATASection(sn.getData().toString()));
-                    parent.appendChild(settingE);
-                }
-                // Prepare to transform into text
-                TransformerFactory xmlTFactory = TransformerFactory.newInstance();
-                Transformer xmlTransformer = xmlTFactory.newTransformer();
-                xmlTransformer.setOutputProperty(OutputKeys.INDENT, "yes");
-                // Transform the document into a string
-                DOMSource source = new DOMSource(xmlDocument);
-                StringWriter sw = new StringWriter();
-                StreamResult sr = new StreamResult(sw);
-                xmlTransformer.transform(source, sr);
-                sw.flush(); // Ensure all the data has been written
-                return sw.toString();
-            }
-            catch(DOMException | ParserConfigurationException | TransformerException | TransformerFactoryConfigurationError ex)
+            DocumentBuilderFactory xmlFactory = DocumentBuilderFactory.newInstance();
+            DocumentBuilder xmlBuilder = xmlFactory.newDocumentBuilder();
+            Document xmlDocument = xmlBuilder.newDocument();
+            // Create root node
+            Node parent = xmlDocument.appendChild(xmlDocument.createElement(SETTINGS_XML_TOPNODE));
+            // Add each setting as a child
+            SettingsNode sn;
+            Element settingE;
+            for(Map.Entry<String,SettingsNode> node : settings.entrySet())
             {
-                throw new SettingsException(SettingsException.Type.FailedToSave_Build, ex);
+                sn = node.getValue();
+                settingE = xmlDocument.createElement(SETTINGS_XML_NODE_NAME);
+                settingE.setAttribute(SETTINGS_XML_NODE__PATH, sn.getPath());
+                settingE.setAttribute(SETTINGS_XML_NODE__DATATYPE, String.valueOf(sn.getType().getDataType()));
+                settingE.appendChild(xmlDocument.createCDATASection(sn.getData().toString()));
+                parent.appendChild(settingE);
             }
+            // Prepare to transform into text
+            TransformerFactory xmlTFactory = TransformerFactory.newInstance();
+            Transformer xmlTransformer = xmlTFactory.newTransformer();
+            xmlTransformer.setOutputProperty(OutputKeys.INDENT, "yes");
+            // Transform the document into a string
+            DOMSource source = new DOMSource(xmlDocument);
+            StringWriter sw = new StringWriter();
+            StreamResult sr = new StreamResult(sw);
+            xmlTransformer.transform(source, sr);
+            sw.flush(); // Ensure all the data has been written
+            return sw.toString();
+        }
+        catch(DOMException | ParserConfigurationException | TransformerException | TransformerFactoryConfigurationError ex)
+        {
+            throw new SettingsException(SettingsException.Type.FailedToSave_Build, ex);
         }
     }
     // Methods - Accessors *****************************************************
@@ -295,7 +302,7 @@ public class Settings
      * @return Node data or null.
      * @since 1.0
      */
-    public synchronized SettingsNode getNode(String path)
+    public SettingsNode getNode(String path)
     {
         return settings.get(path);
     }
@@ -312,9 +319,10 @@ public class Settings
      * @return The data of the node as the specified type; possibly null.
      * @since 1.0
      */
-    public synchronized <T> T get(String path)
+    public <T> T get(String path)
     {
-        return settings.containsKey(path) ? (T)settings.get(path).get() : null;
+        SettingsNode node = settings.get(path);
+        return node != null ? (T)node.get() : null;
     }
     /**
      * Refer to get method for documentation; this is similar, but throws a
@@ -328,14 +336,12 @@ public class Settings
      * exist.
      * @since 1.0
      */
-    public synchronized <T> T get2(String path) throws SettingsException
+    public <T> T get2(String path) throws SettingsException
     {
-        synchronized(settings)
-        {
-            if(!settings.containsKey(path))
-                throw new SettingsException(SettingsException.Type.MissingNode, new Exception("Node at '" + path + "' is missing!"));
-            return (T)settings.get(path).get();
-        }
+        SettingsNode node = settings.get(path);
+        if(node == null)
+            throw new SettingsException(SettingsException.Type.MissingNode, new Exception("Node at '" + path + "' is missing!"));
+        return (T)node.get();
     }
     /**
      * Fetches the data of a node.
@@ -347,7 +353,7 @@ public class Settings
      * @return Data as a string.
      * @since 1.0
      */
-    public synchronized String getStr(String path)
+    public String getStr(String path)
     {
         return (String)get(path);
     }
@@ -363,7 +369,7 @@ public class Settings
      * @return Data as a string.
      * @since 1.0
      */
-    public synchronized String getStr(String path, String alternative)
+    public String getStr(String path, String alternative)
     {
         String obj = get(path);
         return obj == null ? alternative : obj;
@@ -378,7 +384,7 @@ public class Settings
      * @return Data as a boolean.
      * @since 1.0
      */
-    public synchronized boolean getBool(String path)
+    public boolean getBool(String path)
     {
         return (Boolean)get(path);
     }
@@ -394,7 +400,7 @@ public class Settings
      * @return Data as a boolean.
      * @since 1.0
      */
-    public synchronized boolean getBool(String path, boolean alternative)
+    public boolean getBool(String path, boolean alternative)
     {
         Boolean obj = get(path);
         return obj == null ? alternative : obj;
@@ -409,7 +415,7 @@ public class Settings
      * @return Data as an integer.
      * @since 1.0
      */
-    public synchronized int getInt(String path)
+    public int getInt(String path)
     {
         return (Integer)get(path);
     }
@@ -425,7 +431,7 @@ public class Settings
      * @return Data as an integer.
      * @since 1.0
      */
-    public synchronized int getInt(String path, int alternative)
+    public int getInt(String path, int alternative)
     {
         Integer obj = get(path);
         return obj == null ? alternative : obj;
@@ -440,7 +446,7 @@ public class Settings
      * @return Data as a float.
      * @since 1.0
      */
-    public synchronized float getFloat(String path)
+    public float getFloat(String path)
     {
         return (Float)get(path);
     }
@@ -456,7 +462,7 @@ public class Settings
      * @return Data as a float.
      * @since 1.0
      */
-    public synchronized float getFloat(String path, float alternative)
+    public float getFloat(String path, float alternative)
     {
         Float obj = get(path);
         return obj == null ? alternative : obj;
@@ -471,7 +477,7 @@ public class Settings
      * @return Data as a double.
      * @since 1.0
      */
-    public synchronized double getDouble(String path)
+    public double getDouble(String path)
     {
         return (Double)get(path);
     }
@@ -487,7 +493,7 @@ public class Settings
      * @return Data as a double.
      * @since 1.0
      */
-    public synchronized double getDouble(String path, double alternative)
+    public double getDouble(String path, double alternative)
     {
         Double obj = get(path);
         return obj == null ? alternative : obj;
@@ -495,42 +501,45 @@ public class Settings
     /**
      * The raw data-structure for the settings.
      * 
-     * WARNING: this is not thread-safe!
+     * Note: this is a snapshot of the settings, which cannot be modified;
+     * later changes to the collection are not reflected.
      * 
      * @return EntrySet for iterating the settings.
      * @since 1.0
      */
-    public synchronized Set<Map.Entry<String,SettingsNode>> getRaw()
+    public Set<Map.Entry<String,SettingsNode>> getRaw()
     {
-        return settings.entrySet();
+        return Collections.unmodifiableMap(settings).entrySet();
     }
     // Methods - Mutators ******************************************************
     /**
      * Sets the value for a path.
      * 
-     * Note: if a node exists at a path, it's updated; otherwise a new node is
-     * created.
+     * Note: if a node exists at a path, it's replaced by a new node; otherwise a
+     * new node is created. The collection is copied, thus this is expensive
+     * compared to reading settings.
      * @param path The path of the setting.
      * @param dataType The type of the setting's value.
      * @param value The value of the setting; can be null.
-     * @return True if updated/created, false if failed.
+     * @return True if updated/created, false if failed (read-only collection
+     * or invalid path).
      * @since 1.0
      */
     public synchronized boolean set(String path, SettingsNode.DataType dataType, Object value)
     {
-        // Lock the collection - thread-safety
-        synchronized(settings)
-        {
-            if(settings.containsKey(path))
-                // Update the value
-                settings.get(path).setData(value, dataType);
-            else if(SettingsNode.validNodePath(path))
-                // Create a new node
-                settings.put(path, new SettingsNode(this, path, (value != null ?  value.toString() : null), dataType));
-            else
-                // Invalid path - cannot create node!
-                return false;
-        }
+        // Check the collection is not read-only
+        if(readOnly)
+            return false;
+        // Check the path is valid for new nodes
+        if(!settings.containsKey(path) && !SettingsNode.validNodePath(path))
+            return false;
+        // Copy the collection with the new node and publish it
+        HashMap<String,SettingsNode> copy = new HashMap<>(settings);
+        if(value == null || value instanceof String)
+            copy.put(path, new SettingsNode(this, path, (String)value, dataType));
+        else
+            copy.put(path, new SettingsNode(this, path, value, dataType));
+        settings = copy;
         return true;
     }
     /**
@@ -29,6 +29,8 @@ package pals.base;
 /**
  * Represents a setting, in a Settings collection.
  * 
+ * The data is parsed into its data-type once, when the node is created.
+ * 
  * @version 1.0
  */
 public class SettingsNode
@@ -98,10 +100,10 @@ public class SettingsNode
         }
     }
     // Fields ******************************************************************
-    private final String    path;           // The path of the node.
-    private Object          data;           // The data of the setting; can be null.
-    private DataType        type;           // The data-type of the setting.
-    private final Settings  parent;         // The collection of where the node resides.
+    private final String        path;       // The path of the node.
+    private volatile Object     data;       // The data of the setting; can be null.
+    private volatile DataType   type;       // The data-type of the setting.
+    private final Settings      parent;     // The collection of where the node resides.
     // Methods - Constructors **************************************************
     protected SettingsNode(Settings parent, String path, String rawData, DataType type)
     {
@@ -110,6 +112,13 @@ public class SettingsNode
         this.data = parseDataType(rawData, type);
         this.type = type;
     }
+    SettingsNode(Settings parent, String path, Object data, DataType type)
+    {
+        this.parent = parent;
+        this.path = path;
+        this.data = data;
+        this.type = type;
+    }
     // Methods - Static ********************************************************
     /**
      * Parses raw-data as the specified data-type; this does not throw errors,
@@ -213,6 +222,8 @@ public class SettingsNode
      */
     public void setData(Object data, DataType type)
     {
+        if(parent != null && parent.isReadOnly())
+            return;
         this.data = data;
         this.type = type;
     }
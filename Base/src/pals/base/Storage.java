@@ -127,6 +127,12 @@ public class Storage
             System.err.println("Failed to check folder 'qc' is created.");
             return false;
         }
+        // -- Jobs
+        if(!checkCreated(getPath_tempJobs(pathShared)))
+        {
+            System.err.println("Failed to check folder 'jobs' is created.");
+            return false;
+        }
         return true;
     }
     private static boolean checkCreated(String path)
@@ -240,6 +246,33 @@ public class Storage
     {
         return getPath_tempWeb(pathShared)+"/"+file.getTempName();
     }
+    /**
+     * Temporary directory for files owned by background jobs; unlike the
+     * temporary web directory, items are not purged, thus a job must delete
+     * its files once it ends.
+     * 
+     * @param pathShared The path of the shared directory/storage.
+     * @return The path of the temporary jobs directory.
+     * @since 1.0
+     */
+    public static String getPath_tempJobs(String pathShared)
+    {
+        return pathShared + "/temp_jobs";
+    }
+    /**
+     * Gets a path for a file owned by a background job; this should be
+     * deleted by the job once it ends.
+     * 
+     * @param pathShared The path of the shared directory/storage.
+     * @param prefix The prefix of the file-name, identifying the job type.
+     * @param file The uploaded file, from which the name is generated.
+     * @return The path for a new file.
+     * @since 1.0
+     */
+    public static String getPath_tempJobFile(String pathShared, String prefix, UploadedFile file)
+    {
+        return getPath_tempJobs(pathShared)+"/"+prefix+"_"+file.getTempName();
+    }
     /**
      * The path for storing data for instance of assignment questions.
      * 
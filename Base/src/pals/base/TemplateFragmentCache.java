@@ -0,0 +1,329 @@
+/*
+    The MIT License (MIT)
+
+    Copyright (c) 2014 Marcus Craske <limpygnome@gmail.com>
+
+    Permission is hereby granted, free of charge, to any person obtaining a copy
+    of this software and associated documentation files (the "Software"), to deal
+    in the Software without restriction, including without limitation the rights
+    to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+    copies of the Software, and to permit persons to whom the Software is
+    furnished to do so, subject to the following conditions:
+
+    The above copyright notice and this permission notice shall be included in
+    all copies or substantial portions of the Software.
+
+    THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+    IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+    FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+    AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+    LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+    OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+    THE SOFTWARE.
+    ----------------------------------------------------------------------------
+    Authors:    Marcus Craske           <limpygnome@gmail.com>
+    ----------------------------------------------------------------------------
+*/
+package pals.base;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/**
+ * A size-bounded cache of rendered template fragments, with least-recently
+ * used entries evicted first.
+ * 
+ * Fragments are identified by the path of their template and a key supplied
+ * by the plugin rendering the fragment; each fragment also has a version,
+ * which is incremented by the plugin when the data of the fragment changes,
+ * thus stale fragments are never returned. Fragments are removed when the
+ * plugin rendering them, or the plugin owning their template, is unloaded.
+ * Rendered fragments are only added if no removal occurred since the
+ * generation read before rendering them, thus fragments of an unloaded or
+ * reloaded template are never added.
+ * 
+ * The size of the cache is measured in characters.
+ * 
+ * Thread-safe.
+ * 
+ * @version 1.0
+ */
+public class TemplateFragmentCache
+{
+    // Fields ******************************************************************
+    private final LinkedHashMap<String,Fragment>    fragments;  // The cached fragments, in order of least to most recently used.
+    private int                                     capacity;   // The maximum number of characters cached.
+    private long                                    weight;     // The number of characters currently cached.
+    private long                                    hits;       // The number of look-ups served from the cache.
+    private long                                    misses;     // The number of look-ups not served from the cache.
+    private long                                    evictions;  // The number of fragments evicted for space.
+    private long                                    generation; // Incremented by every removal.
+    // Methods - Constructors **************************************************
+    /**
+     * Constructs a new instance.
+     * 
+     * @param capacity The maximum number of characters cached; zero disables
+     * the cache.
+     * @since 1.0
+     */
+    public TemplateFragmentCache(int capacity)
+    {
+        if(capacity < 0)
+            throw new IllegalArgumentException("Capacity cannot be negative.");
+        this.fragments = new LinkedHashMap<>(16, 0.75f, true);
+        this.capacity = capacity;
+        this.weight = 0;
+        this.hits = this.misses = this.evictions = 0;
+        this.generation = 0;
+    }
+    // Methods *****************************************************************
+    /**
+     * Fetches a cached fragment.
+     * 
+     * @param path The path of the template.
+     * @param key The key of the fragment.
+     * @param version The current version of the fragment.
+     * @return The rendered fragment, or null if not cached or the cached
+     * fragment is of a different version.
+     * @since 1.0
+     */
+    public synchronized String get(String path, String key, long version)
+    {
+        Fragment f = fragments.get(key(path, key));
+        if(f == null || f.version != version)
+        {
+            misses++;
+            return null;
+        }
+        hits++;
+        return f.content;
+    }
+    /**
+     * Adds, or replaces, a fragment; fragments larger than the capacity, or
+     * rendered before a removal, are not cached.
+     * 
+     * @param generation The generation before the fragment was rendered.
+     * @param plugin The plugin rendering the fragment; can be null.
+     * @param pluginTemplate The plugin owning the template; can be null.
+     * @param path The path of the template.
+     * @param key The key of the fragment.
+     * @param version The version of the fragment.
+     * @param content The rendered fragment.
+     * @since 1.0
+     */
+    public synchronized void put(long generation, UUID plugin, UUID pluginTemplate, String path, String key, long version, String content)
+    {
+        if(generation != this.generation)
+            return;
+        String k = key(path, key);
+        Fragment old = fragments.remove(k);
+        if(old != null)
+            weight -= old.content.length();
+        if(content.length() > capacity)
+            return;
+        fragments.put(k, new Fragment(plugin, pluginTemplate, path, version, content));
+        weight += content.length();
+        // Evict the least recently used fragments until within capacity
+        Iterator<Fragment> it = fragments.values().iterator();
+        Fragment f;
+        while(weight > capacity && it.hasNext())
+        {
+            f = it.next();
+            it.remove();
+            weight -= f.content.length();
+            evictions++;
+        }
+    }
+    /**
+     * Removes all the fragments rendered by, or of templates owned by, a
+     * plugin.
+     * 
+     * @param plugin The identifier of the plugin.
+     * @since 1.0
+     */
+    public synchronized void remove(UUID plugin)
+    {
+        generation++;
+        Iterator<Fragment> it = fragments.values().iterator();
+        Fragment f;
+        while(it.hasNext())
+        {
+            f = it.next();
+            if(plugin.equals(f.plugin) || plugin.equals(f.pluginTemplate))
+            {
+                it.remove();
+                weight -= f.content.length();
+            }
+        }
+    }
+    /**
+     * Removes all the fragments of a template.
+     * 
+     * @param path The path of the template.
+     * @since 1.0
+     */
+    public synchronized void remove(String path)
+    {
+        generation++;
+        Iterator<Fragment> it = fragments.values().iterator();
+        Fragment f;
+        while(it.hasNext())
+        {
+            f = it.next();
+            if(f.path.equals(path))
+            {
+                it.remove();
+                weight -= f.content.length();
+            }
+        }
+    }
+    /**
+     * Removes all the fragments.
+     * 
+     * @since 1.0
+     */
+    public synchronized void clear()
+    {
+        generation++;
+        fragments.clear();
+        weight = 0;
+    }
+    /**
+     * Resets the hit, miss and eviction counters.
+     * 
+     * @since 1.0
+     */
+    public synchronized void resetMetrics()
+    {
+        hits = misses = evictions = 0;
+    }
+    private static String key(String path, String key)
+    {
+        return path + '\n' + key;
+    }
+    // Methods - Mutators ******************************************************
+    /**
+     * Sets the capacity; fragments are evicted if the cache is over the new
+     * capacity.
+     * 
+     * @param capacity The maximum number of characters cached; zero disables
+     * the cache.
+     * @since 1.0
+     */
+    public synchronized void setCapacity(int capacity)
+    {
+        if(capacity < 0)
+            throw new IllegalArgumentException("Capacity cannot be negative.");
+        this.capacity = capacity;
+        Iterator<Fragment> it = fragments.values().iterator();
+        Fragment f;
+        while(weight > capacity && it.hasNext())
+        {
+            f = it.next();
+            it.remove();
+            weight -= f.content.length();
+            evictions++;
+        }
+    }
+    // Methods - Accessors *****************************************************
+    /**
+     * The current generation, which must be read before rendering a fragment
+     * to be added to the cache.
+     * 
+     * @return The generation.
+     * @since 1.0
+     */
+    public synchronized long getGeneration()
+    {
+        return generation;
+    }
+    /**
+     * The capacity of the cache.
+     * 
+     * @return The maximum number of characters cached.
+     * @since 1.0
+     */
+    public synchronized int getCapacity()
+    {
+        return capacity;
+    }
+    /**
+     * The size of the cached fragments.
+     * 
+     * @return The number of characters currently cached.
+     * @since 1.0
+     */
+    public synchronized long getWeight()
+    {
+        return weight;
+    }
+    /**
+     * The number of cached fragments.
+     * 
+     * @return The number of fragments currently cached.
+     * @since 1.0
+     */
+    public synchronized int size()
+    {
+        return fragments.size();
+    }
+    /**
+     * The number of cache hits.
+     * 
+     * @return The number of look-ups served from the cache.
+     * @since 1.0
+     */
+    public synchronized long getHits()
+    {
+        return hits;
+    }
+    /**
+     * The number of cache misses.
+     * 
+     * @return The number of look-ups not served from the cache.
+     * @since 1.0
+     */
+    public synchronized long getMisses()
+    {
+        return misses;
+    }
+    /**
+     * The number of evictions.
+     * 
+     * @return The number of fragments evicted for space.
+     * @since 1.0
+     */
+    public synchronized long getEvictions()
+    {
+        return evictions;
+    }
+    /**
+     * The hit-rate of the cache.
+     * 
+     * @return The ratio of look-ups served from the cache, between zero and
+     * one; zero if no look-ups have occurred.
+     * @since 1.0
+     */
+    public synchronized double getHitRate()
+    {
+        long total = hits+misses;
+        return total == 0 ? 0.0 : (double)hits/(double)total;
+    }
+    // Classes *****************************************************************
+    private static class Fragment
+    {
+        final UUID      plugin;         // The plugin rendering the fragment.
+        final UUID      pluginTemplate; // The plugin owning the template.
+        final String    path;           // The path of the template.
+        final long      version;        // The version of the fragment.
+        final String    content;        // The rendered fragment.
+        Fragment(UUID plugin, UUID pluginTemplate, String path, long version, String content)
+        {
+            this.plugin = plugin;
+            this.pluginTemplate = pluginTemplate;
+            this.path = path;
+            this.version = version;
+            this.content = content;
+        }
+    }
+}
@@ -40,14 +40,18 @@ import java.util.Map;
  * 
  * Except this class has additional information, relevant to PALS.
  * 
- * Thread-safe, with the exception of documented methods.
+ * Templates are held in a map which is never modified once published; adding
+ * or removing templates replaces the map with a modified copy. Thus templates
+ * are found and read, whilst rendering, without taking a lock.
+ * 
+ * Thread-safe.
  * 
  * @version 1.0
  */
 public class TemplateLoader implements freemarker.cache.TemplateLoader
 {
     // Fields ******************************************************************
-    private final HashMap<String,TemplateItem> items;   // Stores the templates.
+    private volatile HashMap<String,TemplateItem> items;    // Stores the templates; never modified once published.
     // Methods - Constructors **************************************************
     /**
      * Creates a new instance of this class.
@@ -66,7 +70,7 @@ public class TemplateLoader implements freemarker.cache.TemplateLoader
      * @return Indicates if the path exists (true) or does not exist (false).
      * @since 1.0
      */
-    public synchronized boolean contains(String path)
+    public boolean contains(String path)
     {
         return items.containsKey(path);
     }
@@ -80,7 +84,9 @@ public class TemplateLoader implements freemarker.cache.TemplateLoader
      */
     public synchronized void put(Plugin plugin, String path, String data)
     {
-        items.put(path, new TemplateItem(plugin != null ? plugin.getUUID() : null, path, data));
+        HashMap<String,TemplateItem> copy = new HashMap<>(items);
+        copy.put(path, new TemplateItem(plugin != null ? plugin.getUUID() : null, path, data));
+        items = copy;
     }
     /**
      * Removes a template. No action occurs if the template does not exist.
@@ -90,7 +96,12 @@ public class TemplateLoader implements freemarker.cache.TemplateLoader
      */
     public synchronized void remove(String path)
     {
-        items.remove(path);
+        if(items.containsKey(path))
+        {
+            HashMap<String,TemplateItem> copy = new HashMap<>(items);
+            copy.remove(path);
+            items = copy;
+        }
     }
     /**
      * Removes any templates, found in the collection, belonging to a plugin.
@@ -103,7 +114,8 @@ public class TemplateLoader implements freemarker.cache.TemplateLoader
     {
         UUID pluginUuid = plugin == null ? null : plugin.getUUID();
         // Locate all the templates owned by a plugin and remove them
-        Iterator<Map.Entry<String,TemplateItem>> it = items.entrySet().iterator();
+        HashMap<String,TemplateItem> copy = new HashMap<>(items);
+        Iterator<Map.Entry<String,TemplateItem>> it = copy.entrySet().iterator();
         Map.Entry<String,TemplateItem> item;
         UUID uuid;
         while(it.hasNext())
@@ -113,6 +125,7 @@ public class TemplateLoader implements freemarker.cache.TemplateLoader
             if(uuid == pluginUuid || (uuid != null && uuid.equals(pluginUuid)))
                 it.remove();
         }
+        items = copy;
     }
     /**
      * Removes all of the items in the collection. You must also clear the
@@ -122,7 +135,7 @@ public class TemplateLoader implements freemarker.cache.TemplateLoader
      */
     public synchronized void clear()
     {
-        items.clear();
+        items = new HashMap<>();
     }
     // Methods - Interface Overrides *******************************************
     /**
@@ -133,7 +146,7 @@ public class TemplateLoader implements freemarker.cache.TemplateLoader
      * @since 1.0
      */
     @Override
-    public synchronized void closeTemplateSource(Object o) throws IOException
+    public void closeTemplateSource(Object o) throws IOException
     {
         // No need to do anything...
     }
@@ -145,7 +158,7 @@ public class TemplateLoader implements freemarker.cache.TemplateLoader
      * @since 1.0
      */
     @Override
-    public synchronized Object findTemplateSource(String path) throws IOException
+    public Object findTemplateSource(String path) throws IOException
     {
         return items.get(path);
     }
@@ -157,7 +170,7 @@ public class TemplateLoader implements freemarker.cache.TemplateLoader
      * @since 1.0
      */
     @Override
-    public synchronized Reader getReader(Object templateSource, String encoding) throws IOException
+    public Reader getReader(Object templateSource, String encoding) throws IOException
     {
         return new StringReader(((TemplateItem)templateSource).getData());
     }
@@ -169,7 +182,7 @@ public class TemplateLoader implements freemarker.cache.TemplateLoader
      * @since 1.0
      */
     @Override
-    public synchronized long getLastModified(Object templateSource)
+    public long getLastModified(Object templateSource)
     {
         return ((TemplateItem)templateSource).getLastModified();
     }
@@ -181,7 +194,7 @@ public class TemplateLoader implements freemarker.cache.TemplateLoader
      * @return The template at the specified path or null.
      * @since 1.0
      */
-    public synchronized TemplateItem getItem(String path)
+    public TemplateItem getItem(String path)
     {
         return items.get(path);
     }
@@ -191,19 +204,21 @@ public class TemplateLoader implements freemarker.cache.TemplateLoader
      * @return All of the templates in the collection.
      * @since 1.0
      */
-    public synchronized TemplateItem[] getItems()
+    public TemplateItem[] getItems()
     {
+        HashMap<String,TemplateItem> items = this.items;
         return items.values().toArray(new TemplateItem[items.size()]);
     }
     /**
      * Fetches the underlying data-structure used to store the templates.
      * 
-     * WARNING: not thread safe.
+     * WARNING: this is a snapshot of the templates, which must not be
+     * modified; later changes to the collection are not reflected.
      * 
      * @return The underlying map used to store templates.
      * @since 1.0
      */
-    public synchronized HashMap<String,TemplateItem> getMap()
+    public HashMap<String,TemplateItem> getMap()
     {
         return items;
     }
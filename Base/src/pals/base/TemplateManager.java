@@ -33,11 +33,23 @@ import freemarker.template.TemplateExceptionHandler;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
 import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import pals.base.utils.Files;
 import pals.base.utils.JarIO;
 import pals.base.utils.JarIOException;
+import pals.base.web.ResponseSink;
 import pals.base.web.WebRequestData;
 
 /**
@@ -45,6 +57,22 @@ import pals.base.web.WebRequestData;
  * rendering HTML for web-pages, however they can be multi-purpose for e.g.
  * e-mail messages.
  * 
+ * Rendering takes no lock, thus templates are rendered concurrently; only
+ * registering and removing templates is synchronized. FreeMarker templates
+ * are thread-safe once loaded.
+ * 
+ * Templates can be rendered to a string, or streamed to a writer, byte-stream
+ * or string-builder; streaming avoids copying large pages, such as a response
+ * rendered into its sink (refer to RemoteResponse.getSink()), or fragments
+ * appended to the HTML of a page.
+ * 
+ * Templates are parsed eagerly, in parallel, once registered by a plugin
+ * (refer to precompile), so the first request for a page does not pay for
+ * parsing its templates; templates with syntax errors fail the registration.
+ * 
+ * Fragments which rarely change can be rendered through renderCached, with a
+ * key and version supplied by the plugin; refer to TemplateFragmentCache.
+ * 
  * Thread-safe.
  * 
  * @version 1.0
@@ -53,21 +81,21 @@ public class TemplateManager
 {
     // Fields - Constants ******************************************************
     private static final String                     LOGGING_ALIAS = "PALS Templates";
+    private static final int                        DEFAULT_FRAGMENT_CACHE_SIZE = 4194304;
     // Fields ******************************************************************
     private final NodeCore                          core;               // The current instance of the core.
+    private final TemplateFragmentCache             fragments;          // Cache of rendered fragments.
     // Fields - FreeMarker Template Engine *************************************
-    private TemplateLoader                          fmLoader;           // Used to load and cache templates.
-    private Configuration                           fmConfig;           // General configuration.
+    private final TemplateLoader                    fmLoader;           // Used to load and cache templates.
+    private final Configuration                     fmConfig;           // General configuration.
     // Methods - Constructors **************************************************    
     protected TemplateManager(NodeCore core)
     {
         this.core = core;
+        // Setup the fragment cache; the size is in characters
+        Settings settings = core.getSettings();
+        fragments = new TemplateFragmentCache(settings != null ? settings.getInt("templates/fragment_cache_size", DEFAULT_FRAGMENT_CACHE_SIZE) : DEFAULT_FRAGMENT_CACHE_SIZE);
         // Setup FreeMarker template engine
-        setupFreeMarker();
-    }
-    // Methods *****************************************************************
-    private void setupFreeMarker()
-    {
         fmLoader = new TemplateLoader();                // Used for loading, storing and interfacing with templates.
         fmConfig = new Configuration();                 // Used for configuration and caching (http://freemarker.org/docs/pgui_config_templateloading.html) templates.
         fmConfig.setTemplateLoader(fmLoader);           // Sets the loader to use.
@@ -75,20 +103,24 @@ public class TemplateManager
         fmConfig.setURLEscapingCharset("ISO-8859-1");   // Sets the URL encoding character set.
         fmConfig.setTemplateExceptionHandler(TemplateExceptionHandler.RETHROW_HANDLER);     // Rethrows exceptions; recommended in production systems (http://freemarker.org/docs/api/freemarker/template/TemplateExceptionHandler.html#RETHROW_HANDLER).
     }
+    // Methods *****************************************************************
     /**
      * Reloads all the templates by calling every active plugin to re-register
      * all their functions and templates.
      * 
+     * The existing templates are replaced as they are re-registered, thus
+     * pages can still be rendered whilst reloading; templates of plugins not
+     * re-registered are removed. All templates are then precompiled.
+     * 
      * @return True if successful, false if failed.
      * @since 1.0
      */
     public synchronized boolean reload()
     {
         core.getLogging().log(LOGGING_ALIAS, "Re-registering all templates...", Logging.EntryType.Info);
-        // Clear templates
-        fmLoader.clear();
-        // Reset template cache
-        fmConfig.clearTemplateCache();
+        HashMap<String,TemplateItem> old = fmLoader.getMap();
+        // Reset fragment cache
+        fragments.clear();
         // Invoke all plugins to re-register templates
         Plugin[] plugins = core.getPlugins().getPlugins();
         for(Plugin plugin : plugins)
@@ -99,8 +131,92 @@ public class TemplateManager
                 return false;
             }
         }
+        // Remove plugin templates which were not re-registered
+        for(Map.Entry<String,TemplateItem> kv : old.entrySet())
+        {
+            if(kv.getValue().getPluginUUID() != null && fmLoader.getItem(kv.getKey()) == kv.getValue())
+                remove(kv.getKey());
+        }
         core.getLogging().log(LOGGING_ALIAS, "Finished re-registering all templates.", Logging.EntryType.Info);
-        return true;
+        return precompile(fmLoader.getItems());
+    }
+    /**
+     * Precompiles the templates of a plugin, so that they are parsed and
+     * cached before being rendered; the templates are parsed in parallel.
+     * 
+     * @param plugin The plugin owning the templates; null for templates
+     * without an owner, such as shared templates.
+     * @return True = all parsed, false = one or more templates could not be
+     * parsed, such as due to a syntax error; the errors are logged.
+     * @since 1.0
+     */
+    public boolean precompile(Plugin plugin)
+    {
+        UUID pluginUuid = plugin != null ? plugin.getUUID() : null;
+        ArrayList<TemplateItem> items = new ArrayList<>();
+        for(TemplateItem item : fmLoader.getItems())
+        {
+            if(pluginUuid == null ? item.getPluginUUID() == null : pluginUuid.equals(item.getPluginUUID()))
+                items.add(item);
+        }
+        return precompile(items.toArray(new TemplateItem[items.size()]));
+    }
+    private boolean precompile(TemplateItem[] items)
+    {
+        if(items.length == 0)
+            return true;
+        long start = System.currentTimeMillis();
+        int threads = Math.min(items.length, Runtime.getRuntime().availableProcessors());
+        ArrayList<Future<String>> results = new ArrayList<>(items.length);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try
+        {
+            // Parse each template on the pool; the FreeMarker cache parses
+            // outside of its lock
+            for(final TemplateItem item : items)
+            {
+                results.add(executor.submit(new Callable<String>()
+                {
+                    @Override
+                    public String call()
+                    {
+                        try
+                        {
+                            fmConfig.getTemplate(item.getPath());
+                            return null;
+                        }
+                        catch(IOException ex)
+                        {
+                            return ex.getMessage();
+                        }
+                    }
+                }));
+            }
+            // Check every template parsed
+            boolean success = true;
+            String error;
+            for(int i = 0; i < items.length; i++)
+            {
+                error = results.get(i).get();
+                if(error != null)
+                {
+                    core.getLogging().log(LOGGING_ALIAS, "Failed to precompile template '" + items[i].getPath() + "' ~ plugin [" + (items[i].getPluginUUID() != null ? items[i].getPluginUUID().getHexHyphens() : "unknown") + "]: " + error, Logging.EntryType.Error);
+                    success = false;
+                }
+            }
+            if(success)
+                core.getLogging().log(LOGGING_ALIAS, "Precompiled " + items.length + " template(s) in " + (System.currentTimeMillis()-start) + " ms.", Logging.EntryType.Info);
+            return success;
+        }
+        catch(InterruptedException | ExecutionException ex)
+        {
+            core.getLogging().logEx(LOGGING_ALIAS, "Failed to precompile templates.", ex, Logging.EntryType.Error);
+            return false;
+        }
+        finally
+        {
+            executor.shutdown();
+        }
     }
     /**
      * Loads a template from file.
@@ -259,6 +375,15 @@ public class TemplateManager
         }
         // Pass to loader for processing
         fmLoader.put(plugin, path, content);
+        fragments.remove(path);
+        // Remove any previous version from the cache
+        try
+        {
+            fmConfig.removeTemplateFromCache(path);
+        }
+        catch(IOException ex)
+        {
+        }
         core.getLogging().log(LOGGING_ALIAS, "Registered template '" + path + "' ~ plugin [" + (plugin != null ? plugin.getUUID().getHexHyphens() : "unknown") + "].", Logging.EntryType.Info);
         return true;
     }
@@ -271,7 +396,7 @@ public class TemplateManager
      * cannot be found.
      * @since 1.0
      */
-    public synchronized String render(WebRequestData data, String path)
+    public String render(WebRequestData data, String path)
     {
         return render(data, data.getTemplateMap(), path);
     }
@@ -285,26 +410,194 @@ public class TemplateManager
      * cannot be found.
      * @since 1.0
      */
-    public synchronized String render(WebRequestData data, HashMap<String,Object> kvs, String path)
+    public String render(WebRequestData data, HashMap<String,Object> kvs, String path)
+    {
+        StringWriter sw = new StringWriter();
+        return render(data, kvs, path, sw) ? sw.toString() : null;
+    }
+    /**
+     * Renders content, using the template data of the request, to a writer.
+     * 
+     * @param data The data from a web-request.
+     * @param path The path of the template to be rendered.
+     * @param out The writer for the rendered data.
+     * @return True = rendered, false = template not found or failed.
+     * @since 1.0
+     */
+    public boolean render(WebRequestData data, String path, Writer out)
+    {
+        return render(data, data.getTemplateMap(), path, out);
+    }
+    /**
+     * Renders content to a writer.
+     * 
+     * Note: if rendering fails, any partial output is discarded when writing
+     * to a ResponseSink; other writers may have received partial output.
+     * 
+     * @param data The data from a web-request; can be null when rendering
+     * outside of a request, such as from a background thread.
+     * @param kvs The set of key-values to use for template items.
+     * @param path The path of the template to be rendered.
+     * @param out The writer for the rendered data.
+     * @return True = rendered, false = template not found or failed.
+     * @since 1.0
+     */
+    public boolean render(WebRequestData data, HashMap<String,Object> kvs, String path, Writer out)
     {
         if(path == null)
-            return null;
+            return false;
+        ResponseSink sink = out instanceof ResponseSink ? (ResponseSink)out : null;
+        int mark = sink != null ? sink.size() : 0;
         try
         {
             // Fetch template
             Template t = fmConfig.getTemplate(path);
             if(t == null)
-                return null;
+                return false;
             // Process template for the current context
-            StringWriter sw = new StringWriter();
-            t.process(kvs, sw);
-            return sw.toString();
+            t.process(kvs, out);
+            return true;
         }
         catch(IOException | TemplateException ex)
         {
-            core.getLogging().logEx(LOGGING_ALIAS, "Could not render template for request '" + data.getRequestData().getRelativeUrl() + "', IP: '" + data.getRequestData().getIpAddress() + "'.", ex, Logging.EntryType.Warning);
+            if(sink != null)
+                sink.truncate(mark);
+            if(data == null)
+                core.getLogging().logEx(LOGGING_ALIAS, "Could not render template '" + path + "'.", ex, Logging.EntryType.Warning);
+            else
+                core.getLogging().logEx(LOGGING_ALIAS, "Could not render template for request '" + data.getRequestData().getRelativeUrl() + "', IP: '" + data.getRequestData().getIpAddress() + "'.", ex, Logging.EntryType.Warning);
+            return false;
+        }
+    }
+    /**
+     * Renders content to a byte-stream, encoded as UTF-8.
+     * 
+     * @param data The data from a web-request.
+     * @param kvs The set of key-values to use for template items.
+     * @param path The path of the template to be rendered.
+     * @param out The stream for the rendered data.
+     * @return True = rendered, false = template not found or failed.
+     * @since 1.0
+     */
+    public boolean render(WebRequestData data, HashMap<String,Object> kvs, String path, OutputStream out)
+    {
+        Writer w = new OutputStreamWriter(out, Charset.forName("UTF-8"));
+        if(!render(data, kvs, path, w))
+            return false;
+        try
+        {
+            w.flush();
+            return true;
+        }
+        catch(IOException ex)
+        {
+            core.getLogging().logEx(LOGGING_ALIAS, "Could not write rendered template '" + path + "'.", ex, Logging.EntryType.Warning);
+            return false;
+        }
+    }
+    /**
+     * Renders content, appending it to a string-builder; used for rendering
+     * fragments of a page. If rendering fails, nothing is appended.
+     * 
+     * @param data The data from a web-request.
+     * @param kvs The set of key-values to use for template items.
+     * @param path The path of the template to be rendered.
+     * @param out The string-builder for the rendered data.
+     * @return True = rendered, false = template not found or failed.
+     * @since 1.0
+     */
+    public boolean render(WebRequestData data, HashMap<String,Object> kvs, String path, final StringBuilder out)
+    {
+        int mark = out.length();
+        boolean rendered = render(data, kvs, path, new Writer()
+        {
+            @Override
+            public void write(int c)
+            {
+                out.append((char)c);
+            }
+            @Override
+            public void write(char[] cbuf, int off, int len)
+            {
+                out.append(cbuf, off, len);
+            }
+            @Override
+            public void write(String str, int off, int len)
+            {
+                out.append(str, off, off+len);
+            }
+            @Override
+            public void flush()
+            {
+            }
+            @Override
+            public void close()
+            {
+            }
+        });
+        if(!rendered)
+            out.setLength(mark);
+        return rendered;
+    }
+    /**
+     * Renders a fragment, using the fragment cache; the fragment is only
+     * rendered if it is not cached, or the cached fragment is of an older, or
+     * any other, version.
+     * 
+     * The data of the fragment must only depend on the key and version, thus
+     * data specific to a user or request, e.g. CSRF tokens, must not be
+     * included in a cached fragment.
+     * 
+     * @param data The data from a web-request.
+     * @param kvs The set of key-values to use for template items.
+     * @param path The path of the template to be rendered.
+     * @param plugin The plugin rendering the fragment; fragments are removed
+     * when the plugin is unloaded. Can be null.
+     * @param key The key of the fragment, unique for the template.
+     * @param version The version of the data of the fragment.
+     * @return The rendered data, or null if the template cannot be rendered.
+     * @since 1.0
+     */
+    public String renderCached(WebRequestData data, HashMap<String,Object> kvs, String path, Plugin plugin, String key, long version)
+    {
+        if(path == null || key == null)
             return null;
+        String content = fragments.get(path, key, version);
+        if(content == null)
+        {
+            // Read the generation first, so a template removed during rendering is not cached
+            long generation = fragments.getGeneration();
+            content = render(data, kvs, path);
+            if(content != null)
+            {
+                TemplateItem item = fmLoader.getItem(path);
+                fragments.put(generation, plugin != null ? plugin.getUUID() : null, item != null ? item.getPluginUUID() : null, path, key, version, content);
+            }
         }
+        return content;
+    }
+    /**
+     * Renders a fragment, using the fragment cache, and appends it to a
+     * string-builder; refer to renderCached(WebRequestData, HashMap, String,
+     * Plugin, String, long).
+     * 
+     * @param data The data from a web-request.
+     * @param kvs The set of key-values to use for template items.
+     * @param path The path of the template to be rendered.
+     * @param plugin The plugin rendering the fragment; can be null.
+     * @param key The key of the fragment, unique for the template.
+     * @param version The version of the data of the fragment.
+     * @param out The string-builder for the rendered data.
+     * @return True = rendered, false = template not found or failed.
+     * @since 1.0
+     */
+    public boolean renderCached(WebRequestData data, HashMap<String,Object> kvs, String path, Plugin plugin, String key, long version, StringBuilder out)
+    {
+        String content = renderCached(data, kvs, path, plugin, key, version);
+        if(content == null)
+            return false;
+        out.append(content);
+        return true;
     }
     // Methods - Mutators ******************************************************
     /**
@@ -316,6 +609,7 @@ public class TemplateManager
     {
         fmLoader.clear();                   // Clear templates
         fmConfig.clearTemplateCache();      // Clear cache
+        fragments.clear();                  // Clear fragments
     }
     /**
      * Removes a template.
@@ -327,6 +621,7 @@ public class TemplateManager
     {
         // Remove from collection
         fmLoader.remove(path);
+        fragments.remove(path);
         // Remove from cache
         try
         {
@@ -338,10 +633,7 @@ public class TemplateManager
     }
     /**
      * Unloads all the templates and registered template functions belonging to
-     * a plugin.
-     * 
-     * Warning: this call could be expensive, due to clearing the template
-     * cache; therefore use infrequently.
+     * a plugin; only the templates of the plugin are removed from the cache.
      * 
      * @param plugin The identifier of the plugin.
      * @since 1.0
@@ -349,12 +641,36 @@ public class TemplateManager
     public synchronized void remove(Plugin plugin)
     {
         UUID pluginUuid = plugin.getUUID();
+        TemplateItem[] items = fmLoader.getItems();
         // Remove templates
         fmLoader.remove(plugin);
-        // Clear cache
-        fmConfig.clearTemplateCache();
+        fragments.remove(pluginUuid);
+        // Remove the templates of the plugin from the cache
+        for(TemplateItem item : items)
+        {
+            if(pluginUuid.equals(item.getPluginUUID()))
+            {
+                try
+                {
+                    fmConfig.removeTemplateFromCache(item.getPath());
+                }
+                catch(IOException ex)
+                {
+                }
+            }
+        }
     }
     // Methods - Accessors *****************************************************
+    /**
+     * Fetches the cache of rendered fragments, for metrics and tuning.
+     * 
+     * @return The fragment cache.
+     * @since 1.0
+     */
+    public TemplateFragmentCache getFragmentCache()
+    {
+        return fragments;
+    }
     /**
      * Indicates if the collection contains a template.
      * 
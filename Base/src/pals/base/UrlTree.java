@@ -27,7 +27,6 @@
 package pals.base;
 
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.Map;
 
 /**
@@ -52,6 +51,10 @@ import java.util.Map;
  * This allows for a very flexible URL rewriting system to be implemented
  * between plugins, however the same path cannot be mapped multiple times.
  * 
+ * Look-ups are served from an immutable snapshot of the tree, which is
+ * rebuilt and published whenever the tree is modified; thus look-ups never
+ * block and do not contend with each other.
+ * 
  * Thread-safe.
  * 
  * @version 1.0
@@ -71,7 +74,8 @@ public class UrlTree
         Success
     }
     // Fields ******************************************************************
-    private UrlTreeNode root;   // The root node of the tree.
+    private UrlTreeNode                 root;       // The root node of the tree; only accessed whilst synchronized.
+    private volatile UrlTreeSnapshot    snapshot;   // Immutable copy of the tree, used for look-ups.
     // Methods - Constructors **************************************************
     /**
      * Creates a new empty URL tree.
@@ -117,6 +121,7 @@ public class UrlTree
         // Note: terminator must be false due to methods such as getUuids
         // using the terminator indicator to add paths
         this.root = new UrlTreeNode(null, false);
+        publish();
     }
     /**
      * Adds a new path to the URL tree.
@@ -132,7 +137,12 @@ public class UrlTree
             return RegisterStatus.Failed_Malformed;
         // Either return malformed (null parts) or recurse parts and add them...
         String[] parts = createParts(path);
-        return parts == null ? RegisterStatus.Failed_Malformed : add(plugin.getUUID(), root, 0, parts);
+        if(parts == null)
+            return RegisterStatus.Failed_Malformed;
+        RegisterStatus rs = add(plugin.getUUID(), root, 0, parts);
+        if(rs == RegisterStatus.Success)
+            publish();
+        return rs;
     }
     private synchronized RegisterStatus add(UUID uuid, UrlTreeNode currNode, int pathOffset, String[] pathParts)
     {
@@ -172,6 +182,15 @@ public class UrlTree
     {
         // Iterate each node recursively
         root.purge(plugin.getUUID());
+        publish();
+    }
+    /**
+     * Publishes a new snapshot of the tree for look-ups; must be invoked
+     * after every modification.
+     */
+    private synchronized void publish()
+    {
+        snapshot = UrlTreeSnapshot.create(root);
     }
     // Methods - Accessors *****************************************************
     /**
@@ -186,29 +205,49 @@ public class UrlTree
      */
     public UUID[] getUUIDs(String path)
     {
-        ArrayList<UUID> result = new ArrayList<>();
-        // Explode into parts
-        String[] parts = createParts(path);
-        if(parts == null)           // Invalid path...
-            return new UUID[0];
-        // Iterate tree for best matches
-        UrlTreeNode curr = root;
-        int partOffset = 0;
-        UUID uuid;
+        return getRoutes(path).clone();
+    }
+    /**
+     * The same as {@link #getUUIDs(java.lang.String)}, except the array
+     * returned is shared and must not be modified; this avoids any
+     * allocation.
+     * 
+     * @param path The path of which to fetch plugins.
+     * @return Array of plugins for the specified path; never null.
+     * @since 1.0
+     */
+    UUID[] getRoutes(String path)
+    {
+        UrlTreeSnapshot curr = snapshot;
+        // Trim whitespace, same as createParts
+        int start = 0, end = path.length();
+        while(start < end && path.charAt(start) <= ' ')
+            start++;
+        while(end > start && path.charAt(end-1) <= ' ')
+            end--;
+        // Remove the leading slash and any tailing slashes
+        if(start < end && path.charAt(start) == '/')
+            start++;
+        while(end > start && path.charAt(end-1) == '/')
+            end--;
+        if(start >= end)            // Invalid path...
+            return curr.routes;
+        // Walk the tree for the deepest match; each node already holds the
+        // plugins from itself towards the root
+        UrlTreeSnapshot next;
+        int partEnd;
         do
         {
-            curr = curr.get(parts[partOffset]);
-            if(curr != null && curr.isTerminator())
-            {
-                uuid = curr.getUuid();
-                if(uuid != null && !result.contains(uuid))
-                    result.add(uuid);
-            }
+            partEnd = path.indexOf('/', start);
+            if(partEnd == -1 || partEnd > end)
+                partEnd = end;
+            if((next = curr.get(path, start, partEnd)) == null)
+                break;
+            curr = next;
+            start = partEnd+1;
         }
-        while(curr != null && ++partOffset < parts.length);
-        // Reverse the list - the most likely candidates are those further down the tree
-        Collections.reverse(result);
-        return result.toArray(new UUID[result.size()]);
+        while(start <= end);
+        return curr.routes;
     }
 
     // Methods - Debug *********************************************************
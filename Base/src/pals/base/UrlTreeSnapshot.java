@@ -0,0 +1,130 @@
+/*
+    The MIT License (MIT)
+
+    Copyright (c) 2014 Marcus Craske <limpygnome@gmail.com>
+
+    Permission is hereby granted, free of charge, to any person obtaining a copy
+    of this software and associated documentation files (the "Software"), to deal
+    in the Software without restriction, including without limitation the rights
+    to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+    copies of the Software, and to permit persons to whom the Software is
+    furnished to do so, subject to the following conditions:
+
+    The above copyright notice and this permission notice shall be included in
+    all copies or substantial portions of the Software.
+
+    THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+    IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+    FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+    AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+    LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+    OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+    THE SOFTWARE.
+    ----------------------------------------------------------------------------
+    Authors:    Marcus Craske           <limpygnome@gmail.com>
+    ----------------------------------------------------------------------------
+*/
+package pals.base;
+
+import java.util.Map;
+
+/**
+ * An immutable node of a frozen copy of a {@link UrlTree}, used to serve
+ * look-ups without any locking.
+ * 
+ * Each node holds the plugins able to serve a request ending at the node,
+ * already ordered from the deepest directory towards the root and without
+ * duplicates; thus a look-up only needs to walk the path.
+ * 
+ * Children are held in an open-addressing table keyed by the hash of the
+ * directory name, which allows a directory to be matched against a region of
+ * the requested path without creating a sub-string.
+ * 
+ * Thread-safe (immutable).
+ * 
+ * @version 1.0
+ */
+class UrlTreeSnapshot
+{
+    // Fields ******************************************************************
+    private final String[]          keys;       // The directory names of the children; null for empty slots.
+    private final int[]             hashes;     // The hash of each directory name.
+    private final UrlTreeSnapshot[] children;   // The child node of each directory name.
+    private final int               mask;       // Mask applied to hashes to find a slot.
+    final UUID[]                    routes;     // The plugins able to serve a path ending at this node, deepest first.
+    // Methods - Constructors **************************************************
+    private UrlTreeSnapshot(UrlTreeNode node, UUID[] parentRoutes)
+    {
+        // Compute the routes of this node
+        UUID uuid = node.getUuid();
+        if(node.isTerminator() && uuid != null && !contains(parentRoutes, uuid))
+        {
+            routes = new UUID[parentRoutes.length+1];
+            routes[0] = uuid;
+            System.arraycopy(parentRoutes, 0, routes, 1, parentRoutes.length);
+        }
+        else
+            routes = parentRoutes;
+        // Build the table of children; kept at most half full
+        int size = 2;
+        while(size < node.children.size()*2)
+            size <<= 1;
+        keys = new String[size];
+        hashes = new int[size];
+        children = new UrlTreeSnapshot[size];
+        mask = size-1;
+        int slot;
+        for(Map.Entry<String,UrlTreeNode> kv : node.children.entrySet())
+        {
+            slot = kv.getKey().hashCode() & mask;
+            while(keys[slot] != null)
+                slot = (slot+1) & mask;
+            keys[slot] = kv.getKey();
+            hashes[slot] = kv.getKey().hashCode();
+            children[slot] = new UrlTreeSnapshot(kv.getValue(), routes);
+        }
+    }
+    // Methods *****************************************************************
+    /**
+     * Creates a frozen copy of a tree.
+     * 
+     * @param root The root node of the tree.
+     * @return The root of the frozen copy.
+     */
+    static UrlTreeSnapshot create(UrlTreeNode root)
+    {
+        return new UrlTreeSnapshot(root, new UUID[0]);
+    }
+    private static boolean contains(UUID[] uuids, UUID uuid)
+    {
+        for(UUID u : uuids)
+            if(u.equals(uuid))
+                return true;
+        return false;
+    }
+    // Methods - Accessors *****************************************************
+    /**
+     * Fetches the child for a directory, held as a region of a path.
+     * 
+     * @param path The path containing the directory.
+     * @param start The start index of the directory.
+     * @param end The end index (exclusive) of the directory.
+     * @return The child node or null.
+     */
+    UrlTreeSnapshot get(String path, int start, int end)
+    {
+        // Compute the hash the same way as String.hashCode
+        int hash = 0;
+        for(int i = start; i < end; i++)
+            hash = 31*hash + path.charAt(i);
+        // Probe the table
+        int len = end-start;
+        String key;
+        for(int slot = hash & mask; (key = keys[slot]) != null; slot = (slot+1) & mask)
+        {
+            if(hashes[slot] == hash && key.length() == len && path.regionMatches(start, key, 0, len))
+                return children[slot];
+        }
+        return null;
+    }
+}
@@ -45,6 +45,10 @@ import pals.base.web.WebRequestData;
  * Therefore only one plugin may own a folder, however a sub-directory or/and
  * root can be owned by different plugins.
  * 
+ * Plugins can also mark URLs as cacheable for anonymous users, in which case
+ * the whole page is cached and served without the request reaching a plugin;
+ * refer to {@link WebPageCache}.
+ * 
  * Thread-safe.
  * 
  * @version 1.0
@@ -55,8 +59,9 @@ public class WebManager
     private static final String LOGGING_ALIAS = "PALS Web Man.";
     private static final String DEFAULT_URL = "home";
     // Fields ******************************************************************
-    private NodeCore    core;           // The current instance of the node core.
-    private UrlTree     urls;           // Used for finding which plugins are used when forwarding requests.
+    private NodeCore            core;       // The current instance of the node core.
+    private final UrlTree       urls;       // Used for finding which plugins are used when forwarding requests.
+    private final WebPageCache  pages;      // Cache of pages for anonymous users.
     // Methods - Constructors **************************************************
     /**
      * Creates a new web-manager.
@@ -68,6 +73,7 @@ public class WebManager
     {
         this.core = core;
         this.urls = new UrlTree();
+        this.pages = new WebPageCache();
     }
     // Methods *****************************************************************
     /**
@@ -79,8 +85,9 @@ public class WebManager
     public synchronized boolean reload()
     {
         core.getLogging().log(LOGGING_ALIAS, "Reloading all URLs.", Logging.EntryType.Info);
-        // Clear existing tree
+        // Clear existing tree and cacheable URLs
         urls.reset();
+        pages.clear();
         // Invoke all the plugins to re-register their URLs
         for(Plugin p : core.getPlugins().getPlugins())
         {
@@ -102,7 +109,12 @@ public class WebManager
     public void handleWebRequest(RemoteRequest request, RemoteResponse response)
     {
         long timeStart = System.currentTimeMillis();
-        core.getLogging().log(LOGGING_ALIAS, "New request from '" + request.getIpAddress() + "' ~ '" + request.getRelativeUrl() + "'.", Logging.EntryType.Info);
+        core.getLogging().log(LOGGING_ALIAS, Logging.EntryType.Info, "New request from '%s' ~ '%s'.", request.getIpAddress(), request.getRelativeUrl());
+        // Serve the page from the cache, if possible
+        // -- This skips the database, session and request hooks
+        String pageKey = pages.getKey(request, request.getRelativeUrl().length() > 0 ? request.getRelativeUrl() : DEFAULT_URL);
+        if(pageKey != null && pages.serve(pageKey, response))
+            return;
         // Create a new connection to the database
         Connector conn = core.createConnector();
         if(conn == null)
@@ -122,7 +134,7 @@ public class WebManager
             {
                 data.getRequestData().setRelativeUrl(relUrl = DEFAULT_URL);
             }
-            UUID[] uuids = urls.getUUIDs(relUrl.length() > 0 ? relUrl : DEFAULT_URL);
+            UUID[] uuids = urls.getRoutes(relUrl.length() > 0 ? relUrl : DEFAULT_URL);
             Plugin ph;
             boolean handled = false;
             for(UUID uuid : uuids)
@@ -165,14 +177,18 @@ public class WebManager
         data.setTemplateData("data", data);
         // Render template and update response data
         // -- Unless the buffer has been set manually
-        if(response.getBuffer() == null || response.getBuffer().length == 0)
+        // -- The page is streamed straight into the sink of the response
+        if(response.isBufferEmpty())
         {
             String template = (String)data.getTemplateData("pals_page");
-            String dd = core.getTemplates().render(data,  template != null ? template : "pals/page");
-            response.setBuffer(dd);
+            core.getTemplates().render(data, template != null ? template : "pals/page", response.getSink());
+            // Cache the page, unless the session has been used
+            if(pageKey != null)
+                pages.store(pageKey, data, response);
         }
         // Update session data in response
-        response.setSessionID(data.getSession().getIdBase64());
+        // -- An empty session is not persisted, thus it has no identifier
+        response.setSessionID(data.getSession().isEmpty() ? null : data.getSession().getIdBase64());
         response.setSessionPrivate(data.getSession().isPrivate());
         // Persist session data
         try
@@ -193,10 +209,20 @@ public class WebManager
      * @return The URL tree used to store the plugins used to handle paths/URLs.
      * @since 1.0
      */
-    public synchronized UrlTree getUrlTree()
+    public UrlTree getUrlTree()
     {
         return urls;
     }
+    /**
+     * Fetches the cache of pages for anonymous users.
+     * 
+     * @return The page cache.
+     * @since 1.0
+     */
+    public WebPageCache getPageCache()
+    {
+        return pages;
+    }
     // Methods - Mutators ******************************************************
     /**
      * Used to register paths for forwarding web-requests to a {@link Plugin}.
@@ -233,6 +259,24 @@ public class WebManager
     public synchronized void urlsUnregister(Plugin plugin)
     {
         if(plugin != null)
+        {
             urls.remove(plugin);
+            pages.unregister(plugin);
+        }
+    }
+    /**
+     * Marks a path, registered by a {@link Plugin}, as cacheable for anonymous
+     * users; the page is rendered at most once per time-to-live, for requests
+     * without a session, fields or files. The page must not depend on the
+     * request in any other way.
+     * 
+     * @param plugin The plugin owning the path.
+     * @param path The relative path.
+     * @param ttl The number of seconds a rendered page is cached.
+     * @since 1.0
+     */
+    public void urlsCacheable(Plugin plugin, String path, int ttl)
+    {
+        pages.register(plugin, path, ttl);
     }
 }
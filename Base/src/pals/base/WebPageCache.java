@@ -0,0 +1,267 @@
+/*
+    The MIT License (MIT)
+
+    Copyright (c) 2014 Marcus Craske <limpygnome@gmail.com>
+
+    Permission is hereby granted, free of charge, to any person obtaining a copy
+    of this software and associated documentation files (the "Software"), to deal
+    in the Software without restriction, including without limitation the rights
+    to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+    copies of the Software, and to permit persons to whom the Software is
+    furnished to do so, subject to the following conditions:
+
+    The above copyright notice and this permission notice shall be included in
+    all copies or substantial portions of the Software.
+
+    THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+    IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+    FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+    AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+    LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+    OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+    THE SOFTWARE.
+    ----------------------------------------------------------------------------
+    Authors:    Marcus Craske           <limpygnome@gmail.com>
+    ----------------------------------------------------------------------------
+*/
+package pals.base;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import pals.base.web.RemoteRequest;
+import pals.base.web.RemoteResponse;
+import pals.base.web.WebRequestData;
+
+/**
+ * A cache of whole pages served to anonymous users, for URLs marked as
+ * cacheable by plugins; a cached page is served without a database
+ * connection, session or plugin being involved.
+ * 
+ * A request can only be served from, or stored in, the cache when it has no
+ * session cookie, fields or files. A rendered page is only stored when its
+ * session remained empty, thus pages with e.g. a CSRF token or captcha are
+ * never stored, as well as when the response is a 200 without a redirect.
+ * 
+ * Thread-safe.
+ * 
+ * @version 1.0
+ */
+public class WebPageCache
+{
+    // Fields ******************************************************************
+    private volatile HashMap<String,Rule>           rules;      // URL to caching rule; replaced, never mutated, once published.
+    private final ConcurrentHashMap<String,Page>    pages;      // URL to cached page.
+    private final AtomicLong                        hits;       // The number of requests served from the cache.
+    private final AtomicLong                        misses;     // The number of cacheable requests not served from the cache.
+    // Methods - Constructors **************************************************
+    /**
+     * Constructs a new instance.
+     * 
+     * @since 1.0
+     */
+    public WebPageCache()
+    {
+        this.rules = new HashMap<>();
+        this.pages = new ConcurrentHashMap<>();
+        this.hits = new AtomicLong();
+        this.misses = new AtomicLong();
+    }
+    // Methods *****************************************************************
+    /**
+     * Marks a URL as cacheable for anonymous users.
+     * 
+     * @param plugin The plugin owning the URL.
+     * @param url The relative URL, e.g. 'home'.
+     * @param ttl The number of seconds a page is cached; must be above zero.
+     * @since 1.0
+     */
+    public synchronized void register(Plugin plugin, String url, int ttl)
+    {
+        if(plugin == null || url == null)
+            throw new IllegalArgumentException("Plugin and URL cannot be null.");
+        if(ttl <= 0)
+            throw new IllegalArgumentException("TTL must be above zero.");
+        HashMap<String,Rule> rules = new HashMap<>(this.rules);
+        url = normalize(url);
+        rules.put(url, new Rule(plugin.getUUID(), ttl*1000L));
+        pages.remove(url);
+        this.rules = rules;
+    }
+    /**
+     * Removes all the URLs, and their cached pages, of a plugin.
+     * 
+     * @param plugin The plugin.
+     * @since 1.0
+     */
+    public synchronized void unregister(Plugin plugin)
+    {
+        HashMap<String,Rule> rules = new HashMap<>(this.rules);
+        Iterator<Map.Entry<String,Rule>> it = rules.entrySet().iterator();
+        Map.Entry<String,Rule> kv;
+        while(it.hasNext())
+        {
+            kv = it.next();
+            if(kv.getValue().plugin.equals(plugin.getUUID()))
+            {
+                it.remove();
+                pages.remove(kv.getKey());
+            }
+        }
+        this.rules = rules;
+    }
+    /**
+     * Removes all URLs and cached pages.
+     * 
+     * @since 1.0
+     */
+    public synchronized void clear()
+    {
+        rules = new HashMap<>();
+        pages.clear();
+    }
+    /**
+     * Removes all cached pages; the URLs remain cacheable.
+     * 
+     * @since 1.0
+     */
+    public void invalidate()
+    {
+        pages.clear();
+    }
+    /**
+     * Determines if a request can use the cache.
+     * 
+     * @param request The request.
+     * @param url The relative URL of the request.
+     * @return The key of the page in the cache, or null if the request
+     * cannot use the cache.
+     * @since 1.0
+     */
+    public String getKey(RemoteRequest request, String url)
+    {
+        if(request.getSessionID() != null || !request.getFieldsMap().isEmpty() || !request.getFilesMap().isEmpty())
+            return null;
+        url = normalize(url);
+        return rules.containsKey(url) ? url : null;
+    }
+    /**
+     * Writes a cached page to a response.
+     * 
+     * @param key The key from getKey.
+     * @param response The response.
+     * @return True = served, false = not cached or expired.
+     * @since 1.0
+     */
+    public boolean serve(String key, RemoteResponse response)
+    {
+        Page p = pages.get(key);
+        if(p == null || p.expires < System.currentTimeMillis())
+        {
+            misses.incrementAndGet();
+            return false;
+        }
+        response.setBuffer(p.buffer);
+        response.setResponseType(p.responseType);
+        response.setResponseCode(p.responseCode);
+        if(p.headers != null)
+        {
+            for(Map.Entry<String,String> kv : p.headers.entrySet())
+                response.setHeader(kv.getKey(), kv.getValue());
+        }
+        hits.incrementAndGet();
+        return true;
+    }
+    /**
+     * Stores a rendered page, if it can be cached.
+     * 
+     * @param key The key from getKey.
+     * @param data The data of the request.
+     * @param response The response.
+     * @return True = stored, false = not cacheable.
+     * @since 1.0
+     */
+    public boolean store(String key, WebRequestData data, RemoteResponse response)
+    {
+        if(!data.getSession().isEmpty() || data.getUser() != null)
+            return false;
+        return put(key, response);
+    }
+    boolean put(String key, RemoteResponse response)
+    {
+        Rule r = rules.get(key);
+        if(r == null || response.getRedirectUrl() != null || response.getResponseCode() != 200 || response.isBufferEmpty())
+            return false;
+        pages.put(key, new Page(response, System.currentTimeMillis()+r.ttl));
+        return true;
+    }
+    private static String normalize(String url)
+    {
+        int start = 0, end = url.length();
+        while(start < end && url.charAt(start) == '/')
+            start++;
+        while(end > start && url.charAt(end-1) == '/')
+            end--;
+        return url.substring(start, end);
+    }
+    // Methods - Accessors *****************************************************
+    /**
+     * The number of requests served from the cache.
+     * 
+     * @return The number of hits.
+     * @since 1.0
+     */
+    public long getHits()
+    {
+        return hits.get();
+    }
+    /**
+     * The number of cacheable requests not served from the cache.
+     * 
+     * @return The number of misses.
+     * @since 1.0
+     */
+    public long getMisses()
+    {
+        return misses.get();
+    }
+    /**
+     * The number of pages currently cached.
+     * 
+     * @return The number of pages.
+     * @since 1.0
+     */
+    public int size()
+    {
+        return pages.size();
+    }
+    // Classes *****************************************************************
+    private static class Rule
+    {
+        final UUID      plugin;     // The plugin owning the URL.
+        final long      ttl;        // The time-to-live of pages, in milliseconds.
+        Rule(UUID plugin, long ttl)
+        {
+            this.plugin = plugin;
+            this.ttl = ttl;
+        }
+    }
+    private static class Page
+    {
+        final byte[]                    buffer;         // The response data.
+        final String                    responseType;   // The MIME type.
+        final int                       responseCode;   // The response code.
+        final HashMap<String,String>    headers;        // The headers; null if none.
+        final long                      expires;        // The time at which the page expires.
+        Page(RemoteResponse response, long expires)
+        {
+            this.buffer = response.getBuffer();
+            this.responseType = response.getResponseType();
+            this.responseCode = response.getResponseCode();
+            this.headers = response.isHeadersAvailable() ? new HashMap<>(response.getHeaders()) : null;
+            this.expires = expires;
+        }
+    }
+}
@@ -0,0 +1,217 @@
+/*
+    The MIT License (MIT)
+
+    Copyright (c) 2014 Marcus Craske <limpygnome@gmail.com>
+
+    Permission is hereby granted, free of charge, to any person obtaining a copy
+    of this software and associated documentation files (the "Software"), to deal
+    in the Software without restriction, including without limitation the rights
+    to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+    copies of the Software, and to permit persons to whom the Software is
+    furnished to do so, subject to the following conditions:
+
+    The above copyright notice and this permission notice shall be included in
+    all copies or substantial portions of the Software.
+
+    THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+    IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+    FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+    AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+    LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+    OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+    THE SOFTWARE.
+    ----------------------------------------------------------------------------
+    Authors:    Marcus Craske           <limpygnome@gmail.com>
+    ----------------------------------------------------------------------------
+*/
+package pals.base.assessment;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import pals.base.NodeCore;
+import pals.base.utils.GenerationalCache;
+
+/**
+ * A node-local cache of assessment definitions - questions and their
+ * criteria; this avoids loading, and deserializing the data of, the same
+ * definitions for every student viewing a question and every item of marking
+ * work.
+ * 
+ * The cached models are never modified; copies of the models are handed out,
+ * but the deserialized data of each model is shared between all copies and
+ * therefore must be treated as read-only. Code which modifies the data, such
+ * as editing a question, should load the model directly instead.
+ * 
+ * The models invalidate the cache when persisted or removed; the invalidation
+ * is also sent to every other node as a global event, refer to EVENT and
+ * {@link GenerationalCache}.
+ * 
+ * Thread-safe.
+ * 
+ * @version 1.0
+ */
+public class AssessmentCache extends GenerationalCache<AssessmentCache.Type>
+{
+    // Enums *******************************************************************
+    /**
+     * The type of data being invalidated.
+     * 
+     * @since 1.0
+     */
+    public enum Type
+    {
+        /**
+         * Questions, by question identifier; this includes the criteria of
+         * the questions.
+         * 
+         * @since 1.0
+         */
+        Question,
+        /**
+         * Question criteria, by criteria identifier.
+         * 
+         * @since 1.0
+         */
+        Criteria,
+        /**
+         * All data; identifiers are ignored. Used when question or criteria
+         * types change.
+         * 
+         * @since 1.0
+         */
+        All
+    }
+    // Fields - Constants ******************************************************
+    /**
+     * The global event for invalidating the cache on all nodes; the data is
+     * the type and an array of identifiers (int[]).
+     * 
+     * @since 1.0
+     */
+    public static final String EVENT = "base.assessment.invalidate";
+    private static final int DEFAULT_CAPACITY = 512;
+    // Fields ******************************************************************
+    private final LinkedHashMap<Integer,Question>           questions;  // Question identifier to question.
+    private final LinkedHashMap<Integer,QuestionCriteria>   criteria;   // Criteria identifier to criteria.
+    // Methods - Constructors **************************************************
+    /**
+     * Constructs a new instance.
+     * 
+     * @since 1.0
+     */
+    public AssessmentCache()
+    {
+        super(EVENT, Type.class, DEFAULT_CAPACITY);
+        this.questions = createBounded();
+        this.criteria = createBounded();
+    }
+    // Methods - Questions *****************************************************
+    /**
+     * Fetches a copy of a cached question; the data of the question is
+     * shared.
+     * 
+     * @param qid The identifier of the question.
+     * @return A copy of the question, or null if not cached.
+     * @since 1.0
+     */
+    public synchronized Question getQuestion(int qid)
+    {
+        Question q = get(questions, qid);
+        return q != null ? q.copy() : null;
+    }
+    /**
+     * Adds a loaded question.
+     * 
+     * @param generation The generation before the question was loaded.
+     * @param qid The identifier of the question.
+     * @param question The question; this must not be modified afterwards.
+     * @since 1.0
+     */
+    public synchronized void putQuestion(long generation, int qid, Question question)
+    {
+        if(qid != -1)
+            put(generation, questions, qid, question.copy());
+    }
+    // Methods - Criteria ******************************************************
+    /**
+     * Fetches a copy of a cached question criteria; the data of the criteria
+     * is shared.
+     * 
+     * @param qcid The identifier of the criteria.
+     * @param question The question of the criteria for the copy; can be null
+     * to use the question cached with the criteria.
+     * @return A copy of the criteria, or null if not cached.
+     * @since 1.0
+     */
+    public synchronized QuestionCriteria getCriteria(int qcid, Question question)
+    {
+        QuestionCriteria qc = get(criteria, qcid);
+        return qc != null ? qc.copy(question != null ? question : qc.getQuestion().copy()) : null;
+    }
+    /**
+     * Adds a loaded question criteria.
+     * 
+     * @param generation The generation before the criteria was loaded.
+     * @param qcid The identifier of the criteria.
+     * @param qc The criteria, with its question; this must not be modified
+     * afterwards.
+     * @since 1.0
+     */
+    public synchronized void putCriteria(long generation, int qcid, QuestionCriteria qc)
+    {
+        if(qcid != -1 && qc.getQuestion() != null)
+            put(generation, criteria, qcid, qc.copy(qc.getQuestion().copy()));
+    }
+    // Methods - Invalidation **************************************************
+    @Override
+    protected void invalidateTables(Type type, int[] ids)
+    {
+        switch(type)
+        {
+            case Question:
+                for(int id : ids)
+                {
+                    questions.remove(id);
+                    // Criteria hold their question
+                    Iterator<QuestionCriteria> it = criteria.values().iterator();
+                    while(it.hasNext())
+                    {
+                        if(it.next().getQuestion().getQID() == id)
+                            it.remove();
+                    }
+                }
+                break;
+            case Criteria:
+                for(int id : ids)
+                    criteria.remove(id);
+                break;
+            case All:
+                questions.clear();
+                criteria.clear();
+                break;
+        }
+    }
+    /**
+     * Invalidates data, on every node, changed by a model.
+     * 
+     * @param type The type of data.
+     * @param ids The identifiers; ignored for type All.
+     */
+    static void changed(Type type, int... ids)
+    {
+        NodeCore core = NodeCore.getInstance();
+        if(core != null)
+            core.getAssessmentCache().invalidate(core, type, ids);
+    }
+    // Methods - Accessors *****************************************************
+    /**
+     * The number of questions cached.
+     * 
+     * @return The number of questions.
+     * @since 1.0
+     */
+    public synchronized int size()
+    {
+        return questions.size();
+    }
+}
@@ -224,8 +224,8 @@ public class AssignmentQuestion
             {
                 ass = Assignment.load(conn, null, (int)res.get("assid"));
             }
-            // Load the question
-            Question question = Question.load(core, conn, (int)res.get("qid"));
+            // Load the question, shared through the cache; its data must not be modified
+            Question question = Question.loadShared(core, conn, (int)res.get("qid"));
             // Create and return instance
             AssignmentQuestion aq = new AssignmentQuestion(ass, question, (int)res.get("weight"), (int)res.get("page"), (int)res.get("page_order"));
             aq.aqid = (int)res.get("aqid");
@@ -141,6 +141,8 @@ public class InstanceAssignment
             }
         }
     }
+    // Fields - Constants ******************************************************
+    private static final int SUBMIT_CHUNK_SIZE = 1000;     // The maximum number of instances per statement, when submitting.
     // Fields ******************************************************************
     private int         aiid;       // The identifier of the assignment instance.
     private User        user;       // The user who is answering this instance of the assignment.
@@ -378,9 +380,88 @@ public class InstanceAssignment
             return false;
         }
     }
+    /**
+     * Submits every active instance of an assignment, creating the criteria
+     * for their answered questions; this is the set-based equivalent of
+     * setting each instance to submitted and invoking
+     * {@link InstanceAssignmentCriteria#createForInstanceAssignment}, thus
+     * the cost is a fixed number of statements per chunk of instances. Old
+     * criterias are not modified where the status is AwaitingManualMarking
+     * or Marked.
+     * 
+     * The status of the instances is changed first, thus only the instances
+     * claimed by this call have their criteria modified; an instance
+     * submitted concurrently by its owner is left to the owner.
+     * 
+     * This should be executed within a transaction, owned by the caller.
+     * 
+     * @param conn Database connector.
+     * @param assid The identifier of the assignment.
+     * @param status The status to give each new criteria.
+     * @return The number of instances submitted, or -1 if an issue occurs.
+     * @since 1.0
+     */
+    public static int submitActive(Connector conn, int assid, InstanceAssignmentCriteria.Status status)
+    {
+        try
+        {
+            // Submit the instances, claiming their identifiers
+            Result res = conn.read("UPDATE pals_assignment_instance SET status=? WHERE assid=? AND status=? RETURNING aiid;",
+                    Status.Submitted.getStatus(),
+                    assid,
+                    Status.Active.getStatus()
+            );
+            ArrayList<Integer> aiids = new ArrayList<>();
+            while(res.next())
+                aiids.add((int)res.get("aiid"));
+            // Create the criteria of the claimed instances, in chunks
+            for(int offset = 0; offset < aiids.size(); offset += SUBMIT_CHUNK_SIZE)
+            {
+                int count = Math.min(SUBMIT_CHUNK_SIZE, aiids.size()-offset);
+                StringBuilder sb = new StringBuilder();
+                for(int i = 0; i < count; i++)
+                    sb.append("?,");
+                sb.deleteCharAt(sb.length()-1);
+                String in = sb.toString();
+                // Remove old criteria awaiting automatic marking
+                Object[] values = new Object[count+2];
+                values[0] = InstanceAssignmentCriteria.Status.AwaitingManualMarking.dbValue;
+                values[1] = InstanceAssignmentCriteria.Status.Marked.dbValue;
+                for(int i = 0; i < count; i++)
+                    values[i+2] = aiids.get(offset+i);
+                conn.execute("DELETE FROM pals_assignment_instance_question_criteria WHERE NOT (status=? OR status=?) AND aiqid IN "
+                        + "(SELECT aiqid FROM pals_assignment_instance_question WHERE aiid IN (" + in + "));",
+                        values
+                );
+                // Create the criteria of every answered question
+                values = new Object[count+1];
+                values[0] = status.dbValue;
+                for(int i = 0; i < count; i++)
+                    values[i+1] = aiids.get(offset+i);
+                conn.execute("INSERT INTO pals_assignment_instance_question_criteria (aiqid,qcid,status,mark) "
+                        + "SELECT aiq.aiqid, qc.qcid, ?, 0 FROM pals_assignment_instance_question AS aiq "
+                        + "JOIN pals_assignment_questions AS aq ON aq.aqid=aiq.aqid "
+                        + "JOIN pals_question_criteria AS qc ON qc.qid=aq.qid "
+                        + "WHERE aiq.aiid IN (" + in + ") AND aiq.answered='1' "
+                        + "AND NOT EXISTS (SELECT 1 FROM pals_assignment_instance_question_criteria AS aiqc WHERE aiqc.aiqid=aiq.aiqid AND aiqc.qcid=qc.qcid);",
+                        values
+                );
+            }
+            return aiids.size();
+        }
+        catch(DatabaseException ex)
+        {
+            NodeCore core;
+            if((core = NodeCore.getInstance())!=null)
+                core.getLogging().logEx("Base", ex, Logging.EntryType.Warning);
+            return -1;
+        }
+    }
     /**
      * Computes the overall mark of the assignment, as well as the instances
-     * of the questions.
+     * of the questions, from all of the criteria; this also re-synchronizes
+     * the counters used for computing the mark incrementally, thus it should
+     * be used when the weights of the questions or criteria have changed.
      * 
      * @param conn Database connector.
      * @return True = successfully marked, false = failed.
@@ -390,25 +471,27 @@ public class InstanceAssignment
     {
         try
         {
-            // Compute marks of each question answered
-            Result res = conn.read(
-                "SELECT aiq.aiqid, CAST(("
+            // Compute marks and counters of each question answered
+            conn.execute(
+                "UPDATE pals_assignment_instance_question AS aiq SET "
+                + "pending = (SELECT COUNT('') FROM pals_assignment_instance_question_criteria AS aiqc WHERE aiqc.aiqid=aiq.aiqid AND NOT aiqc.status=?), "
+                + "mark_sum = COALESCE((SELECT SUM((aiqc.mark/100.0)*qc.weight) FROM pals_assignment_instance_question_criteria AS aiqc LEFT OUTER JOIN pals_question_criteria AS qc ON qc.qcid=aiqc.qcid WHERE aiqc.aiqid=aiq.aiqid), 0), "
+                + "mark = COALESCE(CAST(("
                 + "("
                 + "(SELECT SUM((aiqc.mark/100.0)*qc.weight) FROM pals_assignment_instance_question_criteria AS aiqc LEFT OUTER JOIN pals_question_criteria AS qc ON qc.qcid=aiqc.qcid WHERE aiqc.aiqid=aiq.aiqid)"
                 + "/"
-                + "(SELECT SUM(qc.weight) FROM pals_question_criteria AS qc WHERE qc.qid=aq.qid)"
-                + ") * 100.0) AS double precision) AS mark "
-                + "FROM pals_assignment_instance_question AS aiq LEFT OUTER JOIN pals_assignment_questions AS aq ON aq.aqid=aiq.aqid WHERE aiq.aiid=?;",
+                + "(SELECT SUM(qc.weight) FROM pals_assignment_questions AS aq, pals_question_criteria AS qc WHERE aq.aqid=aiq.aqid AND qc.qid=aq.qid)"
+                + ") * 100.0) AS double precision), aiq.mark) "
+                + "WHERE aiq.aiid=?;",
+                    InstanceAssignmentCriteria.Status.Marked.dbValue,
                     aiid
             );
-            while(res.next())
-            {
-                if(res.get("mark") != null && res.get("aiqid") != null)
-                    conn.execute("UPDATE pals_assignment_instance_question SET mark=? WHERE aiqid=?;", (double)res.get("mark"), (int)res.get("aiqid"));
-            }
-            // Compute mark of assignment
+            // Compute mark and counters of assignment
             mark = (double)conn.executeScalar(
-                "UPDATE pals_assignment_instance AS ai SET mark = "
+                "UPDATE pals_assignment_instance AS ai SET "
+                + "pending = (SELECT COALESCE(SUM(aiq.pending), 0) FROM pals_assignment_instance_question AS aiq WHERE aiq.aiid=ai.aiid), "
+                + "mark_sum = (SELECT COALESCE(SUM((aiq.mark/100.0)*aq.weight), 0) FROM pals_assignment_instance_question AS aiq LEFT OUTER JOIN pals_assignment_questions AS aq ON aq.aqid=aiq.aqid WHERE aiq.aiid=ai.aiid), "
+                + "mark = "
                 + "(SELECT ("
                 + "(SELECT SUM((aiq.mark/100.0)*aq.weight) FROM pals_assignment_instance_question AS aiq LEFT OUTER JOIN pals_assignment_questions AS aq ON aq.aqid=aiq.aqid WHERE aiq.aiid=ai.aiid)"
                 + "/"
@@ -428,6 +511,44 @@ public class InstanceAssignment
             return false;
         }
     }
+    /**
+     * Completes the marking of this instance, if it has been submitted and all
+     * of its criteria have been marked; the mark is computed from the counters
+     * maintained, by the database, as each criteria is marked. This is a
+     * single atomic update, thus only one invocation, from any node, will
+     * complete the marking.
+     * 
+     * @param conn Database connector.
+     * @return True = marking completed by this invocation and the model has
+     * been updated, false = marking not completed or failed.
+     * @since 1.0
+     */
+    public boolean completeMarking(Connector conn)
+    {
+        try
+        {
+            Object value = conn.executeScalar(
+                "UPDATE pals_assignment_instance AS ai SET status=?, "
+                + "mark = CAST(COALESCE((ai.mark_sum / NULLIF((SELECT SUM(aq.weight) FROM pals_assignment_questions AS aq WHERE aq.assid=ai.assid), 0)) * 100.0, 0) AS double precision) "
+                + "WHERE ai.aiid=? AND ai.status=? AND ai.pending=0 RETURNING CAST(mark AS double precision);",
+                    Status.Marked.getStatus(),
+                    aiid,
+                    Status.Submitted.getStatus()
+            );
+            if(value == null)
+                return false;
+            mark = (double)value;
+            status = Status.Marked;
+            return true;
+        }
+        catch(DatabaseException ex)
+        {
+            NodeCore core;
+            if((core = NodeCore.getInstance())!=null)
+                core.getLogging().logEx("Base", ex, Logging.EntryType.Warning);
+            return false;
+        }
+    }
     // Methods - Mutators ******************************************************
     /**
      * Sets the user taking the assignment.
@@ -584,7 +705,8 @@ public class InstanceAssignment
         return p == null ? null : p.getDays()+"d "+p.getHours()+"h "+p.getMinutes()+"m "+p.getSeconds()+"s";
     }
     /**
-     * Indicates if this instance needs the marks computed.
+     * Indicates if this instance needs the marks computed; this reads the
+     * count of pending criteria maintained by the database.
      * 
      * @param conn Database connector.
      * @return Indicates if the assignment requires marking; this also checks
@@ -595,16 +717,12 @@ public class InstanceAssignment
     {
         try
         {
-            Result res = conn.read(
-                    "SELECT (SELECT COUNT('') FROM pals_assignment_instance_question_criteria AS aiqc "
-                    + "LEFT OUTER JOIN pals_assignment_instance_question AS aiq ON aiq.aiqid=aiqc.aiqid "
-                    +"WHERE aiq.aiid=? AND NOT aiqc.status=?) AS unmarked, (SELECT status FROM pals_assignment_instance WHERE aiid=?) AS status;", aiid, InstanceAssignmentCriteria.Status.Marked.dbValue, aiid);
-            
+            Result res = conn.read("SELECT pending AS unmarked, status FROM pals_assignment_instance WHERE aiid=?;", aiid);
             if(res.next())
             {
                 Object  unmarked = res.get("unmarked"),
                         status = res.get("status");
-                return unmarked != null && status != null && (long)unmarked == 0 && Status.parse((int)status) == Status.Submitted;
+                return unmarked != null && status != null && (int)unmarked == 0 && Status.parse((int)status) == Status.Submitted;
             }
             return false;
         }
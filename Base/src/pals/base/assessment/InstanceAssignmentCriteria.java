@@ -29,6 +29,7 @@ package pals.base.assessment;
 import java.io.IOException;
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.HashMap;
 import pals.base.Logging;
 import pals.base.NodeCore;
 import pals.base.database.Connector;
@@ -364,7 +365,7 @@ public class InstanceAssignmentCriteria
             if(iaq == null)
                 return null;
             // Load the question criteria
-            QuestionCriteria qc = QuestionCriteria.load(core, conn, q, (int)res.get("qcid"));
+            QuestionCriteria qc = QuestionCriteria.loadShared(core, conn, q, (int)res.get("qcid"));
             if(qc == null)
                 return null;
             // Load model
@@ -421,7 +422,7 @@ public class InstanceAssignmentCriteria
             QuestionCriteria qc;
             while(data.next())
             {
-                if((qc = QuestionCriteria.load(core, conn, iaq.getAssignmentQuestion().getQuestion(), data)) != null && (iac = load(core, conn, iaq, qc)) != null)
+                if((qc = QuestionCriteria.loadShared(core, conn, iaq.getAssignmentQuestion().getQuestion(), data)) != null && (iac = load(core, conn, iaq, qc, data)) != null)
                     buffer.add(iac);
             }
             return buffer.toArray(new InstanceAssignmentCriteria[buffer.size()]);
@@ -432,6 +433,62 @@ public class InstanceAssignmentCriteria
             return new InstanceAssignmentCriteria[0];
         }
     }
+    /**
+     * Loads all of the models for multiple instances of questions, using a
+     * single query.
+     * 
+     * @param core Current instance of core.
+     * @param conn Database connector.
+     * @param iaqs Instances of assignment questions; cannot contain null.
+     * @return Array of criterias for each instance of a question, in the same
+     * order; arrays can be empty. Returns null if an error occurs.
+     * @since 1.0
+     */
+    public static InstanceAssignmentCriteria[][] loadAll(NodeCore core, Connector conn, InstanceAssignmentQuestion[] iaqs)
+    {
+        InstanceAssignmentCriteria[][] result = new InstanceAssignmentCriteria[iaqs.length][];
+        if(iaqs.length == 0)
+            return result;
+        try
+        {
+            // Map each instance of a question to its position
+            HashMap<Integer,Integer> positions = new HashMap<>();
+            StringBuilder sb = new StringBuilder("SELECT * FROM pals_assignment_instance_question_criteria AS aiqc, pals_question_criteria AS qc WHERE aiqc.aiqid IN (");
+            Object[] values = new Object[iaqs.length];
+            for(int i = 0; i < iaqs.length; i++)
+            {
+                positions.put(iaqs[i].getAIQID(), i);
+                sb.append("?,");
+                values[i] = iaqs[i].getAIQID();
+            }
+            sb.deleteCharAt(sb.length()-1).append(") AND qc.qcid=aiqc.qcid ORDER BY aiqc.aiqid ASC, qc.title ASC;");
+            // Group the models by instance of question
+            ArrayList<ArrayList<InstanceAssignmentCriteria>> buffers = new ArrayList<>(iaqs.length);
+            for(int i = 0; i < iaqs.length; i++)
+                buffers.add(new ArrayList<InstanceAssignmentCriteria>());
+            Result data = conn.read(sb.toString(), values);
+            InstanceAssignmentQuestion iaq;
+            InstanceAssignmentCriteria iac;
+            QuestionCriteria qc;
+            Integer pos;
+            while(data.next())
+            {
+                if((pos = positions.get((int)data.get("aiqid"))) == null)
+                    continue;
+                iaq = iaqs[pos];
+                if((qc = QuestionCriteria.loadShared(core, conn, iaq.getAssignmentQuestion().getQuestion(), data)) != null && (iac = load(core, conn, iaq, qc, data)) != null)
+                    buffers.get(pos).add(iac);
+            }
+            for(int i = 0; i < iaqs.length; i++)
+                result[i] = buffers.get(i).toArray(new InstanceAssignmentCriteria[buffers.get(i).size()]);
+            return result;
+        }
+        catch(DatabaseException ex)
+        {
+            core.getLogging().logEx("Base", ex, Logging.EntryType.Warning);
+            return null;
+        }
+    }
     /**
      * Persists the model to the database.
      * 
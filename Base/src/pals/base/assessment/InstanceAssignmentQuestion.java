@@ -29,6 +29,7 @@ package pals.base.assessment;
 import java.io.IOException;
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.HashMap;
 import pals.base.Logging;
 import pals.base.NodeCore;
 import pals.base.database.Connector;
@@ -87,6 +88,7 @@ public class InstanceAssignmentQuestion
     private AssignmentQuestion  aq;                     // The assignment question.
     private InstanceAssignment  ia;                     // The current instance of the assignment.
     private Object              data;                   // Data for the current instance of the question.
+    private LazyData            dataLazy;               // The serialized data, when loaded and not yet set; deserialized when first retrieved.
     private boolean             answered;               // Indicates of the question has been answered.
     private double              mark;                   // The mark assigned to the question.
     // Fields - Cache **********************************************************
@@ -122,7 +124,9 @@ public class InstanceAssignmentQuestion
     }
     // Methods - Persistence ***************************************************
     /**
-     * Loads all instance of questions for an instance of an assignment.
+     * Loads all instance of questions for an instance of an assignment, for
+     * listing; the data of the models is not selected, thus the models cannot
+     * be used by question-types.
      * 
      * @param core Current instance of the core.
      * @param conn Database connector.
@@ -134,12 +138,12 @@ public class InstanceAssignmentQuestion
     {
         try
         {
-            Result res = conn.read("SELECT * FROM pals_assignment_instance_question WHERE aiid=?;", ia.getAIID());
+            Result res = conn.read("SELECT aiqid, aqid, aiid, answered, mark FROM pals_assignment_instance_question WHERE aiid=?;", ia.getAIID());
             ArrayList<InstanceAssignmentQuestion> buffer = new ArrayList<>();
             InstanceAssignmentQuestion iaq;
             while(res.next())
             {
-                if((iaq = load(core, conn, ia, res)) != null)
+                if((iaq = load(core, conn, ia, res, false)) != null)
                     buffer.add(iaq);
             }
             return buffer.toArray(new InstanceAssignmentQuestion[buffer.size()]);
@@ -150,6 +154,64 @@ public class InstanceAssignmentQuestion
             return new InstanceAssignmentQuestion[0];
         }
     }
+    /**
+     * Loads the instance-questions for multiple questions of an instance of an
+     * assignment, such as a page of questions, as well as the instances of
+     * their criteria; this uses two queries, regardless of the number of
+     * questions.
+     * 
+     * @param core Current instance of the core.
+     * @param conn Database connector.
+     * @param ia Instance of the assignment; cannot be null.
+     * @param questions The assignment-questions; cannot be null.
+     * @return Array of models, in the same order as the questions; an element
+     * is null if the question has no instance. Returns null if an error
+     * occurs.
+     * @since 1.0
+     */
+    public static InstanceAssignmentQuestion[] loadAll(NodeCore core, Connector conn, InstanceAssignment ia, AssignmentQuestion[] questions)
+    {
+        InstanceAssignmentQuestion[] iaqs = new InstanceAssignmentQuestion[questions.length];
+        if(questions.length == 0)
+            return iaqs;
+        try
+        {
+            // Map each assignment-question to its position
+            HashMap<Integer,Integer> positions = new HashMap<>();
+            StringBuilder sb = new StringBuilder("SELECT * FROM pals_assignment_instance_question WHERE aiid=? AND aqid IN (");
+            Object[] values = new Object[questions.length+1];
+            values[0] = ia.getAIID();
+            for(int i = 0; i < questions.length; i++)
+            {
+                positions.put(questions[i].getAQID(), i);
+                sb.append("?,");
+                values[i+1] = questions[i].getAQID();
+            }
+            sb.deleteCharAt(sb.length()-1).append(");");
+            // Load the instances of the questions
+            Result res = conn.read(sb.toString(), values);
+            Integer pos;
+            ArrayList<InstanceAssignmentQuestion> loaded = new ArrayList<>();
+            while(res.next())
+            {
+                if((pos = positions.get((int)res.get("aqid"))) != null && (iaqs[pos] = load(core, ia, questions[pos], res)) != null)
+                    loaded.add(iaqs[pos]);
+            }
+            // Load the instances of the criteria
+            InstanceAssignmentQuestion[] arr = loaded.toArray(new InstanceAssignmentQuestion[loaded.size()]);
+            InstanceAssignmentCriteria[][] criteria = InstanceAssignmentCriteria.loadAll(core, conn, arr);
+            if(criteria == null)
+                return null;
+            for(int i = 0; i < arr.length; i++)
+                arr[i].cacheCriteria = criteria[i];
+            return iaqs;
+        }
+        catch(DatabaseException ex)
+        {
+            core.getLogging().logEx("Base", ex, Logging.EntryType.Warning);
+            return null;
+        }
+    }
     /***
      * Loads an instance-question for a question for an instance of an assignment.
      * 
@@ -165,7 +227,7 @@ public class InstanceAssignmentQuestion
         try
         {
             Result res = conn.read("SELECT * FROM pals_assignment_instance_question WHERE aqid=? AND aiid=?", aq.getAQID(), ia.getAIID());
-            return res.next() ? load(core, conn, ia, res) : null;
+            return res.next() ? load(core, ia, aq, res) : null;
         }
         catch(DatabaseException ex)
         {
@@ -214,11 +276,13 @@ public class InstanceAssignmentQuestion
      * @since 1.0
      */
     public static InstanceAssignmentQuestion load(NodeCore core, Connector conn, InstanceAssignment ia, Result res)
+    {
+        return load(core, conn, ia, res, true);
+    }
+    private static InstanceAssignmentQuestion load(NodeCore core, Connector conn, InstanceAssignment ia, Result res, boolean withData)
     {
         try
         {
-            // Deserialize data
-            Object data = Utils.loadData(core, res, "qdata");
             // Load instance of assignment, if null
             if(ia == null)
             {
@@ -230,8 +294,29 @@ public class InstanceAssignmentQuestion
             AssignmentQuestion aq = AssignmentQuestion.load(core, conn, ia.getAss(), (int)res.get("aqid"));
             if(aq == null)
                 return null;
-            InstanceAssignmentQuestion iaq = new InstanceAssignmentQuestion(aq, ia, data, ((String)res.get("answered")).equals("1"), (double)res.get("mark"));
+            // Create the model; the data is deserialized when first retrieved
+            InstanceAssignmentQuestion iaq = new InstanceAssignmentQuestion(aq, ia, null, ((String)res.get("answered")).equals("1"), (double)res.get("mark"));
+            iaq.aiqid = (int)res.get("aiqid");
+            iaq.dataLazy = withData ? Utils.loadDataLazy(core, res, "qdata") : LazyData.ABSENT;
+            return iaq;
+        }
+        catch(DatabaseException ex)
+        {
+            core.getLogging().logEx("Base", ex, Logging.EntryType.Warning);
+            return null;
+        }
+    }
+    /**
+     * Loads a persisted model, where the instance of the assignment and the
+     * assignment-question are already known.
+     */
+    private static InstanceAssignmentQuestion load(NodeCore core, InstanceAssignment ia, AssignmentQuestion aq, Result res)
+    {
+        try
+        {
+            InstanceAssignmentQuestion iaq = new InstanceAssignmentQuestion(aq, ia, null, ((String)res.get("answered")).equals("1"), (double)res.get("mark"));
             iaq.aiqid = (int)res.get("aiqid");
+            iaq.dataLazy = Utils.loadDataLazy(core, res, "qdata");
             return iaq;
         }
         catch(DatabaseException ex)
@@ -256,11 +341,11 @@ public class InstanceAssignmentQuestion
             return PersistStatus.Invalid_InstanceAssignment;
         else
         {
-            // Serialize data
+            // Serialize data; data not yet deserialized is unchanged
             byte[] bdata;
             try
             {
-                bdata = Misc.bytesSerialize(data);
+                bdata = dataLazy != null && !dataLazy.isLoaded() ? dataLazy.getBytes() : Misc.bytesSerialize(getData());
             }
             catch(IOException ex)
             {
@@ -279,6 +364,16 @@ public class InstanceAssignmentQuestion
                             mark
                             );
                 }
+                else if(dataLazy == LazyData.ABSENT)
+                {
+                    conn.execute("UPDATE pals_assignment_instance_question SET aqid=?, aiid=?, answered=?, mark=? WHERE aiqid=?;",
+                            aq.getAQID(),
+                            ia.getAIID(),
+                            answered ? "1" : "0",
+                            mark,
+                            aiqid
+                            );
+                }
                 else
                 {
                     conn.execute("UPDATE pals_assignment_instance_question SET aqid=?, aiid=?, qdata=?, answered=?, mark=? WHERE aiqid=?;",
@@ -354,6 +449,7 @@ public class InstanceAssignmentQuestion
     public <T extends Serializable> void setData(T data)
     {
         this.data = data;
+        this.dataLazy = null;
     }
     /**
      * Sets if this instance has been answered.
@@ -425,7 +521,7 @@ public class InstanceAssignmentQuestion
      */
     public Object getData()
     {
-        return data;
+        return dataLazy != null ? dataLazy.get() : data;
     }
     /**
      * Indicates if the question has been answered. Useful for speeding-up
@@ -0,0 +1,108 @@
+/*
+    The MIT License (MIT)
+
+    Copyright (c) 2014 Marcus Craske <limpygnome@gmail.com>
+
+    Permission is hereby granted, free of charge, to any person obtaining a copy
+    of this software and associated documentation files (the "Software"), to deal
+    in the Software without restriction, including without limitation the rights
+    to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+    copies of the Software, and to permit persons to whom the Software is
+    furnished to do so, subject to the following conditions:
+
+    The above copyright notice and this permission notice shall be included in
+    all copies or substantial portions of the Software.
+
+    THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+    IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+    FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+    AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+    LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+    OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+    THE SOFTWARE.
+    ----------------------------------------------------------------------------
+    Authors:    Marcus Craske           <limpygnome@gmail.com>
+    ----------------------------------------------------------------------------
+*/
+package pals.base.assessment;
+
+import pals.base.NodeCore;
+
+/**
+ * The serialized data of a model, which is only deserialized when first
+ * retrieved; models loaded for listing pages, or marking, thus avoid the cost
+ * of deserializing data which is never used.
+ * 
+ * Thread-safe.
+ * 
+ * @version 1.0
+ */
+class LazyData
+{
+    // Fields - Constants ******************************************************
+    /**
+     * Indicates the data was not selected from the database, thus the model
+     * has no data and its persisted data must not be overwritten.
+     * 
+     * @since 1.0
+     */
+    static final LazyData ABSENT = new LazyData(null, null);
+    // Fields ******************************************************************
+    private final NodeCore  core;       // Current instance of core.
+    private final byte[]    bytes;      // The serialized data; can be null.
+    private boolean         loaded;     // Indicates if the data has been deserialized.
+    private Object          value;      // The deserialized data.
+    // Methods - Constructors **************************************************
+    /**
+     * Creates a new instance.
+     * 
+     * @param core Current instance of core.
+     * @param bytes The serialized data; can be null.
+     * @since 1.0
+     */
+    LazyData(NodeCore core, byte[] bytes)
+    {
+        this.core = core;
+        this.bytes = bytes;
+        this.loaded = false;
+        this.value = null;
+    }
+    // Methods - Accessors *****************************************************
+    /**
+     * Retrieves the data, deserializing it on the first invocation.
+     * 
+     * @return The data; can be null, especially if it cannot be deserialized
+     * or is absent.
+     * @since 1.0
+     */
+    synchronized Object get()
+    {
+        if(!loaded && this != ABSENT)
+        {
+            value = bytes != null ? Utils.deserialize(core, bytes) : null;
+            loaded = true;
+        }
+        return value;
+    }
+    /**
+     * Indicates if the data has been deserialized; the deserialized object
+     * may have since been modified, thus the serialized data would be stale.
+     * 
+     * @return True = deserialized, false = not deserialized.
+     * @since 1.0
+     */
+    synchronized boolean isLoaded()
+    {
+        return loaded;
+    }
+    /**
+     * The serialized data.
+     * 
+     * @return The serialized data; can be null.
+     * @since 1.0
+     */
+    byte[] getBytes()
+    {
+        return bytes;
+    }
+}
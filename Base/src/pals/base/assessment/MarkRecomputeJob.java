@@ -0,0 +1,351 @@
+/*
+    The MIT License (MIT)
+
+    Copyright (c) 2014 Marcus Craske <limpygnome@gmail.com>
+
+    Permission is hereby granted, free of charge, to any person obtaining a copy
+    of this software and associated documentation files (the "Software"), to deal
+    in the Software without restriction, including without limitation the rights
+    to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+    copies of the Software, and to permit persons to whom the Software is
+    furnished to do so, subject to the following conditions:
+
+    The above copyright notice and this permission notice shall be included in
+    all copies or substantial portions of the Software.
+
+    THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+    IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+    FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+    AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+    LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+    OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+    THE SOFTWARE.
+    ----------------------------------------------------------------------------
+    Authors:    Marcus Craske           <limpygnome@gmail.com>
+    ----------------------------------------------------------------------------
+*/
+package pals.base.assessment;
+
+import java.util.ArrayList;
+import pals.base.Logging;
+import pals.base.NodeCore;
+import pals.base.database.Connector;
+import pals.base.database.DatabaseException;
+import pals.base.database.Result;
+import pals.base.utils.ExtendedThread;
+import pals.base.utils.JobRegistry;
+
+/**
+ * A background job for recomputing the marks, and the counters maintained by
+ * the database, of every instance of an assignment, or of every instance
+ * answering a question; used after the weights of questions or criteria have
+ * changed.
+ * 
+ * Instances are recomputed in chunks of consecutive identifiers, with a few
+ * set-based statements per chunk, rather than one instance at a time; each
+ * chunk is a transaction, with its rows locked against marking, and only
+ * rows whose values differ are updated. Only the mark of an instance already
+ * marked is changed, since the mark of any other instance is computed when
+ * its marking completes.
+ * 
+ * Thread-safe.
+ * 
+ * @version 1.0
+ */
+public class MarkRecomputeJob extends ExtendedThread implements JobRegistry.Job
+{
+    // Constants ***************************************************************
+    private static final String LOGGING_ALIAS = "Base";
+    private static final int    CHUNK_SIZE = 500;       // The number of instances recomputed per chunk.
+    // Enums *******************************************************************
+    /**
+     * The status of the job.
+     * 
+     * @since 1.0
+     */
+    public enum Status
+    {
+        Pending,
+        Running,
+        Finished,
+        Failed
+    }
+    // Fields ******************************************************************
+    private final NodeCore          core;
+    private final int               jobid;          // The identifier of the job.
+    private final int               assid;          // The assignment recomputed; -1 if recomputing a question.
+    private final int               qid;            // The question recomputed; -1 if recomputing an assignment.
+    private volatile Status         status;         // The current status of the job.
+    private volatile int            total;          // The number of instances to recompute.
+    private volatile int            processed;      // The number of instances recomputed.
+    private volatile int            rowsChanged;    // The number of rows changed.
+    private volatile long           ended;          // The time at which the job ended; 0 if running.
+    // Methods - Constructors **************************************************
+    /**
+     * Constructs a job for recomputing every instance of an assignment.
+     * 
+     * @param core The current instance of the core.
+     * @param jobid The identifier of the job.
+     * @param ass The assignment.
+     * @since 1.0
+     */
+    public MarkRecomputeJob(NodeCore core, int jobid, Assignment ass)
+    {
+        this(core, jobid, ass.getAssID(), -1);
+    }
+    /**
+     * Constructs a job for recomputing every instance answering a question.
+     * 
+     * @param core The current instance of the core.
+     * @param jobid The identifier of the job.
+     * @param q The question.
+     * @since 1.0
+     */
+    public MarkRecomputeJob(NodeCore core, int jobid, Question q)
+    {
+        this(core, jobid, -1, q.getQID());
+    }
+    private MarkRecomputeJob(NodeCore core, int jobid, int assid, int qid)
+    {
+        this.core = core;
+        this.jobid = jobid;
+        this.assid = assid;
+        this.qid = qid;
+        this.status = Status.Pending;
+        this.total = 0;
+        this.processed = 0;
+        this.rowsChanged = 0;
+        this.ended = 0;
+        setName("Mark recompute job "+jobid);
+        setDaemon(true);
+    }
+    // Methods - Overrides *****************************************************
+    @Override
+    public void run()
+    {
+        status = Status.Running;
+        long start = System.currentTimeMillis();
+        boolean success = false;
+        Connector conn = core.createConnector();
+        if(conn != null)
+        {
+            try
+            {
+                // Fetch the identifiers of the affected instances, in order
+                Result res = assid != -1 ?
+                        conn.read("SELECT aiid FROM pals_assignment_instance WHERE assid=? ORDER BY aiid ASC;", assid) :
+                        conn.read("SELECT DISTINCT aiq.aiid FROM pals_assignment_instance_question AS aiq, pals_assignment_questions AS aq WHERE aq.aqid=aiq.aqid AND aq.qid=? ORDER BY aiq.aiid ASC;", qid);
+                ArrayList<Integer> buffer = new ArrayList<>();
+                while(res.next())
+                    buffer.add((int)res.get("aiid"));
+                res.dispose();
+                total = buffer.size();
+                // Recompute each chunk
+                int last;
+                for(int i = 0; i < buffer.size() && !extended_isStopped(); i += CHUNK_SIZE)
+                {
+                    last = Math.min(i+CHUNK_SIZE, buffer.size())-1;
+                    conn.execute("BEGIN;");
+                    lockChunk(conn, buffer.get(i), buffer.get(last));
+                    rowsChanged += computeQuestions(conn, buffer.get(i), buffer.get(last));
+                    rowsChanged += computeInstances(conn, buffer.get(i), buffer.get(last));
+                    conn.execute("COMMIT;");
+                    processed = last+1;
+                }
+                success = !extended_isStopped();
+            }
+            catch(DatabaseException ex)
+            {
+                try
+                {
+                    conn.execute("ROLLBACK;");
+                }
+                catch(DatabaseException ex2)
+                {
+                }
+                core.getLogging().logEx(LOGGING_ALIAS, "Mark recompute job "+jobid+" failed.", ex, Logging.EntryType.Error);
+            }
+            finally
+            {
+                conn.disconnect();
+            }
+        }
+        ended = System.currentTimeMillis();
+        status = success ? Status.Finished : Status.Failed;
+        core.getLogging().log(LOGGING_ALIAS, "Mark recompute job "+jobid+" ended ("+status.name()+") - "+processed+"/"+total+" instances, "+rowsChanged+" rows changed, "+(ended-start)+" m/s.", Logging.EntryType.Info);
+    }
+    // Methods *****************************************************************
+    /**
+     * Locks the rows of the questions, and then of the instances, in the range
+     * of identifiers, until the transaction of the chunk ends; this is the
+     * same order in which the triggers maintaining the counters lock them.
+     * 
+     * Without the locks, a criteria marked, and committed, between the
+     * snapshot of an aggregate and its update would have its change to the
+     * counters overwritten, leaving the instance pending forever.
+     * 
+     * @param conn Database connector.
+     * @param aiidFirst The first identifier of the range, inclusive.
+     * @param aiidLast The last identifier of the range, inclusive.
+     * @throws DatabaseException Thrown if an issue occurs.
+     * @since 1.0
+     */
+    private void lockChunk(Connector conn, int aiidFirst, int aiidLast) throws DatabaseException
+    {
+        if(assid != -1)
+        {
+            conn.execute("SELECT aiq.aiqid FROM pals_assignment_instance_question AS aiq, pals_assignment_instance AS ai WHERE ai.aiid=aiq.aiid AND ai.aiid BETWEEN ? AND ? AND ai.assid=? ORDER BY aiq.aiqid FOR UPDATE OF aiq;", aiidFirst, aiidLast, assid);
+            conn.execute("SELECT aiid FROM pals_assignment_instance WHERE aiid BETWEEN ? AND ? AND assid=? ORDER BY aiid FOR UPDATE;", aiidFirst, aiidLast, assid);
+        }
+        else
+        {
+            conn.execute("SELECT aiq.aiqid FROM pals_assignment_instance_question AS aiq, pals_assignment_questions AS aq WHERE aq.aqid=aiq.aqid AND aiq.aiid BETWEEN ? AND ? AND aq.qid=? ORDER BY aiq.aiqid FOR UPDATE OF aiq;", aiidFirst, aiidLast, qid);
+            conn.execute("SELECT aiid FROM pals_assignment_instance WHERE aiid BETWEEN ? AND ? AND aiid IN (SELECT aiq.aiid FROM pals_assignment_instance_question AS aiq, pals_assignment_questions AS aq WHERE aq.aqid=aiq.aqid AND aq.qid=?) ORDER BY aiid FOR UPDATE;", aiidFirst, aiidLast, qid);
+        }
+    }
+    /**
+     * Recomputes the mark and counters of each question of the instances, in
+     * the range of identifiers, from their criteria.
+     * 
+     * @param conn Database connector.
+     * @param aiidFirst The first identifier of the range, inclusive.
+     * @param aiidLast The last identifier of the range, inclusive.
+     * @return The number of rows changed.
+     * @throws DatabaseException Thrown if an issue occurs.
+     * @since 1.0
+     */
+    private int computeQuestions(Connector conn, int aiidFirst, int aiidLast) throws DatabaseException
+    {
+        String query =
+            "UPDATE pals_assignment_instance_question AS aiq SET pending=m.pending, mark_sum=m.mark_sum, mark=COALESCE(m.mark, aiq.mark) "
+            + "FROM (SELECT aiq2.aiqid, "
+            + "CAST(SUM(CASE WHEN aiqc.status<>? THEN 1 ELSE 0 END) AS int) AS pending, "
+            + "CAST(COALESCE(SUM((aiqc.mark/100.0)*qc.weight), 0) AS double precision) AS mark_sum, "
+            + "CAST((SUM((aiqc.mark/100.0)*qc.weight) / NULLIF(MAX(tw.total), 0)) * 100.0 AS double precision) AS mark "
+            + "FROM pals_assignment_instance_question AS aiq2 "
+            + "JOIN pals_assignment_questions AS aq ON aq.aqid=aiq2.aqid "
+            + "LEFT OUTER JOIN (SELECT qid, SUM(weight) AS total FROM pals_question_criteria GROUP BY qid) AS tw ON tw.qid=aq.qid "
+            + "LEFT OUTER JOIN pals_assignment_instance_question_criteria AS aiqc ON aiqc.aiqid=aiq2.aiqid "
+            + "LEFT OUTER JOIN pals_question_criteria AS qc ON qc.qcid=aiqc.qcid "
+            + "WHERE aiq2.aiid BETWEEN ? AND ? "
+            + (assid != -1 ? "AND aq.assid=? " : "AND aq.qid=? ")
+            + "GROUP BY aiq2.aiqid) AS m "
+            + "WHERE aiq.aiqid=m.aiqid AND (aiq.pending<>m.pending OR aiq.mark_sum<>m.mark_sum OR aiq.mark<>COALESCE(m.mark, aiq.mark));";
+        return conn.executeUpdate(query, InstanceAssignmentCriteria.Status.Marked.dbValue, aiidFirst, aiidLast, assid != -1 ? assid : qid);
+    }
+    /**
+     * Recomputes the counters of the instances, in the range of identifiers,
+     * from their questions; the mark is recomputed for instances marked.
+     * 
+     * @param conn Database connector.
+     * @param aiidFirst The first identifier of the range, inclusive.
+     * @param aiidLast The last identifier of the range, inclusive.
+     * @return The number of rows changed.
+     * @throws DatabaseException Thrown if an issue occurs.
+     * @since 1.0
+     */
+    private int computeInstances(Connector conn, int aiidFirst, int aiidLast) throws DatabaseException
+    {
+        String query =
+            "UPDATE pals_assignment_instance AS ai SET pending=m.pending, mark_sum=m.mark_sum, mark=CASE WHEN ai.status=? THEN m.mark ELSE ai.mark END "
+            + "FROM (SELECT ai2.aiid, "
+            + "CAST(COALESCE(SUM(aiq.pending), 0) AS int) AS pending, "
+            + "CAST(COALESCE(SUM((aiq.mark/100.0)*aq.weight), 0) AS double precision) AS mark_sum, "
+            + "CAST(COALESCE((SUM((aiq.mark/100.0)*aq.weight) / NULLIF(MAX(tw.total), 0)) * 100.0, 0) AS double precision) AS mark "
+            + "FROM pals_assignment_instance AS ai2 "
+            + "LEFT OUTER JOIN (SELECT assid, SUM(weight) AS total FROM pals_assignment_questions GROUP BY assid) AS tw ON tw.assid=ai2.assid "
+            + "LEFT OUTER JOIN pals_assignment_instance_question AS aiq ON aiq.aiid=ai2.aiid "
+            + "LEFT OUTER JOIN pals_assignment_questions AS aq ON aq.aqid=aiq.aqid "
+            + "WHERE ai2.aiid BETWEEN ? AND ? "
+            + (assid != -1 ?
+                "AND ai2.assid=? " :
+                "AND ai2.aiid IN (SELECT aiq3.aiid FROM pals_assignment_instance_question AS aiq3, pals_assignment_questions AS aq3 WHERE aq3.aqid=aiq3.aqid AND aq3.qid=?) ")
+            + "GROUP BY ai2.aiid) AS m "
+            + "WHERE ai.aiid=m.aiid AND (ai.pending<>m.pending OR ai.mark_sum<>m.mark_sum OR (ai.status=? AND ai.mark<>m.mark));";
+        int marked = InstanceAssignment.Status.Marked.getStatus();
+        return conn.executeUpdate(query, marked, aiidFirst, aiidLast, assid != -1 ? assid : qid, marked);
+    }
+    // Methods - Accessors *****************************************************
+    /**
+     * @return The identifier of the job.
+     * @since 1.0
+     */
+    public int getJobID()
+    {
+        return jobid;
+    }
+    /**
+     * @return The assignment recomputed; -1 if recomputing a question.
+     * @since 1.0
+     */
+    public int getAssID()
+    {
+        return assid;
+    }
+    /**
+     * @return The question recomputed; -1 if recomputing an assignment.
+     * @since 1.0
+     */
+    public int getQID()
+    {
+        return qid;
+    }
+    /**
+     * @return The current status of the job.
+     * @since 1.0
+     */
+    public Status getStatus()
+    {
+        return status;
+    }
+    /**
+     * @return The number of instances to recompute; 0 until fetched.
+     * @since 1.0
+     */
+    public int getTotal()
+    {
+        return total;
+    }
+    /**
+     * @return The number of instances recomputed.
+     * @since 1.0
+     */
+    public int getProcessed()
+    {
+        return processed;
+    }
+    /**
+     * @return The percentage of instances recomputed, from 0 to 100.
+     * @since 1.0
+     */
+    public int getProgress()
+    {
+        int t = total;
+        return t == 0 ? (isEnded() ? 100 : 0) : (int)((processed*100L)/t);
+    }
+    /**
+     * @return The number of rows, of questions and instances, changed.
+     * @since 1.0
+     */
+    public int getRowsChanged()
+    {
+        return rowsChanged;
+    }
+    /**
+     * @return Indicates if the job has ended.
+     * @since 1.0
+     */
+    public boolean isEnded()
+    {
+        return ended != 0;
+    }
+    /**
+     * @return The time at which the job ended, in milliseconds; 0 if the job
+     * has not ended.
+     * @since 1.0
+     */
+    public long getEnded()
+    {
+        return ended;
+    }
+}
@@ -27,8 +27,11 @@
 package pals.base.assessment;
 
 import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Set;
 import pals.base.Logging;
 import pals.base.NodeCore;
+import pals.base.auth.AuthCache;
 import pals.base.auth.User;
 import pals.base.database.Connector;
 import pals.base.database.DatabaseException;
@@ -248,6 +251,7 @@ public class Module
         {
             conn.execute("DELETE FROM pals_modules WHERE moduleid=?;", moduleid);
             this.moduleid = -1;
+            enrollmentChanged(AuthCache.Type.EnrollmentAll);
             return true;
         }
         catch(DatabaseException ex)
@@ -290,6 +294,7 @@ public class Module
         try
         {
             conn.execute("INSERT INTO pals_modules_enrollment(moduleid,userid) VALUES(?,?);", moduleid, user.getUserID());
+            enrollmentChanged(AuthCache.Type.Enrollment, user.getUserID());
             return true;
         }
         catch(DatabaseException ex)
@@ -324,6 +329,7 @@ public class Module
             }
             q.deleteCharAt(q.length()-1).append(";");
             conn.execute(q.toString());
+            enrollmentChanged(AuthCache.Type.Enrollment, userIDs(users));
             return true;
         }
         catch(DatabaseException ex)
@@ -347,6 +353,7 @@ public class Module
         try
         {
             conn.execute("DELETE FROM pals_modules_enrollment WHERE moduleid=? AND userid=?;", moduleid, user.getUserID());
+            enrollmentChanged(AuthCache.Type.Enrollment, user.getUserID());
             return true;
         }
         catch(DatabaseException ex)
@@ -367,6 +374,8 @@ public class Module
      */
     public boolean usersRemove(Connector conn, User[] users)
     {
+        if(users.length == 0)
+            return true;
         // Build query - casting to protect against possible future data-type changes
         StringBuilder q = new StringBuilder("DELETE FROM pals_modules_enrollment WHERE moduleid=");
         q.append((int)moduleid).append(" AND (");
@@ -374,11 +383,12 @@ public class Module
         {
             q.append("userid=").append((int)user.getUserID()).append(" OR ");
         }
-        q.replace(q.length()-5, q.length(), "").append(");");
+        q.replace(q.length()-4, q.length(), "").append(");");
         // Execute query
         try
         {
             conn.execute(q.toString());
+            enrollmentChanged(AuthCache.Type.Enrollment, userIDs(users));
             return true;
         }
         catch(DatabaseException ex)
@@ -401,6 +411,7 @@ public class Module
         try
         {
             conn.execute("DELETE FROM pals_modules_enrollment WHERE moduleid=?;", moduleid);
+            enrollmentChanged(AuthCache.Type.EnrollmentAll);
             return true;
         }
         catch(DatabaseException ex)
@@ -536,9 +547,20 @@ public class Module
      */
     public boolean isEnrolled(Connector conn, User user)
     {
+        // Check the node-local cache of the user's enrollments, else load them
+        AuthCache cache = NodeCore.getInstance().getAuthCache();
+        long generation = cache.getGeneration();
+        Set<Integer> moduleids = cache.getEnrollment(user.getUserID());
+        if(moduleids != null)
+            return moduleids.contains(moduleid);
         try
         {
-            return (long)conn.executeScalar("SELECT COUNT('') FROM pals_modules_enrollment WHERE moduleid=? AND userid=?;", moduleid, user.getUserID()) == 1;
+            moduleids = new HashSet<>();
+            Result res = conn.read("SELECT moduleid FROM pals_modules_enrollment WHERE userid=?;", user.getUserID());
+            while(res.next())
+                moduleids.add((int)res.get("moduleid"));
+            cache.putEnrollment(generation, user.getUserID(), moduleids);
+            return moduleids.contains(moduleid);
         }
         catch(DatabaseException ex)
         {
@@ -548,6 +570,18 @@ public class Module
             return false;
         }
     }
+    private static int[] userIDs(User[] users)
+    {
+        int[] ids = new int[users.length];
+        for(int i = 0; i < users.length; i++)
+            ids[i] = users[i].getUserID();
+        return ids;
+    }
+    private static void enrollmentChanged(AuthCache.Type type, int... userids)
+    {
+        NodeCore core = NodeCore.getInstance();
+        core.getAuthCache().invalidate(core, type, userids);
+    }
     // Methods - Accessors - Limits ********************************************
     /**
      * The minimum length of the title.
@@ -29,6 +29,7 @@ package pals.base.assessment;
 import java.io.IOException;
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Collections;
 import pals.base.Logging;
 import pals.base.NodeCore;
 import pals.base.UUID;
@@ -107,6 +108,7 @@ public class Question
     private String          title,
                             description;
     private Object          data;
+    private LazyData        dataLazy;
     // Methods - Constructors **************************************************
     /**
      * Creates a new nullified unpersisted model.
@@ -136,7 +138,8 @@ public class Question
     }
     // Methods - Persistence ***************************************************
     /**
-     * Loads persisted models.
+     * Loads persisted models, for listing; the data of the models is not
+     * selected, thus the models cannot be used by question-types.
      * 
      * @param core Current instance of the core.
      * @param conn Database connector.
@@ -153,13 +156,13 @@ public class Question
             ArrayList<Question> buffer = new ArrayList<>();
             Result res;
             if(filter == null || filter.length() == 0)
-                res = conn.read("SELECT * FROM pals_question ORDER BY title ASC LIMIT ? OFFSET ?;", amount, offset);
+                res = conn.read("SELECT qid, uuid_qtype, title, description FROM pals_question ORDER BY title ASC LIMIT ? OFFSET ?;", amount, offset);
             else
-                res = conn.read("SELECT * FROM pals_question WHERE title ILIKE ? ORDER BY title ASC LIMIT ? OFFSET ?;", "%"+(filter.replace("%", ""))+"%", amount, offset);
+                res = conn.read("SELECT qid, uuid_qtype, title, description FROM pals_question WHERE title ILIKE ? ORDER BY title ASC LIMIT ? OFFSET ?;", "%"+(filter.replace("%", ""))+"%", amount, offset);
             Question q;
             while(res.next())
             {
-                if((q = load(core, conn, res)) != null)
+                if((q = load(core, conn, res, false)) != null)
                     buffer.add(q);
             }
             return buffer.toArray(new Question[buffer.size()]);
@@ -170,6 +173,67 @@ public class Question
             return new Question[0];
         }
     }
+    /**
+     * Loads a page of persisted models, for listing, ordered by title; the
+     * data of the models is not selected, thus the models cannot be used by
+     * question-types.
+     * 
+     * Pages are located with a cursor, being a question on an adjacent page,
+     * rather than an offset, thus deep pages are as fast as the first page.
+     * The filter is matched using the trigram index of titles.
+     * 
+     * @param core Current instance of the core.
+     * @param conn Database connector.
+     * @param filter The title filter; can be null (to be ignored).
+     * @param amount The number of models to retrieve at a time.
+     * @param cursor The identifier of the question the page is relative to;
+     * -1 for the first page.
+     * @param before True = the models before the cursor, false = the models
+     * after the cursor.
+     * @return Array of models, ordered by title; empty if none remain or the
+     * cursor no longer exists, in which case the first page should be loaded.
+     * @since 1.0
+     */
+    public static Question[] loadPage(NodeCore core, Connector conn, String filter, int amount, int cursor, boolean before)
+    {
+        try
+        {
+            ArrayList<Question> buffer = new ArrayList<>();
+            boolean filtered = filter != null && filter.length() != 0;
+            // Build the query
+            StringBuilder sb = new StringBuilder("SELECT qid, uuid_qtype, title, description FROM pals_question WHERE TRUE");
+            ArrayList<Object> values = new ArrayList<>();
+            if(filtered)
+            {
+                sb.append(" AND title ILIKE ?");
+                values.add("%"+(filter.replace("%", ""))+"%");
+            }
+            if(cursor != -1)
+            {
+                sb.append(before ? " AND (title, qid) < " : " AND (title, qid) > ").append("(SELECT title, qid FROM pals_question WHERE qid=?)");
+                values.add(cursor);
+            }
+            sb.append(before && cursor != -1 ? " ORDER BY title DESC, qid DESC" : " ORDER BY title ASC, qid ASC").append(" LIMIT ?;");
+            values.add(amount);
+            // Read the models
+            Result res = conn.read(sb.toString(), values.toArray());
+            Question q;
+            while(res.next())
+            {
+                if((q = load(core, conn, res, false)) != null)
+                    buffer.add(q);
+            }
+            // Restore ascending order for pages before the cursor
+            if(before && cursor != -1)
+                Collections.reverse(buffer);
+            return buffer.toArray(new Question[buffer.size()]);
+        }
+        catch(DatabaseException ex)
+        {
+            core.getLogging().logEx("Base", ex, Logging.EntryType.Warning);
+            return new Question[0];
+        }
+    }
     /**
      * Loads a persisted model by its identifier.
      * 
@@ -192,6 +256,28 @@ public class Question
             return null;
         }
     }
+    /**
+     * Loads a persisted model by its identifier, using the node-local cache
+     * of assessment definitions.
+     * 
+     * Warning: the data of the model is shared with other threads and must
+     * not be modified; use load(NodeCore, Connector, int) to modify a model.
+     * 
+     * @param core Current instance of the core.
+     * @param conn Database connector.
+     * @param qid Question identifier.
+     * @return Instance of model or null.
+     * @since 1.0
+     */
+    public static Question loadShared(NodeCore core, Connector conn, int qid)
+    {
+        AssessmentCache cache = core.getAssessmentCache();
+        long generation = cache.getGeneration();
+        Question q = cache.getQuestion(qid);
+        if(q == null && (q = load(core, conn, qid)) != null)
+            cache.putQuestion(generation, qid, q);
+        return q;
+    }
     /**
      * Loads a persisted model from a result; next() should be pre-invoked.
      * 
@@ -202,6 +288,10 @@ public class Question
      * @since 1.0
      */
     public static Question load(NodeCore core, Connector conn, Result result)
+    {
+        return load(core, conn, result, true);
+    }
+    private static Question load(NodeCore core, Connector conn, Result result, boolean withData)
     {
         try
         {
@@ -209,11 +299,10 @@ public class Question
             TypeQuestion tq = TypeQuestion.load(conn, UUID.parse((byte[])result.get("uuid_qtype")));
             if(tq == null)
                 return null;
-            // Read serialized object
-            Object obj = Utils.loadData(core, result, "data");
-            // Create and return instance
-            Question q = new Question(tq, (String)result.get("title"), (String)result.get("description"), obj);
+            // Create and return instance; the data is deserialized when first retrieved
+            Question q = new Question(tq, (String)result.get("title"), (String)result.get("description"), null);
             q.qid = (int)result.get("qid");
+            q.dataLazy = withData ? Utils.loadDataLazy(core, result, "data") : LazyData.ABSENT;
             return q;
         }
         catch(DatabaseException ex)
@@ -242,10 +331,10 @@ public class Question
             else
             {
                 byte[] bdata;
-                // Serialize data field
+                // Serialize data field; data not yet deserialized is unchanged
                 try
                 {
-                    bdata = Misc.bytesSerialize(data);
+                    bdata = dataLazy != null && !dataLazy.isLoaded() ? dataLazy.getBytes() : Misc.bytesSerialize(getData());
                 }
                 catch(IOException ex)
                 {
@@ -258,7 +347,11 @@ public class Question
                 }
                 else   
                 {
-                    conn.execute("UPDATE pals_question SET uuid_qtype=?, title=?, description=?, data=? WHERE qid=?;", qtype.getUuidQType().getBytes(), title, description, bdata, qid);
+                    if(dataLazy == LazyData.ABSENT)
+                        conn.execute("UPDATE pals_question SET uuid_qtype=?, title=?, description=? WHERE qid=?;", qtype.getUuidQType().getBytes(), title, description, qid);
+                    else
+                        conn.execute("UPDATE pals_question SET uuid_qtype=?, title=?, description=?, data=? WHERE qid=?;", qtype.getUuidQType().getBytes(), title, description, bdata, qid);
+                    AssessmentCache.changed(AssessmentCache.Type.Question, qid);
                 }
                 return PersistStatus.Success;
             }
@@ -283,6 +376,7 @@ public class Question
         try
         {
             conn.execute("DELETE FROM pals_question WHERE qid=?;", qid);
+            AssessmentCache.changed(AssessmentCache.Type.Question, qid);
             return true;
         }
         catch(DatabaseException ex)
@@ -293,6 +387,18 @@ public class Question
             return false;
         }
     }
+    /**
+     * Creates a copy of this model, sharing the same data.
+     * 
+     * @return A copy of this model.
+     */
+    Question copy()
+    {
+        Question q = new Question(qtype, title, description, data);
+        q.qid = qid;
+        q.dataLazy = dataLazy;
+        return q;
+    }
     // Methods - Mutators ******************************************************
     /**
      * Sets the type of question.
@@ -335,6 +441,7 @@ public class Question
     public <T extends Serializable> void setData(T data)
     {
         this.data = data;
+        this.dataLazy = null;
     }
     // Methods - Accessors *****************************************************
     /**
@@ -395,7 +502,7 @@ public class Question
      */
     public <T extends Serializable> T getData()
     {
-        return (T)data;
+        return (T)(dataLazy != null ? dataLazy.get() : data);
     }
     /**
      * Fetches the number of assignment questions dependent on this question.
@@ -129,6 +129,7 @@ public class QuestionCriteria
     private TypeCriteria    criteria;   // The type of criteria.
     private String          title;      // The title of the question's criteria.
     private Object          data;       // Any data stored by the criteria-type.
+    private LazyData        dataLazy;   // The serialized data, when loaded and not yet set; deserialized when first retrieved.
     private int             weight;     // Weight of criteria.
     // Methods - Constructors **************************************************
     /**
@@ -175,11 +176,11 @@ public class QuestionCriteria
         {
             ArrayList<QuestionCriteria> buffer = new ArrayList<>();
             // Load from the database, iterate each result and load the model
-            Result res = conn.read("SELECT * FROM pals_question_criteria WHERE qid=? ORDER BY title ASC;", q.getQID());
+            Result res = conn.read("SELECT qcid, qid, uuid_ctype, title, weight FROM pals_question_criteria WHERE qid=? ORDER BY title ASC;", q.getQID());
             QuestionCriteria qc;
             while(res.next())
             {
-                if((qc = load(core, conn, q, res)) != null)
+                if((qc = load(core, conn, q, res, false)) != null)
                     buffer.add(qc);
             }
             return buffer.toArray(new QuestionCriteria[buffer.size()]);
@@ -215,6 +216,76 @@ public class QuestionCriteria
             return null;
         }
     }
+    /**
+     * Loads a persisted model, using the node-local cache of assessment
+     * definitions.
+     * 
+     * Warning: the data of the model, and of its question if loaded, is
+     * shared with other threads and must not be modified; use
+     * load(NodeCore, Connector, Question, int) to modify a model.
+     * 
+     * @param core Current instance of the core.
+     * @param conn Database connector.
+     * @param question The question to which this criteria belongs; if this is
+     * null, the question model is loaded from the cache.
+     * @param qcid The identifier of the criteria.
+     * @return An instance of the model or null.
+     * @since 1.0
+     */
+    public static QuestionCriteria loadShared(NodeCore core, Connector conn, Question question, int qcid)
+    {
+        QuestionCriteria qc = core.getAssessmentCache().getCriteria(qcid, question);
+        if(qc != null)
+            return qc;
+        try
+        {
+            Result res = conn.read("SELECT * FROM pals_question_criteria WHERE qcid=?;", qcid);
+            return res.next() ? loadShared(core, conn, question, res) : null;
+        }
+        catch(DatabaseException ex)
+        {
+            core.getLogging().logEx("Base", ex, Logging.EntryType.Warning);
+            return null;
+        }
+    }
+    /**
+     * Loads a persisted model, using the node-local cache of assessment
+     * definitions; the data is only deserialized from the result if the model
+     * is not cached.
+     * 
+     * Warning: the data of the model, and of its question if loaded, is
+     * shared with other threads and must not be modified.
+     * 
+     * @param core Current instance of the core.
+     * @param conn Database connector.
+     * @param question The question to which this criteria belongs; if this is
+     * null, the question model is loaded from the cache.
+     * @param result The result of a query, with the method next() pre-invoked.
+     * @return An instance of the model or null.
+     * @since 1.0
+     */
+    public static QuestionCriteria loadShared(NodeCore core, Connector conn, Question question, Result result)
+    {
+        try
+        {
+            AssessmentCache cache = core.getAssessmentCache();
+            long generation = cache.getGeneration();
+            int qcid = (int)result.get("qcid");
+            QuestionCriteria qc = cache.getCriteria(qcid, question);
+            if(qc != null)
+                return qc;
+            if(question == null)
+                question = Question.loadShared(core, conn, (int)result.get("qid"));
+            if((qc = load(core, conn, question, result)) != null && question != null)
+                cache.putCriteria(generation, qcid, qc);
+            return qc;
+        }
+        catch(DatabaseException ex)
+        {
+            core.getLogging().logEx("Base", ex, Logging.EntryType.Warning);
+            return null;
+        }
+    }
     /**
      * Loads a persisted model.
      * 
@@ -228,6 +299,10 @@ public class QuestionCriteria
      * @since 1.0
      */
     public static QuestionCriteria load(NodeCore core, Connector conn, Question question, Result result)
+    {
+        return load(core, conn, question, result, true);
+    }
+    private static QuestionCriteria load(NodeCore core, Connector conn, Question question, Result result, boolean withData)
     {
         try
         {
@@ -240,11 +315,10 @@ public class QuestionCriteria
             {
                 question = Question.load(core, conn, (int)result.get("qid"));
             }
-            // Deserialize data
-            Object data = Utils.loadData(core, result, "data");
-            // Create instance and return
-            QuestionCriteria qc = new QuestionCriteria(question, tc, (String)result.get("title"), data, (int)result.get("weight"));
+            // Create instance and return; the data is deserialized when first retrieved
+            QuestionCriteria qc = new QuestionCriteria(question, tc, (String)result.get("title"), null, (int)result.get("weight"));
             qc.qcid = (int)result.get("qcid");
+            qc.dataLazy = withData ? Utils.loadDataLazy(core, result, "data") : LazyData.ABSENT;
             return qc;
         }
         catch(DatabaseException ex)
@@ -274,11 +348,11 @@ public class QuestionCriteria
             return PersistStatus.Invalid_Title;
         else
         {
-            // Serialize the data
+            // Serialize the data; data not yet deserialized is unchanged
             byte[] bdata;
             try
             {
-                bdata = Misc.bytesSerialize(data);
+                bdata = dataLazy != null && !dataLazy.isLoaded() ? dataLazy.getBytes() : Misc.bytesSerialize(getData());
             }
             catch(IOException ex)
             {
@@ -297,6 +371,17 @@ public class QuestionCriteria
                             weight
                             );
                 }
+                else if(dataLazy == LazyData.ABSENT)
+                {
+                    conn.execute("UPDATE pals_question_criteria SET qid=?, uuid_ctype=?, title=?, weight=? WHERE qcid=?;",
+                            question.getQID(),
+                            criteria.getUuidCType().getBytes(),
+                            title,
+                            weight,
+                            qcid
+                            );
+                    AssessmentCache.changed(AssessmentCache.Type.Criteria, qcid);
+                }
                 else
                 {
                     conn.execute("UPDATE pals_question_criteria SET qid=?, uuid_ctype=?, title=?, data=?, weight=? WHERE qcid=?;",
@@ -307,6 +392,7 @@ public class QuestionCriteria
                             weight,
                             qcid
                             );
+                    AssessmentCache.changed(AssessmentCache.Type.Criteria, qcid);
                 }
                 return PersistStatus.Success;
             }
@@ -333,6 +419,7 @@ public class QuestionCriteria
         try
         {
             conn.execute("DELETE FROM pals_question_criteria WHERE qcid=?;", qcid);
+            AssessmentCache.changed(AssessmentCache.Type.Criteria, qcid);
             return true;
         }
         catch(DatabaseException ex)
@@ -343,6 +430,19 @@ public class QuestionCriteria
             return false;
         }
     }
+    /**
+     * Creates a copy of this model, sharing the same data.
+     * 
+     * @param question The question of the copy.
+     * @return A copy of this model.
+     */
+    QuestionCriteria copy(Question question)
+    {
+        QuestionCriteria qc = new QuestionCriteria(question, criteria, title, data, weight);
+        qc.qcid = qcid;
+        qc.dataLazy = dataLazy;
+        return qc;
+    }
     // Methods - Mutators ******************************************************
     /**
      * Sets the question.
@@ -384,6 +484,7 @@ public class QuestionCriteria
     public <T extends Serializable> void  setData(T data)
     {
         this.data = data;
+        this.dataLazy = null;
     }
     /**
      * Sets the weight, relative to the question.
@@ -455,7 +556,7 @@ public class QuestionCriteria
      */
     public Object getData()
     {
-        return data;
+        return dataLazy != null ? dataLazy.get() : data;
     }
     /**
      * The weight, relative to the question.
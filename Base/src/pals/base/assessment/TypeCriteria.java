@@ -226,6 +226,7 @@ public class TypeCriteria
                 if(persisted)
                 {
                     conn.execute("UPDATE pals_criteria_types SET uuid_plugin=?, title=?, description=? WHERE uuid_ctype=?;", uuidPlugin.getBytes(), title, description, uuidCType.getBytes());
+                    AssessmentCache.changed(AssessmentCache.Type.All);
                 }
                 else
                 {
@@ -258,6 +259,7 @@ public class TypeCriteria
         {
             conn.execute("DELETE FROM pals_criteria_types WHERE uuid_ctype=?;", uuidCType.getBytes());
             persisted = false;
+            AssessmentCache.changed(AssessmentCache.Type.All);
             return true;
         }
         catch(DatabaseException ex)
@@ -271,6 +271,7 @@ public class TypeQuestion
                 if(persisted)
                 {
                     conn.execute("UPDATE pals_question_types SET uuid_plugin=?, title=?, description=? WHERE uuid_qtype=?;", uuidPlugin.getBytes(), title, description, uuidQType.getBytes());
+                    AssessmentCache.changed(AssessmentCache.Type.All);
                 }
                 else
                 {
@@ -343,6 +344,7 @@ public class TypeQuestion
         {
             conn.execute("DELETE FROM pals_question_types WHERE uuid_qtype=?;", uuidQType.getBytes());
             persisted = false;
+            AssessmentCache.changed(AssessmentCache.Type.All);
             return true;
         }
         catch(DatabaseException ex)
@@ -54,10 +54,45 @@ class Utils
     {
         try
         {
-            byte[] byteData = (byte[])res.get(column);
+            return deserialize(core, (byte[])res.get(column));
+        }
+        catch(DatabaseException ex)
+        {
+            core.getLogging().logEx("Base Assessment", ex, Logging.EntryType.Warning);
+            return null;
+        }
+    }
+    /**
+     * Loads serialized data from a result's column, without deserializing it
+     * until it's first retrieved.
+     * 
+     * @param core Current instance of core.
+     * @param res Result.
+     * @param column The column name.
+     * @return The lazily-deserialized data.
+     * @throws DatabaseException Thrown if the column cannot be read.
+     * @since 1.0
+     */
+    static LazyData loadDataLazy(NodeCore core, Result res, String column) throws DatabaseException
+    {
+        return new LazyData(core, (byte[])res.get(column));
+    }
+    /**
+     * Deserializes data.
+     * 
+     * @param core Current instance of core.
+     * @param byteData The serialized data; can be null.
+     * @return The object; can be null, especially if it cannot be
+     * deserialized.
+     * @since 1.0
+     */
+    static Object deserialize(NodeCore core, byte[] byteData)
+    {
+        try
+        {
             return byteData != null ? Misc.bytesDeserialize(core, byteData) : null;
         }
-        catch(IOException | ClassNotFoundException | NoClassDefFoundError | NullPointerException | DatabaseException ex)
+        catch(IOException | ClassNotFoundException | NoClassDefFoundError | NullPointerException ex)
         {
             core.getLogging().logEx("Base Assessment", ex, Logging.EntryType.Warning);
             return null;
@@ -0,0 +1,239 @@
+/*
+    The MIT License (MIT)
+
+    Copyright (c) 2014 Marcus Craske <limpygnome@gmail.com>
+
+    Permission is hereby granted, free of charge, to any person obtaining a copy
+    of this software and associated documentation files (the "Software"), to deal
+    in the Software without restriction, including without limitation the rights
+    to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+    copies of the Software, and to permit persons to whom the Software is
+    furnished to do so, subject to the following conditions:
+
+    The above copyright notice and this permission notice shall be included in
+    all copies or substantial portions of the Software.
+
+    THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+    IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+    FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+    AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+    LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+    OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+    THE SOFTWARE.
+    ----------------------------------------------------------------------------
+    Authors:    Marcus Craske           <limpygnome@gmail.com>
+    ----------------------------------------------------------------------------
+*/
+package pals.base.auth;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Set;
+import pals.base.utils.GenerationalCache;
+
+/**
+ * A node-local cache of users, user-groups and the modules each user is
+ * enrolled on; this avoids loading the current user, and their enrollments,
+ * from the database on every web-request.
+ * 
+ * Users and enrollments are bounded by a capacity, with the least recently
+ * used evicted first; user-groups are few, thus not bounded. Instances handed
+ * out are copies, thus can be modified by callers.
+ * 
+ * The models invalidate the cache when persisted or removed; the invalidation
+ * is also sent to every other node as a global event, refer to EVENT and
+ * {@link GenerationalCache}.
+ * 
+ * Thread-safe.
+ * 
+ * @version 1.0
+ */
+public class AuthCache extends GenerationalCache<AuthCache.Type>
+{
+    // Enums *******************************************************************
+    /**
+     * The type of data being invalidated.
+     * 
+     * @since 1.0
+     */
+    public enum Type
+    {
+        /**
+         * Users, by user identifier.
+         * 
+         * @since 1.0
+         */
+        User,
+        /**
+         * User-groups, by group identifier.
+         * 
+         * @since 1.0
+         */
+        Group,
+        /**
+         * Enrollments, by user identifier.
+         * 
+         * @since 1.0
+         */
+        Enrollment,
+        /**
+         * The enrollments of all users; identifiers are ignored.
+         * 
+         * @since 1.0
+         */
+        EnrollmentAll,
+        /**
+         * All data; identifiers are ignored.
+         * 
+         * @since 1.0
+         */
+        All
+    }
+    // Fields - Constants ******************************************************
+    /**
+     * The global event for invalidating the cache on all nodes; the data is
+     * the type and an array of identifiers (int[]).
+     * 
+     * @since 1.0
+     */
+    public static final String EVENT = "base.auth.invalidate";
+    private static final int DEFAULT_CAPACITY = 1024;
+    // Fields ******************************************************************
+    private final LinkedHashMap<Integer,User>           users;          // User identifier to user.
+    private final HashMap<Integer,UserGroup>            groups;         // Group identifier to group.
+    private final LinkedHashMap<Integer,Set<Integer>>   enrollments;    // User identifier to the identifiers of their modules.
+    // Methods - Constructors **************************************************
+    /**
+     * Constructs a new instance.
+     * 
+     * @since 1.0
+     */
+    public AuthCache()
+    {
+        super(EVENT, Type.class, DEFAULT_CAPACITY);
+        this.users = createBounded();
+        this.groups = createUnbounded();
+        this.enrollments = createBounded();
+    }
+    // Methods - Users *********************************************************
+    /**
+     * Fetches a copy of a cached user, including a copy of its group.
+     * 
+     * @param userid The identifier of the user.
+     * @return A copy of the user, or null if not cached.
+     * @since 1.0
+     */
+    public synchronized User getUser(int userid)
+    {
+        User u = get(users, userid);
+        return u != null ? u.copy() : null;
+    }
+    /**
+     * Adds a loaded user.
+     * 
+     * @param generation The generation before the user was loaded.
+     * @param user The user.
+     * @since 1.0
+     */
+    public synchronized void putUser(long generation, User user)
+    {
+        if(user.isPersisted())
+            put(generation, users, user.getUserID(), user.copy());
+    }
+    // Methods - Groups ********************************************************
+    /**
+     * Fetches a copy of a cached user-group.
+     * 
+     * @param groupid The identifier of the group.
+     * @return A copy of the group, or null if not cached.
+     * @since 1.0
+     */
+    public synchronized UserGroup getGroup(int groupid)
+    {
+        UserGroup g = get(groups, groupid);
+        return g != null ? g.copy() : null;
+    }
+    /**
+     * Adds a loaded user-group.
+     * 
+     * @param generation The generation before the group was loaded.
+     * @param group The group.
+     * @since 1.0
+     */
+    public synchronized void putGroup(long generation, UserGroup group)
+    {
+        if(group.getGroupID() != -1)
+            put(generation, groups, group.getGroupID(), group.copy());
+    }
+    // Methods - Enrollments ***************************************************
+    /**
+     * Fetches the modules a user is enrolled on.
+     * 
+     * @param userid The identifier of the user.
+     * @return The module identifiers, which cannot be modified, or null if
+     * not cached.
+     * @since 1.0
+     */
+    public synchronized Set<Integer> getEnrollment(int userid)
+    {
+        return get(enrollments, userid);
+    }
+    /**
+     * Adds the loaded enrollments of a user.
+     * 
+     * @param generation The generation before the enrollments were loaded.
+     * @param userid The identifier of the user.
+     * @param moduleids The identifiers of the modules; this must not be
+     * modified afterwards.
+     * @since 1.0
+     */
+    public synchronized void putEnrollment(long generation, int userid, Set<Integer> moduleids)
+    {
+        put(generation, enrollments, userid, Collections.unmodifiableSet(moduleids));
+    }
+    // Methods - Invalidation **************************************************
+    @Override
+    protected void invalidateTables(Type type, int[] ids)
+    {
+        switch(type)
+        {
+            case User:
+                for(int id : ids)
+                {
+                    users.remove(id);
+                    enrollments.remove(id);
+                }
+                break;
+            case Group:
+                // Users of a removed group may also be removed
+                for(int id : ids)
+                    groups.remove(id);
+                users.clear();
+                break;
+            case Enrollment:
+                for(int id : ids)
+                    enrollments.remove(id);
+                break;
+            case EnrollmentAll:
+                enrollments.clear();
+                break;
+            case All:
+                users.clear();
+                groups.clear();
+                enrollments.clear();
+                break;
+        }
+    }
+    // Methods - Accessors *****************************************************
+    /**
+     * The number of users cached.
+     * 
+     * @return The number of users.
+     * @since 1.0
+     */
+    public synchronized int size()
+    {
+        return users.size();
+    }
+}
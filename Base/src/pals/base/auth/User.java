@@ -26,6 +26,8 @@
 */
 package pals.base.auth;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import pals.base.Logging;
 import pals.base.NodeCore;
 import pals.base.assessment.Module;
@@ -196,6 +198,48 @@ public class User
             return null;
         }
     }
+    /**
+     * Loads multiple users from their usernames, using a single query;
+     * usernames are matched regardless of case.
+     * 
+     * @param conn Database connector.
+     * @param usernames The usernames of the users.
+     * @return Array of users found; can be empty. Returns null if an error
+     * occurs.
+     * @since 1.0
+     */
+    public static User[] load(Connector conn, String[] usernames)
+    {
+        if(usernames.length == 0)
+            return new User[0];
+        try
+        {
+            StringBuilder sb = new StringBuilder("SELECT * FROM pals_users WHERE lower(username) IN (");
+            Object[] values = new Object[usernames.length];
+            for(int i = 0; i < usernames.length; i++)
+            {
+                sb.append("?,");
+                values[i] = usernames[i].toLowerCase();
+            }
+            sb.deleteCharAt(sb.length()-1).append(");");
+            Result res = conn.read(sb.toString(), values);
+            ArrayList<User> buffer = new ArrayList<>();
+            User u;
+            while(res.next())
+            {
+                if((u = load(conn, res)) != null)
+                    buffer.add(u);
+            }
+            return buffer.toArray(new User[buffer.size()]);
+        }
+        catch(DatabaseException ex)
+        {
+            NodeCore core;
+            if((core = NodeCore.getInstance())!=null)
+                core.getLogging().logEx("Base", ex, Logging.EntryType.Warning);
+            return null;
+        }
+    }
     /**
      * Loads a user from a userid.
      * 
@@ -206,10 +250,18 @@ public class User
      */
     public static User load(Connector conn, int userid)
     {
+        // Check the node-local cache
+        AuthCache cache = NodeCore.getInstance().getAuthCache();
+        long generation = cache.getGeneration();
+        User user = cache.getUser(userid);
+        if(user != null)
+            return user;
         try
         {
             Result res = conn.read("SELECT * FROM pals_users WHERE userid=?;", userid);
-            return res.next() ? load(conn, res) : null;
+            if(res.next() && (user = load(conn, res)) != null)
+                cache.putUser(generation, user);
+            return user;
         }
         catch(DatabaseException ex)
         {
@@ -275,17 +327,9 @@ public class User
     public PersistStatus_User persist(NodeCore core, Connector conn)
     {
         // Validate fields
-        if(username == null || username.length() < getUsernameMin() || username.length() > getUsernameMax())
-            return PersistStatus_User.InvalidUsername_length;
-        else if(!username.matches("^[a-zA-Z0-9]+$"))
-            return PersistStatus_User.InvalidUsername_format;
-        else if(password != null && (password.length() < getPasswordMin()))
-            return PersistStatus_User.InvalidPassword_length;
-        // Regex from: http://www.regular-expressions.info/email.html
-        else if(email != null && (email.length() < getEmailMin() || email.length() > getEmailMax() || !email.matches("^[a-zA-Z0-9._%+-]+@[a-zA-Z0-9.-]+\\.[a-zA-Z]{2,4}$")))
-            return PersistStatus_User.InvalidEmail_format;
-        else if(group == null || group.getGroupID() == -1)
-            return PersistStatus_User.InvalidGroup;
+        PersistStatus_User status = validate();
+        if(status != PersistStatus_User.Success)
+            return status;
         try
         {
             // Validate uniqueness
@@ -315,6 +359,7 @@ public class User
                         group.getGroupID(),
                         userid
                         );
+                core.getAuthCache().invalidate(core, AuthCache.Type.User, userid);
             }
             return PersistStatus_User.Success;
         }
@@ -324,6 +369,104 @@ public class User
             return PersistStatus_User.Failed;
         }
     }
+    /**
+     * Persists multiple new models using a single statement; the identifier
+     * of each model is assigned if the operation succeeds.
+     * 
+     * The fields of each model should be validated, using validate(), and
+     * checked for uniqueness before invoking this method; if any row violates
+     * the uniqueness of usernames or e-mails, no models are persisted.
+     * 
+     * @param conn Database connector.
+     * @param users The models to persist; every model must be unpersisted.
+     * @return True = successful, false = failed.
+     * @since 1.0
+     */
+    public static boolean persistAll(Connector conn, User[] users)
+    {
+        if(users.length == 0)
+            return true;
+        // Build a multi-row insert
+        StringBuilder sb = new StringBuilder("INSERT INTO pals_users (username, password, password_salt, email, groupid) VALUES");
+        Object[] values = new Object[users.length*5];
+        int offset = 0;
+        for(User u : users)
+        {
+            if(u.userid != -1 || u.group == null)
+                return false;
+            sb.append("(?,?,?,?,?),");
+            values[offset++] = u.username;
+            values[offset++] = u.password;
+            values[offset++] = u.passwordSalt;
+            values[offset++] = u.email;
+            values[offset++] = u.group.getGroupID();
+        }
+        sb.deleteCharAt(sb.length()-1).append(" RETURNING userid, username;");
+        try
+        {
+            // Assign identifiers by username, since the order of the rows returned
+            // is not guaranteed; usernames are unique, regardless of case
+            HashMap<String,User> pending = new HashMap<>(users.length);
+            for(User u : users)
+                pending.put(u.username.toLowerCase(), u);
+            ArrayList<Integer> ids = new ArrayList<>(users.length);
+            Result res = conn.read(sb.toString(), values);
+            User u;
+            int userid;
+            while(res.next())
+            {
+                userid = (int)res.get("userid");
+                ids.add(userid);
+                if((u = pending.remove(((String)res.get("username")).toLowerCase())) != null)
+                    u.userid = userid;
+            }
+            // Check every model was persisted; otherwise undo the insert
+            if(!pending.isEmpty())
+            {
+                for(User t : users)
+                    t.userid = -1;
+                if(!ids.isEmpty())
+                {
+                    sb = new StringBuilder("DELETE FROM pals_users WHERE userid IN (");
+                    for(int i = 0; i < ids.size(); i++)
+                        sb.append("?,");
+                    sb.deleteCharAt(sb.length()-1).append(");");
+                    conn.execute(sb.toString(), ids.toArray());
+                }
+                return false;
+            }
+            return true;
+        }
+        catch(DatabaseException ex)
+        {
+            NodeCore core;
+            if((core = NodeCore.getInstance())!=null)
+                core.getLogging().logEx("Base", ex, Logging.EntryType.Warning);
+            return false;
+        }
+    }
+    /**
+     * Validates the fields of the model, without checking for uniqueness.
+     * 
+     * @return Success if the fields are valid, otherwise the status
+     * describing the invalid field.
+     * @since 1.0
+     */
+    public PersistStatus_User validate()
+    {
+        if(username == null || username.length() < getUsernameMin() || username.length() > getUsernameMax())
+            return PersistStatus_User.InvalidUsername_length;
+        else if(!username.matches("^[a-zA-Z0-9]+$"))
+            return PersistStatus_User.InvalidUsername_format;
+        else if(password != null && (password.length() < getPasswordMin()))
+            return PersistStatus_User.InvalidPassword_length;
+        // Regex from: http://www.regular-expressions.info/email.html
+        else if(email != null && (email.length() < getEmailMin() || email.length() > getEmailMax() || !email.matches("^[a-zA-Z0-9._%+-]+@[a-zA-Z0-9.-]+\\.[a-zA-Z]{2,4}$")))
+            return PersistStatus_User.InvalidEmail_format;
+        else if(group == null || group.getGroupID() == -1)
+            return PersistStatus_User.InvalidGroup;
+        return PersistStatus_User.Success;
+    }
     /**
      * Unpersists the current model.
      * 
@@ -338,6 +481,8 @@ public class User
             if(userid != -1)
             {
                 conn.execute("DELETE FROM pals_users WHERE userid=?;", userid);
+                NodeCore core = NodeCore.getInstance();
+                core.getAuthCache().invalidate(core, AuthCache.Type.User, userid);
                 userid = -1;
                 return true;
             }
@@ -350,6 +495,19 @@ public class User
         }
         return false;
     }
+    /**
+     * Creates a copy of this user, including a copy of its group; used by
+     * {@link AuthCache}.
+     * 
+     * @return A copy of the user.
+     * @since 1.0
+     */
+    User copy()
+    {
+        User u = new User(username, password, passwordSalt, email, group != null ? group.copy() : null);
+        u.userid = userid;
+        return u;
+    }
     // Methods - Mutators ******************************************************
     /**
      * Sets the username.
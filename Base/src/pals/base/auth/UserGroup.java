@@ -111,10 +111,18 @@ public class UserGroup
      */
     public static UserGroup load(Connector conn, int groupid)
     {
+        // Check the node-local cache
+        AuthCache cache = NodeCore.getInstance().getAuthCache();
+        long generation = cache.getGeneration();
+        UserGroup ug = cache.getGroup(groupid);
+        if(ug != null)
+            return ug;
         try
         {
             Result res = conn.read("SELECT * FROM pals_users_group WHERE groupid=?;", groupid);
-            return res.next() ? load(res) : null;
+            if(res.next() && (ug = load(res)) != null)
+                cache.putGroup(generation, ug);
+            return ug;
         }
         catch(DatabaseException ex)
         {
@@ -226,6 +234,8 @@ public class UserGroup
                         adminSystem ? "1" : "0",
                         groupid
                         );
+                NodeCore core = NodeCore.getInstance();
+                core.getAuthCache().invalidate(core, AuthCache.Type.Group, groupid);
             }
             return PersistStatus_UserGroup.Success;
         }
@@ -251,6 +261,8 @@ public class UserGroup
             if(groupid != -1)
             {
                 conn.execute("DELETE FROM pals_users_group WHERE groupid=?;", groupid);
+                NodeCore core = NodeCore.getInstance();
+                core.getAuthCache().invalidate(core, AuthCache.Type.Group, groupid);
                 groupid = -1;
                 return true;
             }
@@ -263,6 +275,18 @@ public class UserGroup
         }
         return false;
     }
+    /**
+     * Creates a copy of this user-group; used by {@link AuthCache}.
+     * 
+     * @return A copy of the group.
+     * @since 1.0
+     */
+    UserGroup copy()
+    {
+        UserGroup ug = new UserGroup(title, userLogin, markerGeneral, adminModules, adminQuestions, adminUsers, adminSystem);
+        ug.groupid = groupid;
+        return ug;
+    }
     // Methods - Mutators ******************************************************
     /**
      * Sets the title.
@@ -155,6 +155,45 @@ public abstract class Connector
             throw new DatabaseException(DatabaseException.Type.QueryException, ex);
         }
     }
+    /**
+     * Executes a query and returns the number of rows affected.
+     * 
+     * @param query The query to be executed. '?' without quotations should be
+     * used in places where a value is specified. The nth-? corresponds to the
+     * nth value in the values parameter passed.
+     * @param values The values for substitution in the query.
+     * @return The number of rows affected by the query.
+     * @throws DatabaseException Thrown if a database exception occurs with the
+     * connector.
+     * @since 1.0
+     */
+    public int executeUpdate(String query, Object... values)                    throws DatabaseException
+    {
+        PreparedStatement ps = prepare(query, values);
+        return executeUpdate(ps);
+    }
+    /**
+     * Executes a prepared statement and returns the number of rows affected.
+     * 
+     * @param ps The prepared statement to be executed.
+     * @return The number of rows affected by the statement.
+     * @throws DatabaseException Thrown if a database exception occurs with the
+     * connector.
+     * @since 1.0
+     */
+    public int executeUpdate(PreparedStatement ps)                              throws DatabaseException
+    {
+        try
+        {
+            int t = ps.executeUpdate();
+            ps.close();
+            return t;
+        }
+        catch(SQLException ex)
+        {
+            throw new DatabaseException(DatabaseException.Type.QueryException, ex);
+        }
+    }
     /**
      * Executes a query with a scalar value returned.
      * 
@@ -232,6 +271,66 @@ public abstract class Connector
             throw new DatabaseException(DatabaseException.Type.QueryException, ex);
         }
     }
+    /**
+     * Executes and returns the result from the query, with rows fetched from
+     * a cursor in blocks rather than all at once; this allows large results
+     * to be iterated with constant memory.
+     * 
+     * The cursor is held within a transaction on this connector, which is
+     * ended when the result is disposed; thus the result must always be
+     * disposed, and no other queries should be executed on this connector
+     * until then.
+     * 
+     * @param fetchSize The number of rows fetched per block.
+     * @param query The query to be executed. '?' without quotations should be
+     * used in places where a value is specified. The nth-? corresponds to the
+     * nth value in the values parameter passed.
+     * @param values The values for substitution in the query.
+     * @return The result from the query.
+     * @throws DatabaseException Thrown if a database exception occurs with the
+     * connector.
+     * @since 1.0
+     */
+    public Result readCursor(int fetchSize, String query, Object... values)    throws DatabaseException
+    {
+        try
+        {
+            // Cursors are only used by drivers outside of auto-commit
+            connection.setAutoCommit(false);
+        }
+        catch(SQLException ex)
+        {
+            throw new DatabaseException(DatabaseException.Type.QueryException, ex);
+        }
+        try
+        {
+            PreparedStatement ps = prepare(query, values);
+            ps.setFetchSize(fetchSize);
+            return new Result(ps.executeQuery(), ps, connection);
+        }
+        catch(SQLException ex)
+        {
+            cursorAbort();
+            throw new DatabaseException(DatabaseException.Type.QueryException, ex);
+        }
+        catch(DatabaseException ex)
+        {
+            cursorAbort();
+            throw ex;
+        }
+    }
+    private void cursorAbort()
+    {
+        try
+        {
+            connection.rollback();
+            connection.setAutoCommit(true);
+        }
+        catch(SQLException ex)
+        {
+            // Do nothing...
+        }
+    }
     /**
      * Used to exclusively lock a table - from anything, including reads.
      * 
@@ -26,6 +26,7 @@
 */
 package pals.base.database;
 
+import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.ResultSetMetaData;
@@ -41,11 +42,17 @@ public class Result
     // Fields ******************************************************************
     private final ResultSet         rs;     // The result-set of data from the query.
     private final PreparedStatement ps;     // The underlying prepared-statement.
+    private final Connection        cursor; // The connection holding the transaction of a cursor; can be null.
     // Methods - Constructors **************************************************
     protected Result(ResultSet rs, PreparedStatement ps)
+    {
+        this(rs, ps, null);
+    }
+    protected Result(ResultSet rs, PreparedStatement ps, Connection cursor)
     {
         this.rs = rs;
         this.ps = ps;
+        this.cursor = cursor;
     }
     // Methods - Accessors *****************************************************
     /**
@@ -135,7 +142,8 @@ public class Result
         }
     }
     /**
-     * Disposes the underlying result-set and prepared-statement.
+     * Disposes the underlying result-set and prepared-statement; if the
+     * result is from a cursor, the transaction of the cursor is also ended.
      * 
      * @throws DatabaseException Thrown if the prepared-statement cannot be
      * created.
@@ -147,6 +155,11 @@ public class Result
         {
             this.rs.close();
             this.ps.close();
+            if(cursor != null)
+            {
+                cursor.commit();
+                cursor.setAutoCommit(true);
+            }
         }
         catch(SQLException ex)
         {
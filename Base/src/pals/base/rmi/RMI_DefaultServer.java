@@ -31,6 +31,8 @@ import java.rmi.server.UnicastRemoteObject;
 import pals.base.NodeCore;
 import pals.base.Plugin;
 import pals.base.UUID;
+import pals.base.assessment.AssessmentCache;
+import pals.base.auth.AuthCache;
 import pals.base.web.RemoteRequest;
 import pals.base.web.RemoteResponse;
 
@@ -115,6 +117,11 @@ public class RMI_DefaultServer extends UnicastRemoteObject  implements RMI_Inter
     @Override
     public void invokeGlobalHookAll(String event, Object[] data) throws RemoteException
     {
+        // Events handled by the base
+        if(AuthCache.EVENT.equals(event))
+            core.getAuthCache().handleEvent(data);
+        else if(AssessmentCache.EVENT.equals(event))
+            core.getAssessmentCache().handleEvent(data);
         core.getPlugins().globalHookInvokeAll(event, data);
     }
     /**
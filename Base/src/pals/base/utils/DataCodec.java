@@ -0,0 +1,90 @@
+/*
+    The MIT License (MIT)
+
+    Copyright (c) 2014 Marcus Craske <limpygnome@gmail.com>
+
+    Permission is hereby granted, free of charge, to any person obtaining a copy
+    of this software and associated documentation files (the "Software"), to deal
+    in the Software without restriction, including without limitation the rights
+    to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+    copies of the Software, and to permit persons to whom the Software is
+    furnished to do so, subject to the following conditions:
+
+    The above copyright notice and this permission notice shall be included in
+    all copies or substantial portions of the Software.
+
+    THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+    IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+    FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+    AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+    LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+    OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+    THE SOFTWARE.
+    ----------------------------------------------------------------------------
+    Authors:    Marcus Craske           <limpygnome@gmail.com>
+    ----------------------------------------------------------------------------
+*/
+package pals.base.utils;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * A codec for writing and reading a class of data, such as the data of a
+ * question or criteria, in a compact binary format; this is used by
+ * {@link Misc#bytesSerialize(java.lang.Object)} instead of Java serialization,
+ * once registered with {@link DataCodecs}.
+ * 
+ * The version of the format is written with the data, thus a codec should
+ * continue to read older versions after its format changes.
+ * 
+ * @version 1.0
+ * @param <T> The class of data.
+ */
+public interface DataCodec<T>
+{
+    /**
+     * The name of the codec, written with each object; this should be short
+     * and must never change.
+     * 
+     * @return The name.
+     * @since 1.0
+     */
+    public String getName();
+    /**
+     * The class of data handled by this codec; only objects of exactly this
+     * class are written by the codec.
+     * 
+     * @return The class.
+     * @since 1.0
+     */
+    public Class<T> getType();
+    /**
+     * The current version of the format, between 0 to 255.
+     * 
+     * @return The version.
+     * @since 1.0
+     */
+    public int getVersion();
+    /**
+     * Writes an object, using the current version of the format.
+     * 
+     * @param obj The object; never null.
+     * @param dos The stream to write the object.
+     * @throws IOException Thrown if the object cannot be written.
+     * @since 1.0
+     */
+    public void write(T obj, DataOutputStream dos) throws IOException;
+    /**
+     * Reads an object.
+     * 
+     * @param version The version of the format used to write the object.
+     * @param dis The stream from which to read the object.
+     * @return The object.
+     * @throws IOException Thrown if the object cannot be read, or the version
+     * is not supported.
+     * @since 1.0
+     */
+    public T read(int version, DataInputStream dis) throws IOException;
+}
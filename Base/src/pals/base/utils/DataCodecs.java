@@ -0,0 +1,273 @@
+/*
+    The MIT License (MIT)
+
+    Copyright (c) 2014 Marcus Craske <limpygnome@gmail.com>
+
+    Permission is hereby granted, free of charge, to any person obtaining a copy
+    of this software and associated documentation files (the "Software"), to deal
+    in the Software without restriction, including without limitation the rights
+    to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+    copies of the Software, and to permit persons to whom the Software is
+    furnished to do so, subject to the following conditions:
+
+    The above copyright notice and this permission notice shall be included in
+    all copies or substantial portions of the Software.
+
+    THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+    IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+    FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+    AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+    LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+    OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+    THE SOFTWARE.
+    ----------------------------------------------------------------------------
+    Authors:    Marcus Craske           <limpygnome@gmail.com>
+    ----------------------------------------------------------------------------
+*/
+package pals.base.utils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The registry of {@link DataCodec} instances, used for serializing data
+ * in a compact binary format, as well as helper methods for codecs.
+ * 
+ * Encoded data starts with a two-byte magic value, which differs from the
+ * magic value of Java serialization, followed by the name of the codec,
+ * the version of its format and then the data written by the codec; thus
+ * data serialized with Java serialization can still be read.
+ * 
+ * Plugins should register their codecs when loaded and unregister them
+ * when unloaded.
+ * 
+ * Thread-safe.
+ * 
+ * @version 1.0
+ */
+public class DataCodecs
+{
+    // Fields - Constants ******************************************************
+    private static final byte MAGIC_0 = (byte)0x50;
+    private static final byte MAGIC_1 = (byte)0x44;
+    // Fields - Static *********************************************************
+    private static final ConcurrentHashMap<Class<?>,DataCodec<?>>   codecsType = new ConcurrentHashMap<>();    // <class,codec>
+    private static final ConcurrentHashMap<String,DataCodec<?>>     codecsName = new ConcurrentHashMap<>();    // <name,codec>
+    // Methods - Constructors **************************************************
+    private DataCodecs()
+    {
+    }
+    // Methods - Static - Registry *********************************************
+    /**
+     * Registers a codec, replacing any codec with the same name or class.
+     * 
+     * @param codec The codec; cannot be null.
+     * @since 1.0
+     */
+    public static synchronized void register(DataCodec<?> codec)
+    {
+        if(codec.getVersion() < 0 || codec.getVersion() > 255)
+            throw new IllegalArgumentException("Invalid version for codec '"+codec.getName()+"'.");
+        unregister(codecsName.get(codec.getName()));
+        unregister(codecsType.get(codec.getType()));
+        codecsName.put(codec.getName(), codec);
+        codecsType.put(codec.getType(), codec);
+    }
+    /**
+     * Unregisters a codec; data written by the codec cannot be read until a
+     * codec with the same name is registered.
+     * 
+     * @param codec The codec; can be null.
+     * @since 1.0
+     */
+    public static synchronized void unregister(DataCodec<?> codec)
+    {
+        if(codec == null)
+            return;
+        codecsName.remove(codec.getName(), codec);
+        codecsType.remove(codec.getType(), codec);
+    }
+    // Methods - Static - Encoding *********************************************
+    /**
+     * Encodes an object with the codec registered for its class.
+     * 
+     * @param obj The object; can be null.
+     * @return The encoded data, or null if no codec is registered for the
+     * class of the object.
+     * @throws IOException Thrown if the codec fails to write the object.
+     * @since 1.0
+     */
+    @SuppressWarnings("unchecked")
+    public static byte[] encode(Object obj) throws IOException
+    {
+        DataCodec<Object> codec = obj != null ? (DataCodec<Object>)codecsType.get(obj.getClass()) : null;
+        if(codec == null)
+            return null;
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        DataOutputStream dos = new DataOutputStream(baos);
+        dos.writeByte(MAGIC_0);
+        dos.writeByte(MAGIC_1);
+        dos.writeUTF(codec.getName());
+        dos.writeByte(codec.getVersion());
+        codec.write(obj, dos);
+        dos.flush();
+        return baos.toByteArray();
+    }
+    /**
+     * Indicates if data has been encoded by a codec.
+     * 
+     * @param data The data; cannot be null.
+     * @return True = encoded by a codec, false = not encoded by a codec.
+     * @since 1.0
+     */
+    public static boolean isEncoded(byte[] data)
+    {
+        return data.length >= 2 && data[0] == MAGIC_0 && data[1] == MAGIC_1;
+    }
+    /**
+     * Decodes data encoded by a codec.
+     * 
+     * @param data The data; must have been encoded by a codec.
+     * @return The object.
+     * @throws IOException Thrown if the data cannot be read.
+     * @throws ClassNotFoundException Thrown if the codec of the data is not
+     * registered.
+     * @since 1.0
+     */
+    public static Object decode(byte[] data) throws IOException, ClassNotFoundException
+    {
+        if(!isEncoded(data))
+            throw new IOException("Data has not been encoded by a codec.");
+        DataInputStream dis = new DataInputStream(new ByteArrayInputStream(data, 2, data.length-2));
+        String name = dis.readUTF();
+        DataCodec<?> codec = codecsName.get(name);
+        if(codec == null)
+            throw new ClassNotFoundException("DataCodecs - codec '"+name+"' is not registered.");
+        return codec.read(dis.readUnsignedByte(), dis);
+    }
+    // Methods - Static - Helpers **********************************************
+    /**
+     * Writes an unsigned variable-length integer, using one byte for values
+     * below 128.
+     * 
+     * @param dos The stream.
+     * @param value The value; must be positive.
+     * @throws IOException Thrown by the stream.
+     * @since 1.0
+     */
+    public static void writeVarInt(DataOutputStream dos, int value) throws IOException
+    {
+        while((value & ~0x7F) != 0)
+        {
+            dos.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        dos.writeByte(value);
+    }
+    /**
+     * Reads an unsigned variable-length integer.
+     * 
+     * @param dis The stream.
+     * @return The value.
+     * @throws IOException Thrown by the stream, or if the value is invalid.
+     * @since 1.0
+     */
+    public static int readVarInt(DataInputStream dis) throws IOException
+    {
+        int value = 0, b;
+        for(int shift = 0; shift < 32; shift += 7)
+        {
+            b = dis.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if((b & 0x80) == 0)
+                return value;
+        }
+        throw new IOException("Malformed variable-length integer.");
+    }
+    /**
+     * Writes a string, which can be null, as UTF-8 prefixed by its length;
+     * unlike {@link DataOutputStream#writeUTF(java.lang.String)}, there is no
+     * limit on the length.
+     * 
+     * @param dos The stream.
+     * @param value The value; can be null.
+     * @throws IOException Thrown by the stream.
+     * @since 1.0
+     */
+    public static void writeString(DataOutputStream dos, String value) throws IOException
+    {
+        if(value == null)
+            writeVarInt(dos, 0);
+        else
+        {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarInt(dos, bytes.length+1);
+            dos.write(bytes);
+        }
+    }
+    /**
+     * Reads a string written by
+     * {@link #writeString(java.io.DataOutputStream, java.lang.String)}.
+     * 
+     * @param dis The stream.
+     * @return The value; can be null.
+     * @throws IOException Thrown by the stream.
+     * @since 1.0
+     */
+    public static String readString(DataInputStream dis) throws IOException
+    {
+        int len = readVarInt(dis);
+        if(len == 0)
+            return null;
+        if(len-1 > dis.available())
+            throw new IOException("Malformed string; length exceeds the data.");
+        byte[] bytes = new byte[len-1];
+        dis.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+    /**
+     * Writes an array of strings; the array and its elements can be null.
+     * 
+     * @param dos The stream.
+     * @param values The values; can be null.
+     * @throws IOException Thrown by the stream.
+     * @since 1.0
+     */
+    public static void writeStrings(DataOutputStream dos, String[] values) throws IOException
+    {
+        if(values == null)
+            writeVarInt(dos, 0);
+        else
+        {
+            writeVarInt(dos, values.length+1);
+            for(String s : values)
+                writeString(dos, s);
+        }
+    }
+    /**
+     * Reads an array of strings written by
+     * {@link #writeStrings(java.io.DataOutputStream, java.lang.String[])}.
+     * 
+     * @param dis The stream.
+     * @return The values; can be null.
+     * @throws IOException Thrown by the stream.
+     * @since 1.0
+     */
+    public static String[] readStrings(DataInputStream dis) throws IOException
+    {
+        int len = readVarInt(dis);
+        if(len == 0)
+            return null;
+        if(len-1 > dis.available())
+            throw new IOException("Malformed array; length exceeds the data.");
+        String[] values = new String[len-1];
+        for(int i = 0; i < values.length; i++)
+            values[i] = readString(dis);
+        return values;
+    }
+}
@@ -0,0 +1,205 @@
+/*
+    The MIT License (MIT)
+
+    Copyright (c) 2014 Marcus Craske <limpygnome@gmail.com>
+
+    Permission is hereby granted, free of charge, to any person obtaining a copy
+    of this software and associated documentation files (the "Software"), to deal
+    in the Software without restriction, including without limitation the rights
+    to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+    copies of the Software, and to permit persons to whom the Software is
+    furnished to do so, subject to the following conditions:
+
+    The above copyright notice and this permission notice shall be included in
+    all copies or substantial portions of the Software.
+
+    THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+    IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+    FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+    AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+    LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+    OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+    THE SOFTWARE.
+    ----------------------------------------------------------------------------
+    Authors:    Marcus Craske           <limpygnome@gmail.com>
+    ----------------------------------------------------------------------------
+*/
+package pals.base.utils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+
+/**
+ * A hashed timer-wheel of due-dates, each identified by an integer; each
+ * slot of the wheel spans a tick, with due-dates beyond a revolution of the
+ * wheel held in the slot until their round is reached. Scheduling,
+ * cancelling and firing are constant-time, thus a thread can sleep until the
+ * next due-date rather than scanning for items due.
+ * 
+ * Not thread-safe; this should only be used by a single thread.
+ * 
+ * @version 1.0
+ */
+public class DueScheduler
+{
+    // Classes *****************************************************************
+    private static class Entry
+    {
+        final int   id;
+        final long  deadline;   // The absolute tick at which the entry fires.
+        final int   slot;
+        Entry(int id, long deadline, int slot)
+        {
+            this.id = id;
+            this.deadline = deadline;
+            this.slot = slot;
+        }
+    }
+    // Fields ******************************************************************
+    private final long                          tickMs;     // The duration of a slot.
+    private final ArrayList<HashSet<Entry>>     slots;      // The slots of the wheel.
+    private final HashMap<Integer,Entry>        entries;    // id,entry
+    private long                                current;    // The last tick processed.
+    // Methods - Constructors **************************************************
+    /**
+     * Constructs a new instance.
+     * 
+     * @param tickMs The duration of each slot, in milliseconds; this is the
+     * resolution of the scheduler.
+     * @param slots The number of slots in the wheel.
+     * @since 1.0
+     */
+    public DueScheduler(long tickMs, int slots)
+    {
+        this(tickMs, slots, System.currentTimeMillis());
+    }
+    /**
+     * Constructs a new instance.
+     * 
+     * @param tickMs The duration of each slot, in milliseconds; this is the
+     * resolution of the scheduler.
+     * @param slots The number of slots in the wheel.
+     * @param nowMs The current time, as epoch milliseconds.
+     * @since 1.0
+     */
+    public DueScheduler(long tickMs, int slots, long nowMs)
+    {
+        this.tickMs = Math.max(1, tickMs);
+        this.slots = new ArrayList<>(Math.max(1, slots));
+        for(int i = 0; i < Math.max(1, slots); i++)
+            this.slots.add(new HashSet<Entry>());
+        this.entries = new HashMap<>();
+        this.current = nowMs / this.tickMs;
+    }
+    // Methods *****************************************************************
+    /**
+     * Schedules a due-date, replacing any existing due-date with the same
+     * identifier. Due-dates already surpassed fire at the
+     * next tick.
+     * 
+     * @param id The identifier of the item due.
+     * @param dueMs The due-date, as epoch milliseconds.
+     * @since 1.0
+     */
+    public void schedule(int id, long dueMs)
+    {
+        cancel(id);
+        // Round-up, so an entry never fires before its due-date
+        long deadline = Math.max(current+1, (dueMs + tickMs - 1) / tickMs);
+        Entry e = new Entry(id, deadline, (int)(deadline % slots.size()));
+        slots.get(e.slot).add(e);
+        entries.put(id, e);
+    }
+    /**
+     * Cancels a due-date.
+     * 
+     * @param id The identifier of the item due.
+     * @return True = cancelled, false = not scheduled.
+     * @since 1.0
+     */
+    public boolean cancel(int id)
+    {
+        Entry e = entries.remove(id);
+        if(e == null)
+            return false;
+        slots.get(e.slot).remove(e);
+        return true;
+    }
+    /**
+     * Removes all of the due-dates.
+     * 
+     * @since 1.0
+     */
+    public void clear()
+    {
+        for(HashSet<Entry> slot : slots)
+            slot.clear();
+        entries.clear();
+    }
+    /**
+     * Advances the wheel to the current time, removing the due-dates which
+     * have been reached.
+     * 
+     * @param nowMs The current time, as epoch milliseconds.
+     * @return The identifiers of the items due; can be empty.
+     * @since 1.0
+     */
+    public int[] poll(long nowMs)
+    {
+        long now = nowMs / tickMs;
+        ArrayList<Entry> fired = new ArrayList<>();
+        // Visit each slot passed, at most a revolution of the wheel
+        long end = Math.min(now, current + slots.size());
+        for(long t = current+1; t <= end; t++)
+        {
+            for(Entry e : slots.get((int)(t % slots.size())))
+            {
+                if(e.deadline <= now)
+                    fired.add(e);
+            }
+        }
+        if(now > current)
+            current = now;
+        // Remove the fired entries
+        int[] buffer = new int[fired.size()];
+        for(int i = 0; i < buffer.length; i++)
+        {
+            cancel(fired.get(i).id);
+            buffer[i] = fired.get(i).id;
+        }
+        return buffer;
+    }
+    /**
+     * @param nowMs The current time, as epoch milliseconds.
+     * @param maxMs The maximum delay returned.
+     * @return The milliseconds until the next due-date, or maxMs if none are
+     * sooner.
+     * @since 1.0
+     */
+    public long getDelay(long nowMs, long maxMs)
+    {
+        if(entries.isEmpty())
+            return maxMs;
+        // Find the first slot with an entry in the current revolution
+        long end = current + slots.size();
+        for(long t = current+1; t <= end; t++)
+        {
+            for(Entry e : slots.get((int)(t % slots.size())))
+            {
+                if(e.deadline <= end)
+                    return Math.max(0, Math.min(maxMs, e.deadline * tickMs - nowMs));
+            }
+        }
+        // Nothing this revolution; wake at the end of it
+        return Math.max(0, Math.min(maxMs, end * tickMs - nowMs));
+    }
+    /**
+     * @return The number of due-dates scheduled.
+     * @since 1.0
+     */
+    public int size()
+    {
+        return entries.size();
+    }
+}
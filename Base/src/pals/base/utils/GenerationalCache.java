@@ -0,0 +1,285 @@
+/*
+    The MIT License (MIT)
+
+    Copyright (c) 2014 Marcus Craske <limpygnome@gmail.com>
+
+    Permission is hereby granted, free of charge, to any person obtaining a copy
+    of this software and associated documentation files (the "Software"), to deal
+    in the Software without restriction, including without limitation the rights
+    to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+    copies of the Software, and to permit persons to whom the Software is
+    furnished to do so, subject to the following conditions:
+
+    The above copyright notice and this permission notice shall be included in
+    all copies or substantial portions of the Software.
+
+    THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+    IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+    FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+    AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+    LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+    OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+    THE SOFTWARE.
+    ----------------------------------------------------------------------------
+    Authors:    Marcus Craske           <limpygnome@gmail.com>
+    ----------------------------------------------------------------------------
+*/
+package pals.base.utils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import pals.base.NodeCore;
+import pals.base.rmi.RMI;
+
+/**
+ * The base of a node-local cache of models, held in tables of identifiers to
+ * models, which is invalidated by type of data on every node.
+ * 
+ * Bounded tables hold at most the capacity of the cache, with the least
+ * recently used evicted first. Every invalidation increments the generation
+ * of the cache; loaded data is only added if no invalidation occurred since
+ * the generation read before loading it, thus stale data is never added.
+ * Invalidations are also sent to every other node as a global event, which
+ * must be routed to handleEvent.
+ * 
+ * Subclasses must only access their tables while synchronized on the cache.
+ * 
+ * Thread-safe.
+ * 
+ * @param <T> The type of data being invalidated.
+ * @version 1.0
+ */
+public abstract class GenerationalCache<T extends Enum<T>>
+{
+    // Fields ******************************************************************
+    private final String                            event;      // The global event for invalidating the cache on all nodes.
+    private final Class<T>                          types;      // The type of data being invalidated, for checking events.
+    private final ArrayList<HashMap<?,?>>           tables;     // All of the tables.
+    private final ArrayList<LinkedHashMap<?,?>>     bounded;    // The tables bounded by the capacity.
+    private int                                     capacity;   // The maximum number of entries of each bounded table.
+    private long                                    generation; // Incremented by every invalidation.
+    private long                                    hits;       // The number of look-ups served from the cache.
+    private long                                    misses;     // The number of look-ups not served from the cache.
+    // Methods - Constructors **************************************************
+    /**
+     * Constructs a new instance.
+     * 
+     * @param event The global event for invalidating the cache on all nodes;
+     * the data is the type and an array of identifiers (int[]).
+     * @param types The class of the type of data being invalidated.
+     * @param capacity The maximum number of entries of each bounded table.
+     * @since 1.0
+     */
+    protected GenerationalCache(String event, Class<T> types, int capacity)
+    {
+        this.event = event;
+        this.types = types;
+        this.tables = new ArrayList<>();
+        this.bounded = new ArrayList<>();
+        this.capacity = capacity;
+        this.generation = 0;
+        this.hits = this.misses = 0;
+    }
+    // Methods - Tables ********************************************************
+    /**
+     * Creates a table bounded by the capacity; this should only be invoked
+     * by the constructor of a subclass.
+     * 
+     * @param <K> The data-type of the keys.
+     * @param <V> The data-type of the values.
+     * @return The table, in order of least to most recently used.
+     * @since 1.0
+     */
+    protected final <K,V> LinkedHashMap<K,V> createBounded()
+    {
+        LinkedHashMap<K,V> table = new LinkedHashMap<>(16, 0.75f, true);
+        tables.add(table);
+        bounded.add(table);
+        return table;
+    }
+    /**
+     * Creates a table which is not bounded, for data which is few; this
+     * should only be invoked by the constructor of a subclass.
+     * 
+     * @param <K> The data-type of the keys.
+     * @param <V> The data-type of the values.
+     * @return The table.
+     * @since 1.0
+     */
+    protected final <K,V> HashMap<K,V> createUnbounded()
+    {
+        HashMap<K,V> table = new HashMap<>();
+        tables.add(table);
+        return table;
+    }
+    /**
+     * Fetches an entry of a table, counting the look-up as a hit or miss.
+     * 
+     * @param <K> The data-type of the keys.
+     * @param <V> The data-type of the values.
+     * @param table The table.
+     * @param key The key of the entry.
+     * @return The entry, or null if not cached.
+     * @since 1.0
+     */
+    protected final synchronized <K,V> V get(HashMap<K,V> table, K key)
+    {
+        V v = table.get(key);
+        if(v != null)
+            hits++;
+        else
+            misses++;
+        return v;
+    }
+    /**
+     * Adds, or replaces, an entry of a table, provided no invalidation
+     * occurred since the generation and the cache is enabled.
+     * 
+     * @param <K> The data-type of the keys.
+     * @param <V> The data-type of the values.
+     * @param generation The generation before the entry was loaded.
+     * @param table The table.
+     * @param key The key of the entry.
+     * @param value The entry.
+     * @return True = added, false = stale or the cache is disabled.
+     * @since 1.0
+     */
+    protected final synchronized <K,V> boolean put(long generation, HashMap<K,V> table, K key, V value)
+    {
+        if(generation != this.generation || capacity == 0)
+            return false;
+        table.put(key, value);
+        for(LinkedHashMap<?,?> b : bounded)
+        {
+            if(b == table)
+                trim(b);
+        }
+        return true;
+    }
+    private void trim(LinkedHashMap<?,?> table)
+    {
+        Iterator<?> it = table.keySet().iterator();
+        while(table.size() > capacity && it.hasNext())
+        {
+            it.next();
+            it.remove();
+        }
+    }
+    // Methods - Invalidation **************************************************
+    /**
+     * Removes the invalidated data from the tables; invoked while
+     * synchronized on the cache.
+     * 
+     * @param type The type of data.
+     * @param ids The identifiers; ignored for types of all data.
+     * @since 1.0
+     */
+    protected abstract void invalidateTables(T type, int[] ids);
+    /**
+     * Invalidates data on this node only.
+     * 
+     * @param type The type of data.
+     * @param ids The identifiers; ignored for types of all data.
+     * @since 1.0
+     */
+    public synchronized void invalidateLocal(T type, int... ids)
+    {
+        generation++;
+        invalidateTables(type, ids);
+    }
+    /**
+     * Invalidates data on this node and every other node.
+     * 
+     * @param core The current instance of the core.
+     * @param type The type of data.
+     * @param ids The identifiers; ignored for types of all data.
+     * @since 1.0
+     */
+    public void invalidate(NodeCore core, T type, int... ids)
+    {
+        invalidateLocal(type, ids);
+        RMI rmi = core.getRMI();
+        if(rmi != null)
+            rmi.nodesGlobalEventAll(event, new Object[]{type, ids});
+    }
+    /**
+     * Handles the global event for invalidating the cache.
+     * 
+     * @param data The event data.
+     * @return True = handled, false = invalid data.
+     * @since 1.0
+     */
+    public boolean handleEvent(Object[] data)
+    {
+        if(data == null || data.length != 2 || !types.isInstance(data[0]) || !(data[1] instanceof int[]))
+            return false;
+        invalidateLocal(types.cast(data[0]), (int[])data[1]);
+        return true;
+    }
+    // Methods - Mutators ******************************************************
+    /**
+     * Sets the capacity; entries are evicted if a bounded table is over the
+     * new capacity, and all tables are emptied if the cache is disabled.
+     * 
+     * @param capacity The maximum number of entries of each bounded table;
+     * zero disables the cache.
+     * @since 1.0
+     */
+    public synchronized void setCapacity(int capacity)
+    {
+        if(capacity < 0)
+            throw new IllegalArgumentException("Capacity cannot be negative.");
+        this.capacity = capacity;
+        for(LinkedHashMap<?,?> table : bounded)
+            trim(table);
+        if(capacity == 0)
+        {
+            for(HashMap<?,?> table : tables)
+                table.clear();
+        }
+    }
+    // Methods - Accessors *****************************************************
+    /**
+     * The maximum number of entries of each bounded table.
+     * 
+     * @return The capacity; zero if the cache is disabled.
+     * @since 1.0
+     */
+    public synchronized int getCapacity()
+    {
+        return capacity;
+    }
+    /**
+     * The current generation, which must be read before loading data to be
+     * added to the cache.
+     * 
+     * @return The generation.
+     * @since 1.0
+     */
+    public synchronized long getGeneration()
+    {
+        return generation;
+    }
+    /**
+     * The number of look-ups served from the cache.
+     * 
+     * @return The number of hits.
+     * @since 1.0
+     */
+    public synchronized long getHits()
+    {
+        return hits;
+    }
+    /**
+     * The number of look-ups not served from the cache.
+     * 
+     * @return The number of misses.
+     * @since 1.0
+     */
+    public synchronized long getMisses()
+    {
+        return misses;
+    }
+}
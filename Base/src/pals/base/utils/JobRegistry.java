@@ -0,0 +1,170 @@
+/*
+    The MIT License (MIT)
+
+    Copyright (c) 2014 Marcus Craske <limpygnome@gmail.com>
+
+    Permission is hereby granted, free of charge, to any person obtaining a copy
+    of this software and associated documentation files (the "Software"), to deal
+    in the Software without restriction, including without limitation the rights
+    to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+    copies of the Software, and to permit persons to whom the Software is
+    furnished to do so, subject to the following conditions:
+
+    The above copyright notice and this permission notice shall be included in
+    all copies or substantial portions of the Software.
+
+    THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+    IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+    FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+    AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+    LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+    OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+    THE SOFTWARE.
+    ----------------------------------------------------------------------------
+    Authors:    Marcus Craske           <limpygnome@gmail.com>
+    ----------------------------------------------------------------------------
+*/
+package pals.base.utils;
+
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A registry of background jobs running, or recently ended, on this node;
+ * each job is identified by an integer, allowing its progress to be polled
+ * by later web-requests. Ended jobs are discarded once expired, when another
+ * job is started.
+ * 
+ * Thread-safe.
+ * 
+ * @version 1.0
+ * @param <T> The type of job.
+ */
+public class JobRegistry<T extends ExtendedThread & JobRegistry.Job>
+{
+    // Classes *****************************************************************
+    /**
+     * A job held by a registry.
+     * 
+     * @since 1.0
+     */
+    public interface Job
+    {
+        /**
+         * @return The identifier of the job, allocated by the registry.
+         * @since 1.0
+         */
+        public int getJobID();
+        /**
+         * @return Indicates if the job has ended.
+         * @since 1.0
+         */
+        public boolean isEnded();
+        /**
+         * @return The time at which the job ended, in milliseconds; 0 if the
+         * job has not ended.
+         * @since 1.0
+         */
+        public long getEnded();
+    }
+    // Fields ******************************************************************
+    private final ConcurrentHashMap<Integer,T>  jobs;       // jobid,job
+    private final AtomicInteger                 jobsNext;   // The identifier of the next job.
+    // Methods - Constructors **************************************************
+    /**
+     * Constructs a new instance.
+     * 
+     * @since 1.0
+     */
+    public JobRegistry()
+    {
+        this.jobs = new ConcurrentHashMap<>();
+        this.jobsNext = new AtomicInteger(1);
+    }
+    // Methods *****************************************************************
+    /**
+     * Allocates the identifier for a new job.
+     * 
+     * @return The identifier.
+     * @since 1.0
+     */
+    public int nextID()
+    {
+        return jobsNext.getAndIncrement();
+    }
+    /**
+     * Adds and starts a job; ended jobs older than the expiry are discarded.
+     * 
+     * @param job The job to be started; its identifier should be allocated
+     * by {@link #nextID()}.
+     * @param expiryMs The period, in milliseconds, for which ended jobs are
+     * retained.
+     * @return The job started.
+     * @since 1.0
+     */
+    public T start(T job, long expiryMs)
+    {
+        prune(expiryMs);
+        jobs.put(job.getJobID(), job);
+        job.start();
+        return job;
+    }
+    /**
+     * Discards ended jobs older than the expiry.
+     * 
+     * @param expiryMs The period, in milliseconds, for which ended jobs are
+     * retained.
+     * @since 1.0
+     */
+    public void prune(long expiryMs)
+    {
+        long now = System.currentTimeMillis();
+        T job;
+        for(Iterator<T> it = jobs.values().iterator(); it.hasNext(); )
+        {
+            job = it.next();
+            if(job.isEnded() && now-job.getEnded() > expiryMs)
+                it.remove();
+        }
+    }
+    /**
+     * Stops and joins every job, and then clears the registry; used when
+     * the owner is unloaded.
+     * 
+     * @since 1.0
+     */
+    public void stopAll()
+    {
+        for(T job : jobs.values())
+        {
+            job.extended_stop();
+            try
+            {
+                job.join();
+            }
+            catch(InterruptedException ex)
+            {
+            }
+        }
+        jobs.clear();
+    }
+    // Methods - Accessors *****************************************************
+    /**
+     * @param jobid The identifier of the job.
+     * @return The job, or null if not found.
+     * @since 1.0
+     */
+    public T get(int jobid)
+    {
+        return jobs.get(jobid);
+    }
+    /**
+     * @return The number of jobs held.
+     * @since 1.0
+     */
+    public int size()
+    {
+        return jobs.size();
+    }
+}
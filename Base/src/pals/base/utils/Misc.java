@@ -206,6 +206,9 @@ public class Misc
     /**
      * Serializes an object.
      * 
+     * Objects with a codec registered in {@link DataCodecs} are written by the
+     * codec, otherwise Java serialization is used.
+     * 
      * @param obj The object to be serialized; can be null. This must extend
      * Serializable!
      * @return Byte-array of the serialized data; data is returned for null,
@@ -215,6 +218,9 @@ public class Misc
      */
     public static byte[] bytesSerialize(Object obj) throws IOException
     {
+        byte[] encoded = DataCodecs.encode(obj);
+        if(encoded != null)
+            return encoded;
         ByteArrayOutputStream baos = new ByteArrayOutputStream();
         ObjectOutputStream oos = new ObjectOutputStream(baos);
         oos.writeObject(obj);
@@ -233,6 +239,8 @@ public class Misc
      */
     public static Object bytesDeserialize(byte[] data) throws IOException, ClassNotFoundException
     {
+        if(DataCodecs.isEncoded(data))
+            return DataCodecs.decode(data);
         ByteArrayInputStream deserialBais = new ByteArrayInputStream(data);
         ObjectInputStream deserialOis = new ObjectInputStream(deserialBais);
         return deserialOis.readObject();
@@ -241,7 +249,8 @@ public class Misc
      * Deserializes an object from byte-data.
      * 
      * Resolves classes, whilst deserializing, by going to each plugin for a
-     * class. This is potentially quite expensive.
+     * class; resolved classes are cached by the plugin manager. Data written
+     * by a codec is read by the codec.
      * 
      * @param core The current instance of the core.
      * @param data The byte-array of data to deserialize into an object.
@@ -253,6 +262,8 @@ public class Misc
      */
     public static Object bytesDeserialize(NodeCore core, byte[] data) throws IOException, ClassNotFoundException
     {
+        if(DataCodecs.isEncoded(data))
+            return DataCodecs.decode(data);
         ByteArrayInputStream deserialBais = new ByteArrayInputStream(data);
         ObjectInputStream deserialOis = new PluginObjectInputStream(core, deserialBais);
         return deserialOis.readObject();
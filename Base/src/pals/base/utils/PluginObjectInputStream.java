@@ -31,7 +31,7 @@ import java.io.InputStream;
 import java.io.ObjectInputStream;
 import java.io.ObjectStreamClass;
 import pals.base.NodeCore;
-import pals.base.Plugin;
+import pals.base.PluginManager;
 
 /**
  * An extension of {@link ObjectInputStream} to resolve classes available from
@@ -71,9 +71,12 @@ public class PluginObjectInputStream extends ObjectInputStream
     protected Class<?> resolveClass(ObjectStreamClass osc) throws IOException, ClassNotFoundException
     {
         String className = osc.getName();
-        // Remove [L<class name>; for indicating a class for an array
-        //if(className.startsWith("[L") && className.endsWith(";") && className.length() > 3)
-        //    className = className.substring(2, className.length()-1);
+        // Check the classes already resolved from plugins, which avoids the
+        // exception thrown by the base class-loader for every plugin class
+        PluginManager plugins = core.getPlugins();
+        Class<?> c = plugins.getPluginClassCached(className);
+        if(c != null)
+            return c;
         // Attempt to fetch from super first
         try
         {
@@ -82,17 +85,7 @@ public class PluginObjectInputStream extends ObjectInputStream
         catch(ClassNotFoundException ex)
         {
         }
-        // Iterate each plugin for the class
-        for(Plugin p : core.getPlugins().getPlugins())
-        {
-            try
-            {
-                return Class.forName(className, false, p.getJarIO().getRawLoader());
-            }
-            catch(ClassNotFoundException ex)
-            {
-            }
-        }
-        throw new ClassNotFoundException("PluginObjectInputStream - cannot find class '"+className+"'");
+        // Search the plugins for the class
+        return plugins.getPluginClass(className);
     }
 }
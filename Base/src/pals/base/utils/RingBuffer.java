@@ -0,0 +1,141 @@
+/*
+    The MIT License (MIT)
+
+    Copyright (c) 2014 Marcus Craske <limpygnome@gmail.com>
+
+    Permission is hereby granted, free of charge, to any person obtaining a copy
+    of this software and associated documentation files (the "Software"), to deal
+    in the Software without restriction, including without limitation the rights
+    to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+    copies of the Software, and to permit persons to whom the Software is
+    furnished to do so, subject to the following conditions:
+
+    The above copyright notice and this permission notice shall be included in
+    all copies or substantial portions of the Software.
+
+    THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+    IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+    FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+    AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+    LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+    OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+    THE SOFTWARE.
+    ----------------------------------------------------------------------------
+    Authors:    Marcus Craske           <limpygnome@gmail.com>
+    ----------------------------------------------------------------------------
+*/
+package pals.base.utils;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A bounded, lock-free queue backed by a ring of slots, for many threads
+ * adding items and a single thread removing items.
+ * 
+ * Producers claim a slot by incrementing the tail sequence, provided the
+ * queue is not full, and then store their item in the slot. The consumer
+ * takes items in order from the head sequence; an item claimed, but not yet
+ * stored, is treated as not yet available.
+ * 
+ * Thread-safe for any number of producers, but only a single consumer.
+ * 
+ * @param <T> The data-type of items.
+ * @version 1.0
+ */
+public class RingBuffer<T>
+{
+    // Fields ******************************************************************
+    private final AtomicReferenceArray<T>   slots;      // The slots of the ring; null when empty.
+    private final int                       capacity;   // The number of slots; always a power of two.
+    private final int                       mask;       // Mask to turn a sequence into a slot index.
+    private final AtomicLong                tail;       // The sequence of the next slot to be claimed by a producer.
+    private volatile long                   head;       // The sequence of the next slot to be taken by the consumer.
+    // Methods - Constructors **************************************************
+    /**
+     * Constructs a new instance.
+     * 
+     * @param capacity The minimum number of items the buffer can hold; this
+     * is rounded up to a power of two.
+     * @since 1.0
+     */
+    public RingBuffer(int capacity)
+    {
+        if(capacity < 1)
+            throw new IllegalArgumentException("Capacity must be at least one.");
+        int size = 1;
+        while(size < capacity)
+            size <<= 1;
+        this.slots = new AtomicReferenceArray<>(size);
+        this.capacity = size;
+        this.mask = size-1;
+        this.tail = new AtomicLong();
+        this.head = 0;
+    }
+    // Methods *****************************************************************
+    /**
+     * Adds an item to the buffer.
+     * 
+     * @param item The item; cannot be null.
+     * @return True = added, false = the buffer is full.
+     * @since 1.0
+     */
+    public boolean offer(T item)
+    {
+        if(item == null)
+            throw new IllegalArgumentException("Item cannot be null.");
+        // Claim a slot
+        long t;
+        do
+        {
+            t = tail.get();
+            if(t - head >= capacity)
+                return false;
+        }
+        while(!tail.compareAndSet(t, t+1));
+        // Store the item in the slot
+        slots.set((int)t & mask, item);
+        return true;
+    }
+    /**
+     * Removes the next item from the buffer; this must only be invoked by
+     * the single consumer.
+     * 
+     * @return The item, or null if no item is available.
+     * @since 1.0
+     */
+    public T poll()
+    {
+        long h = head;
+        int index = (int)h & mask;
+        T item = slots.get(index);
+        if(item == null)
+            return null;
+        // Empty the slot before it can be claimed again
+        slots.lazySet(index, null);
+        head = h+1;
+        return item;
+    }
+    // Methods - Accessors *****************************************************
+    /**
+     * The approximate number of items in the buffer.
+     * 
+     * @return The number of items.
+     * @since 1.0
+     */
+    public int size()
+    {
+        long size = tail.get() - head;
+        return size < 0 ? 0 : (int)Math.min(size, capacity);
+    }
+    /**
+     * The maximum number of items the buffer can hold.
+     * 
+     * @return The capacity.
+     * @since 1.0
+     */
+    public int getCapacity()
+    {
+        return capacity;
+    }
+}
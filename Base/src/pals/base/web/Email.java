@@ -294,6 +294,76 @@ public class Email
             return false;
         }
     }
+    /**
+     * Persists multiple new models using a single statement; this is
+     * considerably cheaper than persisting each model individually when
+     * enqueueing many e-mails.
+     *
+     * @param conn Database connector.
+     * @param emails The models to persist; every model must be unpersisted.
+     * The identifier of each model is assigned if the operation succeeds.
+     * @return True = successful, false = failed.
+     * @since 1.0
+     */
+    public static boolean persistAll(Connector conn, Email[] emails)
+    {
+        if(emails.length == 0)
+            return true;
+        for(Email e : emails)
+        {
+            if(e.emailid != -1)
+                return false;
+        }
+        try
+        {
+            // Allocate the identifiers beforehand, since the order of the rows
+            // returned by an insert is not guaranteed
+            int[] ids = new int[emails.length];
+            Result res = conn.read("SELECT nextval(pg_get_serial_sequence('pals_email_queue', 'emailid')) AS emailid FROM generate_series(1, ?);", emails.length);
+            int offset = 0;
+            while(res.next() && offset < ids.length)
+                ids[offset++] = (int)(long)res.get("emailid");
+            if(offset != ids.length)
+                return false;
+            // Build a multi-row insert
+            StringBuilder sb = new StringBuilder("INSERT INTO pals_email_queue (emailid, title, content, destination, last_attempted, attempts) VALUES");
+            Object[] values = new Object[emails.length*6];
+            offset = 0;
+            for(int i = 0; i < emails.length; i++)
+            {
+                sb.append("(?,?,?,?,?,?),");
+                values[offset++] = ids[i];
+                values[offset++] = emails[i].title;
+                values[offset++] = emails[i].content;
+                values[offset++] = emails[i].destination;
+                values[offset++] = emails[i].lastAttempted == null ? null : new Timestamp(emails[i].lastAttempted.toDate().getTime());
+                values[offset++] = emails[i].attempts;
+            }
+            sb.deleteCharAt(sb.length()-1).append(";");
+            // Check every model was persisted; otherwise undo the insert
+            if(conn.executeUpdate(sb.toString(), values) != emails.length)
+            {
+                sb = new StringBuilder("DELETE FROM pals_email_queue WHERE emailid IN (");
+                values = new Object[ids.length];
+                for(int i = 0; i < ids.length; i++)
+                {
+                    sb.append("?,");
+                    values[i] = ids[i];
+                }
+                sb.deleteCharAt(sb.length()-1).append(");");
+                conn.execute(sb.toString(), values);
+                return false;
+            }
+            // Assign the identifiers
+            for(int i = 0; i < emails.length; i++)
+                emails[i].emailid = ids[i];
+            return true;
+        }
+        catch(DatabaseException ex)
+        {
+            return false;
+        }
+    }
     // Methods - Mutators ******************************************************
     /**
      * Sets the title of the e-mail.
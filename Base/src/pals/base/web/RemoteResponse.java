@@ -26,6 +26,8 @@
 */
 package pals.base.web;
 
+import java.io.IOException;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.nio.charset.Charset;
 import java.util.HashMap;
@@ -40,6 +42,9 @@ import java.util.HashMap;
  * - Session private should be used to timeout the session, when idle; refer to
  * the following for guidelines:
  * https://www.owasp.org/index.php/Session_Management#Ensure_Idle.2C_absolute_timeouts_are_as_short_as_practical
+ * - The response data can be written directly to a sink, refer to getSink();
+ * the data of the sink is moved into the buffer when the buffer is
+ * retrieved, or when the response is serialized for RMI.
  * 
  * @version 1.0
  */
@@ -57,6 +62,7 @@ public class RemoteResponse implements Serializable
     private String                  sessionID;      // Session identifier.
     private boolean                 sessionPrivate; // Indicates if the user session is private, and thus should expire after a longer duration.
     private byte[]                  buffer;         // Response data to be written to the user.
+    private transient ResponseSink  sink;           // Sink for writing response data; holds the data in place of the buffer whilst non-empty.
     private String                  responseType;   // The MIME response type of the data.
     private String                  urlRedirect;    // Used for redirecting to a new URL.
     private int                     responseCode;   // The response status/code.
@@ -72,6 +78,7 @@ public class RemoteResponse implements Serializable
         this.sessionID = null;
         this.sessionPrivate = false;
         this.buffer = null;
+        this.sink = null;
         this.responseType = DEFAULT_MIME_TYPE;
         this.urlRedirect = null;
         this.responseCode = 200;
@@ -88,6 +95,8 @@ public class RemoteResponse implements Serializable
     public void setBuffer(byte[] data)
     {
         this.buffer = data;
+        if(sink != null)
+            sink.reset();
     }
     /**
      * Sets the buffer.
@@ -99,6 +108,8 @@ public class RemoteResponse implements Serializable
     public void setBuffer(String data)
     {
         this.buffer = data == null ? null : data.getBytes(Charset.forName("UTF-8"));
+        if(sink != null)
+            sink.reset();
     }
     /**
      * Sets the session ID.
@@ -183,6 +194,24 @@ public class RemoteResponse implements Serializable
         }
     }
     // Methods - Accessors *****************************************************
+    /**
+     * Retrieves the sink for writing response data, as UTF-8 characters or as
+     * bytes; any data already in the buffer is kept, with new data appended.
+     * 
+     * @return The sink.
+     * @since 1.0
+     */
+    public ResponseSink getSink()
+    {
+        if(sink == null)
+            sink = new ResponseSink(buffer != null && buffer.length > 0 ? buffer.length << 1 : 8192);
+        if(buffer != null)
+        {
+            sink.writeBytes(buffer, 0, buffer.length);
+            buffer = null;
+        }
+        return sink;
+    }
     /**
      * Retrieves the response buffer.
      * 
@@ -191,8 +220,23 @@ public class RemoteResponse implements Serializable
      */
     public byte[] getBuffer()
     {
+        if(sink != null && sink.size() > 0)
+        {
+            buffer = sink.toByteArray();
+            sink.reset();
+        }
         return buffer;
     }
+    /**
+     * Indicates if the response has any data to write to the end-user.
+     * 
+     * @return True = has data, false = empty.
+     * @since 1.0
+     */
+    public boolean isBufferEmpty()
+    {
+        return (buffer == null || buffer.length == 0) && (sink == null || sink.size() == 0);
+    }
     /**
      * Retrieves the session ID.
      * 
@@ -266,4 +310,11 @@ public class RemoteResponse implements Serializable
     {
         return headers != null && !headers.isEmpty();
     }
+    // Methods - Serialization *************************************************
+    private void writeObject(ObjectOutputStream out) throws IOException
+    {
+        // Move any data in the sink to the buffer
+        getBuffer();
+        out.defaultWriteObject();
+    }
 }
@@ -0,0 +1,268 @@
+/*
+    The MIT License (MIT)
+
+    Copyright (c) 2014 Marcus Craske <limpygnome@gmail.com>
+
+    Permission is hereby granted, free of charge, to any person obtaining a copy
+    of this software and associated documentation files (the "Software"), to deal
+    in the Software without restriction, including without limitation the rights
+    to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+    copies of the Software, and to permit persons to whom the Software is
+    furnished to do so, subject to the following conditions:
+
+    The above copyright notice and this permission notice shall be included in
+    all copies or substantial portions of the Software.
+
+    THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+    IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+    FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+    AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+    LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+    OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+    THE SOFTWARE.
+    ----------------------------------------------------------------------------
+    Authors:    Marcus Craske           <limpygnome@gmail.com>
+    ----------------------------------------------------------------------------
+*/
+package pals.base.web;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.util.Arrays;
+
+/**
+ * A growable buffer of UTF-8 bytes, used to collect the response data of a
+ * web-request. Characters written are encoded straight into the buffer, thus
+ * templates can be rendered into the buffer without first building a string;
+ * the buffer is kept when reset, so it can be reused.
+ * 
+ * Bytes can also be written through the stream returned by
+ * getOutputStream().
+ * 
+ * Not thread-safe.
+ * 
+ * @version 1.0
+ */
+public class ResponseSink extends Writer
+{
+    // Fields - Constants ******************************************************
+    private static final int    DEFAULT_CAPACITY = 8192;
+    // Fields ******************************************************************
+    private byte[]              buffer;         // The encoded data.
+    private int                 length;         // The number of bytes used in the buffer.
+    private char                highSurrogate;  // The high surrogate of a pair split between writes, or zero.
+    private OutputStream        stream;         // Byte-stream view of the buffer; created when needed.
+    // Methods - Constructors **************************************************
+    /**
+     * Constructs a new instance.
+     * 
+     * @since 1.0
+     */
+    public ResponseSink()
+    {
+        this(DEFAULT_CAPACITY);
+    }
+    /**
+     * Constructs a new instance.
+     * 
+     * @param capacity The initial capacity of the buffer, in bytes.
+     * @since 1.0
+     */
+    public ResponseSink(int capacity)
+    {
+        if(capacity < 1)
+            throw new IllegalArgumentException("Capacity must be at least one.");
+        this.buffer = new byte[capacity];
+        this.length = 0;
+        this.highSurrogate = 0;
+        this.stream = null;
+    }
+    // Methods - Writer ********************************************************
+    @Override
+    public void write(int c)
+    {
+        encode((char)c);
+    }
+    @Override
+    public void write(char[] cbuf, int off, int len)
+    {
+        for(int i = off; i < off+len; i++)
+            encode(cbuf[i]);
+    }
+    @Override
+    public void write(String str, int off, int len)
+    {
+        for(int i = off; i < off+len; i++)
+            encode(str.charAt(i));
+    }
+    @Override
+    public void flush()
+    {
+    }
+    @Override
+    public void close()
+    {
+    }
+    // Methods *****************************************************************
+    /**
+     * Writes raw bytes to the buffer.
+     * 
+     * @param data The data.
+     * @param off The offset of the data.
+     * @param len The number of bytes to write.
+     * @since 1.0
+     */
+    public void writeBytes(byte[] data, int off, int len)
+    {
+        flushSurrogate();
+        ensure(len);
+        System.arraycopy(data, off, buffer, length, len);
+        length += len;
+    }
+    /**
+     * Empties the buffer; the allocated memory is kept for reuse.
+     * 
+     * @since 1.0
+     */
+    public void reset()
+    {
+        length = 0;
+        highSurrogate = 0;
+    }
+    /**
+     * Truncates the buffer to a previous length; used to discard partially
+     * written output.
+     * 
+     * @param length The new length, which cannot exceed the current length.
+     * @since 1.0
+     */
+    public void truncate(int length)
+    {
+        if(length < 0 || length > this.length)
+            throw new IllegalArgumentException("Invalid length '" + length + "'.");
+        this.length = length;
+        this.highSurrogate = 0;
+    }
+    /**
+     * Writes the contents of the buffer to a stream.
+     * 
+     * @param os The stream.
+     * @throws IOException Thrown by the stream.
+     * @since 1.0
+     */
+    public void writeTo(OutputStream os) throws IOException
+    {
+        flushSurrogate();
+        os.write(buffer, 0, length);
+    }
+    private void encode(char c)
+    {
+        if(highSurrogate != 0)
+        {
+            char high = highSurrogate;
+            highSurrogate = 0;
+            if(Character.isLowSurrogate(c))
+            {
+                int cp = Character.toCodePoint(high, c);
+                ensure(4);
+                buffer[length++] = (byte)(0xF0 | (cp >> 18));
+                buffer[length++] = (byte)(0x80 | ((cp >> 12) & 0x3F));
+                buffer[length++] = (byte)(0x80 | ((cp >> 6) & 0x3F));
+                buffer[length++] = (byte)(0x80 | (cp & 0x3F));
+                return;
+            }
+            // Unpaired surrogate
+            put('?');
+        }
+        if(c < 0x80)
+            put(c);
+        else if(c < 0x800)
+        {
+            ensure(2);
+            buffer[length++] = (byte)(0xC0 | (c >> 6));
+            buffer[length++] = (byte)(0x80 | (c & 0x3F));
+        }
+        else if(Character.isHighSurrogate(c))
+            highSurrogate = c;
+        else if(Character.isLowSurrogate(c))
+            put('?');
+        else
+        {
+            ensure(3);
+            buffer[length++] = (byte)(0xE0 | (c >> 12));
+            buffer[length++] = (byte)(0x80 | ((c >> 6) & 0x3F));
+            buffer[length++] = (byte)(0x80 | (c & 0x3F));
+        }
+    }
+    private void put(char c)
+    {
+        if(length == buffer.length)
+            ensure(1);
+        buffer[length++] = (byte)c;
+    }
+    private void flushSurrogate()
+    {
+        if(highSurrogate != 0)
+        {
+            highSurrogate = 0;
+            put('?');
+        }
+    }
+    private void ensure(int bytes)
+    {
+        if(length+bytes > buffer.length)
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length << 1, length+bytes));
+    }
+    // Methods - Accessors *****************************************************
+    /**
+     * The number of bytes in the buffer.
+     * 
+     * @return The length.
+     * @since 1.0
+     */
+    public int size()
+    {
+        return length;
+    }
+    /**
+     * A copy of the bytes in the buffer.
+     * 
+     * @return The data.
+     * @since 1.0
+     */
+    public byte[] toByteArray()
+    {
+        flushSurrogate();
+        return Arrays.copyOf(buffer, length);
+    }
+    /**
+     * A byte-stream view of the buffer; bytes written are appended to the
+     * buffer as-is.
+     * 
+     * @return The stream.
+     * @since 1.0
+     */
+    public OutputStream getOutputStream()
+    {
+        if(stream == null)
+        {
+            stream = new OutputStream()
+            {
+                @Override
+                public void write(int b)
+                {
+                    flushSurrogate();
+                    ensure(1);
+                    buffer[length++] = (byte)b;
+                }
+                @Override
+                public void write(byte[] b, int off, int len)
+                {
+                    writeBytes(b, off, len);
+                }
+            };
+        }
+        return stream;
+    }
+}
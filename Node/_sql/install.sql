@@ -96,6 +96,9 @@ CREATE TABLE pals_users
 -- -- -- Index on usernames is also needed to speed-up account searches.
 CREATE UNIQUE INDEX index_pals_users_username ON pals_users (lower(username));
 CREATE UNIQUE INDEX index_pals_users_email ON pals_users (lower(email));
+-- -- Keyset pagination of accounts, ordered by username.
+CREATE INDEX index_pals_users_username_userid ON pals_users (username, userid);
+-- -- Substring searches of accounts by username/e-mail use trigram indexes, created after pals_question.
 -- Stores recovery codes, sent by e-mail.
 CREATE TABLE pals_user_recovery_codes
 (
@@ -171,6 +174,23 @@ CREATE TABLE pals_question
 	description			TEXT,
 	data				BYTEA
 );
+-- -- Keyset pagination of the question bank, ordered by title.
+CREATE INDEX index_pals_question_title_qid ON pals_question (title, qid);
+-- Trigram indexes, used for substring (LIKE) searches of accounts by username/e-mail and of the question bank by title.
+-- -- Creating pg_trgm requires a superuser below PostgreSQL 13 (and the contrib package to be installed), whereas the nodes
+-- -- install as the application role; an administrator should create it beforehand, else the indexes are skipped and
+-- -- searches fall back to sequential scans. The indexes can be created later with the statements below.
+DO $$
+BEGIN
+	CREATE EXTENSION IF NOT EXISTS pg_trgm;
+	CREATE INDEX index_pals_users_username_trgm ON pals_users USING gin (username gin_trgm_ops);
+	CREATE INDEX index_pals_users_email_trgm ON pals_users USING gin (email gin_trgm_ops);
+	CREATE INDEX index_pals_question_title_trgm ON pals_question USING gin (title gin_trgm_ops);
+EXCEPTION
+	WHEN insufficient_privilege OR undefined_file THEN
+		RAISE NOTICE 'pg_trgm unavailable (%); substring searches will not be indexed.', SQLERRM;
+END;
+$$;
 -- Criteria for assessing a question; this will be responsible for assigning marks. Any criteria parameters are stored and handled by the criteria-type.
 CREATE TABLE pals_question_criteria
 (
@@ -238,7 +258,75 @@ CREATE TABLE pals_assignment_instance
 	-- The mark achieved for the assignment; calculated when an assignment has been completely marked.
 	-- -- Acts as a cache to avoid expensive aggregate functions.
 	-- -- 0 to 100.
-	mark				DOUBLE PRECISION	DEFAULT 0																			NOT NULL
+	mark				DOUBLE PRECISION	DEFAULT 0																			NOT NULL,
+	-- The number of criteria, of all the questions, not yet marked; maintained by trigger_marks_aiq.
+	pending				INT					DEFAULT 0																			NOT NULL,
+	-- The sum of the marks of the questions, each multiplied by the weight of the question; maintained by trigger_marks_aiq.
+	mark_sum			DOUBLE PRECISION	DEFAULT 0																			NOT NULL
+);
+-- -- Create index on the columns used for looking-up the instances of a user for an assignment.
+CREATE INDEX index_pals_assignment_instance_userid_assid ON pals_assignment_instance(userid, assid);
+-- The instance with the highest mark of each user, for each assignment; maintained by trigger_best_ai.
+-- -- Acts as a materialized gradebook, to avoid finding the highest instance of each user when viewing marks.
+CREATE TABLE pals_assignment_best
+(
+	-- The assignment.
+	assid				INT					REFERENCES pals_assignment(assid) ON UPDATE CASCADE ON DELETE CASCADE				NOT NULL,
+	-- The user.
+	userid				INT					REFERENCES pals_users(userid) ON UPDATE CASCADE ON DELETE CASCADE					NOT NULL,
+	-- The module of the assignment.
+	moduleid			INT					REFERENCES pals_modules(moduleid) ON UPDATE CASCADE ON DELETE CASCADE				NOT NULL,
+	-- The instance with the highest mark; the lowest identifier if tied.
+	aiid				INT					REFERENCES pals_assignment_instance(aiid) ON UPDATE CASCADE ON DELETE CASCADE		NOT NULL,
+	-- The mark of the instance.
+	mark				DOUBLE PRECISION																						NOT NULL,
+	PRIMARY KEY(assid, userid)
+);
+-- -- Create index on the columns used for loading the gradebook of a module.
+CREATE INDEX index_pals_assignment_best_moduleid_userid ON pals_assignment_best(moduleid, userid);
+-- A summary of the instances of each user, for each assignment, with at least one instance; maintained by trigger_summary_ai.
+-- -- Used for the dashboards of students; statuses are as controlled by 'pals.base.assessment.InstanceAssignment.Status'.
+CREATE TABLE pals_assignment_summary
+(
+	-- The assignment.
+	assid				INT					REFERENCES pals_assignment(assid) ON UPDATE CASCADE ON DELETE CASCADE				NOT NULL,
+	-- The user.
+	userid				INT					REFERENCES pals_users(userid) ON UPDATE CASCADE ON DELETE CASCADE					NOT NULL,
+	-- The module of the assignment.
+	moduleid			INT					REFERENCES pals_modules(moduleid) ON UPDATE CASCADE ON DELETE CASCADE				NOT NULL,
+	-- The number of instances.
+	attempts			INT					DEFAULT 0																			NOT NULL,
+	-- The number of instances no longer active.
+	answered			INT					DEFAULT 0																			NOT NULL,
+	-- The number of instances active.
+	incomplete			INT					DEFAULT 0																			NOT NULL,
+	-- The highest mark of the instances marked; null if none are marked.
+	mark_highest		DOUBLE PRECISION,
+	-- The mark of the last instance marked; null if none are marked.
+	mark_last			DOUBLE PRECISION,
+	-- The status of the last instance.
+	last_status			INT																										NOT NULL,
+	PRIMARY KEY(assid, userid)
+);
+-- -- Create index on the columns used for summarising a module.
+CREATE INDEX index_pals_assignment_summary_moduleid_userid ON pals_assignment_summary(moduleid, userid);
+-- A summary of the active assignments of each module, for each user enrolled; maintained by trigger_summary_ai, trigger_summary_a
+-- and trigger_summary_me.
+CREATE TABLE pals_module_summary
+(
+	-- The module.
+	moduleid			INT					REFERENCES pals_modules(moduleid) ON UPDATE CASCADE ON DELETE CASCADE				NOT NULL,
+	-- The user.
+	userid				INT					REFERENCES pals_users(userid) ON UPDATE CASCADE ON DELETE CASCADE					NOT NULL,
+	-- The number of active assignments.
+	total				INT					DEFAULT 0																			NOT NULL,
+	-- The number of active assignments with at least one instance.
+	attempted			INT					DEFAULT 0																			NOT NULL,
+	-- The number of active assignments with an instance no longer active.
+	answered			INT					DEFAULT 0																			NOT NULL,
+	-- The number of active assignments with an active instance.
+	incomplete			INT					DEFAULT 0																			NOT NULL,
+	PRIMARY KEY(moduleid, userid)
 );
 -- Data for answered questions of an instance of an assignment; this table may not be used by plugins handling instance data on their own.
 CREATE TABLE pals_assignment_instance_question
@@ -254,6 +342,10 @@ CREATE TABLE pals_assignment_instance_question
 	answered			VARCHAR(1)			DEFAULT '0'																			NOT NULL,
 	-- The grade of the question, from 0 to 100.
 	mark				DOUBLE PRECISION	DEFAULT 0																			NOT NULL,
+	-- The number of criteria not yet marked; maintained by trigger_marks_aiqc.
+	pending				INT					DEFAULT 0																			NOT NULL,
+	-- The sum of the marks of the criteria, each multiplied by the weight of the criteria; maintained by trigger_marks_aiqc.
+	mark_sum			DOUBLE PRECISION	DEFAULT 0																			NOT NULL,
 	-- Ensure aqid and aiid are unique; also creates indexes for fast reverse querying.
 	UNIQUE(aqid, aiid)
 );
@@ -295,6 +387,8 @@ CREATE TABLE pals_exception_classes
 	runtime				VARCHAR(1)			NOT NULL,
 	-- Feedback/hint message.
 	hint				TEXT,
+	-- The number of instances of the class; maintained by trigger_exceptions_stats.
+	freq				INT					DEFAULT 0			NOT NULL,
 	UNIQUE(class_name, runtime)
 );
 -- Full exception messages.
@@ -315,7 +409,40 @@ CREATE TABLE pals_exceptions
 	aqid				INT					REFERENCES pals_assignment_questions(aqid) ON UPDATE CASCADE ON DELETE CASCADE,
 	aiid				INT					REFERENCES pals_assignment_instance(aiid) ON UPDATE CASCADE ON DELETE CASCADE,
 	-- The date of the occurrence.
-	exdate				TIMESTAMP			NOT NULL
+	exdate				TIMESTAMP			NOT NULL,
+	-- The assignment, module and question of the occurrence; set by trigger_exceptions_scope, so the occurrence can be filtered,
+	-- and removed from the statistics, without joining the tables of instances and assignments. The module is kept up to date by
+	-- trigger_exceptions_a, should the assignment be moved to another module.
+	assid				INT,
+	moduleid			INT,
+	qid					INT
+);
+-- Create indexes on the columns used for filtering occurrences.
+CREATE INDEX index_pals_exceptions_ecid ON pals_exceptions(ecid);
+CREATE INDEX index_pals_exceptions_assid ON pals_exceptions(assid);
+CREATE INDEX index_pals_exceptions_moduleid ON pals_exceptions(moduleid);
+CREATE INDEX index_pals_exceptions_qid ON pals_exceptions(qid);
+-- The number of instances of each exception class, for each module, assignment and question; maintained by trigger_exceptions_stats.
+CREATE TABLE pals_exception_stats_module
+(
+	moduleid			INT					REFERENCES pals_modules(moduleid) ON UPDATE CASCADE ON DELETE CASCADE				NOT NULL,
+	ecid				INT					REFERENCES pals_exception_classes(ecid) ON UPDATE CASCADE ON DELETE CASCADE			NOT NULL,
+	freq				INT					DEFAULT 0																			NOT NULL,
+	PRIMARY KEY(moduleid, ecid)
+);
+CREATE TABLE pals_exception_stats_assignment
+(
+	assid				INT					REFERENCES pals_assignment(assid) ON UPDATE CASCADE ON DELETE CASCADE				NOT NULL,
+	ecid				INT					REFERENCES pals_exception_classes(ecid) ON UPDATE CASCADE ON DELETE CASCADE			NOT NULL,
+	freq				INT					DEFAULT 0																			NOT NULL,
+	PRIMARY KEY(assid, ecid)
+);
+CREATE TABLE pals_exception_stats_question
+(
+	qid					INT					REFERENCES pals_question(qid) ON UPDATE CASCADE ON DELETE CASCADE					NOT NULL,
+	ecid				INT					REFERENCES pals_exception_classes(ecid) ON UPDATE CASCADE ON DELETE CASCADE			NOT NULL,
+	freq				INT					DEFAULT 0																			NOT NULL,
+	PRIMARY KEY(qid, ecid)
 );
 
 -- Clean-up table; registers directories to be inspected and possibly deleted.
@@ -365,6 +492,304 @@ END;
 $$
 LANGUAGE PLPGSQL;
 
+-- Create trigger functions for maintaining the marks of instances of assignments incrementally, as criteria are marked;
+-- -- the mark of an instance can then be computed, once its pending count reaches zero, without aggregating its criteria.
+-- -- Criteria with the status 4 are marked, as controlled by 'pals.base.assessment.InstanceAssignmentCriteria.Status'.
+CREATE OR REPLACE FUNCTION func_marks_aiqc()
+	RETURNS TRIGGER AS
+$$
+DECLARE
+	v_aiqid			INT;
+	v_pending		INT := 0;
+	v_sum			DOUBLE PRECISION := 0;
+	v_total			DOUBLE PRECISION;
+BEGIN
+	IF(TG_OP = 'INSERT' OR TG_OP = 'UPDATE') THEN
+		v_aiqid := NEW.aiqid;
+		IF(NEW.status <> 4) THEN
+			v_pending := v_pending + 1;
+		END IF;
+		v_sum := v_sum + COALESCE((SELECT (NEW.mark/100.0)*weight FROM pals_question_criteria WHERE qcid=NEW.qcid), 0);
+	END IF;
+	IF(TG_OP = 'DELETE' OR TG_OP = 'UPDATE') THEN
+		v_aiqid := OLD.aiqid;
+		IF(OLD.status <> 4) THEN
+			v_pending := v_pending - 1;
+		END IF;
+		v_sum := v_sum - COALESCE((SELECT (OLD.mark/100.0)*weight FROM pals_question_criteria WHERE qcid=OLD.qcid), 0);
+	END IF;
+	IF(v_pending <> 0 OR v_sum <> 0) THEN
+		-- Fetch the total weight of the criteria of the question
+		SELECT SUM(qc.weight) INTO v_total FROM pals_assignment_instance_question AS aiq, pals_assignment_questions AS aq, pals_question_criteria AS qc
+			WHERE aiq.aiqid=v_aiqid AND aq.aqid=aiq.aqid AND qc.qid=aq.qid;
+		UPDATE pals_assignment_instance_question SET
+			pending = pending + v_pending,
+			mark_sum = mark_sum + v_sum,
+			mark = CASE WHEN v_total > 0 THEN ((mark_sum + v_sum) / v_total) * 100.0 ELSE mark END
+			WHERE aiqid=v_aiqid;
+	END IF;
+	RETURN NULL;
+END;
+$$
+LANGUAGE PLPGSQL;
+
+CREATE OR REPLACE FUNCTION func_marks_aiq()
+	RETURNS TRIGGER AS
+$$
+DECLARE
+	v_aiid			INT;
+	v_pending		INT := 0;
+	v_sum			DOUBLE PRECISION := 0;
+BEGIN
+	IF(TG_OP = 'INSERT' OR TG_OP = 'UPDATE') THEN
+		v_aiid := NEW.aiid;
+		v_pending := v_pending + NEW.pending;
+		v_sum := v_sum + COALESCE((SELECT (NEW.mark/100.0)*weight FROM pals_assignment_questions WHERE aqid=NEW.aqid), 0);
+	END IF;
+	IF(TG_OP = 'DELETE' OR TG_OP = 'UPDATE') THEN
+		v_aiid := OLD.aiid;
+		v_pending := v_pending - OLD.pending;
+		v_sum := v_sum - COALESCE((SELECT (OLD.mark/100.0)*weight FROM pals_assignment_questions WHERE aqid=OLD.aqid), 0);
+	END IF;
+	IF(v_pending <> 0 OR v_sum <> 0) THEN
+		UPDATE pals_assignment_instance SET pending = pending + v_pending, mark_sum = mark_sum + v_sum WHERE aiid=v_aiid;
+	END IF;
+	RETURN NULL;
+END;
+$$
+LANGUAGE PLPGSQL;
+
+-- Create trigger functions for maintaining the instance with the highest mark of each user, for each assignment.
+-- -- Refreshes are serialized, for each user and assignment, with an advisory lock held until the transaction ends.
+CREATE OR REPLACE FUNCTION func_best_refresh(p_userid INT, p_assid INT)
+	RETURNS VOID AS
+$$
+DECLARE
+	v_aiid			INT;
+	v_mark			DOUBLE PRECISION;
+	v_moduleid		INT;
+BEGIN
+	PERFORM pg_advisory_xact_lock(p_assid, p_userid);
+	-- Fetch the instance with the highest mark; the assignment and user are joined, so nothing is found if they are being deleted
+	SELECT ai.aiid, ai.mark, a.moduleid INTO v_aiid, v_mark, v_moduleid FROM pals_assignment_instance AS ai, pals_assignment AS a, pals_users AS u
+		WHERE ai.userid=p_userid AND ai.assid=p_assid AND a.assid=ai.assid AND u.userid=ai.userid ORDER BY ai.mark DESC, ai.aiid ASC LIMIT 1;
+	IF(NOT FOUND) THEN
+		DELETE FROM pals_assignment_best WHERE assid=p_assid AND userid=p_userid;
+	ELSE
+		UPDATE pals_assignment_best SET moduleid=v_moduleid, aiid=v_aiid, mark=v_mark WHERE assid=p_assid AND userid=p_userid;
+		IF(NOT FOUND) THEN
+			INSERT INTO pals_assignment_best (assid, userid, moduleid, aiid, mark) VALUES(p_assid, p_userid, v_moduleid, v_aiid, v_mark);
+		END IF;
+	END IF;
+END;
+$$
+LANGUAGE PLPGSQL;
+
+CREATE OR REPLACE FUNCTION func_best_ai()
+	RETURNS TRIGGER AS
+$$
+BEGIN
+	IF(TG_OP = 'DELETE' OR (TG_OP = 'UPDATE' AND (OLD.userid <> NEW.userid OR OLD.assid <> NEW.assid))) THEN
+		PERFORM func_best_refresh(OLD.userid, OLD.assid);
+	END IF;
+	IF(TG_OP = 'INSERT' OR TG_OP = 'UPDATE') THEN
+		PERFORM func_best_refresh(NEW.userid, NEW.assid);
+	END IF;
+	RETURN NULL;
+END;
+$$
+LANGUAGE PLPGSQL;
+
+-- Create trigger functions for maintaining the summaries of assignments and modules, for each user.
+-- -- Statuses 0 and 3 are active and marked, as controlled by 'pals.base.assessment.InstanceAssignment.Status'.
+CREATE OR REPLACE FUNCTION func_summary_module_refresh(p_moduleid INT, p_userid INT)
+	RETURNS VOID AS
+$$
+DECLARE
+	v_total			INT;
+	v_attempted		INT;
+	v_answered		INT;
+	v_incomplete	INT;
+BEGIN
+	-- Check the user is enrolled; the module and user are joined, so nothing is found if they are being deleted
+	PERFORM 1 FROM pals_modules_enrollment AS me, pals_modules AS m, pals_users AS u WHERE me.moduleid=p_moduleid AND me.userid=p_userid AND m.moduleid=me.moduleid AND u.userid=me.userid;
+	IF(NOT FOUND) THEN
+		DELETE FROM pals_module_summary WHERE moduleid=p_moduleid AND userid=p_userid;
+		RETURN;
+	END IF;
+	SELECT COUNT('') INTO v_total FROM pals_assignment WHERE moduleid=p_moduleid AND active='1';
+	SELECT COUNT(''), COALESCE(SUM(CASE WHEN s.answered > 0 THEN 1 ELSE 0 END), 0), COALESCE(SUM(CASE WHEN s.incomplete > 0 THEN 1 ELSE 0 END), 0)
+		INTO v_attempted, v_answered, v_incomplete FROM pals_assignment_summary AS s, pals_assignment AS a
+		WHERE s.moduleid=p_moduleid AND s.userid=p_userid AND a.assid=s.assid AND a.active='1';
+	-- Upsert, since concurrent refreshes of the same module and user could otherwise both insert
+	INSERT INTO pals_module_summary (moduleid, userid, total, attempted, answered, incomplete) VALUES(p_moduleid, p_userid, v_total, v_attempted, v_answered, v_incomplete)
+		ON CONFLICT (moduleid, userid) DO UPDATE SET total=EXCLUDED.total, attempted=EXCLUDED.attempted, answered=EXCLUDED.answered, incomplete=EXCLUDED.incomplete;
+END;
+$$
+LANGUAGE PLPGSQL;
+
+CREATE OR REPLACE FUNCTION func_summary_refresh(p_userid INT, p_assid INT)
+	RETURNS VOID AS
+$$
+DECLARE
+	v_moduleid		INT;
+	v_attempts		INT;
+	v_answered		INT;
+	v_incomplete	INT;
+	v_highest		DOUBLE PRECISION;
+	v_last			DOUBLE PRECISION;
+	v_last_status	INT;
+BEGIN
+	PERFORM pg_advisory_xact_lock(p_assid, p_userid);
+	-- Fetch the counts and highest mark; the assignment and user are joined, so nothing is found if they are being deleted
+	SELECT MAX(a.moduleid), COUNT(''), COALESCE(SUM(CASE WHEN ai.status <> 0 THEN 1 ELSE 0 END), 0), COALESCE(SUM(CASE WHEN ai.status = 0 THEN 1 ELSE 0 END), 0), MAX(CASE WHEN ai.status = 3 THEN ai.mark END)
+		INTO v_moduleid, v_attempts, v_answered, v_incomplete, v_highest FROM pals_assignment_instance AS ai, pals_assignment AS a, pals_users AS u
+		WHERE ai.userid=p_userid AND ai.assid=p_assid AND a.assid=ai.assid AND u.userid=ai.userid;
+	IF(v_attempts = 0) THEN
+		DELETE FROM pals_assignment_summary WHERE assid=p_assid AND userid=p_userid;
+		SELECT moduleid INTO v_moduleid FROM pals_assignment WHERE assid=p_assid;
+	ELSE
+		SELECT mark INTO v_last FROM pals_assignment_instance WHERE userid=p_userid AND assid=p_assid AND status=3 ORDER BY aiid DESC LIMIT 1;
+		SELECT status INTO v_last_status FROM pals_assignment_instance WHERE userid=p_userid AND assid=p_assid ORDER BY aiid DESC LIMIT 1;
+		UPDATE pals_assignment_summary SET moduleid=v_moduleid, attempts=v_attempts, answered=v_answered, incomplete=v_incomplete, mark_highest=v_highest, mark_last=v_last, last_status=v_last_status
+			WHERE assid=p_assid AND userid=p_userid;
+		IF(NOT FOUND) THEN
+			INSERT INTO pals_assignment_summary (assid, userid, moduleid, attempts, answered, incomplete, mark_highest, mark_last, last_status)
+				VALUES(p_assid, p_userid, v_moduleid, v_attempts, v_answered, v_incomplete, v_highest, v_last, v_last_status);
+		END IF;
+	END IF;
+	-- Refresh the summary of the module
+	IF(v_moduleid IS NOT NULL) THEN
+		PERFORM func_summary_module_refresh(v_moduleid, p_userid);
+	END IF;
+END;
+$$
+LANGUAGE PLPGSQL;
+
+CREATE OR REPLACE FUNCTION func_summary_ai()
+	RETURNS TRIGGER AS
+$$
+BEGIN
+	IF(TG_OP = 'DELETE' OR (TG_OP = 'UPDATE' AND (OLD.userid <> NEW.userid OR OLD.assid <> NEW.assid))) THEN
+		PERFORM func_summary_refresh(OLD.userid, OLD.assid);
+	END IF;
+	IF(TG_OP = 'INSERT' OR TG_OP = 'UPDATE') THEN
+		PERFORM func_summary_refresh(NEW.userid, NEW.assid);
+	END IF;
+	RETURN NULL;
+END;
+$$
+LANGUAGE PLPGSQL;
+
+CREATE OR REPLACE FUNCTION func_summary_a()
+	RETURNS TRIGGER AS
+$$
+BEGIN
+	-- Move the summaries of the assignment to its new module, before refreshing both modules
+	IF(TG_OP = 'UPDATE' AND NEW.moduleid IS DISTINCT FROM OLD.moduleid) THEN
+		IF(NEW.moduleid IS NULL) THEN
+			DELETE FROM pals_assignment_summary WHERE assid=NEW.assid;
+			DELETE FROM pals_assignment_best WHERE assid=NEW.assid;
+		ELSE
+			UPDATE pals_assignment_summary SET moduleid=NEW.moduleid WHERE assid=NEW.assid;
+			UPDATE pals_assignment_best SET moduleid=NEW.moduleid WHERE assid=NEW.assid;
+		END IF;
+	END IF;
+	IF(TG_OP = 'DELETE' OR TG_OP = 'UPDATE') THEN
+		PERFORM func_summary_module_refresh(me.moduleid, me.userid) FROM pals_modules_enrollment AS me WHERE me.moduleid=OLD.moduleid;
+	END IF;
+	IF(TG_OP = 'INSERT' OR (TG_OP = 'UPDATE' AND NEW.moduleid IS DISTINCT FROM OLD.moduleid)) THEN
+		PERFORM func_summary_module_refresh(me.moduleid, me.userid) FROM pals_modules_enrollment AS me WHERE me.moduleid=NEW.moduleid;
+	END IF;
+	RETURN NULL;
+END;
+$$
+LANGUAGE PLPGSQL;
+
+CREATE OR REPLACE FUNCTION func_summary_me()
+	RETURNS TRIGGER AS
+$$
+BEGIN
+	IF(TG_OP = 'DELETE') THEN
+		PERFORM func_summary_module_refresh(OLD.moduleid, OLD.userid);
+	ELSE
+		PERFORM func_summary_module_refresh(NEW.moduleid, NEW.userid);
+	END IF;
+	RETURN NULL;
+END;
+$$
+LANGUAGE PLPGSQL;
+
+-- Create trigger functions for maintaining the statistics of exceptions.
+CREATE OR REPLACE FUNCTION func_exceptions_scope()
+	RETURNS TRIGGER AS
+$$
+BEGIN
+	NEW.assid := (SELECT assid FROM pals_assignment_instance WHERE aiid=NEW.aiid);
+	NEW.moduleid := (SELECT moduleid FROM pals_assignment WHERE assid=NEW.assid);
+	NEW.qid := (SELECT qid FROM pals_assignment_questions WHERE aqid=NEW.aqid);
+	RETURN NEW;
+END;
+$$
+LANGUAGE PLPGSQL;
+
+CREATE OR REPLACE FUNCTION func_exceptions_stats()
+	RETURNS TRIGGER AS
+$$
+BEGIN
+	IF(TG_OP = 'INSERT') THEN
+		IF(NEW.ecid IS NOT NULL) THEN
+			UPDATE pals_exception_classes SET freq = freq + 1 WHERE ecid=NEW.ecid;
+			IF(NEW.moduleid IS NOT NULL) THEN
+				INSERT INTO pals_exception_stats_module (moduleid, ecid, freq) VALUES(NEW.moduleid, NEW.ecid, 1)
+					ON CONFLICT (moduleid, ecid) DO UPDATE SET freq = pals_exception_stats_module.freq + 1;
+			END IF;
+			IF(NEW.assid IS NOT NULL) THEN
+				INSERT INTO pals_exception_stats_assignment (assid, ecid, freq) VALUES(NEW.assid, NEW.ecid, 1)
+					ON CONFLICT (assid, ecid) DO UPDATE SET freq = pals_exception_stats_assignment.freq + 1;
+			END IF;
+			IF(NEW.qid IS NOT NULL) THEN
+				INSERT INTO pals_exception_stats_question (qid, ecid, freq) VALUES(NEW.qid, NEW.ecid, 1)
+					ON CONFLICT (qid, ecid) DO UPDATE SET freq = pals_exception_stats_question.freq + 1;
+			END IF;
+		END IF;
+	ELSIF(OLD.ecid IS NOT NULL) THEN
+		UPDATE pals_exception_classes SET freq = freq - 1 WHERE ecid=OLD.ecid;
+		UPDATE pals_exception_stats_module SET freq = freq - 1 WHERE moduleid=OLD.moduleid AND ecid=OLD.ecid;
+		DELETE FROM pals_exception_stats_module WHERE moduleid=OLD.moduleid AND ecid=OLD.ecid AND freq <= 0;
+		UPDATE pals_exception_stats_assignment SET freq = freq - 1 WHERE assid=OLD.assid AND ecid=OLD.ecid;
+		DELETE FROM pals_exception_stats_assignment WHERE assid=OLD.assid AND ecid=OLD.ecid AND freq <= 0;
+		UPDATE pals_exception_stats_question SET freq = freq - 1 WHERE qid=OLD.qid AND ecid=OLD.ecid;
+		DELETE FROM pals_exception_stats_question WHERE qid=OLD.qid AND ecid=OLD.ecid AND freq <= 0;
+	END IF;
+	RETURN NULL;
+END;
+$$
+LANGUAGE PLPGSQL;
+
+CREATE OR REPLACE FUNCTION func_exceptions_a()
+	RETURNS TRIGGER AS
+$$
+BEGIN
+	-- Move the counts of the occurrences of the assignment from the old module to the new module
+	IF(OLD.moduleid IS NOT NULL) THEN
+		UPDATE pals_exception_stats_module AS s SET freq = s.freq - c.freq
+			FROM (SELECT ecid, COUNT('') AS freq FROM pals_exceptions WHERE assid=OLD.assid AND moduleid=OLD.moduleid AND ecid IS NOT NULL GROUP BY ecid) AS c
+			WHERE s.moduleid=OLD.moduleid AND s.ecid=c.ecid;
+		DELETE FROM pals_exception_stats_module WHERE moduleid=OLD.moduleid AND freq <= 0;
+	END IF;
+	IF(NEW.moduleid IS NOT NULL) THEN
+		INSERT INTO pals_exception_stats_module (moduleid, ecid, freq)
+			SELECT NEW.moduleid, ecid, COUNT('') FROM pals_exceptions WHERE assid=OLD.assid AND moduleid IS NOT DISTINCT FROM OLD.moduleid AND ecid IS NOT NULL GROUP BY ecid
+			ON CONFLICT (moduleid, ecid) DO UPDATE SET freq = pals_exception_stats_module.freq + EXCLUDED.freq;
+	END IF;
+	-- Rewrite the module of the occurrences
+	UPDATE pals_exceptions SET moduleid=NEW.moduleid WHERE assid=OLD.assid AND moduleid IS NOT DISTINCT FROM OLD.moduleid;
+	RETURN NULL;
+END;
+$$
+LANGUAGE PLPGSQL;
+
 -- Create triggers
 CREATE TRIGGER trigger_cleanup_iaq AFTER DELETE ON pals_assignment_instance_question
 	FOR EACH ROW
@@ -378,3 +803,44 @@ CREATE TRIGGER trigger_cleanup_qc AFTER DELETE ON pals_question_criteria
 	FOR EACH ROW
 		EXECUTE PROCEDURE func_cleanup_qc();
 
+CREATE TRIGGER trigger_marks_aiqc AFTER INSERT OR UPDATE OF status, mark OR DELETE ON pals_assignment_instance_question_criteria
+	FOR EACH ROW
+		EXECUTE PROCEDURE func_marks_aiqc();
+
+CREATE TRIGGER trigger_marks_aiq AFTER INSERT OR UPDATE OF pending, mark OR DELETE ON pals_assignment_instance_question
+	FOR EACH ROW
+		EXECUTE PROCEDURE func_marks_aiq();
+
+CREATE TRIGGER trigger_best_ai AFTER INSERT OR UPDATE OF userid, assid, status, mark OR DELETE ON pals_assignment_instance
+	FOR EACH ROW
+		EXECUTE PROCEDURE func_best_ai();
+
+CREATE TRIGGER trigger_summary_ai AFTER INSERT OR UPDATE OF userid, assid, status, mark OR DELETE ON pals_assignment_instance
+	FOR EACH ROW
+		EXECUTE PROCEDURE func_summary_ai();
+
+CREATE TRIGGER trigger_summary_a AFTER INSERT OR DELETE ON pals_assignment
+	FOR EACH ROW
+		EXECUTE PROCEDURE func_summary_a();
+
+CREATE TRIGGER trigger_summary_a_update AFTER UPDATE OF moduleid, active ON pals_assignment
+	FOR EACH ROW
+	WHEN (OLD.moduleid IS DISTINCT FROM NEW.moduleid OR OLD.active IS DISTINCT FROM NEW.active)
+		EXECUTE PROCEDURE func_summary_a();
+
+CREATE TRIGGER trigger_summary_me AFTER INSERT OR DELETE ON pals_modules_enrollment
+	FOR EACH ROW
+		EXECUTE PROCEDURE func_summary_me();
+
+CREATE TRIGGER trigger_exceptions_scope BEFORE INSERT ON pals_exceptions
+	FOR EACH ROW
+		EXECUTE PROCEDURE func_exceptions_scope();
+
+CREATE TRIGGER trigger_exceptions_stats AFTER INSERT OR DELETE ON pals_exceptions
+	FOR EACH ROW
+		EXECUTE PROCEDURE func_exceptions_stats();
+
+CREATE TRIGGER trigger_exceptions_a AFTER UPDATE OF moduleid ON pals_assignment
+	FOR EACH ROW
+	WHEN (OLD.moduleid IS DISTINCT FROM NEW.moduleid)
+		EXECUTE PROCEDURE func_exceptions_a();
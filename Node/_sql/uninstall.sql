@@ -26,12 +26,18 @@ DROP TABLE IF EXISTS pals_assignment_questions					CASCADE;
 DROP TABLE IF EXISTS pals_assignment_instance 					CASCADE;
 DROP TABLE IF EXISTS pals_assignment_instance_question 			CASCADE;
 DROP TABLE IF EXISTS pals_assignment_instance_question_criteria	CASCADE;
+DROP TABLE IF EXISTS pals_assignment_best						CASCADE;
+DROP TABLE IF EXISTS pals_assignment_summary					CASCADE;
+DROP TABLE IF EXISTS pals_module_summary						CASCADE;
 
 DROP TABLE IF EXISTS pals_node_locking							CASCADE;
 
 DROP TABLE IF EXISTS pals_exception_classes						CASCADE;
 DROP TABLE IF EXISTS pals_exception_messages					CASCADE;
 DROP TABLE IF EXISTS pals_exceptions							CASCADE;
+DROP TABLE IF EXISTS pals_exception_stats_module				CASCADE;
+DROP TABLE IF EXISTS pals_exception_stats_assignment			CASCADE;
+DROP TABLE IF EXISTS pals_exception_stats_question				CASCADE;
 
 DROP TABLE IF EXISTS pals_cleanup								CASCADE;
 
@@ -39,3 +45,15 @@ DROP TABLE IF EXISTS pals_cleanup								CASCADE;
 DROP FUNCTION IF EXISTS	func_cleanup_iaq()									CASCADE;
 DROP FUNCTION IF EXISTS	func_cleanup_q()									CASCADE;
 DROP FUNCTION IF EXISTS	func_cleanup_qc()									CASCADE;
+DROP FUNCTION IF EXISTS	func_marks_aiqc()									CASCADE;
+DROP FUNCTION IF EXISTS	func_marks_aiq()									CASCADE;
+DROP FUNCTION IF EXISTS	func_best_refresh(INT, INT)							CASCADE;
+DROP FUNCTION IF EXISTS	func_best_ai()										CASCADE;
+DROP FUNCTION IF EXISTS	func_summary_module_refresh(INT, INT)				CASCADE;
+DROP FUNCTION IF EXISTS	func_summary_refresh(INT, INT)						CASCADE;
+DROP FUNCTION IF EXISTS	func_summary_ai()									CASCADE;
+DROP FUNCTION IF EXISTS	func_summary_a()									CASCADE;
+DROP FUNCTION IF EXISTS	func_summary_me()									CASCADE;
+DROP FUNCTION IF EXISTS	func_exceptions_scope()								CASCADE;
+DROP FUNCTION IF EXISTS	func_exceptions_stats()								CASCADE;
+DROP FUNCTION IF EXISTS	func_exceptions_a()									CASCADE;
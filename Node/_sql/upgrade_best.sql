@@ -0,0 +1,89 @@
+-- Upgrades a database installed before the instance with the highest mark of each user, for each assignment, was maintained;
+-- -- this creates pals_assignment_best, backfills it from the existing instances and creates the trigger maintaining it.
+-- -- Without the backfill, the highest mark of every user would be missing until one of their instances changed.
+-- -- Execute once, whilst the nodes are stopped, e.g.: psql -f upgrade_best.sql <database>
+BEGIN;
+
+-- Prevent instances changing during the upgrade
+LOCK TABLE pals_assignment_instance IN SHARE ROW EXCLUSIVE MODE;
+
+-- Create the table and indexes
+-- -- Create index on the columns used for looking-up the instances of a user for an assignment.
+CREATE INDEX IF NOT EXISTS index_pals_assignment_instance_userid_assid ON pals_assignment_instance(userid, assid);
+-- The instance with the highest mark of each user, for each assignment; maintained by trigger_best_ai.
+CREATE TABLE IF NOT EXISTS pals_assignment_best
+(
+	-- The assignment.
+	assid				INT					REFERENCES pals_assignment(assid) ON UPDATE CASCADE ON DELETE CASCADE				NOT NULL,
+	-- The user.
+	userid				INT					REFERENCES pals_users(userid) ON UPDATE CASCADE ON DELETE CASCADE					NOT NULL,
+	-- The module of the assignment.
+	moduleid			INT					REFERENCES pals_modules(moduleid) ON UPDATE CASCADE ON DELETE CASCADE				NOT NULL,
+	-- The instance with the highest mark; the lowest identifier if tied.
+	aiid				INT					REFERENCES pals_assignment_instance(aiid) ON UPDATE CASCADE ON DELETE CASCADE		NOT NULL,
+	-- The mark of the instance.
+	mark				DOUBLE PRECISION																						NOT NULL,
+	PRIMARY KEY(assid, userid)
+);
+-- -- Create index on the columns used for loading the gradebook of a module.
+CREATE INDEX IF NOT EXISTS index_pals_assignment_best_moduleid_userid ON pals_assignment_best(moduleid, userid);
+
+-- Drop the trigger, if present, whilst backfilling; the table is rebuilt in full below
+DROP TRIGGER IF EXISTS trigger_best_ai ON pals_assignment_instance;
+
+-- Backfill the table; the highest mark of each user, for each assignment, with the lowest identifier if tied, as func_best_refresh.
+DELETE FROM pals_assignment_best;
+INSERT INTO pals_assignment_best (assid, userid, moduleid, aiid, mark)
+	SELECT DISTINCT ON (ai.assid, ai.userid) ai.assid, ai.userid, a.moduleid, ai.aiid, ai.mark
+	FROM pals_assignment_instance AS ai
+	JOIN pals_assignment AS a ON a.assid=ai.assid
+	WHERE a.moduleid IS NOT NULL
+	ORDER BY ai.assid, ai.userid, ai.mark DESC, ai.aiid ASC;
+
+-- Create trigger functions for maintaining the instance with the highest mark of each user, for each assignment; identical to install.sql.
+-- -- Refreshes are serialized, for each user and assignment, with an advisory lock held until the transaction ends.
+CREATE OR REPLACE FUNCTION func_best_refresh(p_userid INT, p_assid INT)
+	RETURNS VOID AS
+$$
+DECLARE
+	v_aiid			INT;
+	v_mark			DOUBLE PRECISION;
+	v_moduleid		INT;
+BEGIN
+	PERFORM pg_advisory_xact_lock(p_assid, p_userid);
+	-- Fetch the instance with the highest mark; the assignment and user are joined, so nothing is found if they are being deleted
+	SELECT ai.aiid, ai.mark, a.moduleid INTO v_aiid, v_mark, v_moduleid FROM pals_assignment_instance AS ai, pals_assignment AS a, pals_users AS u
+		WHERE ai.userid=p_userid AND ai.assid=p_assid AND a.assid=ai.assid AND u.userid=ai.userid ORDER BY ai.mark DESC, ai.aiid ASC LIMIT 1;
+	IF(NOT FOUND) THEN
+		DELETE FROM pals_assignment_best WHERE assid=p_assid AND userid=p_userid;
+	ELSE
+		UPDATE pals_assignment_best SET moduleid=v_moduleid, aiid=v_aiid, mark=v_mark WHERE assid=p_assid AND userid=p_userid;
+		IF(NOT FOUND) THEN
+			INSERT INTO pals_assignment_best (assid, userid, moduleid, aiid, mark) VALUES(p_assid, p_userid, v_moduleid, v_aiid, v_mark);
+		END IF;
+	END IF;
+END;
+$$
+LANGUAGE PLPGSQL;
+
+CREATE OR REPLACE FUNCTION func_best_ai()
+	RETURNS TRIGGER AS
+$$
+BEGIN
+	IF(TG_OP = 'DELETE' OR (TG_OP = 'UPDATE' AND (OLD.userid <> NEW.userid OR OLD.assid <> NEW.assid))) THEN
+		PERFORM func_best_refresh(OLD.userid, OLD.assid);
+	END IF;
+	IF(TG_OP = 'INSERT' OR TG_OP = 'UPDATE') THEN
+		PERFORM func_best_refresh(NEW.userid, NEW.assid);
+	END IF;
+	RETURN NULL;
+END;
+$$
+LANGUAGE PLPGSQL;
+
+-- Create the trigger
+CREATE TRIGGER trigger_best_ai AFTER INSERT OR UPDATE OF userid, assid, status, mark OR DELETE ON pals_assignment_instance
+	FOR EACH ROW
+		EXECUTE PROCEDURE func_best_ai();
+
+COMMIT;
@@ -0,0 +1,162 @@
+-- Upgrades a database installed before the statistics of exceptions were maintained; this adds the assignment, module and
+-- -- question of each occurrence and the number of occurrences of each class, creates the tables counting the occurrences of
+-- -- each class for each module, assignment and question, backfills them from the existing occurrences and creates the
+-- -- triggers maintaining them. Without the backfill, existing occurrences would be missing from the statistics and deleting
+-- -- them would leave the counts negative.
+-- -- Execute once, whilst the nodes are stopped, e.g.: psql -f upgrade_exceptions.sql <database>
+BEGIN;
+
+-- Prevent occurrences being logged and assignments being moved during the upgrade
+LOCK TABLE pals_exceptions, pals_exception_classes, pals_assignment IN SHARE ROW EXCLUSIVE MODE;
+
+-- Add the columns
+ALTER TABLE pals_exception_classes ADD COLUMN IF NOT EXISTS freq INT DEFAULT 0 NOT NULL;
+ALTER TABLE pals_exceptions ADD COLUMN IF NOT EXISTS assid INT;
+ALTER TABLE pals_exceptions ADD COLUMN IF NOT EXISTS moduleid INT;
+ALTER TABLE pals_exceptions ADD COLUMN IF NOT EXISTS qid INT;
+
+-- Create the tables and indexes
+-- -- Create indexes on the columns used for filtering occurrences.
+CREATE INDEX IF NOT EXISTS index_pals_exceptions_ecid ON pals_exceptions(ecid);
+CREATE INDEX IF NOT EXISTS index_pals_exceptions_assid ON pals_exceptions(assid);
+CREATE INDEX IF NOT EXISTS index_pals_exceptions_moduleid ON pals_exceptions(moduleid);
+CREATE INDEX IF NOT EXISTS index_pals_exceptions_qid ON pals_exceptions(qid);
+-- The number of instances of each exception class, for each module, assignment and question; maintained by trigger_exceptions_stats.
+CREATE TABLE IF NOT EXISTS pals_exception_stats_module
+(
+	moduleid			INT					REFERENCES pals_modules(moduleid) ON UPDATE CASCADE ON DELETE CASCADE				NOT NULL,
+	ecid				INT					REFERENCES pals_exception_classes(ecid) ON UPDATE CASCADE ON DELETE CASCADE			NOT NULL,
+	freq				INT					DEFAULT 0																			NOT NULL,
+	PRIMARY KEY(moduleid, ecid)
+);
+CREATE TABLE IF NOT EXISTS pals_exception_stats_assignment
+(
+	assid				INT					REFERENCES pals_assignment(assid) ON UPDATE CASCADE ON DELETE CASCADE				NOT NULL,
+	ecid				INT					REFERENCES pals_exception_classes(ecid) ON UPDATE CASCADE ON DELETE CASCADE			NOT NULL,
+	freq				INT					DEFAULT 0																			NOT NULL,
+	PRIMARY KEY(assid, ecid)
+);
+CREATE TABLE IF NOT EXISTS pals_exception_stats_question
+(
+	qid					INT					REFERENCES pals_question(qid) ON UPDATE CASCADE ON DELETE CASCADE					NOT NULL,
+	ecid				INT					REFERENCES pals_exception_classes(ecid) ON UPDATE CASCADE ON DELETE CASCADE			NOT NULL,
+	freq				INT					DEFAULT 0																			NOT NULL,
+	PRIMARY KEY(qid, ecid)
+);
+
+-- Drop the triggers, so the backfill is not counted twice
+DROP TRIGGER IF EXISTS trigger_exceptions_scope ON pals_exceptions;
+DROP TRIGGER IF EXISTS trigger_exceptions_stats ON pals_exceptions;
+DROP TRIGGER IF EXISTS trigger_exceptions_a ON pals_assignment;
+
+-- Backfill the assignment, module and question of each occurrence
+UPDATE pals_exceptions AS e SET assid=ai.assid, moduleid=a.moduleid
+	FROM pals_assignment_instance AS ai
+	JOIN pals_assignment AS a ON a.assid=ai.assid
+	WHERE ai.aiid=e.aiid;
+UPDATE pals_exceptions AS e SET qid=aq.qid
+	FROM pals_assignment_questions AS aq
+	WHERE aq.aqid=e.aqid;
+
+-- Backfill the number of occurrences of each class
+UPDATE pals_exception_classes SET freq=0;
+UPDATE pals_exception_classes AS c SET freq=n.freq
+	FROM (SELECT ecid, COUNT('') AS freq FROM pals_exceptions WHERE ecid IS NOT NULL GROUP BY ecid) AS n
+	WHERE c.ecid=n.ecid;
+
+-- Backfill the number of occurrences of each class for each module, assignment and question
+DELETE FROM pals_exception_stats_module;
+INSERT INTO pals_exception_stats_module (moduleid, ecid, freq)
+	SELECT moduleid, ecid, COUNT('') FROM pals_exceptions WHERE moduleid IS NOT NULL AND ecid IS NOT NULL GROUP BY moduleid, ecid;
+DELETE FROM pals_exception_stats_assignment;
+INSERT INTO pals_exception_stats_assignment (assid, ecid, freq)
+	SELECT assid, ecid, COUNT('') FROM pals_exceptions WHERE assid IS NOT NULL AND ecid IS NOT NULL GROUP BY assid, ecid;
+DELETE FROM pals_exception_stats_question;
+INSERT INTO pals_exception_stats_question (qid, ecid, freq)
+	SELECT qid, ecid, COUNT('') FROM pals_exceptions WHERE qid IS NOT NULL AND ecid IS NOT NULL GROUP BY qid, ecid;
+
+-- Create the trigger functions; identical to install.sql
+CREATE OR REPLACE FUNCTION func_exceptions_scope()
+	RETURNS TRIGGER AS
+$$
+BEGIN
+	NEW.assid := (SELECT assid FROM pals_assignment_instance WHERE aiid=NEW.aiid);
+	NEW.moduleid := (SELECT moduleid FROM pals_assignment WHERE assid=NEW.assid);
+	NEW.qid := (SELECT qid FROM pals_assignment_questions WHERE aqid=NEW.aqid);
+	RETURN NEW;
+END;
+$$
+LANGUAGE PLPGSQL;
+
+CREATE OR REPLACE FUNCTION func_exceptions_stats()
+	RETURNS TRIGGER AS
+$$
+BEGIN
+	IF(TG_OP = 'INSERT') THEN
+		IF(NEW.ecid IS NOT NULL) THEN
+			UPDATE pals_exception_classes SET freq = freq + 1 WHERE ecid=NEW.ecid;
+			IF(NEW.moduleid IS NOT NULL) THEN
+				INSERT INTO pals_exception_stats_module (moduleid, ecid, freq) VALUES(NEW.moduleid, NEW.ecid, 1)
+					ON CONFLICT (moduleid, ecid) DO UPDATE SET freq = pals_exception_stats_module.freq + 1;
+			END IF;
+			IF(NEW.assid IS NOT NULL) THEN
+				INSERT INTO pals_exception_stats_assignment (assid, ecid, freq) VALUES(NEW.assid, NEW.ecid, 1)
+					ON CONFLICT (assid, ecid) DO UPDATE SET freq = pals_exception_stats_assignment.freq + 1;
+			END IF;
+			IF(NEW.qid IS NOT NULL) THEN
+				INSERT INTO pals_exception_stats_question (qid, ecid, freq) VALUES(NEW.qid, NEW.ecid, 1)
+					ON CONFLICT (qid, ecid) DO UPDATE SET freq = pals_exception_stats_question.freq + 1;
+			END IF;
+		END IF;
+	ELSIF(OLD.ecid IS NOT NULL) THEN
+		UPDATE pals_exception_classes SET freq = freq - 1 WHERE ecid=OLD.ecid;
+		UPDATE pals_exception_stats_module SET freq = freq - 1 WHERE moduleid=OLD.moduleid AND ecid=OLD.ecid;
+		DELETE FROM pals_exception_stats_module WHERE moduleid=OLD.moduleid AND ecid=OLD.ecid AND freq <= 0;
+		UPDATE pals_exception_stats_assignment SET freq = freq - 1 WHERE assid=OLD.assid AND ecid=OLD.ecid;
+		DELETE FROM pals_exception_stats_assignment WHERE assid=OLD.assid AND ecid=OLD.ecid AND freq <= 0;
+		UPDATE pals_exception_stats_question SET freq = freq - 1 WHERE qid=OLD.qid AND ecid=OLD.ecid;
+		DELETE FROM pals_exception_stats_question WHERE qid=OLD.qid AND ecid=OLD.ecid AND freq <= 0;
+	END IF;
+	RETURN NULL;
+END;
+$$
+LANGUAGE PLPGSQL;
+
+CREATE OR REPLACE FUNCTION func_exceptions_a()
+	RETURNS TRIGGER AS
+$$
+BEGIN
+	-- Move the counts of the occurrences of the assignment from the old module to the new module
+	IF(OLD.moduleid IS NOT NULL) THEN
+		UPDATE pals_exception_stats_module AS s SET freq = s.freq - c.freq
+			FROM (SELECT ecid, COUNT('') AS freq FROM pals_exceptions WHERE assid=OLD.assid AND moduleid=OLD.moduleid AND ecid IS NOT NULL GROUP BY ecid) AS c
+			WHERE s.moduleid=OLD.moduleid AND s.ecid=c.ecid;
+		DELETE FROM pals_exception_stats_module WHERE moduleid=OLD.moduleid AND freq <= 0;
+	END IF;
+	IF(NEW.moduleid IS NOT NULL) THEN
+		INSERT INTO pals_exception_stats_module (moduleid, ecid, freq)
+			SELECT NEW.moduleid, ecid, COUNT('') FROM pals_exceptions WHERE assid=OLD.assid AND moduleid IS NOT DISTINCT FROM OLD.moduleid AND ecid IS NOT NULL GROUP BY ecid
+			ON CONFLICT (moduleid, ecid) DO UPDATE SET freq = pals_exception_stats_module.freq + EXCLUDED.freq;
+	END IF;
+	-- Rewrite the module of the occurrences
+	UPDATE pals_exceptions SET moduleid=NEW.moduleid WHERE assid=OLD.assid AND moduleid IS NOT DISTINCT FROM OLD.moduleid;
+	RETURN NULL;
+END;
+$$
+LANGUAGE PLPGSQL;
+
+-- Create the triggers
+CREATE TRIGGER trigger_exceptions_scope BEFORE INSERT ON pals_exceptions
+	FOR EACH ROW
+		EXECUTE PROCEDURE func_exceptions_scope();
+
+CREATE TRIGGER trigger_exceptions_stats AFTER INSERT OR DELETE ON pals_exceptions
+	FOR EACH ROW
+		EXECUTE PROCEDURE func_exceptions_stats();
+
+CREATE TRIGGER trigger_exceptions_a AFTER UPDATE OF moduleid ON pals_assignment
+	FOR EACH ROW
+	WHEN (OLD.moduleid IS DISTINCT FROM NEW.moduleid)
+		EXECUTE PROCEDURE func_exceptions_a();
+
+COMMIT;
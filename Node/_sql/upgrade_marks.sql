@@ -0,0 +1,131 @@
+-- Upgrades a database installed before the marks of instances of assignments were maintained incrementally; this adds the
+-- -- pending and mark_sum columns, backfills them from the criteria marked so far and creates the triggers maintaining them.
+-- -- Without the backfill, instances with criteria still unmarked would have a pending count of zero and be completed.
+-- -- Execute once, whilst the nodes are stopped, e.g.: psql -f upgrade_marks.sql <database>
+BEGIN;
+
+-- Prevent marking during the upgrade
+LOCK TABLE pals_assignment_instance, pals_assignment_instance_question, pals_assignment_instance_question_criteria IN SHARE ROW EXCLUSIVE MODE;
+
+-- Add the columns
+ALTER TABLE pals_assignment_instance ADD COLUMN IF NOT EXISTS pending INT DEFAULT 0 NOT NULL;
+ALTER TABLE pals_assignment_instance ADD COLUMN IF NOT EXISTS mark_sum DOUBLE PRECISION DEFAULT 0 NOT NULL;
+ALTER TABLE pals_assignment_instance_question ADD COLUMN IF NOT EXISTS pending INT DEFAULT 0 NOT NULL;
+ALTER TABLE pals_assignment_instance_question ADD COLUMN IF NOT EXISTS mark_sum DOUBLE PRECISION DEFAULT 0 NOT NULL;
+
+-- Drop the triggers, if present, whilst backfilling; the counters are computed in full below
+DROP TRIGGER IF EXISTS trigger_marks_aiqc ON pals_assignment_instance_question_criteria;
+DROP TRIGGER IF EXISTS trigger_marks_aiq ON pals_assignment_instance_question;
+
+-- Backfill the questions; the same aggregate as pals.base.assessment.MarkRecomputeJob.
+-- -- Criteria with the status 4 are marked, as controlled by 'pals.base.assessment.InstanceAssignmentCriteria.Status'.
+UPDATE pals_assignment_instance_question AS aiq SET pending=m.pending, mark_sum=m.mark_sum, mark=COALESCE(m.mark, aiq.mark)
+	FROM
+	(
+		SELECT aiq2.aiqid,
+			CAST(SUM(CASE WHEN aiqc.status<>4 THEN 1 ELSE 0 END) AS INT) AS pending,
+			CAST(COALESCE(SUM((aiqc.mark/100.0)*qc.weight), 0) AS DOUBLE PRECISION) AS mark_sum,
+			CAST((SUM((aiqc.mark/100.0)*qc.weight) / NULLIF(MAX(tw.total), 0)) * 100.0 AS DOUBLE PRECISION) AS mark
+		FROM pals_assignment_instance_question AS aiq2
+		JOIN pals_assignment_questions AS aq ON aq.aqid=aiq2.aqid
+		LEFT OUTER JOIN (SELECT qid, SUM(weight) AS total FROM pals_question_criteria GROUP BY qid) AS tw ON tw.qid=aq.qid
+		LEFT OUTER JOIN pals_assignment_instance_question_criteria AS aiqc ON aiqc.aiqid=aiq2.aiqid
+		LEFT OUTER JOIN pals_question_criteria AS qc ON qc.qcid=aiqc.qcid
+		GROUP BY aiq2.aiqid
+	) AS m
+	WHERE aiq.aiqid=m.aiqid;
+
+-- Backfill the instances of assignments; the mark is only recomputed for instances marked.
+-- -- Instances with the status 3 are marked, as controlled by 'pals.base.assessment.InstanceAssignment.Status'.
+UPDATE pals_assignment_instance AS ai SET pending=m.pending, mark_sum=m.mark_sum, mark=CASE WHEN ai.status=3 THEN m.mark ELSE ai.mark END
+	FROM
+	(
+		SELECT ai2.aiid,
+			CAST(COALESCE(SUM(aiq.pending), 0) AS INT) AS pending,
+			CAST(COALESCE(SUM((aiq.mark/100.0)*aq.weight), 0) AS DOUBLE PRECISION) AS mark_sum,
+			CAST(COALESCE((SUM((aiq.mark/100.0)*aq.weight) / NULLIF(MAX(tw.total), 0)) * 100.0, 0) AS DOUBLE PRECISION) AS mark
+		FROM pals_assignment_instance AS ai2
+		LEFT OUTER JOIN (SELECT assid, SUM(weight) AS total FROM pals_assignment_questions GROUP BY assid) AS tw ON tw.assid=ai2.assid
+		LEFT OUTER JOIN pals_assignment_instance_question AS aiq ON aiq.aiid=ai2.aiid
+		LEFT OUTER JOIN pals_assignment_questions AS aq ON aq.aqid=aiq.aqid
+		GROUP BY ai2.aiid
+	) AS m
+	WHERE ai.aiid=m.aiid;
+
+-- Create trigger functions for maintaining the marks of instances of assignments incrementally, as criteria are marked;
+-- -- identical to install.sql; the mark of an instance can then be computed, once its pending count reaches zero, without aggregating its criteria.
+-- -- Criteria with the status 4 are marked, as controlled by 'pals.base.assessment.InstanceAssignmentCriteria.Status'.
+CREATE OR REPLACE FUNCTION func_marks_aiqc()
+	RETURNS TRIGGER AS
+$$
+DECLARE
+	v_aiqid			INT;
+	v_pending		INT := 0;
+	v_sum			DOUBLE PRECISION := 0;
+	v_total			DOUBLE PRECISION;
+BEGIN
+	IF(TG_OP = 'INSERT' OR TG_OP = 'UPDATE') THEN
+		v_aiqid := NEW.aiqid;
+		IF(NEW.status <> 4) THEN
+			v_pending := v_pending + 1;
+		END IF;
+		v_sum := v_sum + COALESCE((SELECT (NEW.mark/100.0)*weight FROM pals_question_criteria WHERE qcid=NEW.qcid), 0);
+	END IF;
+	IF(TG_OP = 'DELETE' OR TG_OP = 'UPDATE') THEN
+		v_aiqid := OLD.aiqid;
+		IF(OLD.status <> 4) THEN
+			v_pending := v_pending - 1;
+		END IF;
+		v_sum := v_sum - COALESCE((SELECT (OLD.mark/100.0)*weight FROM pals_question_criteria WHERE qcid=OLD.qcid), 0);
+	END IF;
+	IF(v_pending <> 0 OR v_sum <> 0) THEN
+		-- Fetch the total weight of the criteria of the question
+		SELECT SUM(qc.weight) INTO v_total FROM pals_assignment_instance_question AS aiq, pals_assignment_questions AS aq, pals_question_criteria AS qc
+			WHERE aiq.aiqid=v_aiqid AND aq.aqid=aiq.aqid AND qc.qid=aq.qid;
+		UPDATE pals_assignment_instance_question SET
+			pending = pending + v_pending,
+			mark_sum = mark_sum + v_sum,
+			mark = CASE WHEN v_total > 0 THEN ((mark_sum + v_sum) / v_total) * 100.0 ELSE mark END
+			WHERE aiqid=v_aiqid;
+	END IF;
+	RETURN NULL;
+END;
+$$
+LANGUAGE PLPGSQL;
+
+CREATE OR REPLACE FUNCTION func_marks_aiq()
+	RETURNS TRIGGER AS
+$$
+DECLARE
+	v_aiid			INT;
+	v_pending		INT := 0;
+	v_sum			DOUBLE PRECISION := 0;
+BEGIN
+	IF(TG_OP = 'INSERT' OR TG_OP = 'UPDATE') THEN
+		v_aiid := NEW.aiid;
+		v_pending := v_pending + NEW.pending;
+		v_sum := v_sum + COALESCE((SELECT (NEW.mark/100.0)*weight FROM pals_assignment_questions WHERE aqid=NEW.aqid), 0);
+	END IF;
+	IF(TG_OP = 'DELETE' OR TG_OP = 'UPDATE') THEN
+		v_aiid := OLD.aiid;
+		v_pending := v_pending - OLD.pending;
+		v_sum := v_sum - COALESCE((SELECT (OLD.mark/100.0)*weight FROM pals_assignment_questions WHERE aqid=OLD.aqid), 0);
+	END IF;
+	IF(v_pending <> 0 OR v_sum <> 0) THEN
+		UPDATE pals_assignment_instance SET pending = pending + v_pending, mark_sum = mark_sum + v_sum WHERE aiid=v_aiid;
+	END IF;
+	RETURN NULL;
+END;
+$$
+LANGUAGE PLPGSQL;
+
+-- Create the triggers
+CREATE TRIGGER trigger_marks_aiqc AFTER INSERT OR UPDATE OF status, mark OR DELETE ON pals_assignment_instance_question_criteria
+	FOR EACH ROW
+		EXECUTE PROCEDURE func_marks_aiqc();
+
+CREATE TRIGGER trigger_marks_aiq AFTER INSERT OR UPDATE OF pending, mark OR DELETE ON pals_assignment_instance_question
+	FOR EACH ROW
+		EXECUTE PROCEDURE func_marks_aiq();
+
+COMMIT;
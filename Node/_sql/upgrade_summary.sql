@@ -0,0 +1,232 @@
+-- Upgrades a database installed before the summaries of assignments and modules, for each user, were maintained; this creates
+-- -- pals_assignment_summary and pals_module_summary, backfills them from the existing instances and enrollments and creates the
+-- -- triggers maintaining them. Without the backfill, every student would see all assignments as unanswered.
+-- -- Execute once, after upgrade_best.sql, whilst the nodes are stopped, e.g.: psql -f upgrade_summary.sql <database>
+BEGIN;
+
+-- Prevent instances, assignments and enrollments changing during the upgrade
+LOCK TABLE pals_assignment_instance, pals_assignment, pals_modules_enrollment IN SHARE ROW EXCLUSIVE MODE;
+
+-- Create the tables and indexes
+-- A summary of the instances of each user, for each assignment, with at least one instance; maintained by trigger_summary_ai.
+-- -- Used for the dashboards of students; statuses are as controlled by 'pals.base.assessment.InstanceAssignment.Status'.
+CREATE TABLE IF NOT EXISTS pals_assignment_summary
+(
+	-- The assignment.
+	assid				INT					REFERENCES pals_assignment(assid) ON UPDATE CASCADE ON DELETE CASCADE				NOT NULL,
+	-- The user.
+	userid				INT					REFERENCES pals_users(userid) ON UPDATE CASCADE ON DELETE CASCADE					NOT NULL,
+	-- The module of the assignment.
+	moduleid			INT					REFERENCES pals_modules(moduleid) ON UPDATE CASCADE ON DELETE CASCADE				NOT NULL,
+	-- The number of instances.
+	attempts			INT					DEFAULT 0																			NOT NULL,
+	-- The number of instances no longer active.
+	answered			INT					DEFAULT 0																			NOT NULL,
+	-- The number of instances active.
+	incomplete			INT					DEFAULT 0																			NOT NULL,
+	-- The highest mark of the instances marked; null if none are marked.
+	mark_highest		DOUBLE PRECISION,
+	-- The mark of the last instance marked; null if none are marked.
+	mark_last			DOUBLE PRECISION,
+	-- The status of the last instance.
+	last_status			INT																										NOT NULL,
+	PRIMARY KEY(assid, userid)
+);
+-- -- Create index on the columns used for summarising a module.
+CREATE INDEX IF NOT EXISTS index_pals_assignment_summary_moduleid_userid ON pals_assignment_summary(moduleid, userid);
+-- A summary of the active assignments of each module, for each user enrolled; maintained by trigger_summary_ai, trigger_summary_a
+-- and trigger_summary_me.
+CREATE TABLE IF NOT EXISTS pals_module_summary
+(
+	-- The module.
+	moduleid			INT					REFERENCES pals_modules(moduleid) ON UPDATE CASCADE ON DELETE CASCADE				NOT NULL,
+	-- The user.
+	userid				INT					REFERENCES pals_users(userid) ON UPDATE CASCADE ON DELETE CASCADE					NOT NULL,
+	-- The number of active assignments.
+	total				INT					DEFAULT 0																			NOT NULL,
+	-- The number of active assignments with at least one instance.
+	attempted			INT					DEFAULT 0																			NOT NULL,
+	-- The number of active assignments with an instance no longer active.
+	answered			INT					DEFAULT 0																			NOT NULL,
+	-- The number of active assignments with an active instance.
+	incomplete			INT					DEFAULT 0																			NOT NULL,
+	PRIMARY KEY(moduleid, userid)
+);
+
+-- Drop the triggers, if present, whilst backfilling; the tables are rebuilt in full below
+DROP TRIGGER IF EXISTS trigger_summary_ai ON pals_assignment_instance;
+DROP TRIGGER IF EXISTS trigger_summary_a ON pals_assignment;
+DROP TRIGGER IF EXISTS trigger_summary_a_update ON pals_assignment;
+DROP TRIGGER IF EXISTS trigger_summary_me ON pals_modules_enrollment;
+
+-- Backfill the assignments; the same aggregates as func_summary_refresh, computed for every user and assignment at once, rather
+-- -- than refreshing each, since each refresh holds an advisory lock until the transaction ends.
+-- -- Statuses 0 and 3 are active and marked, as controlled by 'pals.base.assessment.InstanceAssignment.Status'.
+DELETE FROM pals_assignment_summary;
+INSERT INTO pals_assignment_summary (assid, userid, moduleid, attempts, answered, incomplete, mark_highest, mark_last, last_status)
+	SELECT ai.assid, ai.userid, a.moduleid,
+		COUNT(''),
+		SUM(CASE WHEN ai.status <> 0 THEN 1 ELSE 0 END),
+		SUM(CASE WHEN ai.status = 0 THEN 1 ELSE 0 END),
+		MAX(CASE WHEN ai.status = 3 THEN ai.mark END),
+		(SELECT l.mark FROM pals_assignment_instance AS l WHERE l.userid=ai.userid AND l.assid=ai.assid AND l.status=3 ORDER BY l.aiid DESC LIMIT 1),
+		(SELECT l.status FROM pals_assignment_instance AS l WHERE l.userid=ai.userid AND l.assid=ai.assid ORDER BY l.aiid DESC LIMIT 1)
+	FROM pals_assignment_instance AS ai
+	JOIN pals_assignment AS a ON a.assid=ai.assid
+	WHERE a.moduleid IS NOT NULL
+	GROUP BY ai.assid, ai.userid, a.moduleid;
+
+-- Backfill the modules, for each user enrolled; the same aggregates as func_summary_module_refresh.
+DELETE FROM pals_module_summary;
+INSERT INTO pals_module_summary (moduleid, userid, total, attempted, answered, incomplete)
+	SELECT me.moduleid, me.userid,
+		(SELECT COUNT('') FROM pals_assignment WHERE moduleid=me.moduleid AND active='1'),
+		COUNT(s.assid),
+		COALESCE(SUM(CASE WHEN s.answered > 0 THEN 1 ELSE 0 END), 0),
+		COALESCE(SUM(CASE WHEN s.incomplete > 0 THEN 1 ELSE 0 END), 0)
+	FROM pals_modules_enrollment AS me
+	LEFT OUTER JOIN
+	(
+		SELECT s2.* FROM pals_assignment_summary AS s2, pals_assignment AS a WHERE a.assid=s2.assid AND a.active='1'
+	) AS s ON s.moduleid=me.moduleid AND s.userid=me.userid
+	GROUP BY me.moduleid, me.userid;
+
+-- Create trigger functions for maintaining the summaries of assignments and modules, for each user; identical to install.sql.
+-- -- Statuses 0 and 3 are active and marked, as controlled by 'pals.base.assessment.InstanceAssignment.Status'.
+CREATE OR REPLACE FUNCTION func_summary_module_refresh(p_moduleid INT, p_userid INT)
+	RETURNS VOID AS
+$$
+DECLARE
+	v_total			INT;
+	v_attempted		INT;
+	v_answered		INT;
+	v_incomplete	INT;
+BEGIN
+	-- Check the user is enrolled; the module and user are joined, so nothing is found if they are being deleted
+	PERFORM 1 FROM pals_modules_enrollment AS me, pals_modules AS m, pals_users AS u WHERE me.moduleid=p_moduleid AND me.userid=p_userid AND m.moduleid=me.moduleid AND u.userid=me.userid;
+	IF(NOT FOUND) THEN
+		DELETE FROM pals_module_summary WHERE moduleid=p_moduleid AND userid=p_userid;
+		RETURN;
+	END IF;
+	SELECT COUNT('') INTO v_total FROM pals_assignment WHERE moduleid=p_moduleid AND active='1';
+	SELECT COUNT(''), COALESCE(SUM(CASE WHEN s.answered > 0 THEN 1 ELSE 0 END), 0), COALESCE(SUM(CASE WHEN s.incomplete > 0 THEN 1 ELSE 0 END), 0)
+		INTO v_attempted, v_answered, v_incomplete FROM pals_assignment_summary AS s, pals_assignment AS a
+		WHERE s.moduleid=p_moduleid AND s.userid=p_userid AND a.assid=s.assid AND a.active='1';
+	-- Upsert, since concurrent refreshes of the same module and user could otherwise both insert
+	INSERT INTO pals_module_summary (moduleid, userid, total, attempted, answered, incomplete) VALUES(p_moduleid, p_userid, v_total, v_attempted, v_answered, v_incomplete)
+		ON CONFLICT (moduleid, userid) DO UPDATE SET total=EXCLUDED.total, attempted=EXCLUDED.attempted, answered=EXCLUDED.answered, incomplete=EXCLUDED.incomplete;
+END;
+$$
+LANGUAGE PLPGSQL;
+
+CREATE OR REPLACE FUNCTION func_summary_refresh(p_userid INT, p_assid INT)
+	RETURNS VOID AS
+$$
+DECLARE
+	v_moduleid		INT;
+	v_attempts		INT;
+	v_answered		INT;
+	v_incomplete	INT;
+	v_highest		DOUBLE PRECISION;
+	v_last			DOUBLE PRECISION;
+	v_last_status	INT;
+BEGIN
+	PERFORM pg_advisory_xact_lock(p_assid, p_userid);
+	-- Fetch the counts and highest mark; the assignment and user are joined, so nothing is found if they are being deleted
+	SELECT MAX(a.moduleid), COUNT(''), COALESCE(SUM(CASE WHEN ai.status <> 0 THEN 1 ELSE 0 END), 0), COALESCE(SUM(CASE WHEN ai.status = 0 THEN 1 ELSE 0 END), 0), MAX(CASE WHEN ai.status = 3 THEN ai.mark END)
+		INTO v_moduleid, v_attempts, v_answered, v_incomplete, v_highest FROM pals_assignment_instance AS ai, pals_assignment AS a, pals_users AS u
+		WHERE ai.userid=p_userid AND ai.assid=p_assid AND a.assid=ai.assid AND u.userid=ai.userid;
+	IF(v_attempts = 0) THEN
+		DELETE FROM pals_assignment_summary WHERE assid=p_assid AND userid=p_userid;
+		SELECT moduleid INTO v_moduleid FROM pals_assignment WHERE assid=p_assid;
+	ELSE
+		SELECT mark INTO v_last FROM pals_assignment_instance WHERE userid=p_userid AND assid=p_assid AND status=3 ORDER BY aiid DESC LIMIT 1;
+		SELECT status INTO v_last_status FROM pals_assignment_instance WHERE userid=p_userid AND assid=p_assid ORDER BY aiid DESC LIMIT 1;
+		UPDATE pals_assignment_summary SET moduleid=v_moduleid, attempts=v_attempts, answered=v_answered, incomplete=v_incomplete, mark_highest=v_highest, mark_last=v_last, last_status=v_last_status
+			WHERE assid=p_assid AND userid=p_userid;
+		IF(NOT FOUND) THEN
+			INSERT INTO pals_assignment_summary (assid, userid, moduleid, attempts, answered, incomplete, mark_highest, mark_last, last_status)
+				VALUES(p_assid, p_userid, v_moduleid, v_attempts, v_answered, v_incomplete, v_highest, v_last, v_last_status);
+		END IF;
+	END IF;
+	-- Refresh the summary of the module
+	IF(v_moduleid IS NOT NULL) THEN
+		PERFORM func_summary_module_refresh(v_moduleid, p_userid);
+	END IF;
+END;
+$$
+LANGUAGE PLPGSQL;
+
+CREATE OR REPLACE FUNCTION func_summary_ai()
+	RETURNS TRIGGER AS
+$$
+BEGIN
+	IF(TG_OP = 'DELETE' OR (TG_OP = 'UPDATE' AND (OLD.userid <> NEW.userid OR OLD.assid <> NEW.assid))) THEN
+		PERFORM func_summary_refresh(OLD.userid, OLD.assid);
+	END IF;
+	IF(TG_OP = 'INSERT' OR TG_OP = 'UPDATE') THEN
+		PERFORM func_summary_refresh(NEW.userid, NEW.assid);
+	END IF;
+	RETURN NULL;
+END;
+$$
+LANGUAGE PLPGSQL;
+
+CREATE OR REPLACE FUNCTION func_summary_a()
+	RETURNS TRIGGER AS
+$$
+BEGIN
+	-- Move the summaries of the assignment to its new module, before refreshing both modules
+	IF(TG_OP = 'UPDATE' AND NEW.moduleid IS DISTINCT FROM OLD.moduleid) THEN
+		IF(NEW.moduleid IS NULL) THEN
+			DELETE FROM pals_assignment_summary WHERE assid=NEW.assid;
+			DELETE FROM pals_assignment_best WHERE assid=NEW.assid;
+		ELSE
+			UPDATE pals_assignment_summary SET moduleid=NEW.moduleid WHERE assid=NEW.assid;
+			UPDATE pals_assignment_best SET moduleid=NEW.moduleid WHERE assid=NEW.assid;
+		END IF;
+	END IF;
+	IF(TG_OP = 'DELETE' OR TG_OP = 'UPDATE') THEN
+		PERFORM func_summary_module_refresh(me.moduleid, me.userid) FROM pals_modules_enrollment AS me WHERE me.moduleid=OLD.moduleid;
+	END IF;
+	IF(TG_OP = 'INSERT' OR (TG_OP = 'UPDATE' AND NEW.moduleid IS DISTINCT FROM OLD.moduleid)) THEN
+		PERFORM func_summary_module_refresh(me.moduleid, me.userid) FROM pals_modules_enrollment AS me WHERE me.moduleid=NEW.moduleid;
+	END IF;
+	RETURN NULL;
+END;
+$$
+LANGUAGE PLPGSQL;
+
+CREATE OR REPLACE FUNCTION func_summary_me()
+	RETURNS TRIGGER AS
+$$
+BEGIN
+	IF(TG_OP = 'DELETE') THEN
+		PERFORM func_summary_module_refresh(OLD.moduleid, OLD.userid);
+	ELSE
+		PERFORM func_summary_module_refresh(NEW.moduleid, NEW.userid);
+	END IF;
+	RETURN NULL;
+END;
+$$
+LANGUAGE PLPGSQL;
+
+-- Create the triggers
+CREATE TRIGGER trigger_summary_ai AFTER INSERT OR UPDATE OF userid, assid, status, mark OR DELETE ON pals_assignment_instance
+	FOR EACH ROW
+		EXECUTE PROCEDURE func_summary_ai();
+
+CREATE TRIGGER trigger_summary_a AFTER INSERT OR DELETE ON pals_assignment
+	FOR EACH ROW
+		EXECUTE PROCEDURE func_summary_a();
+
+CREATE TRIGGER trigger_summary_a_update AFTER UPDATE OF moduleid, active ON pals_assignment
+	FOR EACH ROW
+	WHEN (OLD.moduleid IS DISTINCT FROM NEW.moduleid OR OLD.active IS DISTINCT FROM NEW.active)
+		EXECUTE PROCEDURE func_summary_a();
+
+CREATE TRIGGER trigger_summary_me AFTER INSERT OR DELETE ON pals_modules_enrollment
+	FOR EACH ROW
+		EXECUTE PROCEDURE func_summary_me();
+
+COMMIT;
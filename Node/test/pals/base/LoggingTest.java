@@ -33,6 +33,7 @@ import org.junit.Test;
 import static org.junit.Assert.*;
 import org.junit.BeforeClass;
 import pals.TestWithCore;
+import pals.base.utils.Files;
 
 /**
  * Tests {@link Logging}.
@@ -169,4 +170,30 @@ public class LoggingTest extends TestWithCore
         );
         l.dispose();
     }
+    /**
+     * Tests asynchronous logging, lazy formatting and alias types.
+     * 
+     * @since 1.0
+     */
+    @Test
+    public void testLogAsync() throws IOException
+    {
+        Logging l = Logging.createInstance(core, "unit-test-"+Math.random()*10000, true, null, 16, Logging.OverflowPolicy.Block);
+        assertNotNull(l);
+        assertTrue(l.isAsync());
+        
+        // Per-alias types
+        assertTrue(l.setAliasTypes("quiet=Error"));
+        assertFalse(l.setAliasTypes("malformed"));
+        assertFalse(l.log("quiet", "test message", Logging.EntryType.Info));
+        assertTrue(l.log("quiet", "test message", Logging.EntryType.Error));
+        
+        // Entries should be written, without any dropped, by the time of disposal
+        for(int i = 0; i < 100; i++)
+            assertTrue(l.log("test", Logging.EntryType.Info, "async message %d", i));
+        String path = l.getPath();
+        l.dispose();
+        assertEquals(0, l.getDroppedEntries());
+        assertTrue(Files.fileRead(path).contains("async message 99"));
+    }
 }
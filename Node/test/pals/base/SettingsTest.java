@@ -162,6 +162,23 @@ public class SettingsTest
         assertEquals(12345.6789, s.getDouble("test/double", 0.0), 0.0);
         assertEquals(true, s.getBool("test/bool", false));
         
+        // Test read-only collections cannot be modified
+        assertFalse(s.setString("hello/world", "a"));
+        assertEquals("hello world!", s.getStr("hello/world", null));
+        s.getNode("hello/world").setData("a", SettingsNode.DataType.String);
+        assertEquals("hello world!", s.getStr("hello/world", null));
+        
+        // Load as writable
+        try
+        {
+            s = Settings.loadXml(EXAMPLE_XML, false);
+        }
+        catch(SettingsException ex)
+        {
+            fail("Failed to load settings.");
+            return;
+        }
+        
         // Test replacing node
         assertTrue(s.setString("hello/world", "a"));
         assertEquals("a", s.getStr("hello/world", null));
@@ -0,0 +1,133 @@
+/*
+    The MIT License (MIT)
+
+    Copyright (c) 2014 Marcus Craske <limpygnome@gmail.com>
+
+    Permission is hereby granted, free of charge, to any person obtaining a copy
+    of this software and associated documentation files (the "Software"), to deal
+    in the Software without restriction, including without limitation the rights
+    to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+    copies of the Software, and to permit persons to whom the Software is
+    furnished to do so, subject to the following conditions:
+
+    The above copyright notice and this permission notice shall be included in
+    all copies or substantial portions of the Software.
+
+    THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+    IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+    FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+    AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+    LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+    OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+    THE SOFTWARE.
+    ----------------------------------------------------------------------------
+    Authors:    Marcus Craske           <limpygnome@gmail.com>
+    ----------------------------------------------------------------------------
+*/
+package pals.base;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ * Tests {@link TemplateFragmentCache}.
+ * 
+ * @version 1.0
+ */
+public class TemplateFragmentCacheTest
+{
+    /**
+     * Tests fragments are returned only for the same version, and the
+     * metrics.
+     * 
+     * @since 1.0
+     */
+    @Test
+    public void testVersions()
+    {
+        TemplateFragmentCache cache = new TemplateFragmentCache(100);
+        assertNull(cache.get("a", "1", 1));
+        
+        cache.put(cache.getGeneration(), null, null, "a", "1", 1, "hello");
+        assertEquals("hello", cache.get("a", "1", 1));
+        assertNull(cache.get("a", "1", 2));
+        assertNull(cache.get("a", "2", 1));
+        assertNull(cache.get("b", "1", 1));
+        
+        cache.put(cache.getGeneration(), null, null, "a", "1", 2, "world!");
+        assertEquals("world!", cache.get("a", "1", 2));
+        assertEquals(1, cache.size());
+        assertEquals(6, cache.getWeight());
+        
+        assertEquals(2, cache.getHits());
+        assertEquals(4, cache.getMisses());
+        assertEquals(2.0/6.0, cache.getHitRate(), 0.0001);
+        cache.resetMetrics();
+        assertEquals(0.0, cache.getHitRate(), 0.0);
+    }
+    /**
+     * Tests the least recently used fragments are evicted.
+     * 
+     * @since 1.0
+     */
+    @Test
+    public void testEviction()
+    {
+        TemplateFragmentCache cache = new TemplateFragmentCache(10);
+        cache.put(cache.getGeneration(), null, null, "a", "1", 1, "aaaa");
+        cache.put(cache.getGeneration(), null, null, "a", "2", 1, "bbbb");
+        assertNotNull(cache.get("a", "1", 1));
+        cache.put(cache.getGeneration(), null, null, "a", "3", 1, "cccc");
+        
+        assertNotNull(cache.get("a", "1", 1));
+        assertNull(cache.get("a", "2", 1));
+        assertNotNull(cache.get("a", "3", 1));
+        assertEquals(1, cache.getEvictions());
+        assertEquals(8, cache.getWeight());
+        
+        // Fragments larger than the capacity are not cached
+        cache.put(cache.getGeneration(), null, null, "a", "4", 1, "01234567890");
+        assertNull(cache.get("a", "4", 1));
+        assertEquals(2, cache.size());
+        
+        cache.setCapacity(5);
+        assertEquals(1, cache.size());
+        assertNotNull(cache.get("a", "3", 1));
+    }
+    /**
+     * Tests removing fragments by plugin and template.
+     * 
+     * @since 1.0
+     */
+    @Test
+    public void testRemove()
+    {
+        UUID p1 = UUID.generateVersion4(), p2 = UUID.generateVersion4();
+        TemplateFragmentCache cache = new TemplateFragmentCache(100);
+        cache.put(cache.getGeneration(), p1, null, "a", "1", 1, "a");
+        cache.put(cache.getGeneration(), p2, p1, "b", "1", 1, "b");
+        cache.put(cache.getGeneration(), p2, p2, "c", "1", 1, "c");
+        cache.put(cache.getGeneration(), p2, p2, "c", "2", 1, "c");
+        
+        cache.remove(p1);
+        assertEquals(2, cache.size());
+        assertNotNull(cache.get("c", "1", 1));
+        
+        cache.remove("c");
+        assertEquals(0, cache.size());
+        assertEquals(0, cache.getWeight());
+        
+        cache.put(cache.getGeneration(), p2, p2, "c", "1", 1, "c");
+        cache.clear();
+        assertEquals(0, cache.size());
+        
+        // Fragments rendered before a removal are not added
+        long generation = cache.getGeneration();
+        cache.remove(p1);
+        cache.put(generation, p2, p2, "c", "1", 1, "c");
+        assertNull(cache.get("c", "1", 1));
+        generation = cache.getGeneration();
+        cache.put(generation, p2, p2, "c", "1", 1, "c");
+        assertNotNull(cache.get("c", "1", 1));
+    }
+}
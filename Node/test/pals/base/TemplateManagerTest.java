@@ -92,6 +92,36 @@ public class TemplateManagerTest extends TestWithCore
         tm.remove(TEMPLATE_PATH);
         assertFalse(tm.containsTemplate(TEMPLATE_PATH));
     }
+    /**
+     * Tests precompiling templates, and replacing precompiled templates.
+     * 
+     * @since 1.0
+     */
+    @Test
+    public void testPrecompile()
+    {
+        Plugin p = new PluginTest.TestPlugin(core, UUID.generateVersion4(), null, null, null, null);
+        TemplateManager tm = core.getTemplates();
+        final String TEMPLATE_PATH = "unit-testing/precompile";
+        HashMap<String,Object> hm = new HashMap<>();
+        
+        tm.registerTemplate(p, TEMPLATE_PATH, "first");
+        assertTrue(tm.precompile(p));
+        assertEquals("first", tm.render(null, hm, TEMPLATE_PATH));
+        
+        // Re-registering must replace the cached template
+        tm.registerTemplate(p, TEMPLATE_PATH, "second");
+        assertTrue(tm.precompile(p));
+        assertEquals("second", tm.render(null, hm, TEMPLATE_PATH));
+        
+        // Syntax errors must fail precompilation
+        tm.registerTemplate(p, TEMPLATE_PATH, "<#if x>unclosed");
+        assertFalse(tm.precompile(p));
+        
+        tm.remove(p);
+        assertFalse(tm.containsTemplate(TEMPLATE_PATH));
+        assertTrue(tm.precompile(p));
+    }
     /**
      * Tests clearing and reloading templates.
      * 
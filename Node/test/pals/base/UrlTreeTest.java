@@ -118,4 +118,34 @@ public class UrlTreeTest
         ut.reset();
         assertArrayEquals(new UUID[0], ut.getUUIDs("hello/world"));
     }
+    /**
+     * Tests the order and uniqueness of UUIDs for nested paths, as well as
+     * look-ups after the tree has been modified.
+     * 
+     * @since 1.0
+     */
+    @Test
+    public void testGetUUIDsNested()
+    {
+        Plugin p1 = new PluginTest.TestPlugin(null, UUID.generateVersion4(), null, null, null, null);
+        Plugin p2 = new PluginTest.TestPlugin(null, UUID.generateVersion4(), null, null, null, null);
+        UrlTree ut = new UrlTree();
+        
+        assertEquals(UrlTree.RegisterStatus.Success, ut.add(p1, "a"));
+        assertEquals(UrlTree.RegisterStatus.Success, ut.add(p2, "a/b"));
+        assertEquals(UrlTree.RegisterStatus.Success, ut.add(p1, "a/b/c"));
+        
+        // Deepest first, with each plugin only once
+        assertArrayEquals(new UUID[]{p2.getUUID(), p1.getUUID()}, ut.getUUIDs("a/b/c/d"));
+        assertArrayEquals(new UUID[]{p2.getUUID(), p1.getUUID()}, ut.getUUIDs("/a/b/"));
+        assertArrayEquals(new UUID[]{p1.getUUID()}, ut.getUUIDs(" a/x "));
+        assertArrayEquals(new UUID[0], ut.getUUIDs("/"));
+        assertArrayEquals(new UUID[0], ut.getUUIDs("ab"));
+        
+        // Modifications should be visible to look-ups
+        ut.remove(p2);
+        assertArrayEquals(new UUID[]{p1.getUUID()}, ut.getUUIDs("a/b/c"));
+        ut.remove(p1);
+        assertArrayEquals(new UUID[0], ut.getUUIDs("a/b/c"));
+    }
 }
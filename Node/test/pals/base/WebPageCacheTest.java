@@ -0,0 +1,105 @@
+/*
+    The MIT License (MIT)
+
+    Copyright (c) 2014 Marcus Craske <limpygnome@gmail.com>
+
+    Permission is hereby granted, free of charge, to any person obtaining a copy
+    of this software and associated documentation files (the "Software"), to deal
+    in the Software without restriction, including without limitation the rights
+    to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+    copies of the Software, and to permit persons to whom the Software is
+    furnished to do so, subject to the following conditions:
+
+    The above copyright notice and this permission notice shall be included in
+    all copies or substantial portions of the Software.
+
+    THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+    IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+    FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+    AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+    LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+    OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+    THE SOFTWARE.
+    ----------------------------------------------------------------------------
+    Authors:    Marcus Craske           <limpygnome@gmail.com>
+    ----------------------------------------------------------------------------
+*/
+package pals.base;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+import pals.base.web.RemoteRequest;
+import pals.base.web.RemoteResponse;
+
+/**
+ * Tests {@link WebPageCache}.
+ * 
+ * @version 1.0
+ */
+public class WebPageCacheTest
+{
+    /**
+     * Tests which requests can use the cache.
+     * 
+     * @since 1.0
+     */
+    @Test
+    public void testGetKey()
+    {
+        Plugin p = new PluginTest.TestPlugin(null, UUID.generateVersion4(), null, null, null, null);
+        WebPageCache cache = new WebPageCache();
+        cache.register(p, "/home/", 60);
+        
+        assertEquals("home", cache.getKey(new RemoteRequest(null, "home", "127.0.0.1"), "home"));
+        assertEquals("home", cache.getKey(new RemoteRequest(null, "home/", "127.0.0.1"), "home/"));
+        assertNull(cache.getKey(new RemoteRequest(null, "other", "127.0.0.1"), "other"));
+        
+        // Requests with a session or fields must bypass the cache
+        assertNull(cache.getKey(new RemoteRequest("session", "home", "127.0.0.1"), "home"));
+        RemoteRequest req = new RemoteRequest(null, "home", "127.0.0.1");
+        req.setField("csrf", "token");
+        assertNull(cache.getKey(req, "home"));
+        
+        cache.unregister(p);
+        assertNull(cache.getKey(new RemoteRequest(null, "home", "127.0.0.1"), "home"));
+    }
+    /**
+     * Tests storing and serving pages.
+     * 
+     * @since 1.0
+     */
+    @Test
+    public void testServe()
+    {
+        Plugin p = new PluginTest.TestPlugin(null, UUID.generateVersion4(), null, null, null, null);
+        WebPageCache cache = new WebPageCache();
+        cache.register(p, "home", 60);
+        
+        RemoteResponse response = new RemoteResponse();
+        assertFalse(cache.serve("home", response));
+        assertEquals(1, cache.getMisses());
+        
+        // Only successful pages with data are stored
+        assertFalse(cache.put("home", response));
+        response.setBuffer("page");
+        response.setRedirectUrl("elsewhere");
+        assertFalse(cache.put("home", response));
+        response.setRedirectUrl(null);
+        response.setHeader("X-Test", "1");
+        assertTrue(cache.put("home", response));
+        
+        RemoteResponse served = new RemoteResponse();
+        assertTrue(cache.serve("home", served));
+        assertArrayEquals(response.getBuffer(), served.getBuffer());
+        assertEquals("1", served.getHeaders().get("X-Test"));
+        assertEquals(1, cache.getHits());
+        
+        cache.invalidate();
+        assertFalse(cache.serve("home", new RemoteResponse()));
+        
+        assertTrue(cache.put("home", response));
+        cache.clear();
+        assertEquals(0, cache.size());
+        assertFalse(cache.put("home", response));
+    }
+}
@@ -0,0 +1,108 @@
+/*
+    The MIT License (MIT)
+
+    Copyright (c) 2014 Marcus Craske <limpygnome@gmail.com>
+
+    Permission is hereby granted, free of charge, to any person obtaining a copy
+    of this software and associated documentation files (the "Software"), to deal
+    in the Software without restriction, including without limitation the rights
+    to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+    copies of the Software, and to permit persons to whom the Software is
+    furnished to do so, subject to the following conditions:
+
+    The above copyright notice and this permission notice shall be included in
+    all copies or substantial portions of the Software.
+
+    THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+    IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+    FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+    AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+    LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+    OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+    THE SOFTWARE.
+    ----------------------------------------------------------------------------
+    Authors:    Marcus Craske           <limpygnome@gmail.com>
+    ----------------------------------------------------------------------------
+*/
+package pals.base.assessment;
+
+import java.util.ArrayList;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ * Tests {@link AssessmentCache}.
+ * 
+ * @version 1.0
+ */
+public class AssessmentCacheTest
+{
+    /**
+     * Tests questions are cached as copies sharing data, and invalidated.
+     * 
+     * @since 1.0
+     */
+    @Test
+    public void testQuestion()
+    {
+        AssessmentCache cache = new AssessmentCache();
+        
+        ArrayList<String> data = new ArrayList<>();
+        Question q = new Question(null, "title", "desc", data);
+        long gen = cache.getGeneration();
+        cache.putQuestion(gen, 1, q);
+        cache.putQuestion(gen, 2, new Question(null, "title2", null, null));
+        Question c = cache.getQuestion(1);
+        assertNotNull(c);
+        assertNotSame(q, c);
+        assertSame(data, c.getData());
+        assertEquals("title", c.getTitle());
+        
+        // Copies cannot modify the cached model
+        c.setTitle("changed");
+        assertEquals("title", cache.getQuestion(1).getTitle());
+        
+        cache.invalidateLocal(AssessmentCache.Type.Question, 1);
+        assertNull(cache.getQuestion(1));
+        assertNotNull(cache.getQuestion(2));
+    }
+    /**
+     * Tests criteria are cached and bound to the question requested.
+     * 
+     * @since 1.0
+     */
+    @Test
+    public void testCriteria()
+    {
+        AssessmentCache cache = new AssessmentCache();
+        Question q = new Question(null, "title", null, null);
+        Object data = new Object();
+        cache.putCriteria(cache.getGeneration(), 5, new QuestionCriteria(q, null, "crit", data, 2));
+        
+        QuestionCriteria qc = cache.getCriteria(5, null);
+        assertNotNull(qc);
+        assertSame(data, qc.getData());
+        assertEquals("title", qc.getQuestion().getTitle());
+        Question other = new Question(null, "other", null, null);
+        assertSame(other, cache.getCriteria(5, other).getQuestion());
+        
+        // Criteria without a question are not cached
+        cache.putCriteria(cache.getGeneration(), 6, new QuestionCriteria(null, null, "crit", null, 1));
+        assertNull(cache.getCriteria(6, null));
+        
+        cache.invalidateLocal(AssessmentCache.Type.Criteria, 5);
+        assertNull(cache.getCriteria(5, null));
+    }
+    /**
+     * Tests unpersisted models are never cached.
+     * 
+     * @since 1.0
+     */
+    @Test
+    public void testUnpersisted()
+    {
+        AssessmentCache cache = new AssessmentCache();
+        cache.putQuestion(cache.getGeneration(), -1, new Question());
+        assertEquals(0, cache.size());
+    }
+}
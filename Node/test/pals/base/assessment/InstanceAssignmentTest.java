@@ -30,9 +30,11 @@ import org.joda.time.DateTime;
 import static org.junit.Assert.*;
 import org.junit.Test;
 import pals.TestWithCore;
+import pals.base.UUID;
 import pals.base.auth.User;
 import pals.base.auth.UserGroup;
 import pals.base.database.Connector;
+import pals.base.database.DatabaseException;
 
 /**
  * Tests {@link InstanceAssignment}.
@@ -143,4 +145,215 @@ public class InstanceAssignmentTest extends TestWithCore
         
         conn.disconnect();
     }
+    /**
+     * Tests the counters of pending criteria and marks, maintained by the
+     * database as each criteria is marked, and completing the marking from
+     * the counters.
+     * 
+     * @since 1.0
+     */
+    @Test
+    public void testMarkCounters()
+    {
+        Connector conn = core.createConnector();
+        // Create test data
+        User u = new User("user1", null, null, "user1@user1.com", UserGroup.load(conn, 1));
+        assertEquals(User.PersistStatus_User.Success, u.persist(core, conn));
+        Module m = new Module("test module");
+        assertEquals(Module.PersistStatus.Success, m.persist(conn));
+        Assignment ass = new Assignment(m, "title", 100, false, -1, null, true);
+        assertEquals(Assignment.PersistStatus.Success, ass.persist(conn));
+        InstanceAssignment ia = new InstanceAssignment(u, ass, InstanceAssignment.Status.Active, null, null, 0.0);
+        assertEquals(InstanceAssignment.PersistStatus.Success, ia.persist(conn));
+        TypeQuestion tq = new TypeQuestion(UUID.generateVersion4(), core.getPlugins().getPlugins()[0].getUUID(), "tq aq", "desc");
+        assertEquals(TypeQuestion.PersistStatus.Success, tq.persist(conn));
+        Question q = new Question(tq, "title", "desc", null);
+        assertEquals(Question.PersistStatus.Success, q.persist(conn));
+        TypeCriteria tc = new TypeCriteria(UUID.generateVersion4(), core.getPlugins().getPlugins()[0].getUUID(), "title aq", "desc");
+        assertEquals(TypeCriteria.PersistStatus.Success, tc.persist(conn));
+        QuestionCriteria qc1 = new QuestionCriteria(q, tc, "qc1 title", null, 2);
+        assertEquals(QuestionCriteria.PersistStatus.Success, qc1.persist(conn));
+        QuestionCriteria qc2 = new QuestionCriteria(q, tc, "qc2 title", null, 1);
+        assertEquals(QuestionCriteria.PersistStatus.Success, qc2.persist(conn));
+        AssignmentQuestion aq = new AssignmentQuestion(ass, q, 100, 1, 1);
+        assertEquals(AssignmentQuestion.PersistStatus.Success, aq.persist(conn));
+        InstanceAssignmentQuestion iaq = new InstanceAssignmentQuestion(aq, ia, null, true, 0.0);
+        assertEquals(InstanceAssignmentQuestion.PersistStatus.Success, iaq.persist(conn));
+        
+        // Submit with both criteria awaiting marking
+        ia.setStatus(InstanceAssignment.Status.Submitted);
+        assertEquals(InstanceAssignment.PersistStatus.Success, ia.persist(conn));
+        InstanceAssignmentCriteria iac1 = new InstanceAssignmentCriteria(iaq, qc1, InstanceAssignmentCriteria.Status.AwaitingMarking, 0, null);
+        assertEquals(InstanceAssignmentCriteria.PersistStatus.Success, iac1.persist(conn));
+        InstanceAssignmentCriteria iac2 = new InstanceAssignmentCriteria(iaq, qc2, InstanceAssignmentCriteria.Status.AwaitingMarking, 0, null);
+        assertEquals(InstanceAssignmentCriteria.PersistStatus.Success, iac2.persist(conn));
+        assertEquals(2, getPending(conn, ia));
+        assertFalse(ia.isMarkComputationNeeded(conn));
+        assertFalse(ia.completeMarking(conn));
+        
+        // Mark each criteria
+        iac1.setStatus(InstanceAssignmentCriteria.Status.Marked);
+        iac1.setMark(100);
+        assertEquals(InstanceAssignmentCriteria.PersistStatus.Success, iac1.persist(conn));
+        assertEquals(1, getPending(conn, ia));
+        assertFalse(ia.isMarkComputationNeeded(conn));
+        
+        iac2.setStatus(InstanceAssignmentCriteria.Status.Marked);
+        iac2.setMark(40);
+        assertEquals(InstanceAssignmentCriteria.PersistStatus.Success, iac2.persist(conn));
+        assertEquals(0, getPending(conn, ia));
+        assertTrue(ia.isMarkComputationNeeded(conn));
+        
+        // Complete the marking; only once, with the same mark as computing from the criteria
+        assertTrue(ia.completeMarking(conn));
+        assertEquals(InstanceAssignment.Status.Marked, ia.getStatus());
+        assertEquals(80.0, ia.getMark(), 0.0001);
+        assertFalse(ia.completeMarking(conn));
+        assertFalse(ia.isMarkComputationNeeded(conn));
+        
+        double mark = ia.getMark();
+        assertTrue(ia.computeMark(conn));
+        assertEquals(mark, ia.getMark(), 0.0001);
+        assertEquals(0, getPending(conn, ia));
+        
+        // Dispose test data
+        assertTrue(iac1.delete(conn));
+        assertTrue(iac2.delete(conn));
+        assertTrue(iaq.delete(conn));
+        assertTrue(aq.delete(conn));
+        assertTrue(qc1.delete(conn));
+        assertTrue(qc2.delete(conn));
+        assertTrue(tc.delete(conn));
+        assertTrue(q.delete(conn));
+        assertTrue(tq.delete(conn));
+        
+        assertTrue(ia.delete(conn));
+        assertTrue(ass.delete(conn));
+        assertTrue(m.delete(conn));
+        assertTrue(u.delete(conn));
+        
+        conn.disconnect();
+    }
+    /**
+     * Tests submitting every active instance of an assignment; criteria
+     * should only be created for answered questions, without modifying
+     * criteria awaiting manual marking or marked.
+     * 
+     * @since 1.0
+     */
+    @Test
+    public void testSubmitActive()
+    {
+        Connector conn = core.createConnector();
+        // Create test data
+        User u1 = new User("user1", null, null, "user1@user1.com", UserGroup.load(conn, 1));
+        assertEquals(User.PersistStatus_User.Success, u1.persist(core, conn));
+        User u2 = new User("user2", null, null, "user2@user2.com", UserGroup.load(conn, 1));
+        assertEquals(User.PersistStatus_User.Success, u2.persist(core, conn));
+        Module m = new Module("test module");
+        assertEquals(Module.PersistStatus.Success, m.persist(conn));
+        Assignment ass = new Assignment(m, "title", 100, false, -1, null, true);
+        assertEquals(Assignment.PersistStatus.Success, ass.persist(conn));
+        TypeQuestion tq = new TypeQuestion(UUID.generateVersion4(), core.getPlugins().getPlugins()[0].getUUID(), "tq aq", "desc");
+        assertEquals(TypeQuestion.PersistStatus.Success, tq.persist(conn));
+        Question q = new Question(tq, "title", "desc", null);
+        assertEquals(Question.PersistStatus.Success, q.persist(conn));
+        TypeCriteria tc = new TypeCriteria(UUID.generateVersion4(), core.getPlugins().getPlugins()[0].getUUID(), "title aq", "desc");
+        assertEquals(TypeCriteria.PersistStatus.Success, tc.persist(conn));
+        QuestionCriteria qc1 = new QuestionCriteria(q, tc, "qc1 title", null, 1);
+        assertEquals(QuestionCriteria.PersistStatus.Success, qc1.persist(conn));
+        QuestionCriteria qc2 = new QuestionCriteria(q, tc, "qc2 title", null, 1);
+        assertEquals(QuestionCriteria.PersistStatus.Success, qc2.persist(conn));
+        QuestionCriteria qc3 = new QuestionCriteria(q, tc, "qc3 title", null, 1);
+        assertEquals(QuestionCriteria.PersistStatus.Success, qc3.persist(conn));
+        AssignmentQuestion aq = new AssignmentQuestion(ass, q, 100, 1, 1);
+        assertEquals(AssignmentQuestion.PersistStatus.Success, aq.persist(conn));
+        
+        // -- Active, answered, with criteria marked, awaiting manual marking and being answered
+        InstanceAssignment ia1 = new InstanceAssignment(u1, ass, InstanceAssignment.Status.Active, null, null, 0.0);
+        assertEquals(InstanceAssignment.PersistStatus.Success, ia1.persist(conn));
+        InstanceAssignmentQuestion iaq1 = new InstanceAssignmentQuestion(aq, ia1, null, true, 0.0);
+        assertEquals(InstanceAssignmentQuestion.PersistStatus.Success, iaq1.persist(conn));
+        InstanceAssignmentCriteria iac1 = new InstanceAssignmentCriteria(iaq1, qc1, InstanceAssignmentCriteria.Status.Marked, 100, null);
+        assertEquals(InstanceAssignmentCriteria.PersistStatus.Success, iac1.persist(conn));
+        InstanceAssignmentCriteria iac2 = new InstanceAssignmentCriteria(iaq1, qc2, InstanceAssignmentCriteria.Status.AwaitingManualMarking, 0, null);
+        assertEquals(InstanceAssignmentCriteria.PersistStatus.Success, iac2.persist(conn));
+        InstanceAssignmentCriteria iac3 = new InstanceAssignmentCriteria(iaq1, qc3, InstanceAssignmentCriteria.Status.BeingAnswered, 0, null);
+        assertEquals(InstanceAssignmentCriteria.PersistStatus.Success, iac3.persist(conn));
+        // -- Active, unanswered
+        InstanceAssignment ia2 = new InstanceAssignment(u2, ass, InstanceAssignment.Status.Active, null, null, 0.0);
+        assertEquals(InstanceAssignment.PersistStatus.Success, ia2.persist(conn));
+        InstanceAssignmentQuestion iaq2 = new InstanceAssignmentQuestion(aq, ia2, null, false, 0.0);
+        assertEquals(InstanceAssignmentQuestion.PersistStatus.Success, iaq2.persist(conn));
+        // -- Marked, answered, without criteria
+        InstanceAssignment ia3 = new InstanceAssignment(u1, ass, InstanceAssignment.Status.Marked, null, null, 0.0);
+        assertEquals(InstanceAssignment.PersistStatus.Success, ia3.persist(conn));
+        InstanceAssignmentQuestion iaq3 = new InstanceAssignmentQuestion(aq, ia3, null, true, 0.0);
+        assertEquals(InstanceAssignmentQuestion.PersistStatus.Success, iaq3.persist(conn));
+        
+        // Submit the active instances
+        assertEquals(2, InstanceAssignment.submitActive(conn, ass.getAssID(), InstanceAssignmentCriteria.Status.AwaitingMarking));
+        
+        // Check the status of each instance
+        assertEquals(InstanceAssignment.Status.Submitted, InstanceAssignment.load(conn, ass, u1, ia1.getAIID()).getStatus());
+        assertEquals(InstanceAssignment.Status.Submitted, InstanceAssignment.load(conn, ass, u2, ia2.getAIID()).getStatus());
+        assertEquals(InstanceAssignment.Status.Marked, InstanceAssignment.load(conn, ass, u1, ia3.getAIID()).getStatus());
+        
+        // Check the criteria marked and awaiting manual marking are preserved, and the criteria being answered is replaced
+        InstanceAssignmentCriteria iac;
+        iac = InstanceAssignmentCriteria.load(core, conn, iaq1, qc1);
+        assertNotNull(iac);
+        assertEquals(InstanceAssignmentCriteria.Status.Marked, iac.getStatus());
+        assertEquals(100, iac.getMark());
+        iac = InstanceAssignmentCriteria.load(core, conn, iaq1, qc2);
+        assertNotNull(iac);
+        assertEquals(InstanceAssignmentCriteria.Status.AwaitingManualMarking, iac.getStatus());
+        iac = InstanceAssignmentCriteria.load(core, conn, iaq1, qc3);
+        assertNotNull(iac);
+        assertEquals(InstanceAssignmentCriteria.Status.AwaitingMarking, iac.getStatus());
+        assertEquals(3, InstanceAssignmentCriteria.loadAll(core, conn, iaq1).length);
+        
+        // Check criteria are only created for the answered questions of the submitted instances
+        assertEquals(0, InstanceAssignmentCriteria.loadAll(core, conn, iaq2).length);
+        assertEquals(0, InstanceAssignmentCriteria.loadAll(core, conn, iaq3).length);
+        
+        // Check no instances remain to be submitted
+        assertEquals(0, InstanceAssignment.submitActive(conn, ass.getAssID(), InstanceAssignmentCriteria.Status.AwaitingMarking));
+        
+        // Dispose test data
+        for(InstanceAssignmentCriteria c : InstanceAssignmentCriteria.loadAll(core, conn, iaq1))
+            assertTrue(c.delete(conn));
+        assertTrue(iaq1.delete(conn));
+        assertTrue(iaq2.delete(conn));
+        assertTrue(iaq3.delete(conn));
+        assertTrue(aq.delete(conn));
+        assertTrue(qc1.delete(conn));
+        assertTrue(qc2.delete(conn));
+        assertTrue(qc3.delete(conn));
+        assertTrue(tc.delete(conn));
+        assertTrue(q.delete(conn));
+        assertTrue(tq.delete(conn));
+        
+        assertTrue(ia1.delete(conn));
+        assertTrue(ia2.delete(conn));
+        assertTrue(ia3.delete(conn));
+        assertTrue(ass.delete(conn));
+        assertTrue(m.delete(conn));
+        assertTrue(u1.delete(conn));
+        assertTrue(u2.delete(conn));
+        
+        conn.disconnect();
+    }
+    private static int getPending(Connector conn, InstanceAssignment ia)
+    {
+        try
+        {
+            return (int)conn.executeScalar("SELECT pending FROM pals_assignment_instance WHERE aiid=?;", ia.getAIID());
+        }
+        catch(DatabaseException ex)
+        {
+            fail(ex.getMessage());
+            return -1;
+        }
+    }
 }
@@ -0,0 +1,76 @@
+/*
+    The MIT License (MIT)
+
+    Copyright (c) 2014 Marcus Craske <limpygnome@gmail.com>
+
+    Permission is hereby granted, free of charge, to any person obtaining a copy
+    of this software and associated documentation files (the "Software"), to deal
+    in the Software without restriction, including without limitation the rights
+    to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+    copies of the Software, and to permit persons to whom the Software is
+    furnished to do so, subject to the following conditions:
+
+    The above copyright notice and this permission notice shall be included in
+    all copies or substantial portions of the Software.
+
+    THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+    IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+    FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+    AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+    LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+    OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+    THE SOFTWARE.
+    ----------------------------------------------------------------------------
+    Authors:    Marcus Craske           <limpygnome@gmail.com>
+    ----------------------------------------------------------------------------
+*/
+package pals.base.assessment;
+
+import java.io.IOException;
+import static org.junit.Assert.*;
+import org.junit.Test;
+import pals.base.utils.Misc;
+
+/**
+ * Tests {@link LazyData}.
+ * 
+ * @version 1.0
+ */
+public class LazyDataTest
+{
+    /**
+     * Tests data is only deserialized once, when first retrieved.
+     * 
+     * @since 1.0
+     */
+    @Test
+    public void testGet() throws IOException
+    {
+        byte[] bytes = Misc.bytesSerialize("data");
+        LazyData ld = new LazyData(null, bytes);
+        assertFalse(ld.isLoaded());
+        assertSame(bytes, ld.getBytes());
+        
+        Object data = ld.get();
+        assertEquals("data", data);
+        assertTrue(ld.isLoaded());
+        assertSame(data, ld.get());
+        
+        // Null data
+        ld = new LazyData(null, null);
+        assertNull(ld.get());
+        assertTrue(ld.isLoaded());
+    }
+    /**
+     * Tests absent data is never loaded.
+     * 
+     * @since 1.0
+     */
+    @Test
+    public void testAbsent()
+    {
+        assertNull(LazyData.ABSENT.get());
+        assertFalse(LazyData.ABSENT.isLoaded());
+        assertNull(LazyData.ABSENT.getBytes());
+    }
+}
@@ -0,0 +1,141 @@
+/*
+    The MIT License (MIT)
+
+    Copyright (c) 2014 Marcus Craske <limpygnome@gmail.com>
+
+    Permission is hereby granted, free of charge, to any person obtaining a copy
+    of this software and associated documentation files (the "Software"), to deal
+    in the Software without restriction, including without limitation the rights
+    to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+    copies of the Software, and to permit persons to whom the Software is
+    furnished to do so, subject to the following conditions:
+
+    The above copyright notice and this permission notice shall be included in
+    all copies or substantial portions of the Software.
+
+    THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+    IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+    FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+    AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+    LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+    OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+    THE SOFTWARE.
+    ----------------------------------------------------------------------------
+    Authors:    Marcus Craske           <limpygnome@gmail.com>
+    ----------------------------------------------------------------------------
+*/
+package pals.base.assessment;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+import pals.TestWithCore;
+import pals.base.UUID;
+import pals.base.auth.User;
+import pals.base.auth.UserGroup;
+import pals.base.database.Connector;
+
+/**
+ * Tests {@link MarkRecomputeJob}.
+ * 
+ * @version 1.0
+ */
+public class MarkRecomputeJobTest extends TestWithCore
+{
+    /**
+     * Tests recomputing the marks of an assignment, and of a question, after
+     * the weight of a criteria has changed; the marks must be the same as
+     * computing them for the instance.
+     * 
+     * @since 1.0
+     */
+    @Test
+    public void testRecompute()
+    {
+        Connector conn = core.createConnector();
+        // Create test data
+        User u = new User("user1", null, null, "user1@user1.com", UserGroup.load(conn, 1));
+        assertEquals(User.PersistStatus_User.Success, u.persist(core, conn));
+        Module m = new Module("test module");
+        assertEquals(Module.PersistStatus.Success, m.persist(conn));
+        Assignment ass = new Assignment(m, "title", 100, false, -1, null, true);
+        assertEquals(Assignment.PersistStatus.Success, ass.persist(conn));
+        InstanceAssignment ia = new InstanceAssignment(u, ass, InstanceAssignment.Status.Submitted, null, null, 0.0);
+        assertEquals(InstanceAssignment.PersistStatus.Success, ia.persist(conn));
+        TypeQuestion tq = new TypeQuestion(UUID.generateVersion4(), core.getPlugins().getPlugins()[0].getUUID(), "tq aq", "desc");
+        assertEquals(TypeQuestion.PersistStatus.Success, tq.persist(conn));
+        Question q = new Question(tq, "title", "desc", null);
+        assertEquals(Question.PersistStatus.Success, q.persist(conn));
+        TypeCriteria tc = new TypeCriteria(UUID.generateVersion4(), core.getPlugins().getPlugins()[0].getUUID(), "title aq", "desc");
+        assertEquals(TypeCriteria.PersistStatus.Success, tc.persist(conn));
+        QuestionCriteria qc1 = new QuestionCriteria(q, tc, "qc1 title", null, 2);
+        assertEquals(QuestionCriteria.PersistStatus.Success, qc1.persist(conn));
+        QuestionCriteria qc2 = new QuestionCriteria(q, tc, "qc2 title", null, 1);
+        assertEquals(QuestionCriteria.PersistStatus.Success, qc2.persist(conn));
+        AssignmentQuestion aq = new AssignmentQuestion(ass, q, 100, 1, 1);
+        assertEquals(AssignmentQuestion.PersistStatus.Success, aq.persist(conn));
+        InstanceAssignmentQuestion iaq = new InstanceAssignmentQuestion(aq, ia, null, true, 0.0);
+        assertEquals(InstanceAssignmentQuestion.PersistStatus.Success, iaq.persist(conn));
+        InstanceAssignmentCriteria iac1 = new InstanceAssignmentCriteria(iaq, qc1, InstanceAssignmentCriteria.Status.Marked, 100, null);
+        assertEquals(InstanceAssignmentCriteria.PersistStatus.Success, iac1.persist(conn));
+        InstanceAssignmentCriteria iac2 = new InstanceAssignmentCriteria(iaq, qc2, InstanceAssignmentCriteria.Status.Marked, 40, null);
+        assertEquals(InstanceAssignmentCriteria.PersistStatus.Success, iac2.persist(conn));
+        assertTrue(ia.completeMarking(conn));
+        assertEquals(80.0, ia.getMark(), 0.0001);
+        
+        // Nothing to change whilst the counters are current
+        MarkRecomputeJob job = new MarkRecomputeJob(core, 1, ass);
+        job.run();
+        assertEquals(MarkRecomputeJob.Status.Finished, job.getStatus());
+        assertEquals(1, job.getTotal());
+        assertEquals(1, job.getProcessed());
+        assertEquals(0, job.getRowsChanged());
+        
+        // Change the weight of a criteria; the question and instance are recomputed
+        qc2.setWeight(3);
+        assertEquals(QuestionCriteria.PersistStatus.Success, qc2.persist(conn));
+        job = new MarkRecomputeJob(core, 2, ass);
+        job.run();
+        assertEquals(MarkRecomputeJob.Status.Finished, job.getStatus());
+        assertEquals(100, job.getProgress());
+        assertEquals(2, job.getRowsChanged());
+        
+        ia = InstanceAssignment.load(conn, ass, u, ia.getAIID());
+        assertNotNull(ia);
+        assertEquals(64.0, ia.getMark(), 0.0001);
+        double mark = ia.getMark();
+        assertTrue(ia.computeMark(conn));
+        assertEquals(mark, ia.getMark(), 0.0001);
+        
+        // Change the weight back, recomputing by question
+        qc2.setWeight(1);
+        assertEquals(QuestionCriteria.PersistStatus.Success, qc2.persist(conn));
+        job = new MarkRecomputeJob(core, 3, q);
+        job.run();
+        assertEquals(MarkRecomputeJob.Status.Finished, job.getStatus());
+        assertEquals(1, job.getTotal());
+        assertEquals(2, job.getRowsChanged());
+        
+        ia = InstanceAssignment.load(conn, ass, u, ia.getAIID());
+        assertEquals(80.0, ia.getMark(), 0.0001);
+        assertTrue(ia.computeMark(conn));
+        assertEquals(80.0, ia.getMark(), 0.0001);
+        
+        // Dispose test data
+        assertTrue(iac1.delete(conn));
+        assertTrue(iac2.delete(conn));
+        assertTrue(iaq.delete(conn));
+        assertTrue(aq.delete(conn));
+        assertTrue(qc1.delete(conn));
+        assertTrue(qc2.delete(conn));
+        assertTrue(tc.delete(conn));
+        assertTrue(q.delete(conn));
+        assertTrue(tq.delete(conn));
+        
+        assertTrue(ia.delete(conn));
+        assertTrue(ass.delete(conn));
+        assertTrue(m.delete(conn));
+        assertTrue(u.delete(conn));
+        
+        conn.disconnect();
+    }
+}
@@ -0,0 +1,84 @@
+/*
+    The MIT License (MIT)
+
+    Copyright (c) 2014 Marcus Craske <limpygnome@gmail.com>
+
+    Permission is hereby granted, free of charge, to any person obtaining a copy
+    of this software and associated documentation files (the "Software"), to deal
+    in the Software without restriction, including without limitation the rights
+    to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+    copies of the Software, and to permit persons to whom the Software is
+    furnished to do so, subject to the following conditions:
+
+    The above copyright notice and this permission notice shall be included in
+    all copies or substantial portions of the Software.
+
+    THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+    IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+    FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+    AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+    LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+    OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+    THE SOFTWARE.
+    ----------------------------------------------------------------------------
+    Authors:    Marcus Craske           <limpygnome@gmail.com>
+    ----------------------------------------------------------------------------
+*/
+package pals.base.auth;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ * Tests {@link AuthCache}.
+ * 
+ * @version 1.0
+ */
+public class AuthCacheTest
+{
+    /**
+     * Tests enrollments are cached and invalidated by user and in whole.
+     * 
+     * @since 1.0
+     */
+    @Test
+    public void testEnrollment()
+    {
+        AuthCache cache = new AuthCache();
+        long gen = cache.getGeneration();
+        cache.putEnrollment(gen, 1, new HashSet<>(Arrays.asList(10, 11)));
+        cache.putEnrollment(gen, 2, new HashSet<Integer>());
+        cache.putEnrollment(gen, 3, new HashSet<Integer>());
+        Set<Integer> s = cache.getEnrollment(1);
+        assertNotNull(s);
+        assertTrue(s.contains(10));
+        assertFalse(s.contains(12));
+        
+        cache.invalidateLocal(AuthCache.Type.Enrollment, 1);
+        assertNull(cache.getEnrollment(1));
+        assertNotNull(cache.getEnrollment(2));
+        
+        // Invalidating a user includes their enrollments
+        cache.invalidateLocal(AuthCache.Type.User, 2);
+        assertNull(cache.getEnrollment(2));
+        assertNotNull(cache.getEnrollment(3));
+        
+        cache.invalidateLocal(AuthCache.Type.EnrollmentAll);
+        assertNull(cache.getEnrollment(3));
+    }
+    /**
+     * Tests unpersisted users are never cached.
+     * 
+     * @since 1.0
+     */
+    @Test
+    public void testUser()
+    {
+        AuthCache cache = new AuthCache();
+        cache.putUser(cache.getGeneration(), new User("test", null, null, null, null));
+        assertEquals(0, cache.size());
+    }
+}
@@ -0,0 +1,193 @@
+/*
+    The MIT License (MIT)
+
+    Copyright (c) 2014 Marcus Craske <limpygnome@gmail.com>
+
+    Permission is hereby granted, free of charge, to any person obtaining a copy
+    of this software and associated documentation files (the "Software"), to deal
+    in the Software without restriction, including without limitation the rights
+    to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+    copies of the Software, and to permit persons to whom the Software is
+    furnished to do so, subject to the following conditions:
+
+    The above copyright notice and this permission notice shall be included in
+    all copies or substantial portions of the Software.
+
+    THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+    IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+    FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+    AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+    LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+    OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+    THE SOFTWARE.
+    ----------------------------------------------------------------------------
+    Authors:    Marcus Craske           <limpygnome@gmail.com>
+    ----------------------------------------------------------------------------
+*/
+package pals.base.utils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.Arrays;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ * Tests {@link DataCodecs}.
+ * 
+ * @version 1.0
+ */
+public class DataCodecsTest
+{
+    /**
+     * Tests serializing an object with a registered codec, as well as reading
+     * data previously written with Java serialization.
+     * 
+     * @since 1.0
+     */
+    @Test
+    public void testSerialize() throws IOException, ClassNotFoundException
+    {
+        TestData td = new TestData("text", new String[]{"a", null, "c"}, 5);
+        
+        // Written with Java serialization, before the codec exists
+        byte[] legacy = Misc.bytesSerialize(td);
+        assertFalse(DataCodecs.isEncoded(legacy));
+        
+        TestCodec codec = new TestCodec();
+        DataCodecs.register(codec);
+        try
+        {
+            byte[] data = Misc.bytesSerialize(td);
+            assertTrue(DataCodecs.isEncoded(data));
+            assertTrue(data.length < legacy.length);
+            assertEquals(td, Misc.bytesDeserialize(data));
+            
+            // Legacy data is still read
+            assertEquals(td, Misc.bytesDeserialize(legacy));
+            
+            // Other classes are still written with Java serialization
+            assertFalse(DataCodecs.isEncoded(Misc.bytesSerialize("test")));
+            assertFalse(DataCodecs.isEncoded(Misc.bytesSerialize(null)));
+        }
+        finally
+        {
+            DataCodecs.unregister(codec);
+        }
+    }
+    /**
+     * Tests reading data, written by a codec, once the codec has been
+     * unregistered.
+     * 
+     * @since 1.0
+     */
+    @Test(expected = ClassNotFoundException.class)
+    public void testUnregistered() throws IOException, ClassNotFoundException
+    {
+        TestCodec codec = new TestCodec();
+        DataCodecs.register(codec);
+        byte[] data = Misc.bytesSerialize(new TestData("text", null, 1));
+        DataCodecs.unregister(codec);
+        
+        Misc.bytesDeserialize(data);
+    }
+    /**
+     * Tests the helpers for variable-length integers and strings, including
+     * strings too long for {@link DataOutputStream#writeUTF(java.lang.String)}.
+     * 
+     * @since 1.0
+     */
+    @Test
+    public void testHelpers() throws IOException
+    {
+        char[] chars = new char[100000];
+        Arrays.fill(chars, 'é');
+        String longString = new String(chars);
+        
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        DataOutputStream dos = new DataOutputStream(baos);
+        DataCodecs.writeVarInt(dos, 0);
+        DataCodecs.writeVarInt(dos, 127);
+        DataCodecs.writeVarInt(dos, 128);
+        DataCodecs.writeVarInt(dos, Integer.MAX_VALUE);
+        DataCodecs.writeString(dos, null);
+        DataCodecs.writeString(dos, "");
+        DataCodecs.writeString(dos, longString);
+        DataCodecs.writeStrings(dos, null);
+        dos.flush();
+        
+        DataInputStream dis = new DataInputStream(new ByteArrayInputStream(baos.toByteArray()));
+        assertEquals(0, DataCodecs.readVarInt(dis));
+        assertEquals(127, DataCodecs.readVarInt(dis));
+        assertEquals(128, DataCodecs.readVarInt(dis));
+        assertEquals(Integer.MAX_VALUE, DataCodecs.readVarInt(dis));
+        assertNull(DataCodecs.readString(dis));
+        assertEquals("", DataCodecs.readString(dis));
+        assertEquals(longString, DataCodecs.readString(dis));
+        assertNull(DataCodecs.readStrings(dis));
+        assertEquals(0, dis.available());
+    }
+    
+    private static class TestData implements Serializable
+    {
+        static final long serialVersionUID = 1L;
+        
+        private final String    text;
+        private final String[]  values;
+        private final int       number;
+        
+        public TestData(String text, String[] values, int number)
+        {
+            this.text = text;
+            this.values = values;
+            this.number = number;
+        }
+        @Override
+        public boolean equals(Object o)
+        {
+            if(!(o instanceof TestData))
+                return false;
+            TestData td = (TestData)o;
+            return (text == null ? td.text == null : text.equals(td.text)) && Arrays.equals(values, td.values) && number == td.number;
+        }
+        @Override
+        public int hashCode()
+        {
+            return number;
+        }
+    }
+    private static class TestCodec implements DataCodec<TestData>
+    {
+        @Override
+        public String getName()
+        {
+            return "test.data";
+        }
+        @Override
+        public Class<TestData> getType()
+        {
+            return TestData.class;
+        }
+        @Override
+        public int getVersion()
+        {
+            return 1;
+        }
+        @Override
+        public void write(TestData obj, DataOutputStream dos) throws IOException
+        {
+            DataCodecs.writeString(dos, obj.text);
+            DataCodecs.writeStrings(dos, obj.values);
+            DataCodecs.writeVarInt(dos, obj.number);
+        }
+        @Override
+        public TestData read(int version, DataInputStream dis) throws IOException
+        {
+            return new TestData(DataCodecs.readString(dis), DataCodecs.readStrings(dis), DataCodecs.readVarInt(dis));
+        }
+    }
+}
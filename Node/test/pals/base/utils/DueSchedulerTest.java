@@ -0,0 +1,159 @@
+/*
+    The MIT License (MIT)
+
+    Copyright (c) 2014 Marcus Craske <limpygnome@gmail.com>
+
+    Permission is hereby granted, free of charge, to any person obtaining a copy
+    of this software and associated documentation files (the "Software"), to deal
+    in the Software without restriction, including without limitation the rights
+    to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+    copies of the Software, and to permit persons to whom the Software is
+    furnished to do so, subject to the following conditions:
+
+    The above copyright notice and this permission notice shall be included in
+    all copies or substantial portions of the Software.
+
+    THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+    IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+    FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+    AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+    LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+    OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+    THE SOFTWARE.
+    ----------------------------------------------------------------------------
+    Authors:    Marcus Craske           <limpygnome@gmail.com>
+    ----------------------------------------------------------------------------
+*/
+package pals.base.utils;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ * Tests {@link DueScheduler}.
+ * 
+ * @version 1.0
+ */
+public class DueSchedulerTest
+{
+    private static final long NOW = 1000000;    // The time of construction; tick 1000 of the wheels below.
+    /**
+     * Tests due-dates are rounded-up to a tick, thus never fire early.
+     * 
+     * @since 1.0
+     */
+    @Test
+    public void testRoundUp()
+    {
+        DueScheduler ds = new DueScheduler(1000, 8, NOW);
+        ds.schedule(1, NOW+1500);
+        assertEquals(0, ds.poll(NOW+1999).length);
+        assertArrayEquals(new int[]{1}, ds.poll(NOW+2000));
+        
+        // Exactly on a tick
+        ds.schedule(2, NOW+3000);
+        assertEquals(0, ds.poll(NOW+2999).length);
+        assertArrayEquals(new int[]{2}, ds.poll(NOW+3000));
+        assertEquals(0, ds.size());
+    }
+    /**
+     * Tests due-dates already surpassed fire at the next tick.
+     * 
+     * @since 1.0
+     */
+    @Test
+    public void testOverdue()
+    {
+        DueScheduler ds = new DueScheduler(1000, 8, NOW);
+        ds.schedule(1, NOW-5000);
+        assertEquals(0, ds.poll(NOW+999).length);
+        assertArrayEquals(new int[]{1}, ds.poll(NOW+1000));
+    }
+    /**
+     * Tests due-dates beyond a revolution of the wheel only fire in their
+     * round, including when a poll skips more than a revolution.
+     * 
+     * @since 1.0
+     */
+    @Test
+    public void testRevolution()
+    {
+        DueScheduler ds = new DueScheduler(1000, 8, NOW);
+        // Same slot as tick 1002
+        ds.schedule(1, NOW+10000);
+        assertEquals(0, ds.poll(NOW+2000).length);
+        assertEquals(0, ds.poll(NOW+9999).length);
+        assertEquals(1, ds.size());
+        assertArrayEquals(new int[]{1}, ds.poll(NOW+10000));
+        
+        // Skip many revolutions in one poll
+        ds.schedule(2, NOW+20000);
+        ds.schedule(3, NOW+90000);
+        assertArrayEquals(new int[]{2}, ds.poll(NOW+50000));
+        assertEquals(1, ds.size());
+        assertArrayEquals(new int[]{3}, ds.poll(NOW+90000));
+        assertEquals(0, ds.size());
+    }
+    /**
+     * Tests cancelling and replacing due-dates.
+     * 
+     * @since 1.0
+     */
+    @Test
+    public void testCancel()
+    {
+        DueScheduler ds = new DueScheduler(1000, 8, NOW);
+        assertFalse(ds.cancel(1));
+        
+        // Replace
+        ds.schedule(1, NOW+2000);
+        ds.schedule(1, NOW+5000);
+        assertEquals(1, ds.size());
+        assertEquals(0, ds.poll(NOW+2000).length);
+        assertArrayEquals(new int[]{1}, ds.poll(NOW+5000));
+        
+        // Cancel
+        ds.schedule(2, NOW+6000);
+        assertTrue(ds.cancel(2));
+        assertFalse(ds.cancel(2));
+        assertEquals(0, ds.poll(NOW+6000).length);
+        
+        // Clear
+        ds.schedule(3, NOW+7000);
+        ds.schedule(4, NOW+8000);
+        ds.clear();
+        assertEquals(0, ds.size());
+        assertEquals(0, ds.poll(NOW+8000).length);
+    }
+    /**
+     * Tests the delay until the next due-date.
+     * 
+     * @since 1.0
+     */
+    @Test
+    public void testGetDelay()
+    {
+        DueScheduler ds = new DueScheduler(1000, 8, NOW);
+        assertEquals(60000, ds.getDelay(NOW, 60000));
+        
+        // Earliest due-date, capped by the maximum
+        ds.schedule(1, NOW+2500);
+        ds.schedule(2, NOW+20000);
+        assertEquals(3000, ds.getDelay(NOW, 60000));
+        assertEquals(1000, ds.getDelay(NOW, 1000));
+        ds.schedule(3, NOW-5000);
+        assertEquals(204, ds.getDelay(NOW+796, 60000));
+        
+        // Fire the earlier due-dates
+        assertArrayEquals(new int[]{3}, ds.poll(NOW+1000));
+        assertEquals(0, ds.poll(NOW+2000).length);
+        assertArrayEquals(new int[]{1}, ds.poll(NOW+3000));
+        
+        // Nothing this revolution; wake at the end of it
+        assertEquals(7604, ds.getDelay(NOW+3396, 60000));
+        assertEquals(0, ds.poll(NOW+11000).length);
+        assertEquals(8000, ds.getDelay(NOW+11000, 60000));
+        assertArrayEquals(new int[]{2}, ds.poll(NOW+20000));
+        assertEquals(0, ds.size());
+    }
+}
@@ -0,0 +1,153 @@
+/*
+    The MIT License (MIT)
+
+    Copyright (c) 2014 Marcus Craske <limpygnome@gmail.com>
+
+    Permission is hereby granted, free of charge, to any person obtaining a copy
+    of this software and associated documentation files (the "Software"), to deal
+    in the Software without restriction, including without limitation the rights
+    to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+    copies of the Software, and to permit persons to whom the Software is
+    furnished to do so, subject to the following conditions:
+
+    The above copyright notice and this permission notice shall be included in
+    all copies or substantial portions of the Software.
+
+    THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+    IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+    FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+    AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+    LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+    OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+    THE SOFTWARE.
+    ----------------------------------------------------------------------------
+    Authors:    Marcus Craske           <limpygnome@gmail.com>
+    ----------------------------------------------------------------------------
+*/
+package pals.base.utils;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ * Tests {@link GenerationalCache}.
+ * 
+ * @version 1.0
+ */
+public class GenerationalCacheTest
+{
+    /**
+     * A cache with a bounded and an unbounded table.
+     */
+    private static class TestCache extends GenerationalCache<TestCache.Type>
+    {
+        enum Type
+        {
+            Item,
+            All
+        }
+        final LinkedHashMap<Integer,String> items = createBounded();
+        final HashMap<Integer,String>       few = createUnbounded();
+        TestCache(int capacity)
+        {
+            super("test.invalidate", Type.class, capacity);
+        }
+        String getItem(int id)
+        {
+            return get(items, id);
+        }
+        boolean putItem(long generation, int id, String item)
+        {
+            return put(generation, items, id, item);
+        }
+        @Override
+        protected void invalidateTables(Type type, int[] ids)
+        {
+            switch(type)
+            {
+                case Item:
+                    for(int id : ids)
+                        items.remove(id);
+                    break;
+                case All:
+                    items.clear();
+                    few.clear();
+                    break;
+            }
+        }
+    }
+    /**
+     * Tests entries are cached, counted and the least recently used are
+     * evicted.
+     * 
+     * @since 1.0
+     */
+    @Test
+    public void testPutGet()
+    {
+        TestCache cache = new TestCache(2);
+        assertNull(cache.getItem(1));
+        
+        long gen = cache.getGeneration();
+        assertTrue(cache.putItem(gen, 1, "a"));
+        assertTrue(cache.putItem(gen, 2, "b"));
+        assertEquals("a", cache.getItem(1));
+        
+        // Least recently used is evicted
+        cache.putItem(gen, 3, "c");
+        assertNull(cache.getItem(2));
+        assertEquals("a", cache.getItem(1));
+        assertEquals("c", cache.getItem(3));
+        assertEquals(3, cache.getHits());
+        assertEquals(2, cache.getMisses());
+        
+        // Unbounded tables are not evicted
+        for(int i = 0; i < 5; i++)
+            cache.put(gen, cache.few, i, "x");
+        assertEquals(5, cache.few.size());
+        
+        // Reducing the capacity evicts; zero disables the cache
+        cache.setCapacity(1);
+        assertEquals(1, cache.items.size());
+        assertEquals("c", cache.getItem(3));
+        cache.setCapacity(0);
+        assertEquals(0, cache.items.size());
+        assertEquals(0, cache.few.size());
+        assertFalse(cache.putItem(cache.getGeneration(), 4, "d"));
+        assertNull(cache.getItem(4));
+    }
+    /**
+     * Tests data loaded before an invalidation is not added, and events from
+     * other nodes.
+     * 
+     * @since 1.0
+     */
+    @Test
+    public void testGeneration()
+    {
+        TestCache cache = new TestCache(10);
+        cache.putItem(cache.getGeneration(), 1, "a");
+        cache.putItem(cache.getGeneration(), 2, "b");
+        
+        long gen = cache.getGeneration();
+        cache.invalidateLocal(TestCache.Type.Item, 1);
+        assertNull(cache.getItem(1));
+        assertEquals("b", cache.getItem(2));
+        assertFalse(cache.putItem(gen, 1, "a"));
+        assertNull(cache.getItem(1));
+        assertTrue(cache.putItem(cache.getGeneration(), 1, "a"));
+        
+        // Events from other nodes
+        gen = cache.getGeneration();
+        assertFalse(cache.handleEvent(null));
+        assertFalse(cache.handleEvent(new Object[]{"invalid"}));
+        assertFalse(cache.handleEvent(new Object[]{Thread.State.NEW, new int[0]}));
+        assertEquals(gen, cache.getGeneration());
+        assertTrue(cache.handleEvent(new Object[]{TestCache.Type.All, new int[0]}));
+        assertNull(cache.getItem(1));
+        assertNull(cache.getItem(2));
+        assertFalse(cache.putItem(gen, 1, "a"));
+    }
+}
@@ -0,0 +1,131 @@
+/*
+    The MIT License (MIT)
+
+    Copyright (c) 2014 Marcus Craske <limpygnome@gmail.com>
+
+    Permission is hereby granted, free of charge, to any person obtaining a copy
+    of this software and associated documentation files (the "Software"), to deal
+    in the Software without restriction, including without limitation the rights
+    to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+    copies of the Software, and to permit persons to whom the Software is
+    furnished to do so, subject to the following conditions:
+
+    The above copyright notice and this permission notice shall be included in
+    all copies or substantial portions of the Software.
+
+    THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+    IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+    FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+    AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+    LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+    OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+    THE SOFTWARE.
+    ----------------------------------------------------------------------------
+    Authors:    Marcus Craske           <limpygnome@gmail.com>
+    ----------------------------------------------------------------------------
+*/
+package pals.base.utils;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ * Tests {@link JobRegistry}.
+ * 
+ * @version 1.0
+ */
+public class JobRegistryTest
+{
+    private static class TestJob extends ExtendedThread implements JobRegistry.Job
+    {
+        private final int jobid;
+        private volatile long ended;
+        public TestJob(int jobid)
+        {
+            this.jobid = jobid;
+            this.ended = 0;
+        }
+        @Override
+        public void run()
+        {
+            while(!extended_isStopped())
+            {
+                try
+                {
+                    Thread.sleep(10);
+                }
+                catch(InterruptedException ex)
+                {
+                }
+            }
+            ended = System.currentTimeMillis();
+        }
+        @Override
+        public int getJobID()
+        {
+            return jobid;
+        }
+        @Override
+        public boolean isEnded()
+        {
+            return ended != 0;
+        }
+        @Override
+        public long getEnded()
+        {
+            return ended;
+        }
+    }
+    /**
+     * Tests jobs are started, retrievable by identifier and stopped.
+     * 
+     * @since 1.0
+     */
+    @Test
+    public void testStartGetStop()
+    {
+        JobRegistry<TestJob> jobs = new JobRegistry<>();
+        int a = jobs.nextID(), b = jobs.nextID();
+        assertNotEquals(a, b);
+        
+        TestJob ja = jobs.start(new TestJob(a), 60000);
+        TestJob jb = jobs.start(new TestJob(b), 60000);
+        assertTrue(ja.isAlive());
+        assertSame(ja, jobs.get(a));
+        assertSame(jb, jobs.get(b));
+        assertNull(jobs.get(b+1));
+        assertEquals(2, jobs.size());
+        
+        jobs.stopAll();
+        assertFalse(ja.isAlive());
+        assertFalse(jb.isAlive());
+        assertTrue(ja.isEnded());
+        assertEquals(0, jobs.size());
+    }
+    /**
+     * Tests only ended jobs older than the expiry are discarded.
+     * 
+     * @since 1.0
+     */
+    @Test
+    public void testPrune() throws InterruptedException
+    {
+        JobRegistry<TestJob> jobs = new JobRegistry<>();
+        TestJob ended = jobs.start(new TestJob(jobs.nextID()), 0);
+        TestJob running = jobs.start(new TestJob(jobs.nextID()), 0);
+        ended.extended_stop();
+        ended.join();
+        Thread.sleep(5);
+        
+        // Retained within the expiry
+        jobs.prune(60000);
+        assertEquals(2, jobs.size());
+        
+        // Only the ended job is discarded
+        jobs.prune(0);
+        assertNull(jobs.get(ended.getJobID()));
+        assertSame(running, jobs.get(running.getJobID()));
+        
+        jobs.stopAll();
+    }
+}
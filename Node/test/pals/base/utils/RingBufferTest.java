@@ -0,0 +1,108 @@
+/*
+    The MIT License (MIT)
+
+    Copyright (c) 2014 Marcus Craske <limpygnome@gmail.com>
+
+    Permission is hereby granted, free of charge, to any person obtaining a copy
+    of this software and associated documentation files (the "Software"), to deal
+    in the Software without restriction, including without limitation the rights
+    to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+    copies of the Software, and to permit persons to whom the Software is
+    furnished to do so, subject to the following conditions:
+
+    The above copyright notice and this permission notice shall be included in
+    all copies or substantial portions of the Software.
+
+    THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+    IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+    FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+    AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+    LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+    OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+    THE SOFTWARE.
+    ----------------------------------------------------------------------------
+    Authors:    Marcus Craske           <limpygnome@gmail.com>
+    ----------------------------------------------------------------------------
+*/
+package pals.base.utils;
+
+import static org.junit.Assert.*;
+import org.junit.Test;
+
+/**
+ * Tests {@link RingBuffer}.
+ * 
+ * @version 1.0
+ */
+public class RingBufferTest
+{
+    /**
+     * Tests items are returned in order and the capacity is enforced.
+     * 
+     * @since 1.0
+     */
+    @Test
+    public void testOfferPoll()
+    {
+        RingBuffer<Integer> rb = new RingBuffer<>(3);
+        assertEquals(4, rb.getCapacity());
+        assertNull(rb.poll());
+        
+        for(int i = 0; i < 4; i++)
+            assertTrue(rb.offer(i));
+        assertFalse(rb.offer(4));
+        assertEquals(4, rb.size());
+        
+        // Wrap around the ring
+        for(int i = 0; i < 10; i++)
+        {
+            assertEquals(Integer.valueOf(i), rb.poll());
+            assertTrue(rb.offer(i+4));
+        }
+        assertEquals(4, rb.size());
+    }
+    /**
+     * Tests many producers with a single consumer.
+     * 
+     * @since 1.0
+     */
+    @Test
+    public void testConcurrent() throws InterruptedException
+    {
+        final int THREADS = 4, ITEMS = 10000;
+        final RingBuffer<Integer> rb = new RingBuffer<>(64);
+        Thread[] producers = new Thread[THREADS];
+        for(int t = 0; t < THREADS; t++)
+        {
+            producers[t] = new Thread()
+            {
+                @Override
+                public void run()
+                {
+                    for(int i = 0; i < ITEMS; i++)
+                        while(!rb.offer(i))
+                            Thread.yield();
+                }
+            };
+            producers[t].start();
+        }
+        // Consume every item
+        long sum = 0;
+        int received = 0;
+        Integer item;
+        while(received < THREADS*ITEMS)
+        {
+            if((item = rb.poll()) != null)
+            {
+                sum += item;
+                received++;
+            }
+            else
+                Thread.yield();
+        }
+        for(Thread t : producers)
+            t.join();
+        assertNull(rb.poll());
+        assertEquals((long)THREADS*((long)ITEMS*(ITEMS-1)/2), sum);
+    }
+}
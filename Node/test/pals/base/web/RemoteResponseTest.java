@@ -26,6 +26,12 @@
 */
 package pals.base.web;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.charset.Charset;
 import static org.junit.Assert.*;
 import org.junit.Test;
 
@@ -74,4 +80,54 @@ public class RemoteResponseTest
         rep.removeHeader("test");
         assertFalse(rep.isHeadersAvailable());
     }
+    /**
+     * Tests writing response data through the sink.
+     * 
+     * @since 1.0
+     */
+    @Test
+    public void testSink() throws IOException, ClassNotFoundException
+    {
+        final Charset utf8 = Charset.forName("UTF-8");
+        RemoteResponse rep = new RemoteResponse();
+        assertTrue(rep.isBufferEmpty());
+        
+        // Test characters are encoded as UTF-8, including surrogate pairs
+        String text = "a\u00e9\u20ac\ud83d\ude00b";
+        rep.getSink().write(text);
+        assertFalse(rep.isBufferEmpty());
+        assertArrayEquals(text.getBytes(utf8), rep.getBuffer());
+        
+        // Test existing data is kept and appended to
+        rep.getSink().getOutputStream().write("cd".getBytes(utf8));
+        rep.getSink().write("e");
+        assertEquals(text + "cde", new String(rep.getBuffer(), utf8));
+        
+        // Test truncation discards partial output
+        ResponseSink sink = rep.getSink();
+        int mark = sink.size();
+        sink.write("partial");
+        sink.truncate(mark);
+        assertEquals(text + "cde", new String(rep.getBuffer(), utf8));
+        
+        // Test setting the buffer replaces the data of the sink
+        rep.getSink().write("old");
+        rep.setBuffer("new");
+        assertEquals("new", new String(rep.getBuffer(), utf8));
+        
+        // Test the data of the sink survives serialization
+        rep.setBuffer((byte[])null);
+        rep.getSink().write("serialized");
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try(ObjectOutputStream oos = new ObjectOutputStream(baos))
+        {
+            oos.writeObject(rep);
+        }
+        RemoteResponse copy;
+        try(ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(baos.toByteArray())))
+        {
+            copy = (RemoteResponse)ois.readObject();
+        }
+        assertEquals("serialized", new String(copy.getBuffer(), utf8));
+    }
 }
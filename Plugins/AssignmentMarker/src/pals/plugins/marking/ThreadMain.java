@@ -29,13 +29,12 @@ package pals.plugins.marking;
 import java.util.ArrayList;
 import pals.base.Logging;
 import pals.base.NodeCore;
-import pals.base.assessment.Assignment;
 import pals.base.assessment.InstanceAssignment;
 import pals.base.assessment.InstanceAssignmentCriteria;
-import pals.base.assessment.Module;
 import pals.base.database.Connector;
 import pals.base.database.DatabaseException;
 import pals.base.database.Result;
+import pals.base.utils.DueScheduler;
 import pals.base.utils.ExtendedThread;
 
 /**
@@ -50,6 +49,8 @@ public class ThreadMain extends ExtendedThread
     private final String LOCK_TABLE = "pals_node_locking";
     // Fields ******************************************************************
     private AssignmentMarker am;
+    private DueScheduler scheduler;     // The due-dates of assignments approaching.
+    private long scheduleRefresh;       // The time at which the due-dates are next reloaded.
     // Methods - Constructors **************************************************
     /**
      * Constructs a new instance.
@@ -97,6 +98,8 @@ public class ThreadMain extends ExtendedThread
         int interval        = am.getSettings().getInt("marking/poll_interval", 10000),
             timeout         = am.getSettings().getInt("marking/work_timeout", 120000),
             fetchRate       = am.getSettings().getInt("marking/fetch_rate", 16);
+        scheduler = new DueScheduler(am.getSettings().getInt("marking/due_tick", 1000), am.getSettings().getInt("marking/due_slots", 512));
+        scheduleRefresh = 0;
         
         am.getCore().getLogging().log("Ass. Marker", "Main thread started.", Logging.EntryType.Info);
         
@@ -106,7 +109,7 @@ public class ThreadMain extends ExtendedThread
             // Attempt to process work
             try
             {
-                flagWorked = processedWork(conn, timeout, fetchRate);
+                flagWorked = processedWork(conn, interval, timeout, fetchRate);
             }
             catch(Exception ex)
             {
@@ -114,12 +117,15 @@ public class ThreadMain extends ExtendedThread
                 // Cool-down...
                 flagWorked = false;
             }
-            // No work occurred; sleep...
+            // No work occurred; sleep until the next due-date or poll...
             if(!flagWorked)
             {
                 try
                 {
-                    Thread.sleep(interval);
+                    long now = System.currentTimeMillis();
+                    long delay = scheduler.getDelay(now, Math.max(0, Math.min(interval, scheduleRefresh-now)));
+                    if(delay > 0)
+                        Thread.sleep(delay);
                 }
                 catch(InterruptedException ex)
                 {
@@ -131,99 +137,23 @@ public class ThreadMain extends ExtendedThread
         am.getCore().getLogging().log("Ass. Marker", "Main thread ending execution.", Logging.EntryType.Info);
     }
     
-    private boolean processedWork(Connector conn, int timeout, int fetchRate)
+    private boolean processedWork(Connector conn, int interval, int timeout, int fetchRate)
     {
         boolean hasWorked = false;
-        // Check for unhandled surpassed assignments
-        try
+        // Handle due assignments when a due-date fires or as a fail-safe
+        long now = System.currentTimeMillis();
+        if(scheduler.poll(now).length > 0 || now >= scheduleRefresh)
         {
-            conn.execute("BEGIN;");
-            conn.tableLock(LOCK_TABLE, true);
-            // Fetch any unhandled surpassed assignments
-            Result res = conn.read("SELECT * FROM pals_assignment WHERE due_handled='0' AND due IS NOT NULL AND due < current_timestamp;");
-            Result res2;
-            Module m;
-            Assignment ass;
-            while(res.next())
-            {
-                // Load assignment model
-                ass = Assignment.load(conn, null, res);
-                am.getCore().getLogging().log("Ass. Marker", "Assignment '"+ass.getAssID()+"' has surpassed due-date; auto-submitting.", Logging.EntryType.Info);
-                // Update the assignment to handled
-                conn.execute("UPDATE pals_assignment SET due_handled='1' WHERE assid=?;", ass.getAssID());
-                // Iterate each assignment, create criteria and submit
-                InstanceAssignment ia;
-                res2 = conn.read("SELECT * FROM pals_assignment_instance WHERE status=? AND assid=?;", InstanceAssignment.Status.Active.getStatus(), ass.getAssID());
-                while(res2.next())
-                {
-                    ia = InstanceAssignment.load(conn, ass, null, res2);
-                    if(ia != null)
-                    {
-                        // Update status to submitted
-                        ia.setStatus(InstanceAssignment.Status.Submitted);
-                        ia.persist(conn);
-                        // Create criteria
-                        InstanceAssignmentCriteria.createForInstanceAssignment(conn, ia, InstanceAssignmentCriteria.Status.AwaitingMarking);
-                    }
-                }
-            }
-            conn.tableUnlock(true);
-            conn.execute("COMMIT;");
-        }
-        catch(DatabaseException ex)
-        {
-            try
-            {
-                conn.execute("ROLLBACK;");
-            }
-            catch(DatabaseException ex2)
-            {
-            }
-            am.getCore().getLogging().logEx("Ass. Marker", "Main Thread : Failed to handle due assignments.", ex, Logging.EntryType.Error);
+            handleDue(conn);
+            refreshSchedule(conn, interval);
+            scheduleRefresh = now + interval;
         }
-        // Check if instance of assignments need mark computation
-        InstanceAssignment[] iarr = am.fetchComputeCheckIAs();
-        if(iarr.length > 0)
+        // Complete the marking of instances of assignments with all criteria marked; the
+        // mark is maintained as each criteria is marked, thus this needs no lock
+        for(InstanceAssignment ia : am.fetchComputeCheckIAs())
         {
-            ArrayList<InstanceAssignment> needComputing = new ArrayList<>();
-            try
-            {
-                // Lock table
-                conn.tableLock(LOCK_TABLE, false);
-                // Iterate each IA, check if needs computing
-                for(InstanceAssignment ia : iarr)
-                {
-                    if(ia.isMarkComputationNeeded(conn))
-                    {
-                        // Update status to being marked
-                        ia.setStatus(InstanceAssignment.Status.Marking);
-                        
-                        if(ia.persist(conn) != InstanceAssignment.PersistStatus.Success)
-                            am.getCore().getLogging().log("Ass. Marker", "Failed to set instance-assignment to marked.", Logging.EntryType.Error);
-                        else
-                            // Add to buffer for marks to be computed
-                            needComputing.add(ia);
-                    }
-                }
-                // Unlock table
-                conn.tableUnlock(false);
-            }
-            catch(DatabaseException ex)
-            {
-            }
-            // Compute marks for IAs
-            for(InstanceAssignment ia : needComputing)
-            {
-                if(!ia.computeMark(conn))
-                    am.getCore().getLogging().log("Ass. Marker", "Failed to compute marks for assignment instance '"+ia.getAIID()+"'.", Logging.EntryType.Warning);
-                else
-                {
-                    // Update the status
-                    ia.setStatus(InstanceAssignment.Status.Marked);
-                    ia.persist(conn);
-                    am.getCore().getLogging().log("Ass. Marker", "Computed marks for assignment instance '"+ia.getAIID()+"' ~ "+ia.getMark()+"%.", Logging.EntryType.Info);
-                }
-            }
+            if(ia.completeMarking(conn))
+                am.getCore().getLogging().log("Ass. Marker", "Computed marks for assignment instance '"+ia.getAIID()+"' ~ "+ia.getMark()+"%.", Logging.EntryType.Info);
         }
         // Fetch work to do - but only if the queue is not at the fetch-rate
         if(am.getWorkQueue().size() < fetchRate)
@@ -260,4 +190,70 @@ public class ThreadMain extends ExtendedThread
         }
         return hasWorked;
     }
+    /**
+     * Auto-submits the instances of every assignment, which has surpassed
+     * its due-date and not been handled. Assignments are claimed with a
+     * row-level update, rather than a table lock, thus only one node
+     * handles each assignment; the instances of each assignment are then
+     * submitted in bulk.
+     * 
+     * @param conn Database connector.
+     * @since 1.0
+     */
+    private void handleDue(Connector conn)
+    {
+        try
+        {
+            conn.execute("BEGIN;");
+            // Claim any unhandled surpassed assignments
+            Result res = conn.read("UPDATE pals_assignment SET due_handled='1' WHERE due_handled='0' AND due IS NOT NULL AND due < current_timestamp RETURNING assid;");
+            ArrayList<Integer> assids = new ArrayList<>();
+            while(res.next())
+                assids.add((int)res.get("assid"));
+            // Submit the active instances of each assignment
+            int count;
+            for(int assid : assids)
+            {
+                if((count = InstanceAssignment.submitActive(conn, assid, InstanceAssignmentCriteria.Status.AwaitingMarking)) == -1)
+                    throw new DatabaseException(DatabaseException.Type.QueryException);
+                am.getCore().getLogging().log("Ass. Marker", "Assignment '"+assid+"' has surpassed due-date; auto-submitted "+count+" instance(s).", Logging.EntryType.Info);
+            }
+            conn.execute("COMMIT;");
+        }
+        catch(DatabaseException ex)
+        {
+            try
+            {
+                conn.execute("ROLLBACK;");
+            }
+            catch(DatabaseException ex2)
+            {
+            }
+            am.getCore().getLogging().logEx("Ass. Marker", "Main Thread : Failed to handle due assignments.", ex, Logging.EntryType.Error);
+        }
+    }
+    /**
+     * Reloads the due-dates of the unhandled assignments due before the next
+     * refresh, with a margin; the remaining time is computed by the database,
+     * thus clock differences between nodes have no effect.
+     * 
+     * @param conn Database connector.
+     * @param interval The interval between refreshes, in milliseconds.
+     * @since 1.0
+     */
+    private void refreshSchedule(Connector conn, int interval)
+    {
+        try
+        {
+            Result res = conn.read("SELECT assid, CAST(EXTRACT(EPOCH FROM (due - current_timestamp))*1000 AS BIGINT) AS remaining FROM pals_assignment WHERE due_handled='0' AND due IS NOT NULL AND due < current_timestamp + CAST(? AS INTERVAL);", (interval*2)+" millisecond");
+            long now = System.currentTimeMillis();
+            scheduler.clear();
+            while(res.next())
+                scheduler.schedule((int)res.get("assid"), now + (long)res.get("remaining"));
+        }
+        catch(DatabaseException ex)
+        {
+            am.getCore().getLogging().logEx("Ass. Marker", "Main Thread : Failed to load due-dates.", ex, Logging.EntryType.Error);
+        }
+    }
 }
@@ -121,7 +121,7 @@ public class ThreadMarker extends ExtendedThread
                     }
                     else
                     {
-                        am.getCore().getLogging().log("Ass. Marker", "#"+number+": Marked criteria '"+iac.getIAQ().getAIQID()+"','"+iac.getQC().getQCID()+"' ~ "+iac.getMark()+"%.", Logging.EntryType.Info);
+                        am.getCore().getLogging().log("Ass. Marker", Logging.EntryType.Info, "#%d: Marked criteria '%d','%d' ~ %d%%.", number, iac.getIAQ().getAIQID(), iac.getQC().getQCID(), iac.getMark());
                         // Set IA to be checked for mark computation
                         am.addInstanceAssignmentMarking(iac.getIAQ().getInstanceAssignment());
                     }
@@ -284,12 +284,14 @@ public class Assignments extends Plugin
             int temp2;
             InstanceAssignmentCriteria.PersistStatus iacps;
             boolean gradeChanged = false;
+            // Load the instance data, and criteria, for the entire page at once
+            InstanceAssignmentQuestion[] arrIaq = InstanceAssignmentQuestion.loadAll(data.getCore(), data.getConnector(), ia, questions);
             for(int i = 0; i < questions.length; i++)
             {
                 error = null;
                 html = new StringBuilder();
-                // Load instance data
-                iaq = InstanceAssignmentQuestion.load(data.getCore(), data.getConnector(), ia, questions[i]);
+                // Load instance data; fall back to loading it individually if the bulk load failed
+                iaq = arrIaq != null ? arrIaq[i] : InstanceAssignmentQuestion.load(data.getCore(), data.getConnector(), ia, questions[i]);
                 // Fetch the plugin responsible
                 plugin = questions[i].getQuestion().getQtype().getUuidPlugin();
                 p = plugin != null ? pm.getPlugin(plugin) : null;
@@ -304,7 +306,7 @@ public class Assignments extends Plugin
                 {
                     kvs = new HashMap<>();
                     kvs.put("error", error);
-                    html.append(data.getCore().getTemplates().render(data, kvs, "assignment/question_failed"));
+                    data.getCore().getTemplates().render(data, kvs, "assignment/question_failed", html);
                 }
                 // Process criterias
                 if(editMode && iaq != null)
@@ -36,6 +36,7 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.util.Random;
 import javax.imageio.ImageIO;
+import pals.base.Logging;
 import pals.base.NodeCore;
 import pals.base.Plugin;
 import pals.base.Settings;
@@ -50,20 +51,31 @@ import pals.base.web.WebRequestData;
 
 /**
  * A plugin for featuring captcha on web-pages.
+ * 
+ * Images are pre-generated by a background thread into a bounded pool (refer
+ * to {@link CaptchaPool}); requests are only rendered on the request thread
+ * when the pool is empty.
  */
 public class Captcha extends Plugin
 {
     // Constants ***************************************************************
+    static final String         LOGGING_ALIAS = "PALS Captcha";
     private static final String SESSION_KEY__CAPTCHA = "captcha";
+    // Fields ******************************************************************
+    private final CaptchaPool   pool;   // Pool of pre-generated images.
     // Methods - Constructors **************************************************
     public Captcha(NodeCore core, UUID uuid, JarIO jario, Version version, Settings settings, String jarPath)
     {
         super(core, uuid, jario, version, settings, jarPath);
+        this.pool = new CaptchaPool(this, settings.getInt("pool_size", 64));
     }
     // Methods - Event Handlers ************************************************
     @Override
     public boolean eventHandler_pluginLoad(NodeCore core)
     {
+        // Start filling the pool of images
+        pool.setPriority(Thread.MIN_PRIORITY);
+        pool.start();
         return true;
     }
     @Override
@@ -73,6 +85,15 @@ public class Captcha extends Plugin
         core.getWebManager().urlsUnregister(this);
         // Unload templates
         core.getTemplates().remove(this);
+        // Stop the pool thread
+        try
+        {
+            pool.extended_stop();
+            pool.join();
+        }
+        catch(InterruptedException ex)
+        {
+        }
     }
     @Override
     public boolean eventHandler_pluginInstall(NodeCore core, Connector conn)
@@ -121,12 +142,28 @@ public class Captcha extends Plugin
     }
     // Methods *****************************************************************
     /**
-     * Generates a captcha image.
+     * Generates a captcha image, and places its text into the session of the
+     * current request; an image is taken from the pool, if available.
      * 
      * @param data The data for the current web request.
      * @return Byte-array of image data.
      */
     public byte[] captchaBuild(WebRequestData data)
+    {
+        CaptchaImage image = pool.poll();
+        if(image == null)
+            image = captchaGenerate();
+        if(image == null)
+            return null;
+        data.getSession().setAttribute(SESSION_KEY__CAPTCHA, image.getText());
+        return image.getData();
+    }
+    /**
+     * Generates a new captcha image; this is thread-safe.
+     * 
+     * @return The image, or null if it could not be encoded.
+     */
+    public CaptchaImage captchaGenerate()
     {
         // Constants
         final int   captchaWidth = 240,
@@ -136,10 +173,9 @@ public class Captcha extends Plugin
                     fontSizeMin = 16,
                     fontSizeMax = 20;
         // Fetch RNG
-        Random rand = data.getCore().getRNG();
-        // Generate random string and place into session data
-        String text = Misc.randomText(data.getCore(), charsMin+rand.nextInt(charsMax-charsMin)).toLowerCase();
-        data.getSession().setAttribute(SESSION_KEY__CAPTCHA, text);
+        Random rand = getCore().getRNG();
+        // Generate random string
+        String text = Misc.randomText(getCore(), charsMin+rand.nextInt(charsMax-charsMin)).toLowerCase();
         // Create image for rendering
         BufferedImage img = new BufferedImage(captchaWidth, captchaHeight, BufferedImage.TYPE_INT_ARGB);
         Graphics g = img.createGraphics();
@@ -164,16 +200,18 @@ public class Captcha extends Plugin
         }
         // Render more noise lines
         noise(rand, g, captchaWidth, captchaHeight, 8);
+        g.dispose();
         // Output the image
         ByteArrayOutputStream baos = new ByteArrayOutputStream();
         try
         {
             ImageIO.write(img, "png", baos);
             baos.flush();
-            return baos.toByteArray();
+            return new CaptchaImage(text, baos.toByteArray());
         }
         catch(IOException ex)
         {
+            getCore().getLogging().logEx(LOGGING_ALIAS, "Failed to encode captcha image.", ex, Logging.EntryType.Warning);
             return null;
         }
     }
@@ -213,4 +251,32 @@ public class Captcha extends Plugin
     {
         return isCaptchaCorrect(data, data.getRequestData().getField("captcha"));
     }
+    // Classes *****************************************************************
+    /**
+     * A generated captcha image and its text.
+     */
+    public static class CaptchaImage
+    {
+        private final String   text;   // The text of the image.
+        private final byte[]   data;   // The PNG data of the image.
+        public CaptchaImage(String text, byte[] data)
+        {
+            this.text = text;
+            this.data = data;
+        }
+        /**
+         * @return The text of the image.
+         */
+        public String getText()
+        {
+            return text;
+        }
+        /**
+         * @return The PNG data of the image.
+         */
+        public byte[] getData()
+        {
+            return data;
+        }
+    }
 }
@@ -0,0 +1,87 @@
+/*
+    The MIT License (MIT)
+
+    Copyright (c) 2014 Marcus Craske <limpygnome@gmail.com>
+
+    Permission is hereby granted, free of charge, to any person obtaining a copy
+    of this software and associated documentation files (the "Software"), to deal
+    in the Software without restriction, including without limitation the rights
+    to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+    copies of the Software, and to permit persons to whom the Software is
+    furnished to do so, subject to the following conditions:
+
+    The above copyright notice and this permission notice shall be included in
+    all copies or substantial portions of the Software.
+
+    THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+    IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+    FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+    AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+    LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+    OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+    THE SOFTWARE.
+    ----------------------------------------------------------------------------
+    Authors:    Marcus Craske           <limpygnome@gmail.com>
+    ----------------------------------------------------------------------------
+*/
+package pals.plugins.web;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import pals.base.Logging;
+import pals.base.utils.ExtendedThread;
+
+/**
+ * The thread used for keeping a pool of pre-generated captcha images, so
+ * requests do not render images themselves; each image is only handed out
+ * once.
+ */
+public class CaptchaPool extends ExtendedThread
+{
+    // Fields ******************************************************************
+    private final Captcha                                   captcha;    // The plugin generating images.
+    private final ArrayBlockingQueue<Captcha.CaptchaImage>  pool;       // The images ready to be served.
+    // Methods - Constructors **************************************************
+    public CaptchaPool(Captcha captcha, int size)
+    {
+        this.captcha = captcha;
+        this.pool = new ArrayBlockingQueue<>(Math.max(1, size));
+    }
+    // Methods - Overrides *****************************************************
+    @Override
+    public void run()
+    {
+        Captcha.CaptchaImage image;
+        while(!extended_isStopped())
+        {
+            try
+            {
+                // Generate the next image, waiting whilst the pool is full
+                image = captcha.captchaGenerate();
+                if(image != null)
+                    pool.put(image);
+            }
+            catch(InterruptedException ex)
+            {
+                if(!extended_isStopped())
+                    captcha.getCore().getLogging().logEx(Captcha.LOGGING_ALIAS, "Unexpectedly woken.", ex, Logging.EntryType.Error);
+            }
+        }
+    }
+    // Methods *****************************************************************
+    /**
+     * Takes an image from the pool.
+     * 
+     * @return An image, or null if the pool is empty.
+     */
+    public Captcha.CaptchaImage poll()
+    {
+        return pool.poll();
+    }
+    /**
+     * @return The number of images ready to be served.
+     */
+    public int size()
+    {
+        return pool.size();
+    }
+}
@@ -27,6 +27,8 @@
 */
 package pals.plugins.auth;
 
+import java.io.File;
+import java.io.IOException;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.Arrays;
@@ -35,6 +37,7 @@ import pals.base.NodeCore;
 import pals.base.Plugin;
 import pals.base.PluginManager;
 import pals.base.Settings;
+import pals.base.Storage;
 import pals.base.TemplateManager;
 import pals.base.UUID;
 import pals.base.Version;
@@ -45,16 +48,20 @@ import pals.base.auth.UserGroup;
 import pals.base.database.Connector;
 import pals.base.database.DatabaseException;
 import pals.base.database.Result;
+import pals.base.utils.Files;
 import pals.base.utils.JarIO;
+import pals.base.utils.JobRegistry;
 import pals.base.utils.Misc;
 import pals.base.web.MultipartUrlParser;
 import pals.base.web.RemoteRequest;
 import pals.base.web.RemoteResponse;
+import pals.base.web.ResponseSink;
 import pals.base.web.UploadedFile;
 import pals.base.web.WebRequestData;
 import pals.base.web.security.CSRF;
 import pals.base.web.security.Escaping;
 import pals.plugins.auth.enrollment.DelimiterParser;
+import pals.plugins.auth.enrollment.ImportJob;
 import pals.plugins.auth.enrollment.Parser;
 import pals.plugins.auth.models.ModelRecovery;
 import pals.plugins.auth.models.ModelUser;
@@ -68,10 +75,13 @@ public class DefaultAuth extends Plugin
     // Constants ***************************************************************
     private static final String SESSION_KEY__USERID = "defaultauth_userid";
     private static final String LOGGING_ALIAS = "DefaultAuth";
+    // Fields ******************************************************************
+    private final JobRegistry<ImportJob>  jobs;       // Mass-enrollment jobs running or recently ended on this node.
     // Methods - Constructors **************************************************
     public DefaultAuth(NodeCore core, UUID uuid, JarIO jario, Version version, Settings settings, String jarPath)
     {
         super(core, uuid, jario, version, settings, jarPath);
+        this.jobs = new JobRegistry<>();
     }
     // Methods - Event Handlers ************************************************
     @Override
@@ -117,6 +127,8 @@ public class DefaultAuth extends Plugin
     @Override
     public void eventHandler_pluginUnload(NodeCore core)
     {
+        // Stop mass-enrollment jobs
+        jobs.stopAll();
         // Unregister templates
         core.getTemplates().remove(this);
         // Unregister URLs
@@ -680,29 +692,29 @@ public class DefaultAuth extends Plugin
                         data.setTemplateData("error", "Invalid user-group; could not be found or loaded.");
                     else
                     {
-                        // Create and parse data
-                        Parser p = new DelimiterParser(delimiter, data.getCore(), this, m, ug);
-                        Parser.Result res = p.parse(enrollAction, data, file);
-                        switch(res)
+                        // Copy the upload to storage owned by the job; the temporary web file
+                        // is deleted once this request ends
+                        File jobFile = new File(Storage.getPath_tempJobFile(data.getCore().getPathShared(), "enrollment", file));
+                        try
                         {
-                            case Error:
-                                data.setTemplateData("error", "An error occurred parsing the data; please try again or contact an administrator.");
-                                break;
-                            case Header_Missing_Email:
-                                data.setTemplateData("error", "Missing e-mail header.");
-                                break;
-                            case Header_Missing_Username:
-                                data.setTemplateData("error", "Missing username header.");
-                                break;
-                            case Invalid_Data:
-                                data.setTemplateData("error", "File is invalid/malformed and cannot be parsed.");
-                                break;
-                            case Success:
-                                data.setTemplateData("success", "Successfully parsed file and applied action.");
-                                break;
+                            Files.fileCopy(Storage.getPath_tempWebFile(data.getCore().getPathShared(), file), jobFile.getPath(), true);
+                        }
+                        catch(IOException ex)
+                        {
+                            jobFile.delete();
+                            jobFile = null;
+                            getCore().getLogging().logEx(LOGGING_ALIAS, "Failed to copy mass-enrollment file.", ex, Logging.EntryType.Warning);
+                        }
+                        if(jobFile == null)
+                            data.setTemplateData("error", "Failed to store the uploaded file; please try again or contact an administrator.");
+                        else
+                        {
+                            // Parse the data in the background and display its progress
+                            Parser p = new DelimiterParser(delimiter, data.getCore(), this, m, ug);
+                            ImportJob job = jobStart(p, enrollAction, jobFile);
+                            data.getResponseData().setRedirectUrl("/admin/mass_enrollment?job="+job.getJobID());
+                            return true;
                         }
-                        data.setTemplateData("errors", p.getErrors());
-                        data.setTemplateData("messages", p.getMessages());
                     }
                 }
                 data.setTemplateData("enroll_format", enrollFormat);
@@ -722,10 +734,15 @@ public class DefaultAuth extends Plugin
                             group = src == 3 ? Misc.parseInt(rawEnrollGroup, -1) : -1;
                     // Construct data
                     Parser p = new DelimiterParser(delimiter, data.getCore(), this, null, null);
-                    String output = p.construct(data.getConnector(), module, group);
-                    // Setup the page
                     RemoteResponse resp = data.getResponseData();
-                    resp.setBuffer(output);
+                    ResponseSink sink = resp.getSink();
+                    sink.reset();
+                    if(!p.construct(data.getConnector(), module, group, sink))
+                    {
+                        sink.reset();
+                        return false;
+                    }
+                    // Setup the page
                     resp.setResponseType(contentType);
                     resp.setHeader("Content-Disposition", "attachment; filename=download."+extension);
                     return true;
@@ -734,6 +751,49 @@ public class DefaultAuth extends Plugin
                     return false;
             }
         }
+        else if(req.getField("job") != null)
+        {
+            // Display the progress of a job
+            ImportJob job = jobs.get(Misc.parseInt(req.getField("job"), -1));
+            if(job == null)
+                data.setTemplateData("error", "The job could not be found; it may have expired or be running on another node.");
+            else
+            {
+                Parser p = job.getParser();
+                if(!job.isEnded())
+                    data.setTemplateData("job_running", true);
+                else
+                {
+                    switch(job.getResult())
+                    {
+                        case Error:
+                            data.setTemplateData("error", "An error occurred parsing the data; please try again or contact an administrator.");
+                            break;
+                        case Header_Missing_Email:
+                            data.setTemplateData("error", "Missing e-mail header.");
+                            break;
+                        case Header_Missing_Username:
+                            data.setTemplateData("error", "Missing username header.");
+                            break;
+                        case Invalid_Data:
+                            data.setTemplateData("error", "File is invalid/malformed and cannot be parsed.");
+                            break;
+                        case Cancelled:
+                            data.setTemplateData("error", "The job was cancelled; only some of the file has been applied.");
+                            break;
+                        case Success:
+                            data.setTemplateData("success", "Successfully parsed file and applied action.");
+                            break;
+                    }
+                }
+                data.setTemplateData("job", job.getJobID());
+                data.setTemplateData("job_progress", p.getProgress());
+                data.setTemplateData("job_rows", p.getRowsProcessed());
+                data.setTemplateData("job_users", p.getUsersAffected());
+                data.setTemplateData("errors", p.getErrors());
+                data.setTemplateData("messages", p.getMessages());
+            }
+        }
         // Fetch modules
         Module[] modules = Module.loadAll(data.getConnector());
         // Fetch groups
@@ -1009,29 +1069,28 @@ public class DefaultAuth extends Plugin
     {
         final int USERS_PER_PAGE = 20;
         RemoteRequest req = data.getRequestData();
-        // Parse page
-        int page;
-        try
-        {
-            page = Integer.parseInt(req.getField("p"));
-            if(page < 1)
-                page = 1;
-        }
-        catch(NumberFormatException ex)
+        // Parse page; pages are located by the user before/after them
+        int page = Math.max(1, Misc.parseInt(req.getField("p"), 1));
+        int after = Misc.parseInt(req.getField("after"), -1);
+        int before = Misc.parseInt(req.getField("before"), -1);
+        boolean backwards = before != -1;
+        String filter = group == null ? req.getField("filter") : null;
+        // Fetch user models
+        ModelUser[] models = ModelUser.loadPage(data.getConnector(), filter, group, USERS_PER_PAGE+1, backwards ? before : after, backwards);
+        // Fall back to the first page if the cursor no longer exists, e.g. the user was deleted
+        if(models.length == 0 && (after != -1 || backwards))
         {
             page = 1;
+            after = -1;
+            backwards = false;
+            models = ModelUser.loadPage(data.getConnector(), filter, group, USERS_PER_PAGE+1, -1, false);
         }
-        String filter = req.getField("filter");
-        // Fetch user models
-        ModelUser[] models;
-        if(group == null)
-            models = ModelUser.load(data.getConnector(), filter, USERS_PER_PAGE+1, (page*USERS_PER_PAGE)-USERS_PER_PAGE);
-        else
-            models = ModelUser.loadGroup(group, data.getConnector(), USERS_PER_PAGE+1, (page*USERS_PER_PAGE)-USERS_PER_PAGE);
-        // Check if we have +1 models, to indicate a next page
-        boolean nextPage = models.length > USERS_PER_PAGE;
-        if(nextPage)
-            models = Arrays.copyOf(models, USERS_PER_PAGE);
+        // Check if we have +1 models, to indicate another page
+        boolean more = models.length > USERS_PER_PAGE;
+        if(more)
+            models = backwards ? Arrays.copyOfRange(models, 1, models.length) : Arrays.copyOf(models, USERS_PER_PAGE);
+        if(backwards && !more)
+            page = 1;
         // Setup the page
         if(group != null)
         {
@@ -1048,10 +1107,13 @@ public class DefaultAuth extends Plugin
         data.setTemplateData("models", models);
         data.setTemplateData("users_per_page", USERS_PER_PAGE);
         data.setTemplateData("users_page", page);
-        if(page > 1)
-            data.setTemplateData("users_page_prev", page-1);
-        if(page < Integer.MAX_VALUE && nextPage)
-            data.setTemplateData("users_page_next", page+1);
+        if(models.length > 0)
+        {
+            if(backwards ? more : after != -1)
+                data.setTemplateData("users_page_prev", models[0].getUserID());
+            if(backwards || more)
+                data.setTemplateData("users_page_next", models[models.length-1].getUserID());
+        }
         return true;
     }
     private boolean pageAdminUsers_groupEdit(WebRequestData data, UserGroup group)
@@ -1144,6 +1206,22 @@ public class DefaultAuth extends Plugin
         return true;
     }
     // Methods *****************************************************************
+    /**
+     * Starts a mass-enrollment job on this node; ended jobs older than the
+     * configured expiry are discarded.
+     * 
+     * @param parser The parser for the file.
+     * @param action The action applied to each row.
+     * @param file The file owned by the job; deleted once the job ends.
+     * @return The job started.
+     */
+    private ImportJob jobStart(Parser parser, Parser.Action action, File file)
+    {
+        int threads = settings.getInt("enrollment/hash_threads", 0);
+        if(threads <= 0)
+            threads = Runtime.getRuntime().availableProcessors();
+        return jobs.start(new ImportJob(getCore(), jobs.nextID(), parser, action, file, threads), settings.getInt("enrollment/job_expiry_ms", 3600000));
+    }
     public String getNewSalt()
     {
         return Misc.randomText(getCore(), 32);
@@ -28,20 +28,19 @@
 package pals.plugins.auth.enrollment;
 
 import java.io.BufferedReader;
+import java.io.File;
 import java.io.FileReader;
 import java.io.IOException;
+import java.io.Writer;
 import pals.base.NodeCore;
-import pals.base.Storage;
 import pals.base.assessment.Module;
 import pals.base.auth.UserGroup;
 import pals.base.database.Connector;
 import pals.base.database.DatabaseException;
-import pals.base.web.UploadedFile;
-import pals.base.web.WebRequestData;
 import pals.plugins.auth.DefaultAuth;
 
 /**
- * A delimiter parser implementation. Iterates each line and splits column
+ * A delimiter parser implementation. Streams each line and splits column
  * values using the provided delimiter.
  */
 public class DelimiterParser extends Parser
@@ -56,11 +55,11 @@ public class DelimiterParser extends Parser
     }
     // Methods - Implementation ************************************************
     @Override
-    public Result parse(Action action, WebRequestData data, UploadedFile file)
+    public Result parse(Action action, Connector conn, File file)
     {
-        try
+        bytesTotal = file.length();
+        try(BufferedReader br = new BufferedReader(new FileReader(file)))
         {
-            BufferedReader br = new BufferedReader(new FileReader(Storage.getPath_tempWebFile(core.getPathShared(), file)));
             String[] cols;
             String line;
             int colUsername = -1, colEmail = -1, colPassword = -1;
@@ -69,6 +68,7 @@ public class DelimiterParser extends Parser
                 line = br.readLine();
                 if(line == null)
                     return Result.Invalid_Data;
+                bytesRead += line.length()+1;
                 cols = line.split(delimiter);
                 for(int i = 0; i < cols.length; i++)
                 {
@@ -91,12 +91,15 @@ public class DelimiterParser extends Parser
                 return Result.Header_Missing_Username;
             else if(colEmail == -1)
                 return Result.Header_Missing_Email;
-            // Read line-by-line
+            // Stream line-by-line, applying rows in batches
             String username, email, password;
             int currLine = 0;
             while((line = br.readLine()) != null)
             {
+                if(cancelled)
+                    return Result.Cancelled;
                 currLine++;
+                bytesRead += line.length()+1;
                 // Parse data
                 cols = line.trim().split(delimiter);
                 if(cols.length > 1)
@@ -107,14 +110,17 @@ public class DelimiterParser extends Parser
                         username = cols[colUsername];
                         email = cols[colEmail];
                         password = colPassword != -1 && colPassword < cols.length ? cols[colPassword] : null;
-                        // Apply action
-                        applyAction(action, data, username, email, password);
+                        // Queue action
+                        queue(action, conn, currLine, username, email, password);
                     }
                     else
                         errors.add("Line "+currLine+" cannot be parsed.");
                 }
             }
-            return Result.Success;
+            // Apply any remaining rows
+            flush(action, conn);
+            bytesRead = bytesTotal;
+            return cancelled ? Result.Cancelled : Result.Success;
         }
         catch(IOException ex)
         {
@@ -122,25 +128,44 @@ public class DelimiterParser extends Parser
         }
     }
     @Override
-    public String construct(Connector conn, int moduleid, int groupid)
+    public boolean construct(Connector conn, int moduleid, int groupid, Writer out)
     {
-        StringBuilder sb = new StringBuilder();
         // Fetch data
         pals.base.database.Result res = constructFetchData(conn, moduleid, groupid);
         if(res == null)
-            return "";
-        // Construct into parsable output
-        // -- Headers
-        sb.append("username,email\n");
-        // -- Data
+            return false;
+        // Construct into parsable output, row by row
         try
         {
+            // -- Headers
+            out.write("username");
+            out.write(delimiter);
+            out.write("email\n");
+            // -- Data
+            String email;
             while(res.next())
-                sb.append((String)res.get("username")).append(delimiter).append((String)res.get("email")).append("\n");
+            {
+                out.write((String)res.get("username"));
+                out.write(delimiter);
+                if((email = res.get("email")) != null)
+                    out.write(email);
+                out.write('\n');
+            }
+            return true;
+        }
+        catch(DatabaseException | IOException ex)
+        {
+            return false;
         }
-        catch(DatabaseException ex)
+        finally
         {
+            try
+            {
+                res.dispose();
+            }
+            catch(DatabaseException ex)
+            {
+            }
         }
-        return sb.toString();
     }
 }
@@ -0,0 +1,170 @@
+/*
+    The MIT License (MIT)
+
+    Copyright (c) 2014 Marcus Craske <limpygnome@gmail.com>
+
+    Permission is hereby granted, free of charge, to any person obtaining a copy
+    of this software and associated documentation files (the "Software"), to deal
+    in the Software without restriction, including without limitation the rights
+    to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+    copies of the Software, and to permit persons to whom the Software is
+    furnished to do so, subject to the following conditions:
+
+    The above copyright notice and this permission notice shall be included in
+    all copies or substantial portions of the Software.
+
+    THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+    IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+    FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+    AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+    LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+    OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+    THE SOFTWARE.
+    ----------------------------------------------------------------------------
+    Version:    1.0
+    Authors:    Marcus Craske           <limpygnome@gmail.com>
+    ----------------------------------------------------------------------------
+*/
+package pals.plugins.auth.enrollment;
+
+import java.io.File;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import pals.base.Logging;
+import pals.base.NodeCore;
+import pals.base.database.Connector;
+import pals.base.utils.ExtendedThread;
+import pals.base.utils.JobRegistry;
+
+/**
+ * A background job for applying a mass-enrollment file, so large files do
+ * not hold up a web-request; the progress of the job can be polled whilst it
+ * runs.
+ * 
+ * Passwords of new users are hashed in parallel on a bounded pool, owned by
+ * the job. The file, a copy of the upload owned by the job, is deleted once
+ * the job ends.
+ */
+public class ImportJob extends ExtendedThread implements JobRegistry.Job
+{
+    // Constants ***************************************************************
+    private static final String LOGGING_ALIAS = "DefaultAuth";
+    // Enums *******************************************************************
+    public enum Status
+    {
+        Pending,
+        Running,
+        Finished,
+        Failed
+    }
+    // Fields ******************************************************************
+    private final NodeCore              core;
+    private final int                   jobid;          // The identifier of the job.
+    private final Parser                parser;         // The parser applying the file.
+    private final Parser.Action         action;         // The action applied to each row.
+    private final File                  file;           // The file being parsed.
+    private final int                   hashThreads;    // The number of threads for hashing passwords.
+    private volatile Status             status;         // The current status of the job.
+    private volatile Parser.Result      result;         // The result of parsing; null until ended.
+    private volatile long               ended;          // The time at which the job ended; 0 if running.
+    // Methods - Constructors **************************************************
+    public ImportJob(NodeCore core, int jobid, Parser parser, Parser.Action action, File file, int hashThreads)
+    {
+        this.core = core;
+        this.jobid = jobid;
+        this.parser = parser;
+        this.action = action;
+        this.file = file;
+        this.hashThreads = Math.max(1, hashThreads);
+        this.status = Status.Pending;
+        this.result = null;
+        this.ended = 0;
+        setName("Mass-enrollment job "+jobid);
+    }
+    // Methods - Overrides *****************************************************
+    @Override
+    public void run()
+    {
+        status = Status.Running;
+        long start = System.currentTimeMillis();
+        Connector conn = core.createConnector();
+        if(conn == null)
+        {
+            result = Parser.Result.Error;
+            file.delete();
+        }
+        else
+        {
+            ExecutorService hasher = Executors.newFixedThreadPool(hashThreads);
+            parser.setHasher(hasher);
+            try
+            {
+                result = parser.parse(action, conn, file);
+            }
+            catch(RuntimeException ex)
+            {
+                result = Parser.Result.Error;
+                core.getLogging().logEx(LOGGING_ALIAS, "Mass-enrollment job "+jobid+" failed.", ex, Logging.EntryType.Error);
+            }
+            finally
+            {
+                hasher.shutdownNow();
+                conn.disconnect();
+                file.delete();
+            }
+        }
+        ended = System.currentTimeMillis();
+        status = result == Parser.Result.Success ? Status.Finished : Status.Failed;
+        core.getLogging().log(LOGGING_ALIAS, "Mass-enrollment job "+jobid+" ended ("+result.name()+") - "+parser.getRowsProcessed()+" rows, "+parser.getUsersAffected()+" users affected, "+(ended-start)+" m/s.", Logging.EntryType.Info);
+    }
+    @Override
+    public synchronized void extended_stop()
+    {
+        parser.cancel();
+        super.extended_stop();
+    }
+    // Methods - Accessors *****************************************************
+    /**
+     * @return The identifier of the job.
+     */
+    public int getJobID()
+    {
+        return jobid;
+    }
+    /**
+     * @return The current status of the job.
+     */
+    public Status getStatus()
+    {
+        return status;
+    }
+    /**
+     * @return The result of parsing; null if the job has not ended.
+     */
+    public Parser.Result getResult()
+    {
+        return result;
+    }
+    /**
+     * @return Indicates if the job has ended.
+     */
+    public boolean isEnded()
+    {
+        return ended != 0;
+    }
+    /**
+     * @return The time at which the job ended, in milliseconds; 0 if the job
+     * has not ended.
+     */
+    public long getEnded()
+    {
+        return ended;
+    }
+    /**
+     * @return The parser applying the file; used for progress and messages.
+     */
+    public Parser getParser()
+    {
+        return parser;
+    }
+}
@@ -27,8 +27,18 @@
 */
 package pals.plugins.auth.enrollment;
 
+import java.io.File;
+import java.io.Writer;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 import org.joda.time.DateTime;
 import pals.base.NodeCore;
 import pals.base.assessment.Module;
@@ -38,15 +48,20 @@ import pals.base.database.Connector;
 import pals.base.database.DatabaseException;
 import pals.base.utils.Misc;
 import pals.base.web.Email;
-import pals.base.web.UploadedFile;
-import pals.base.web.WebRequestData;
 import pals.plugins.auth.DefaultAuth;
 
 /**
  * An abstract class for mass-enrollment parsers.
+ * 
+ * Rows are queued by implementations and applied in batches, so that each
+ * batch costs a handful of set-based queries rather than several queries per
+ * row; the progress of parsing can be read by other threads.
  */
 public abstract class Parser
 {
+    // Constants ***************************************************************
+    private static final int BATCH_SIZE = 500;
+    private static final int CONSTRUCT_FETCH_SIZE = 1000;
     // Enums *******************************************************************
     public enum Result
     {
@@ -54,6 +69,7 @@ public abstract class Parser
         Invalid_Data,
         Header_Missing_Username,
         Header_Missing_Email,
+        Cancelled,
         Success
     }
     public enum Action
@@ -103,9 +119,15 @@ public abstract class Parser
     protected DefaultAuth           auth;
     protected Module                module;
     protected UserGroup             group;
-    protected int                   usersAffected;
-    protected ArrayList<String>     errors;
-    protected ArrayList<String>     messages;
+    protected volatile int          usersAffected;  // The number of users affected.
+    protected volatile int          rowsProcessed;  // The number of rows applied.
+    protected volatile long         bytesRead;      // The number of bytes of the file read.
+    protected volatile long         bytesTotal;     // The total number of bytes of the file.
+    protected volatile boolean      cancelled;      // Indicates if parsing should cease.
+    protected List<String>          errors;
+    protected List<String>          messages;
+    private ExecutorService         hasher;         // Pool for hashing passwords; can be null.
+    private final ArrayList<Row>    batch;          // The rows waiting to be applied.
     // Methods - Constructors **************************************************
     public Parser(NodeCore core, DefaultAuth auth, Module module, UserGroup group)
     {
@@ -113,37 +135,51 @@ public abstract class Parser
         this.auth = auth;
         this.module = module;
         this.group = group;
-        this.errors = new ArrayList<>();
-        this.messages = new ArrayList<>();
+        this.errors = Collections.synchronizedList(new ArrayList<String>());
+        this.messages = Collections.synchronizedList(new ArrayList<String>());
         this.usersAffected = 0;
+        this.rowsProcessed = 0;
+        this.bytesRead = this.bytesTotal = 0;
+        this.cancelled = false;
+        this.hasher = null;
+        this.batch = new ArrayList<>(BATCH_SIZE);
     }
     // Methods - Abstract ******************************************************
     /**
      * Parses a file to apply an action to a set of users.
      * 
      * @param action The action to be applied.
-     * @param data The data for the current web-request.
+     * @param conn Database connector.
      * @param file The file of user data.
      * @return Indicates the general success of the operation.
      */
-    public abstract Result parse(Action action, WebRequestData data, UploadedFile file);
+    public abstract Result parse(Action action, Connector conn, File file);
     /**
-     * Constructs a file, which can be later parsed.
+     * Constructs a file, which can be later parsed, streaming the rows to
+     * the output as they are read.
      * 
      * @param conn Database connector.
-     * @return The string data constructed.
+     * @param moduleid The module of the users, or -1.
+     * @param groupid The user-group of the users, or -1.
+     * @param out The output for the constructed data.
+     * @return True = constructed, false = failed; partial data may have been
+     * written.
+     */
+    public abstract boolean construct(Connector conn, int moduleid, int groupid, Writer out);
+    /**
+     * Fetches the users for construct, using a cursor; the result must be
+     * disposed.
      */
-    public abstract String construct(Connector conn, int moduleid, int groupid);
     protected pals.base.database.Result constructFetchData(Connector conn, int moduleid, int groupid)
     {
         try
         {
             if(moduleid < 0 && groupid < 0)
-                return conn.read("SELECT u.username, u.email FROM pals_users AS u ORDER BY u.username ASC;");
+                return conn.readCursor(CONSTRUCT_FETCH_SIZE, "SELECT u.username, u.email FROM pals_users AS u ORDER BY u.username ASC;");
             else if(moduleid >= 0)
-                return conn.read("SELECT u.username, u.email FROM pals_users AS u WHERE u.userid IN (SELECT userid FROM pals_modules_enrollment WHERE moduleid=?) ORDER BY u.username ASC;", moduleid);
+                return conn.readCursor(CONSTRUCT_FETCH_SIZE, "SELECT u.username, u.email FROM pals_users AS u WHERE u.userid IN (SELECT userid FROM pals_modules_enrollment WHERE moduleid=?) ORDER BY u.username ASC;", moduleid);
             else
-                return conn.read("SELECT u.username, u.email FROM pals_users AS u WHERE u.groupid=? ORDER BY u.username ASC;", groupid);
+                return conn.readCursor(CONSTRUCT_FETCH_SIZE, "SELECT u.username, u.email FROM pals_users AS u WHERE u.groupid=? ORDER BY u.username ASC;", groupid);
         }
         catch(DatabaseException ex)
         {
@@ -151,147 +187,407 @@ public abstract class Parser
         }
     }
     // Methods *****************************************************************
-    protected void applyAction(Action action, WebRequestData data, String username, String email, String password)
+    /**
+     * Queues a row; the queue is applied once it reaches the size of a batch.
+     * 
+     * @param action The action to be applied.
+     * @param conn Database connector.
+     * @param line The line number of the row, used for messages.
+     * @param username The username of the row.
+     * @param email The e-mail of the row.
+     * @param password The password of the row; can be null.
+     */
+    protected void queue(Action action, Connector conn, int line, String username, String email, String password)
     {
-        switch(action)
+        batch.add(new Row(line, username, email, password));
+        if(batch.size() >= BATCH_SIZE)
+            flush(action, conn);
+    }
+    /**
+     * Applies any queued rows.
+     * 
+     * @param action The action to be applied.
+     * @param conn Database connector.
+     */
+    protected void flush(Action action, Connector conn)
+    {
+        if(batch.isEmpty())
+            return;
+        // Clean input and discard duplicate usernames within the batch
+        LinkedHashMap<String,Row> rows = new LinkedHashMap<>();
+        String key;
+        for(Row row : batch)
         {
-            case AddUsers:
-                userAdd(data, username, email, password);
-                break;
-            case DisenrollFromModule:
-                userDisenroll(data, username, email, password);
-                break;
-            case RemoveUsers:
-                userDelete(data, username, email, password);
-                break;
+            row.username = row.username.trim();
+            row.email = row.email.trim();
+            if(row.password != null)
+                row.password = row.password.trim();
+            key = row.username.toLowerCase();
+            if(rows.containsKey(key))
+                errors.add("Line "+row.line+" ignored - username '"+row.username+"' is duplicated in the file.");
+            else
+                rows.put(key, row);
+        }
+        int size = batch.size();
+        batch.clear();
+        // Fetch the existing users with a single query
+        User[] existing = User.load(conn, rows.keySet().toArray(new String[rows.size()]));
+        if(existing == null)
+            errors.add("Failed to load existing users for "+rows.size()+" rows due to error.");
+        else
+        {
+            HashMap<String,User> users = new HashMap<>();
+            for(User u : existing)
+                users.put(u.getUsername().toLowerCase(), u);
+            switch(action)
+            {
+                case AddUsers:
+                    usersAdd(conn, rows, users);
+                    break;
+                case DisenrollFromModule:
+                    usersDisenroll(conn, users);
+                    break;
+                case RemoveUsers:
+                    usersDelete(conn, users);
+                    break;
+            }
+        }
+        rowsProcessed += size;
+    }
+    private void usersAdd(Connector conn, LinkedHashMap<String,Row> rows, HashMap<String,User> users)
+    {
+        ArrayList<Row> created = new ArrayList<>();
+        ArrayList<User> enroll = new ArrayList<>();
+        User u;
+        User.PersistStatus_User ps;
+        for(Row row : rows.values())
+        {
+            if((u = users.get(row.username.toLowerCase())) == null)
+            {
+                // Create user
+                u = new User();
+                u.setUsername(row.username);
+                u.setEmail(row.email);
+                u.setGroup(group);
+                if((ps = u.validate()) != User.PersistStatus_User.Success)
+                {
+                    persistResult(conn, u, ps);
+                    continue;
+                }
+                // Generate a password, hashed later in parallel
+                if(row.password == null || row.password.length() == 0)
+                {
+                    int len = u.getPasswordMin()+((u.getPasswordMax()-u.getPasswordMin())/2);
+                    row.password = Misc.randomText(core, len);
+                }
+                row.user = u;
+                created.add(row);
+            }
+            else if(!row.email.equals(u.getEmail()))
+            {
+                // Update e-mail
+                u.setEmail(row.email);
+                persistResult(conn, u, u.persist(core, conn));
+                enroll.add(u);
+            }
+            else
+                enroll.add(u);
+            usersAffected++;
+        }
+        // Discard new users with an e-mail in-use, using a single query
+        if(!created.isEmpty())
+            usersAddCheckEmails(conn, created);
+        // Hash passwords in parallel and persist the new users
+        if(!created.isEmpty())
+            usersAddPersist(conn, created);
+        for(Row row : created)
+            enroll.add(row.user);
+        // Enroll the users on the module
+        if(module != null && !enroll.isEmpty())
+            usersEnroll(conn, enroll);
+        // Queue e-mails with the password of each new user
+        if(!created.isEmpty())
+            usersAddEmails(conn, created);
+    }
+    private void usersAddCheckEmails(Connector conn, ArrayList<Row> created)
+    {
+        // Fetch the owners of any e-mails already in-use
+        HashMap<String,String> inUse = new HashMap<>();
+        StringBuilder sb = new StringBuilder("SELECT username, email FROM pals_users WHERE lower(email) IN (");
+        Object[] values = new Object[created.size()];
+        for(int i = 0; i < values.length; i++)
+        {
+            sb.append("?,");
+            values[i] = created.get(i).email.toLowerCase();
+        }
+        sb.deleteCharAt(sb.length()-1).append(");");
+        try
+        {
+            pals.base.database.Result res = conn.read(sb.toString(), values);
+            while(res.next())
+                inUse.put(((String)res.get("email")).toLowerCase(), (String)res.get("username"));
+        }
+        catch(DatabaseException ex)
+        {
+            // Fall-back to persisting each user, which checks uniqueness
+            return;
+        }
+        // Remove conflicting rows, including e-mails duplicated in the batch
+        String key, owner;
+        Row row;
+        for(int i = 0; i < created.size(); )
+        {
+            row = created.get(i);
+            key = row.email.toLowerCase();
+            if((owner = inUse.get(key)) != null)
+            {
+                errors.add("Failed to create user '"+row.username+"' - e-mail ('"+row.email+"') already in-use by '"+owner+"'.");
+                created.remove(i);
+                usersAffected--;
+            }
+            else
+            {
+                inUse.put(key, row.username);
+                i++;
+            }
         }
     }
-    protected void userAdd(WebRequestData data, String username, String email, String password)
+    private void usersAddPersist(Connector conn, ArrayList<Row> created)
     {
-        // Clean input
-        username = username.trim();
-        email = email.trim();
-        if(password != null)
-            password = password.trim();
-        // Check if the user exists
-        User u = User.load(data.getConnector(), username);
-        boolean needsPersisting, needsEmail = false;
-        if(u == null)
+        // Hash passwords on the pool, or the current thread if no pool is available
+        ArrayList<Future<String>> hashes = new ArrayList<>(created.size());
+        for(final Row row : created)
         {
-            // Create user
-            u = new User();
-            // Set account details
-            u.setUsername(username);
-            u.setEmail(email);
-            u.setGroup(group);
-            // Set/generate password
-            if(password == null || password.length() == 0)
+            final String salt = auth.getNewSalt();
+            row.user.setPasswordSalt(salt);
+            if(hasher == null)
+                row.user.setPassword(auth.hash(row.password, salt));
+            else
             {
-                int len = u.getPasswordMin()+((u.getPasswordMax()-u.getPasswordMin())/2);
-                password = Misc.randomText(core, len);
+                hashes.add(hasher.submit(new Callable<String>()
+                {
+                    @Override
+                    public String call() throws Exception
+                    {
+                        return auth.hash(row.password, salt);
+                    }
+                }));
             }
-            // Generate salt and hash password
-            String salt = auth.getNewSalt();
-            u.setPasswordSalt(salt);
-            u.setPassword(auth.hash(password, salt));
-            needsPersisting = true;
-            needsEmail = true;
         }
-        else if(!u.getEmail().equals(email))
+        if(hasher != null)
         {
-            // Update e-mail
-            u.setEmail(email);
-            needsPersisting = true;
+            try
+            {
+                for(int i = 0; i < hashes.size(); i++)
+                    created.get(i).user.setPassword(hashes.get(i).get());
+            }
+            catch(InterruptedException | ExecutionException ex)
+            {
+                for(Future<String> f : hashes)
+                    f.cancel(true);
+                cancelled = true;
+                errors.add("Hashing of passwords was interrupted; "+created.size()+" users have not been created.");
+                usersAffected -= created.size();
+                created.clear();
+                return;
+            }
+        }
+        // Persist the new users with a single statement
+        User[] users = new User[created.size()];
+        for(int i = 0; i < users.length; i++)
+            users[i] = created.get(i).user;
+        if(User.persistAll(conn, users))
+        {
+            for(User u : users)
+                messages.add("Created/modified user '"+u.getUsername()+"'.");
         }
         else
-            needsPersisting = false;
-        // Persist user model changes
-        if(needsPersisting)
         {
-            User.PersistStatus_User ps = u.persist(core, data.getConnector());
-            switch(ps)
+            // Fall-back to persisting each user, for an individual status
+            Row row;
+            for(int i = 0; i < created.size(); )
             {
-                default:
-                    errors.add("Failed to persist user '"+u.getUsername()+"' ("+u.getUserID()+"): "+ps.name());
-                    break;
-                case Failed:
-                    errors.add("Failed to persist user '"+u.getUsername()+"' ("+u.getUserID()+") due to error.");
-                    break;
-                case InvalidPassword_length:
-                    errors.add("Failed to create user '"+u.getUsername()+"' - password must be "+u.getPasswordMin()+" to "+u.getPasswordMax()+" characters in length.");
-                    break;
-                case InvalidEmail_exists:
-                    User dup = User.loadByEmail(data.getConnector(), email);
-                    errors.add("Failed to create user '"+u.getUsername()+"' - e-mail ('"+u.getEmail()+"') already in-use by '"+(dup != null ? dup.getUsername() : "(could not load model)")+"'.");
-                    break;
-                case Success:
-                    messages.add("Created/modified user '"+u.getUsername()+"'.");
-                    break;
+                row = created.get(i);
+                if(persistResult(conn, row.user, row.user.persist(core, conn)))
+                    i++;
+                else
+                {
+                    created.remove(i);
+                    usersAffected--;
+                }
             }
-            if(ps != User.PersistStatus_User.Success)
-                needsEmail = false;
         }
-        // Check if to deploy an e-mail with the user's password
-        if(needsEmail)
+    }
+    private void usersAddEmails(Connector conn, ArrayList<Row> created)
+    {
+        String loginUrl = core.getSettings().getStr("web/base_url")+"/account/login";
+        String inst = core.getSettings().getStr("templates/institution");
+        String title = "PALS - "+(inst != null ? inst + " - " : "")+"Account Creation";
+        DateTime now = DateTime.now();
+        // Format e-mail messages
+        ArrayList<Email> emails = new ArrayList<>(created.size());
+        HashMap<String,Object> kvs;
+        String content;
+        for(Row row : created)
+        {
+            kvs = new HashMap<>();
+            kvs.put("user", row.user);
+            kvs.put("datetime", now);
+            kvs.put("password", row.password);
+            kvs.put("login_url", loginUrl);
+            if((content = core.getTemplates().render(null, kvs, "default_auth/email_creation")) != null)
+                emails.add(new Email(title, content, row.email));
+            else
+                errors.add("Failed to render account e-mail for '"+row.username+"'.");
+        }
+        // Add e-mails to queue with a single statement
+        if(!Email.persistAll(conn, emails.toArray(new Email[emails.size()])))
+            errors.add("Failed to queue "+emails.size()+" account e-mails due to error.");
+        else if(!emails.isEmpty())
         {
-            // Format e-mail message
-            HashMap<String,Object> kvs = new HashMap<>();
-            kvs.put("user", u);
-            kvs.put("datetime", DateTime.now());
-            kvs.put("password", password);
-            kvs.put("login_url", data.getCore().getSettings().getStr("web/base_url")+"/account/login");
-            String content = core.getTemplates().render(data, kvs, "default_auth/email_creation");
-            // Add e-mail to queue
-            String inst = core.getSettings().getStr("templates/institution");
-            Email m = new Email("PALS - "+(inst != null ? inst + " - " : "")+"Account Creation", content, email);
-            m.persist(data.getConnector());
             // Wake e-mail service
             core.getRMI().nodesGlobalEvent("base.web.email.wake", new Object[]{});
         }
-        // Check if to enroll the user on a module
-        if(module != null)
+    }
+    private void usersEnroll(Connector conn, ArrayList<User> users)
+    {
+        HashSet<Integer> enrolled = enrolledUserIDs(conn, users);
+        if(enrolled == null)
+        {
+            errors.add("Failed to enroll "+users.size()+" users due to error.");
+            return;
+        }
+        ArrayList<User> pending = new ArrayList<>();
+        for(User u : users)
         {
-            if(module.usersAdd(data.getConnector(), u))
+            if(!enrolled.contains(u.getUserID()))
+                pending.add(u);
+        }
+        if(pending.isEmpty())
+            return;
+        if(module.usersAdd(conn, pending.toArray(new User[pending.size()])))
+        {
+            for(User u : pending)
                 messages.add("Enrolled '"+u.getUsername()+"' on module.");
         }
-        usersAffected++;
+        else
+            errors.add("Failed to enroll "+pending.size()+" users due to error.");
     }
-    protected void userDisenroll(WebRequestData data, String username, String email, String password)
+    private void usersDisenroll(Connector conn, HashMap<String,User> users)
     {
-        if(module == null)
+        if(module == null || users.isEmpty())
             return;
-        // Clean input
-        username = username.trim();
-        // Load user model
-        User u = User.load(data.getConnector(), username);
-        if(u != null)
+        // Remove the users enrolled on the module
+        ArrayList<User> found = new ArrayList<>(users.values());
+        HashSet<Integer> enrolled = enrolledUserIDs(conn, found);
+        if(enrolled == null)
         {
-            // Remove the user from the module
-            if(module.isEnrolled(data.getConnector(), u))
-            {
-                if(module.usersRemove(data.getConnector(), u))
-                {
-                    messages.add("Disenrolled '"+u.getUsername()+"' from module.");
-                    usersAffected++;
-                }
-                else
-                    messages.add("Failed to disenroll '"+u.getUsername()+"'.");
-            }
+            errors.add("Failed to disenroll "+found.size()+" users due to error.");
+            return;
+        }
+        ArrayList<User> pending = new ArrayList<>();
+        for(User u : found)
+        {
+            if(enrolled.contains(u.getUserID()))
+                pending.add(u);
+        }
+        if(pending.isEmpty())
+            return;
+        if(module.usersRemove(conn, pending.toArray(new User[pending.size()])))
+        {
+            for(User u : pending)
+                messages.add("Disenrolled '"+u.getUsername()+"' from module.");
+            usersAffected += pending.size();
         }
+        else
+            messages.add("Failed to disenroll "+pending.size()+" users.");
     }
-    protected void userDelete(WebRequestData data, String username, String email, String password)
+    private void usersDelete(Connector conn, HashMap<String,User> users)
     {
-        // Clean input
-        username = username.trim();
-        // Load the user
-        User u = User.load(data.getConnector(), username);
-        if(u != null)
+        // Remove them from the system...
+        for(User u : users.values())
         {
-            // Remove them from the system...
-            u.delete(data.getConnector());
-            messages.add("Deleted user '"+u.getUsername()+"'.");
+            if(u.delete(conn))
+                messages.add("Deleted user '"+u.getUsername()+"'.");
         }
     }
+    /**
+     * Fetches which of the users are enrolled on the module, using a single
+     * query.
+     * 
+     * @param conn Database connector.
+     * @param users The users to check.
+     * @return The identifiers of the enrolled users, or null if an error
+     * occurs.
+     */
+    private HashSet<Integer> enrolledUserIDs(Connector conn, ArrayList<User> users)
+    {
+        StringBuilder sb = new StringBuilder("SELECT userid FROM pals_modules_enrollment WHERE moduleid=? AND userid IN (");
+        Object[] values = new Object[users.size()+1];
+        values[0] = module.getModuleID();
+        for(int i = 0; i < users.size(); i++)
+        {
+            sb.append("?,");
+            values[i+1] = users.get(i).getUserID();
+        }
+        sb.deleteCharAt(sb.length()-1).append(");");
+        try
+        {
+            HashSet<Integer> enrolled = new HashSet<>();
+            pals.base.database.Result res = conn.read(sb.toString(), values);
+            while(res.next())
+                enrolled.add((int)res.get("userid"));
+            return enrolled;
+        }
+        catch(DatabaseException ex)
+        {
+            return null;
+        }
+    }
+    /**
+     * Adds a message for the status of persisting a user.
+     * 
+     * @return True if the user was persisted, false otherwise.
+     */
+    private boolean persistResult(Connector conn, User u, User.PersistStatus_User ps)
+    {
+        switch(ps)
+        {
+            default:
+                errors.add("Failed to persist user '"+u.getUsername()+"' ("+u.getUserID()+"): "+ps.name());
+                break;
+            case Failed:
+                errors.add("Failed to persist user '"+u.getUsername()+"' ("+u.getUserID()+") due to error.");
+                break;
+            case InvalidPassword_length:
+                errors.add("Failed to create user '"+u.getUsername()+"' - password must be "+u.getPasswordMin()+" to "+u.getPasswordMax()+" characters in length.");
+                break;
+            case InvalidEmail_exists:
+                User dup = User.loadByEmail(conn, u.getEmail());
+                errors.add("Failed to create user '"+u.getUsername()+"' - e-mail ('"+u.getEmail()+"') already in-use by '"+(dup != null ? dup.getUsername() : "(could not load model)")+"'.");
+                break;
+            case Success:
+                messages.add("Created/modified user '"+u.getUsername()+"'.");
+                break;
+        }
+        return ps == User.PersistStatus_User.Success;
+    }
+    /**
+     * Requests parsing to cease; rows already applied are not reverted.
+     */
+    public void cancel()
+    {
+        cancelled = true;
+    }
+    // Methods - Mutators ******************************************************
+    /**
+     * @param hasher The pool used to hash passwords in parallel; can be null,
+     * in which case passwords are hashed by the parsing thread.
+     */
+    public void setHasher(ExecutorService hasher)
+    {
+        this.hasher = hasher;
+    }
     // Methods - Accessors *****************************************************
     /**
      * @return The module for affected users; can be null.
@@ -314,13 +610,28 @@ public abstract class Parser
     {
         return usersAffected;
     }
+    /**
+     * @return The number of rows applied.
+     */
+    public int getRowsProcessed()
+    {
+        return rowsProcessed;
+    }
+    /**
+     * @return The percentage of the file read, from 0 to 100.
+     */
+    public int getProgress()
+    {
+        long total = bytesTotal;
+        return total <= 0 ? 0 : (int)Math.min(100, (bytesRead*100)/total);
+    }
     /**
      * @return Array of error messages; can be empty. This may only indicate
      * operations have failed for individual users.
      */
     public String[] getErrors()
     {
-        return errors.toArray(new String[errors.size()]);
+        return errors.toArray(new String[0]);
     }
     /**
      * @return Array of information messages; can be empty. Indicates general
@@ -328,6 +639,25 @@ public abstract class Parser
      */
     public String[] getMessages()
     {
-        return messages.toArray(new String[messages.size()]);
+        return messages.toArray(new String[0]);
+    }
+    // Classes *****************************************************************
+    /**
+     * A row queued for applying an action.
+     */
+    protected static class Row
+    {
+        final int   line;
+        String      username,
+                    email,
+                    password;
+        User        user;       // The new user of the row; can be null.
+        Row(int line, String username, String email, String password)
+        {
+            this.line = line;
+            this.username = username;
+            this.email = email;
+            this.password = password;
+        }
     }
 }
@@ -28,6 +28,7 @@
 package pals.plugins.auth.models;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import pals.base.auth.UserGroup;
 import pals.base.database.Connector;
 import pals.base.database.DatabaseException;
@@ -52,47 +53,48 @@ public class ModelUser
     }
     // Methods - Persistence ***************************************************
     /**
+     * Loads a page of users, ordered by username; pages are located with a
+     * cursor, being a user on an adjacent page, rather than an offset, thus
+     * deep pages are as fast as the first page.
+     * 
      * @param conn Database connector.
-     * @param filter Username filter.
+     * @param filter Username/e-mail filter; can be null.
+     * @param ug The group of users to retrieve; can be null for all users.
      * @param amount The maximum number of users to retrieve.
-     * @param offset The offset, amount, of users to retrieve.
-     * @return Array of users; can be empty.
+     * @param cursor The identifier of the user the page is relative to; -1
+     * for the first page.
+     * @param before True = the users before the cursor, false = the users
+     * after the cursor.
+     * @return Array of users, ordered by username; empty if none remain or the
+     * cursor no longer exists, in which case the first page should be loaded.
      */
-    public static ModelUser[] load(Connector conn, String filter, int amount, int offset)
+    public static ModelUser[] loadPage(Connector conn, String filter, UserGroup ug, int amount, int cursor, boolean before)
     {
         try
         {
-            Result res;
+            // Build the query
+            StringBuilder sb = new StringBuilder("SELECT userid, username, email FROM pals_users WHERE TRUE");
+            ArrayList<Object> values = new ArrayList<>();
             if(filter != null && filter.length() > 0)
-                res = conn.read("SELECT userid, username, email FROM pals_users WHERE username LIKE ? OR email LIKE ? ORDER BY username ASC LIMIT ? OFFSET ?;", "%"+filter.replace("%", "")+"%", "%"+filter.replace("%", "")+"%", amount, offset);
-            else
-                res = conn.read("SELECT userid, username, email FROM pals_users ORDER BY username ASC LIMIT ? OFFSET ?;", amount, offset);
-            ArrayList<ModelUser> buffer = new ArrayList<>();
-            ModelUser t;
-            while(res.next())
             {
-                if((t = load(res)) != null)
-                    buffer.add(t);
+                sb.append(" AND (username LIKE ? OR email LIKE ?)");
+                values.add("%"+filter.replace("%", "")+"%");
+                values.add("%"+filter.replace("%", "")+"%");
             }
-            return buffer.toArray(new ModelUser[buffer.size()]);
-        }
-        catch(DatabaseException ex)
-        {
-            return new ModelUser[0];
-        }
-    }
-    /**
-     * @param ug The group of users to retrieve.
-     * @param conn Database connector.
-     * @param amount The maximum number of users to retrieve.
-     * @param offset The offset, amount, of users to retrieve.
-     * @return Array of users belonging to the specified group; can be empty.
-     */
-    public static ModelUser[] loadGroup(UserGroup ug, Connector conn, int amount, int offset)
-    {
-        try
-        {
-            Result res = conn.read("SELECT userid, username, email FROM pals_users WHERE groupid=? LIMIT ? OFFSET ?;", ug.getGroupID(), amount, offset);
+            if(ug != null)
+            {
+                sb.append(" AND groupid=?");
+                values.add(ug.getGroupID());
+            }
+            if(cursor != -1)
+            {
+                sb.append(before ? " AND (username, userid) < " : " AND (username, userid) > ").append("(SELECT username, userid FROM pals_users WHERE userid=?)");
+                values.add(cursor);
+            }
+            sb.append(before && cursor != -1 ? " ORDER BY username DESC, userid DESC" : " ORDER BY username ASC, userid ASC").append(" LIMIT ?;");
+            values.add(amount);
+            // Read the models
+            Result res = conn.read(sb.toString(), values.toArray());
             ArrayList<ModelUser> buffer = new ArrayList<>();
             ModelUser t;
             while(res.next())
@@ -100,6 +102,9 @@ public class ModelUser
                 if((t = load(res)) != null)
                     buffer.add(t);
             }
+            // Restore ascending order for pages before the cursor
+            if(before && cursor != -1)
+                Collections.reverse(buffer);
             return buffer.toArray(new ModelUser[buffer.size()]);
         }
         catch(DatabaseException ex)
@@ -31,6 +31,7 @@ import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import pals.plugins.handlers.defaultqch.questions.*;
 import pals.plugins.handlers.defaultqch.criterias.*;
+import pals.plugins.handlers.defaultqch.data.Codecs;
 import pals.base.Logging;
 import pals.base.NodeCore;
 import pals.base.Plugin;
@@ -192,6 +193,8 @@ public class DefaultQC extends Plugin
     @Override
     public boolean eventHandler_pluginLoad(NodeCore core)
     {
+        // Register codecs for the data of questions and criteria
+        Codecs.register();
         return true;
     }
     @Override
@@ -200,6 +203,8 @@ public class DefaultQC extends Plugin
         // Unload templates
         core.getTemplates().remove(this);
         core.getWebManager().urlsUnregister(this);
+        // Unregister codecs
+        Codecs.unregister();
     }
     @Override
     public boolean eventHandler_registerTemplates(NodeCore core, TemplateManager manager)
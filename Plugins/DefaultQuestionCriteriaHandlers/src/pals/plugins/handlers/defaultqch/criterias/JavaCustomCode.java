@@ -299,7 +299,7 @@ public class JavaCustomCode
             JavaCustom_InstanceCriteria.FeedbackMessage[] msgs = icdata.getMessages();
             kvs.put("messages", msgs);
             // Render and output template
-            html.append(data.getCore().getTemplates().render(data, kvs, "defaultqch/criteria/javacustom_display"));
+            data.getCore().getTemplates().render(data, kvs, "defaultqch/criteria/javacustom_display", html);
             return true;
         }
         return false;
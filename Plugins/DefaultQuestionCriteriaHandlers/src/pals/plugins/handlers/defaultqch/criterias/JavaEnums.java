@@ -271,7 +271,7 @@ public class JavaEnums
                 break;
         }
         // Render template
-        html.append(data.getCore().getTemplates().render(data, kvs, "defaultqch/criteria/feedback_display"));
+        data.getCore().getTemplates().render(data, kvs, "defaultqch/criteria/feedback_display", html);
         return true;
     }
 }
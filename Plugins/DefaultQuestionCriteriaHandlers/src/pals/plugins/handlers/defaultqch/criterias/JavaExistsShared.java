@@ -505,7 +505,7 @@ public class JavaExistsShared
                     }
                     break;
             }
-            html.append(data.getCore().getTemplates().render(data, kvs, "defaultqch/criteria/feedback_display"));
+            data.getCore().getTemplates().render(data, kvs, "defaultqch/criteria/feedback_display", html);
             return true;
         }
         return false;
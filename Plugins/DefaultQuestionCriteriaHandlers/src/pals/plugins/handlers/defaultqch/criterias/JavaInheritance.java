@@ -263,7 +263,7 @@ public class JavaInheritance
             }
         }
         // Render template
-        html.append(data.getCore().getTemplates().render(data, kvs, "defaultqch/criteria/feedback_display"));
+        data.getCore().getTemplates().render(data, kvs, "defaultqch/criteria/feedback_display", html);
         return true;
     }
 }
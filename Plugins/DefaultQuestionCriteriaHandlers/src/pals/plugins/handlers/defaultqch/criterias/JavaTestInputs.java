@@ -373,7 +373,7 @@ public class JavaTestInputs
             }
             kvs.put("hints", hints.toArray(new String[hints.size()]));
             // Render template
-            html.append(data.getCore().getTemplates().render(data, kvs, "defaultqch/criteria/javatestinputs_display"));
+            data.getCore().getTemplates().render(data, kvs, "defaultqch/criteria/javatestinputs_display", html);
             return true;
         }
         return false;
@@ -348,7 +348,7 @@ public class JavaTestProgram
             }
             kvs.put("hints", hints.toArray(new String[hints.size()]));
             // Render template
-            html.append(data.getCore().getTemplates().render(data, kvs, "defaultqch/criteria/javatestprogram_display"));
+            data.getCore().getTemplates().render(data, kvs, "defaultqch/criteria/javatestprogram_display", html);
             return true;
         }
         return false;
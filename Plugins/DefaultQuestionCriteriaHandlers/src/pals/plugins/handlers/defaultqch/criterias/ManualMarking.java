@@ -104,26 +104,9 @@ public class ManualMarking
                         kvs.put("error", "Failed to update feedback ('"+iacps.name()+"'); please try again or contact an administrator!");
                         break;
                     case Success:
-                        // Check if to recompute the assignment's grade
-                        if(ia.isMarkComputationNeeded(data.getConnector()))
-                        {
-                            if(ia.computeMark(data.getConnector()))
-                            {
-                                ia.setStatus(InstanceAssignment.Status.Marked);
-                                InstanceAssignment.PersistStatus iaps = ia.persist(data.getConnector());
-                                switch(iaps)
-                                {
-                                    default:
-                                        kvs.put("error", "Failed to update the status of the assignment to marked.");
-                                        break;
-                                    case Success:
-                                        kvs.put("success", "Updated feedback, computed assignment grade and set status to marked.");
-                                        break;
-                                }
-                            }
-                            else
-                                kvs.put("error", "Could not compute the grade for this assignment.");
-                        }
+                        // Complete the marking of the assignment, if this was the last criteria to be marked
+                        if(ia.completeMarking(data.getConnector()))
+                            kvs.put("success", "Updated feedback, computed assignment grade and set status to marked.");
                         else
                             kvs.put("success", "Updated feedback.");
                         break;
@@ -140,7 +123,7 @@ public class ManualMarking
         kvs.put("edit_mode", editMode);
         kvs.put("aiqid", iaq.getAIQID());
         kvs.put("qcid", iac.getQC().getQCID());
-        html.append(data.getCore().getTemplates().render(data, kvs, "defaultqch/criteria/manual_display"));
+        data.getCore().getTemplates().render(data, kvs, "defaultqch/criteria/manual_display", html);
         return true;
     }
 }
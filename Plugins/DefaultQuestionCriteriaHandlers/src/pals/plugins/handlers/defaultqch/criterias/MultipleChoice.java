@@ -177,7 +177,7 @@ public class MultipleChoice
             {
                 kvs.put("error_correct", cdata.getCorrect(qdata));
             }
-            html.append(data.getCore().getTemplates().render(data, kvs, "defaultqch/criteria/mcq_display"));
+            data.getCore().getTemplates().render(data, kvs, "defaultqch/criteria/mcq_display", html);
             return true;
         }
         return false;
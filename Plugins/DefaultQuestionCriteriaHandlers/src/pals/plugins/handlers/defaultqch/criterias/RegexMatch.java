@@ -203,7 +203,7 @@ public class RegexMatch
                 kvs.put(!matched ? "success" : "error", !matched ? "Correct answer." : cdata.getHide() ? "Your answer includes something (hidden) disallowed." : "Your answer was matched by the regular-expressions pattern '"+cdata.getRegexPattern()+"'.");
             else
                 kvs.put(matched ? "success" : "error", matched ? "Correct answer." : cdata.getHide() ? "Your answer does not include something (hidden) required." : "Your answer was not matched by the regular-expressions pattern '"+cdata.getRegexPattern()+"'.");
-            html.append(data.getCore().getTemplates().render(data, kvs, "defaultqch/criteria/feedback_display"));
+            data.getCore().getTemplates().render(data, kvs, "defaultqch/criteria/feedback_display", html);
             return true;
         }
         return false;
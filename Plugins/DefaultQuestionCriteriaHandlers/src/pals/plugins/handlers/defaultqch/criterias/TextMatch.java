@@ -139,7 +139,7 @@ public class TextMatch
             boolean matched = (Boolean)fdata;
             HashMap<String,Object> kvs = new HashMap<>();
             kvs.put(matched ? "success" : "error", matched ? "Correct answer." : "The correct answer was '"+cdata.getText()+"'.");
-            html.append(data.getCore().getTemplates().render(data, kvs, "defaultqch/criteria/feedback_display"));
+            data.getCore().getTemplates().render(data, kvs, "defaultqch/criteria/feedback_display", html);
             return true;
         }
         return false;
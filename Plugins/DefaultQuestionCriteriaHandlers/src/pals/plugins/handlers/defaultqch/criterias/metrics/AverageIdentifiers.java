@@ -160,7 +160,7 @@ public class AverageIdentifiers implements Metric
             else
                 kvs.put("success", "Acceptable average identifier length.");
             
-            html.append(data.getCore().getTemplates().render(data, kvs, "defaultqch/criteria/feedback_display"));
+            data.getCore().getTemplates().render(data, kvs, "defaultqch/criteria/feedback_display", html);
         }
     }
     @Override
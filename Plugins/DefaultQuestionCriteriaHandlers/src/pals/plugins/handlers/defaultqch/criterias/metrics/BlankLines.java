@@ -100,7 +100,7 @@ public class BlankLines implements Metric
             else
                 kvs.put("success", "Acceptable amount of blank lines.");
             
-            html.append(data.getCore().getTemplates().render(data, kvs, "defaultqch/criteria/feedback_display"));
+            data.getCore().getTemplates().render(data, kvs, "defaultqch/criteria/feedback_display", html);
         }
     }
     @Override
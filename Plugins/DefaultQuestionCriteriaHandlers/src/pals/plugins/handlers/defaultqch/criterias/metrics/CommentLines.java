@@ -108,7 +108,7 @@ public class CommentLines implements Metric
             else
                 kvs.put("success", "Acceptable amount of commenting.");
             
-            html.append(data.getCore().getTemplates().render(data, kvs, "defaultqch/criteria/feedback_display"));
+            data.getCore().getTemplates().render(data, kvs, "defaultqch/criteria/feedback_display", html);
         }
     }
     @Override
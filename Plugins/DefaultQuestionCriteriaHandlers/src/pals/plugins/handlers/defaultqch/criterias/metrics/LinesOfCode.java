@@ -100,7 +100,7 @@ public class LinesOfCode implements Metric
             else
                 kvs.put("success", "Acceptable amount of lines of code.");
             
-            html.append(data.getCore().getTemplates().render(data, kvs, "defaultqch/criteria/feedback_display"));
+            data.getCore().getTemplates().render(data, kvs, "defaultqch/criteria/feedback_display", html);
         }
     }
     @Override
@@ -184,6 +184,10 @@ public class CodeJava_Shared implements Serializable
         return false;
     }
     // Methods - File Collection ***********************************************
+    void setFilesMap(TreeSet<String> files)
+    {
+        this.files = files;
+    }
     /**
      * Processes an uploaded file, which can be a zip-archive (and extracted)
      * or a normal file. Class-files are ignored for security.
@@ -378,6 +382,10 @@ public class CodeJava_Shared implements Serializable
         files.remove(fileName);
     }
     // Methods - Code Collection ***********************************************
+    void setCodeMap(TreeMap<String,String> code)
+    {
+        this.code = code;
+    }
     /**
      * Removes all of the added classes.
      */
@@ -0,0 +1,360 @@
+/*
+    The MIT License (MIT)
+
+    Copyright (c) 2014 Marcus Craske <limpygnome@gmail.com>
+
+    Permission is hereby granted, free of charge, to any person obtaining a copy
+    of this software and associated documentation files (the "Software"), to deal
+    in the Software without restriction, including without limitation the rights
+    to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+    copies of the Software, and to permit persons to whom the Software is
+    furnished to do so, subject to the following conditions:
+
+    The above copyright notice and this permission notice shall be included in
+    all copies or substantial portions of the Software.
+
+    THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+    IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+    FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+    AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+    LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+    OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+    THE SOFTWARE.
+    ----------------------------------------------------------------------------
+    Version:    1.0
+    Authors:    Marcus Craske           <limpygnome@gmail.com>
+    ----------------------------------------------------------------------------
+*/
+package pals.plugins.handlers.defaultqch.data;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import pals.base.utils.DataCodec;
+import pals.base.utils.DataCodecs;
+import pals.plugins.handlers.defaultqch.java.CompilerResult;
+import static pals.base.utils.DataCodecs.readString;
+import static pals.base.utils.DataCodecs.readStrings;
+import static pals.base.utils.DataCodecs.readVarInt;
+import static pals.base.utils.DataCodecs.writeString;
+import static pals.base.utils.DataCodecs.writeStrings;
+import static pals.base.utils.DataCodecs.writeVarInt;
+
+/**
+ * The codecs for the data of questions and criteria, which are stored in a
+ * compact binary format instead of Java serialization; data already stored
+ * with Java serialization is still read as before.
+ * 
+ * The names of the codecs are stored with the data and must never change;
+ * changes to a format should increment the version of its codec, with the
+ * older versions still read.
+ */
+public class Codecs
+{
+    // Fields - Constants ******************************************************
+    private static final DataCodec<?>[] CODECS = new DataCodec<?>[]
+    {
+        new CodeJavaQuestionCodec(),
+        new CodeJavaInstanceCodec(),
+        new MultipleChoiceQuestionCodec(),
+        new JavaTestInputsCodec(),
+        new JavaTestProgramCodec()
+    };
+    // Methods - Static ********************************************************
+    /**
+     * Registers the codecs; invoked when the plugin is loaded.
+     */
+    public static void register()
+    {
+        for(DataCodec<?> codec : CODECS)
+            DataCodecs.register(codec);
+    }
+    /**
+     * Unregisters the codecs; invoked when the plugin is unloaded.
+     */
+    public static void unregister()
+    {
+        for(DataCodec<?> codec : CODECS)
+            DataCodecs.unregister(codec);
+    }
+    private static void writeShared(DataOutputStream dos, CodeJava_Shared data) throws IOException
+    {
+        // Code; written as the count plus one, where zero is null
+        if(data.getCodeMap() == null)
+            writeVarInt(dos, 0);
+        else
+        {
+            writeVarInt(dos, data.getCodeMap().size()+1);
+            for(Map.Entry<String,String> kv : data.getCodeMap().entrySet())
+            {
+                writeString(dos, kv.getKey());
+                writeString(dos, kv.getValue());
+            }
+        }
+        // Files
+        if(data.getFilesMap() == null)
+            writeVarInt(dos, 0);
+        else
+        {
+            writeVarInt(dos, data.getFilesMap().size()+1);
+            for(String file : data.getFilesMap())
+                writeString(dos, file);
+        }
+    }
+    private static void readShared(DataInputStream dis, CodeJava_Shared data) throws IOException
+    {
+        int count = readVarInt(dis);
+        if(count > 0)
+        {
+            TreeMap<String,String> code = new TreeMap<>();
+            for(int i = 1; i < count; i++)
+                code.put(readString(dis), readString(dis));
+            data.setCodeMap(code);
+        }
+        count = readVarInt(dis);
+        if(count > 0)
+        {
+            TreeSet<String> files = new TreeSet<>();
+            for(int i = 1; i < count; i++)
+                files.add(readString(dis));
+            data.setFilesMap(files);
+        }
+    }
+    private static void checkVersion(DataCodec<?> codec, int version) throws IOException
+    {
+        if(version != codec.getVersion())
+            throw new IOException("Unsupported version "+version+" of codec '"+codec.getName()+"'.");
+    }
+    // Classes *****************************************************************
+    private static class CodeJavaQuestionCodec implements DataCodec<CodeJava_Question>
+    {
+        @Override
+        public String getName()
+        {
+            return "dqch.cjq";
+        }
+        @Override
+        public Class<CodeJava_Question> getType()
+        {
+            return CodeJava_Question.class;
+        }
+        @Override
+        public int getVersion()
+        {
+            return 1;
+        }
+        @Override
+        public void write(CodeJava_Question obj, DataOutputStream dos) throws IOException
+        {
+            writeShared(dos, obj);
+            writeString(dos, obj.getText());
+            writeString(dos, obj.getSkeleton());
+            writeStrings(dos, obj.getWhitelist());
+            writeVarInt(dos, obj.getType().getFormValue());
+        }
+        @Override
+        public CodeJava_Question read(int version, DataInputStream dis) throws IOException
+        {
+            checkVersion(this, version);
+            CodeJava_Question obj = new CodeJava_Question();
+            readShared(dis, obj);
+            obj.setText(readString(dis));
+            obj.setSkeleton(readString(dis));
+            String[] whitelist = readStrings(dis);
+            if(whitelist != null)
+                obj.setWhitelist(whitelist);
+            obj.setType(CodeJava_Question.QuestionType.parse(String.valueOf(readVarInt(dis))));
+            return obj;
+        }
+    }
+    private static class CodeJavaInstanceCodec implements DataCodec<CodeJava_Instance>
+    {
+        @Override
+        public String getName()
+        {
+            return "dqch.cji";
+        }
+        @Override
+        public Class<CodeJava_Instance> getType()
+        {
+            return CodeJava_Instance.class;
+        }
+        @Override
+        public int getVersion()
+        {
+            return 1;
+        }
+        @Override
+        public void write(CodeJava_Instance obj, DataOutputStream dos) throws IOException
+        {
+            writeShared(dos, obj);
+            dos.writeBoolean(obj.isPrepared());
+            writeVarInt(dos, obj.getStatus().getFormValue());
+            CodeError[] errors = obj.getErrors();
+            writeVarInt(dos, errors.length);
+            for(CodeError e : errors)
+            {
+                writeString(dos, e.getClassName());
+                writeString(dos, e.getMessage());
+                dos.writeInt(e.getLine());
+                dos.writeInt(e.getCol());
+            }
+        }
+        @Override
+        public CodeJava_Instance read(int version, DataInputStream dis) throws IOException
+        {
+            checkVersion(this, version);
+            CodeJava_Instance obj = new CodeJava_Instance();
+            readShared(dis, obj);
+            obj.setPrepared(dis.readBoolean());
+            int status = readVarInt(dis);
+            for(CompilerResult.CompileStatus cs : CompilerResult.CompileStatus.values())
+            {
+                if(cs.getFormValue() == status)
+                    obj.setCompileStatus(cs);
+            }
+            int errors = readVarInt(dis);
+            for(int i = 0; i < errors; i++)
+                obj.errorsAdd(new CodeError(readString(dis), readString(dis), dis.readInt(), dis.readInt()));
+            return obj;
+        }
+    }
+    private static class MultipleChoiceQuestionCodec implements DataCodec<MultipleChoice_Question>
+    {
+        @Override
+        public String getName()
+        {
+            return "dqch.mcq";
+        }
+        @Override
+        public Class<MultipleChoice_Question> getType()
+        {
+            return MultipleChoice_Question.class;
+        }
+        @Override
+        public int getVersion()
+        {
+            return 1;
+        }
+        @Override
+        public void write(MultipleChoice_Question obj, DataOutputStream dos) throws IOException
+        {
+            writeString(dos, obj.getText());
+            dos.writeBoolean(obj.isSingleAnswer());
+            writeStrings(dos, obj.getAnswers());
+        }
+        @Override
+        public MultipleChoice_Question read(int version, DataInputStream dis) throws IOException
+        {
+            checkVersion(this, version);
+            MultipleChoice_Question obj = new MultipleChoice_Question();
+            obj.setText(readString(dis));
+            obj.setSingleAnswer(dis.readBoolean());
+            String[] answers = readStrings(dis);
+            if(answers != null)
+                obj.setAnswers(answers);
+            return obj;
+        }
+    }
+    private static class JavaTestInputsCodec implements DataCodec<JavaTestInputs_InstanceCriteria>
+    {
+        @Override
+        public String getName()
+        {
+            return "dqch.jti";
+        }
+        @Override
+        public Class<JavaTestInputs_InstanceCriteria> getType()
+        {
+            return JavaTestInputs_InstanceCriteria.class;
+        }
+        @Override
+        public int getVersion()
+        {
+            return 1;
+        }
+        @Override
+        public void write(JavaTestInputs_InstanceCriteria obj, DataOutputStream dos) throws IOException
+        {
+            int tests = obj.getTests();
+            writeVarInt(dos, tests);
+            for(int i = 0; i < tests; i++)
+            {
+                writeString(dos, obj.getInput(i));
+                writeString(dos, obj.getOutputCorrect(i));
+                writeString(dos, obj.getOutputStudent(i));
+            }
+        }
+        @Override
+        public JavaTestInputs_InstanceCriteria read(int version, DataInputStream dis) throws IOException
+        {
+            checkVersion(this, version);
+            int tests = readVarInt(dis);
+            if(tests > dis.available())
+                throw new IOException("Malformed data; number of tests exceeds the data.");
+            JavaTestInputs_InstanceCriteria obj = new JavaTestInputs_InstanceCriteria(tests);
+            for(int i = 0; i < tests; i++)
+            {
+                obj.setInput(i, readString(dis));
+                obj.setOutputCorrect(i, readString(dis));
+                obj.setOutputStudent(i, readString(dis));
+            }
+            return obj;
+        }
+    }
+    private static class JavaTestProgramCodec implements DataCodec<JavaTestProgram_InstanceCriteria>
+    {
+        @Override
+        public String getName()
+        {
+            return "dqch.jtp";
+        }
+        @Override
+        public Class<JavaTestProgram_InstanceCriteria> getType()
+        {
+            return JavaTestProgram_InstanceCriteria.class;
+        }
+        @Override
+        public int getVersion()
+        {
+            return 1;
+        }
+        @Override
+        public void write(JavaTestProgram_InstanceCriteria obj, DataOutputStream dos) throws IOException
+        {
+            int lines = obj.getLines();
+            writeVarInt(dos, lines);
+            for(int i = 0; i < lines; i++)
+            {
+                writeString(dos, obj.getLine(i));
+                writeVarInt(dos, obj.getStatus(i).getValue());
+            }
+        }
+        @Override
+        public JavaTestProgram_InstanceCriteria read(int version, DataInputStream dis) throws IOException
+        {
+            checkVersion(this, version);
+            JavaTestProgram_InstanceCriteria obj = new JavaTestProgram_InstanceCriteria();
+            int lines = readVarInt(dis);
+            String line;
+            int value;
+            JavaTestProgram_InstanceCriteria.Status status;
+            for(int i = 0; i < lines; i++)
+            {
+                line = readString(dis);
+                value = readVarInt(dis);
+                status = JavaTestProgram_InstanceCriteria.Status.Incorrect;
+                for(JavaTestProgram_InstanceCriteria.Status s : JavaTestProgram_InstanceCriteria.Status.values())
+                {
+                    if(s.getValue() == value)
+                        status = s;
+                }
+                obj.addLine(line, status);
+            }
+            return obj;
+        }
+    }
+}
@@ -443,7 +443,7 @@ public class CodeJava extends QuestionHelper
                 break;
         }
         // Render the question
-        html.append(data.getCore().getTemplates().render(data, kvs, "defaultqch/questions/codejava_capture_upload"));
+        data.getCore().getTemplates().render(data, kvs, "defaultqch/questions/codejava_capture_upload", html);
         Utils.pageHookCodeMirror_Java(data);
         return true;
     }
@@ -548,7 +548,7 @@ public class CodeJava extends QuestionHelper
                 break;
         }
         // Render the question
-        html.append(data.getCore().getTemplates().render(data, kvs, "defaultqch/questions/codejava_capture_fragment"));
+        data.getCore().getTemplates().render(data, kvs, "defaultqch/questions/codejava_capture_fragment", html);
         Utils.pageHookCodeMirror_Java(data);
         return true;
     }
@@ -569,7 +569,7 @@ public class CodeJava extends QuestionHelper
         kvs.put("errors", adata.getErrors());
         kvs.put("code", adata.getCode());
         // Render template
-        html.append(data.getCore().getTemplates().render(data, kvs, "defaultqch/questions/codejava_display"));
+        data.getCore().getTemplates().render(data, kvs, "defaultqch/questions/codejava_display", html);
         // Setup code-mirror
         Utils.pageHookCodeMirror_Java(data);
         return true;
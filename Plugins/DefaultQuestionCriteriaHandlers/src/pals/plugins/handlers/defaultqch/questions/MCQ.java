@@ -131,7 +131,7 @@ public class MCQ
         if(qdata.isSingleAnswer())
             kvs.put("single_choice", true);
         kvs.put("aqid", aqid);
-        html.append(data.getCore().getTemplates().render(data, kvs, "defaultqch/questions/multiplechoice_capture"));
+        data.getCore().getTemplates().render(data, kvs, "defaultqch/questions/multiplechoice_capture", html);
         return true;
     }
     public static boolean pageQuestionDisplay(WebRequestData data, InstanceAssignment ia, InstanceAssignmentQuestion iaq, StringBuilder html, boolean secure, boolean editMode)
@@ -144,7 +144,7 @@ public class MCQ
         HashMap<String,Object> kvs = new HashMap<>();
         kvs.put("text", qdata.getText());
         kvs.put("answers", adata != null ? adata.getAnswers(qdata) : new String[0]);
-        html.append(data.getCore().getTemplates().render(data, kvs, "defaultqch/questions/multiplechoice_display"));
+        data.getCore().getTemplates().render(data, kvs, "defaultqch/questions/multiplechoice_display", html);
         return true;
     }
 }
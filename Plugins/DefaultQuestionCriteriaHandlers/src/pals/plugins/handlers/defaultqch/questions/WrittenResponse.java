@@ -110,7 +110,7 @@ public class WrittenResponse
         kvs.put("text", qdata != null ? qdata.getText() : "No question defined...");
         kvs.put("answer", answer != null ? answer : adata);
         kvs.put("aqid", aqid);
-        html.append(data.getCore().getTemplates().render(data, kvs, "defaultqch/questions/written_response_capture"));
+        data.getCore().getTemplates().render(data, kvs, "defaultqch/questions/written_response_capture", html);
         return true;
     }
     public static boolean pageQuestionDisplay(WebRequestData data, InstanceAssignment ia, InstanceAssignmentQuestion iaq, StringBuilder html, boolean secure, boolean editMode)
@@ -123,7 +123,7 @@ public class WrittenResponse
         HashMap<String,Object> kvs = new HashMap<>();
         kvs.put("text", qdata.getText());
         kvs.put("answer", adata);
-        html.append(data.getCore().getTemplates().render(data, kvs, "defaultqch/questions/written_response_display"));
+        data.getCore().getTemplates().render(data, kvs, "defaultqch/questions/written_response_display", html);
         return true;
     }
 }
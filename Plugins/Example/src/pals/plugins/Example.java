@@ -113,12 +113,17 @@ public class Example extends pals.base.Plugin
     @Override
     public boolean eventHandler_registerUrls(NodeCore core, WebManager web)
     {
-        return web.urlsRegister(this, new String[]
+        if(!web.urlsRegister(this, new String[]
         {
             "admin",
             "home",
             "hello_world"
-        });
+        }))
+            return false;
+        // The static pages can be cached for anonymous users
+        web.urlsCacheable(this, "home", 60);
+        web.urlsCacheable(this, "hello_world", 60);
+        return true;
     }
     @Override
     public boolean eventHandler_webRequest(WebRequestData data)
@@ -40,6 +40,9 @@ import pals.base.database.Result;
  * for each user; if the user has no instance, their mark is zero and a null
  * integer is set.
  * 
+ * The highest marks are read from pals_assignment_best, which the database
+ * maintains as instances are created, marked or deleted.
+ * 
  * @version 1.0
  */
 public class ModelAssHighest
@@ -149,10 +152,10 @@ public class ModelAssHighest
                     mapAss.put(a.getAssID(), a);
             }
             // Load marks
-            Result res = conn.read("SELECT a.assid, a.weight, ai.aiid, me.userid, u.username, COALESCE(ai.mark, 0) AS mark FROM "+
+            Result res = conn.read("SELECT a.assid, a.weight, ab.aiid, me.userid, u.username, COALESCE(ab.mark, 0) AS mark FROM "+
                     "pals_modules_enrollment AS me JOIN pals_assignment AS a ON a.moduleid=me.moduleid "+
-                    "LEFT OUTER JOIN pals_assignment_instance AS ai ON (ai.aiid=(SELECT aiid FROM pals_assignment_instance "+
-                    "WHERE userid=me.userid AND assid=a.assid ORDER BY mark DESC LIMIT 1)) LEFT OUTER JOIN pals_users AS u ON u.userid=me.userid "+
+                    "LEFT OUTER JOIN pals_assignment_best AS ab ON ab.assid=a.assid AND ab.userid=me.userid "+
+                    "LEFT OUTER JOIN pals_users AS u ON u.userid=me.userid "+
                     "WHERE me.moduleid=?"+(u != null ? " AND me.userid=?" : "")+" ORDER BY u.username ASC, a.assid ASC;",
                     u != null ? new Object[]{m.getModuleID(),u.getUserID()} : new Object[]{m.getModuleID()});
             
@@ -210,7 +213,7 @@ public class ModelAssHighest
     {
         try
         {
-            Result res = conn.read("SELECT ai.aiid, me.userid, u.username, COALESCE(ai.mark, 0) AS mark FROM pals_modules_enrollment AS me LEFT OUTER JOIN pals_assignment_instance AS ai ON (ai.aiid=(SELECT aiid FROM pals_assignment_instance WHERE userid=me.userid AND assid=? ORDER BY mark DESC LIMIT 1)) LEFT OUTER JOIN pals_users AS u ON u.userid=me.userid WHERE me.moduleid=? ORDER BY mark DESC, u.username ASC;", ass.getAssID(), ass.getModule().getModuleID());
+            Result res = conn.read("SELECT ab.aiid, me.userid, u.username, COALESCE(ab.mark, 0) AS mark FROM pals_modules_enrollment AS me LEFT OUTER JOIN pals_assignment_best AS ab ON ab.assid=? AND ab.userid=me.userid LEFT OUTER JOIN pals_users AS u ON u.userid=me.userid WHERE me.moduleid=? ORDER BY mark DESC, u.username ASC;", ass.getAssID(), ass.getModule().getModuleID());
             ArrayList<ModelAssHighest> buffer = new ArrayList<>();
             ModelAssHighest m;
             while(res.next())
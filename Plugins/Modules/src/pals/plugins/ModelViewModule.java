@@ -35,7 +35,8 @@ import pals.base.database.DatabaseException;
 import pals.base.database.Result;
 
 /**
- * A model for displaying module-assignment information.
+ * A model for displaying module-assignment information; the information is
+ * read from pals_assignment_summary, maintained by the database.
  */
 public class ModelViewModule
 {
@@ -51,23 +52,23 @@ public class ModelViewModule
         this.ass = ass;
         try
         {
-            Result res = conn.read("SELECT "
-                    +"(SELECT COUNT('') FROM pals_assignment_instance WHERE userid=? AND assid=?) AS attempts,"
-                    +"COALESCE((SELECT mark FROM pals_assignment_instance WHERE userid=? AND assid=? AND status=? ORDER BY mark DESC LIMIT 1),-1) AS highest,"
-                    +"COALESCE((SELECT mark FROM pals_assignment_instance WHERE userid=? AND assid=? AND status=? ORDER BY aiid DESC LIMIT 1),-1) AS last,"
-                    +"(SELECT status FROM pals_assignment_instance WHERE userid=? AND assid=? ORDER BY aiid DESC LIMIT 1) AS last_status"
-                    +";",
-                    user.getUserID(), ass.getAssID(),
-                    user.getUserID(), ass.getAssID(), InstanceAssignment.Status.Marked.getStatus(),
-                    user.getUserID(), ass.getAssID(), InstanceAssignment.Status.Marked.getStatus(),
-                    user.getUserID(), ass.getAssID()
+            Result res = conn.read("SELECT attempts, COALESCE(mark_highest, -1) AS highest, COALESCE(mark_last, -1) AS last, last_status FROM pals_assignment_summary WHERE assid=? AND userid=?;",
+                    ass.getAssID(), user.getUserID()
             );
-            res.next();
-            this.markHighest = (double)res.get("highest");
-            this.markLast = (double)res.get("last");
-            this.attempts = (int)(long)res.get("attempts");
-            Object t = res.get("last_status");
-            this.lastActive = t == null ? false : InstanceAssignment.Status.parse((int)t) == InstanceAssignment.Status.Active;
+            if(res.next())
+            {
+                this.markHighest = (double)res.get("highest");
+                this.markLast = (double)res.get("last");
+                this.attempts = (int)res.get("attempts");
+                this.lastActive = InstanceAssignment.Status.parse((int)res.get("last_status")) == InstanceAssignment.Status.Active;
+            }
+            else
+            {
+                // No instances
+                this.markHighest = this.markLast = -1;
+                this.attempts = 0;
+                this.lastActive = false;
+            }
         }
         catch(DatabaseException ex)
         {
@@ -28,14 +28,14 @@
 package pals.plugins;
 
 import java.util.ArrayList;
-import pals.base.assessment.InstanceAssignment;
 import pals.base.auth.User;
 import pals.base.database.Connector;
 import pals.base.database.DatabaseException;
 import pals.base.database.Result;
 
 /**
- * A model with all the information regarding assignment-counts for modules.
+ * A model with all the information regarding assignment-counts for modules;
+ * the counts are read from pals_module_summary, maintained by the database.
  */
 public class ModelViewModules
 {
@@ -70,13 +70,12 @@ public class ModelViewModules
             Result res = conn.read(
                 "SELECT	m.moduleid," +
                 "	m.title," +
-                "	(SELECT COUNT('') FROM pals_assignment WHERE active='1' AND moduleid=m.moduleid) AS total," +
-                "	(SELECT COUNT('') FROM pals_assignment AS a WHERE active='1' AND moduleid=m.moduleid AND NOT EXISTS(SELECT assid FROM pals_assignment_instance WHERE userid=me.userid AND assid=a.assid)) AS unanswered," +
-                "	(SELECT COUNT('') FROM pals_assignment AS a WHERE active='1' AND moduleid=m.moduleid AND EXISTS(SELECT assid FROM pals_assignment_instance WHERE userid=me.userid AND assid=a.assid AND NOT status=?)) AS answered," +
-                "	(SELECT COUNT('') FROM pals_assignment AS a WHERE active='1' AND moduleid=m.moduleid AND EXISTS(SELECT assid FROM pals_assignment_instance WHERE userid=me.userid AND assid=a.assid AND status=?)) AS incomplete" +
-                " FROM pals_modules AS m, pals_modules_enrollment AS me WHERE m.moduleid=me.moduleid AND me.userid=?;",
-                    InstanceAssignment.Status.Active.getStatus(),
-                    InstanceAssignment.Status.Active.getStatus(),
+                "	CAST(COALESCE(ms.total, 0) AS BIGINT) AS total," +
+                "	CAST(COALESCE(ms.total-ms.attempted, 0) AS BIGINT) AS unanswered," +
+                "	CAST(COALESCE(ms.answered, 0) AS BIGINT) AS answered," +
+                "	CAST(COALESCE(ms.incomplete, 0) AS BIGINT) AS incomplete" +
+                " FROM pals_modules_enrollment AS me JOIN pals_modules AS m ON m.moduleid=me.moduleid" +
+                " LEFT OUTER JOIN pals_module_summary AS ms ON ms.moduleid=me.moduleid AND ms.userid=me.userid WHERE me.userid=?;",
                     user.getUserID()
             );
             ArrayList<ModelViewModules> buffer = new ArrayList<>();
@@ -39,11 +39,13 @@ import pals.base.WebManager;
 import pals.base.assessment.Assignment;
 import pals.base.assessment.AssignmentQuestion;
 import pals.base.assessment.InstanceAssignment;
+import pals.base.assessment.MarkRecomputeJob;
 import pals.base.assessment.Module;
 import pals.base.assessment.Question;
 import pals.base.auth.User;
 import pals.base.database.Connector;
 import pals.base.utils.JarIO;
+import pals.base.utils.JobRegistry;
 import pals.base.utils.Misc;
 import pals.base.web.MultipartUrlParser;
 import pals.base.web.RemoteRequest;
@@ -58,10 +60,13 @@ import pals.plugins.web.Captcha;
  */
 public class Modules extends Plugin
 {
+    // Fields ******************************************************************
+    private final JobRegistry<MarkRecomputeJob>  jobs;       // Mark recompute jobs running or recently ended on this node.
     // Methods - Constructors **************************************************
     public Modules(NodeCore core, UUID uuid, JarIO jario, Version version, Settings settings, String jarPath)
     {
         super(core, uuid, jario, version, settings, jarPath);
+        this.jobs = new JobRegistry<>();
     }
     // Methods - Event Handlers ************************************************
     @Override
@@ -82,6 +87,8 @@ public class Modules extends Plugin
     @Override
     public void eventHandler_pluginUnload(NodeCore core)
     {
+        // Stop mark recompute jobs
+        jobs.stopAll();
         // Unregister URLs
         core.getWebManager().urlsUnregister(this);
         // Unregister templates
@@ -657,6 +664,8 @@ public class Modules extends Plugin
                     return pageAdminModule_assignmentEdit(data, module, ass);
                 case "delete":
                     return pageAdminModule_assignmentDelete(data, module, ass);
+                case "recompute":
+                    return pageAdminModule_assignmentRecompute(data, module, ass);
                 case "questions":
                 {
                     page = mup.getPart(6);
@@ -781,6 +790,53 @@ public class Modules extends Plugin
         data.setTemplateData("csrf", CSRF.set(data));
         return true;
     }
+    private boolean pageAdminModule_assignmentRecompute(WebRequestData data, Module module, Assignment ass)
+    {
+        // Check postback
+        RemoteRequest req = data.getRequestData();
+        String recompute = req.getField("recompute");
+        if(recompute != null && recompute.equals("1"))
+        {
+            // Validate request
+            if(!CSRF.isSecure(data))
+                data.setTemplateData("error", "Invalid request; please try again or contact an administrator!");
+            else
+            {
+                // Start the job and redirect to its progress
+                MarkRecomputeJob job = jobStart(new MarkRecomputeJob(data.getCore(), jobs.nextID(), ass));
+                data.getResponseData().setRedirectUrl("/admin/modules/"+module.getModuleID()+"/assignments/"+ass.getAssID()+"/recompute?job="+job.getJobID());
+            }
+        }
+        else if(req.getField("job") != null)
+        {
+            // Display the progress of a job
+            MarkRecomputeJob job = jobs.get(Misc.parseInt(req.getField("job"), -1));
+            if(job == null || job.getAssID() != ass.getAssID())
+                data.setTemplateData("error", "The job could not be found; it may have expired or be running on another node.");
+            else
+            {
+                if(!job.isEnded())
+                    data.setTemplateData("job_running", true);
+                else if(job.getStatus() == MarkRecomputeJob.Status.Finished)
+                    data.setTemplateData("success", "Successfully recomputed the marks of all attempts.");
+                else
+                    data.setTemplateData("error", "The job failed or was cancelled; only some of the attempts may have been recomputed.");
+                data.setTemplateData("job", job.getJobID());
+                data.setTemplateData("job_progress", job.getProgress());
+                data.setTemplateData("job_processed", job.getProcessed());
+                data.setTemplateData("job_total", job.getTotal());
+                data.setTemplateData("job_rows", job.getRowsChanged());
+            }
+        }
+        // Setup the page
+        data.setTemplateData("pals_title", "Admin - Module - "+Escaping.htmlEncode(module.getTitle())+" - Assignments - " + Escaping.htmlEncode(ass.getTitle()) + " - Recompute Marks");
+        data.setTemplateData("pals_content", "modules/page_admin_module_assignment_recompute");
+        // -- Fields
+        data.setTemplateData("module", module);
+        data.setTemplateData("assignment", ass);
+        data.setTemplateData("csrf", CSRF.set(data));
+        return true;
+    }
     private boolean pageAdminModule_assignmentEdit(WebRequestData data, Module module, Assignment ass)
     {
         // Check postback
@@ -1179,4 +1235,16 @@ public class Modules extends Plugin
         data.setTemplateData("question", aq);
         return true;
     }
+    // Methods ***************************************************************
+    /**
+     * Starts a mark recompute job on this node; ended jobs older than the
+     * configured expiry are discarded.
+     * 
+     * @param job The job to be started.
+     * @return The job started.
+     */
+    private MarkRecomputeJob jobStart(MarkRecomputeJob job)
+    {
+        return jobs.start(job, settings.getInt("recompute/job_expiry_ms", 3600000));
+    }
 }
@@ -36,12 +36,15 @@ import pals.base.UUID;
 import pals.base.Version;
 import pals.base.WebManager;
 import pals.base.assessment.Assignment;
+import pals.base.assessment.MarkRecomputeJob;
 import pals.base.assessment.Question;
 import pals.base.assessment.QuestionCriteria;
 import pals.base.assessment.TypeCriteria;
 import pals.base.assessment.TypeQuestion;
 import pals.base.database.Connector;
 import pals.base.utils.JarIO;
+import pals.base.utils.JobRegistry;
+import pals.base.utils.Misc;
 import pals.base.web.MultipartUrlParser;
 import pals.base.web.RemoteRequest;
 import pals.base.web.WebRequestData;
@@ -53,10 +56,13 @@ import pals.plugins.web.Captcha;
  */
 public class Questions extends Plugin
 {
+    // Fields ******************************************************************
+    private final JobRegistry<MarkRecomputeJob>  jobs;       // Mark recompute jobs running or recently ended on this node.
     // Methods - Constructors **************************************************
     public Questions(NodeCore core, UUID uuid, JarIO jario, Version version, Settings settings, String jarPath)
     {
         super(core, uuid, jario, version, settings, jarPath);
+        this.jobs = new JobRegistry<>();
     }
     // Methods - Event Handlers ************************************************
     @Override
@@ -93,6 +99,8 @@ public class Questions extends Plugin
     @Override
     public void eventHandler_pluginUnload(NodeCore core)
     {
+        // Stop mark recompute jobs
+        jobs.stopAll();
         // Unregister URLs
         core.getWebManager().urlsUnregister(this);
         // Unregister templates
@@ -163,32 +171,44 @@ public class Questions extends Plugin
             if(ass == null)
                 return false;
         }
-        // Fetch the page of questions being viewed
-        int page = 1;
-        try
-        {
-            if((page = Integer.parseInt(req.getField("page"))) < 0)
-                page = 1;
-        }
-        catch(NumberFormatException ex)
-        {
-        }
+        // Fetch the page of questions being viewed; pages are located by the question before/after them
+        int page = Math.max(1, Misc.parseInt(req.getField("page"), 1));
+        int after = Misc.parseInt(req.getField("after"), -1);
+        int before = Misc.parseInt(req.getField("before"), -1);
+        boolean backwards = before != -1;
         // Fetch questions
         String filter = req.getField("filter");
-        Question[] questions = Question.load(data.getCore(), data.getConnector(), filter, QUESTIONS_PER_PAGE+1, (page-1)*QUESTIONS_PER_PAGE);
+        Question[] questions = Question.loadPage(data.getCore(), data.getConnector(), filter, QUESTIONS_PER_PAGE+1, backwards ? before : after, backwards);
+        // Fall back to the first page if the cursor no longer exists, e.g. the question was deleted
+        if(questions.length == 0 && (after != -1 || backwards))
+        {
+            page = 1;
+            after = -1;
+            backwards = false;
+            questions = Question.loadPage(data.getCore(), data.getConnector(), filter, QUESTIONS_PER_PAGE+1, -1, false);
+        }
+        // Check if we have +1 models, to indicate another page
+        boolean more = questions.length > QUESTIONS_PER_PAGE;
+        if(more)
+            questions = backwards ? Arrays.copyOfRange(questions, 1, questions.length) : Arrays.copyOf(questions, QUESTIONS_PER_PAGE);
+        if(backwards && !more)
+            page = 1;
         // Setup the page
         data.setTemplateData("pals_title", "Admin - Questions");
         data.setTemplateData("pals_content", "questions/admin_questions");
         // -- Fields
-        data.setTemplateData("questions", questions.length > QUESTIONS_PER_PAGE ? Arrays.copyOf(questions, QUESTIONS_PER_PAGE) : questions);
+        data.setTemplateData("questions", questions);
         data.setTemplateData("questions_page", page);
         data.setTemplateData("filter", filter);
         if(ass != null)
             data.setTemplateData("assignment", ass);
-        if(page > 1)
-            data.setTemplateData("questions_prev", page-1);
-        if(page < Integer.MAX_VALUE && questions.length == QUESTIONS_PER_PAGE+1)
-            data.setTemplateData("questions_next", page+1);
+        if(questions.length > 0)
+        {
+            if(backwards ? more : after != -1)
+                data.setTemplateData("questions_prev", questions[0].getQID());
+            if(backwards || more)
+                data.setTemplateData("questions_next", questions[questions.length-1].getQID());
+        }
         return true;
     }
     private boolean pageAdminQuestions_create(WebRequestData data)
@@ -261,6 +281,8 @@ public class Questions extends Plugin
                     return pageAdminQuestion_edit(data, q);
                 case "delete":
                     return pageAdminQuestion_delete(data, q);
+                case "recompute":
+                    return pageAdminQuestion_recompute(data, q);
                 case "criteria":
                     page = mup.getPart(4);
                     switch(page)
@@ -316,6 +338,52 @@ public class Questions extends Plugin
         data.setTemplateData("csrf", CSRF.set(data));
         return true;
     }
+    private boolean pageAdminQuestion_recompute(WebRequestData data, Question q)
+    {
+        // Check postback
+        RemoteRequest req = data.getRequestData();
+        String questionRecompute = req.getField("question_recompute");
+        if(questionRecompute != null && questionRecompute.equals("1"))
+        {
+            // Verify security
+            if(!CSRF.isSecure(data))
+                data.setTemplateData("error", "Invalid request; please try again or contact an administrator!");
+            else
+            {
+                // Start the job and redirect to its progress
+                MarkRecomputeJob job = jobStart(new MarkRecomputeJob(data.getCore(), jobs.nextID(), q));
+                data.getResponseData().setRedirectUrl("/admin/questions/"+q.getQID()+"/recompute?job="+job.getJobID());
+            }
+        }
+        else if(req.getField("job") != null)
+        {
+            // Display the progress of a job
+            MarkRecomputeJob job = jobs.get(Misc.parseInt(req.getField("job"), -1));
+            if(job == null || job.getQID() != q.getQID())
+                data.setTemplateData("error", "The job could not be found; it may have expired or be running on another node.");
+            else
+            {
+                if(!job.isEnded())
+                    data.setTemplateData("job_running", true);
+                else if(job.getStatus() == MarkRecomputeJob.Status.Finished)
+                    data.setTemplateData("success", "Successfully recomputed the marks of all attempts answering the question.");
+                else
+                    data.setTemplateData("error", "The job failed or was cancelled; only some of the attempts may have been recomputed.");
+                data.setTemplateData("job", job.getJobID());
+                data.setTemplateData("job_progress", job.getProgress());
+                data.setTemplateData("job_processed", job.getProcessed());
+                data.setTemplateData("job_total", job.getTotal());
+                data.setTemplateData("job_rows", job.getRowsChanged());
+            }
+        }
+        // Setup the page
+        data.setTemplateData("pals_title", "Admin - Questions - Recompute Marks");
+        data.setTemplateData("pals_content", "questions/admin_question_recompute");
+        // -- Fields
+        data.setTemplateData("question", q);
+        data.setTemplateData("csrf", CSRF.set(data));
+        return true;
+    }
     private boolean pageAdminQuestion_view(WebRequestData data, Question q)
     {
         // Fetch criterias
@@ -500,4 +568,16 @@ public class Questions extends Plugin
         data.setTemplateData("criteria", qc);
         return true;
     }
+    // Methods ***************************************************************
+    /**
+     * Starts a mark recompute job on this node; ended jobs older than the
+     * configured expiry are discarded.
+     * 
+     * @param job The job to be started.
+     * @return The job started.
+     */
+    private MarkRecomputeJob jobStart(MarkRecomputeJob job)
+    {
+        return jobs.start(job, settings.getInt("recompute/job_expiry_ms", 3600000));
+    }
 }
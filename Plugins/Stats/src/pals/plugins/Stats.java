@@ -17,6 +17,7 @@ import pals.base.web.RemoteRequest;
 import pals.base.web.WebRequestData;
 import pals.base.web.security.CSRF;
 import pals.base.web.security.Escaping;
+import pals.plugins.stats.ExceptionRecorder;
 import pals.plugins.stats.ModelException;
 import pals.plugins.stats.ModelExceptionClass;
 
@@ -26,6 +27,8 @@ import pals.plugins.stats.ModelExceptionClass;
  */
 public class Stats extends Plugin
 {
+    // Fields ******************************************************************
+    private ExceptionRecorder   recorder;   // Records exceptions in batches; null if not loaded.
     // Methods - Constructors **************************************************
     public Stats(NodeCore core, UUID uuid, JarIO jario, Version version, Settings settings, String jarPath)
     {
@@ -45,11 +48,29 @@ public class Stats extends Plugin
     @Override
     public boolean eventHandler_pluginLoad(NodeCore core)
     {
+        // Start recording exceptions in batches
+        recorder = new ExceptionRecorder(core, settings.getInt("exceptions/queue_size", 10000), settings.getInt("exceptions/batch_size", 100), settings.getInt("exceptions/batch_interval_ms", 1000));
+        recorder.start();
+        ExceptionRecorder.setInstance(recorder);
         return true;
     }
     @Override
     public void eventHandler_pluginUnload(NodeCore core)
     {
+        // Stop recording exceptions; any queued are inserted before the thread ends
+        if(recorder != null)
+        {
+            ExceptionRecorder.setInstance(null);
+            recorder.extended_stop();
+            try
+            {
+                recorder.join();
+            }
+            catch(InterruptedException ex)
+            {
+            }
+            recorder = null;
+        }
         // Unregister URLs
         core.getWebManager().urlsUnregister(this);
         // Unregister templates
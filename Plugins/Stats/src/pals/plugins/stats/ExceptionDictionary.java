@@ -0,0 +1,113 @@
+/*
+    The MIT License (MIT)
+
+    Copyright (c) 2014 Marcus Craske <limpygnome@gmail.com>
+
+    Permission is hereby granted, free of charge, to any person obtaining a copy
+    of this software and associated documentation files (the "Software"), to deal
+    in the Software without restriction, including without limitation the rights
+    to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+    copies of the Software, and to permit persons to whom the Software is
+    furnished to do so, subject to the following conditions:
+
+    The above copyright notice and this permission notice shall be included in
+    all copies or substantial portions of the Software.
+
+    THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+    IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+    FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+    AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+    LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+    OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+    THE SOFTWARE.
+    ----------------------------------------------------------------------------
+    Authors:    Marcus Craske           <limpygnome@gmail.com>
+    ----------------------------------------------------------------------------
+*/
+package pals.plugins.stats;
+
+import java.util.concurrent.ConcurrentHashMap;
+import pals.base.database.Connector;
+import pals.base.database.DatabaseException;
+
+/**
+ * A node-local cache of the identifiers of exception classes and messages,
+ * so recording an exception does not need to look them up each time; on a
+ * miss, the class or message is created, or fetched, with a single upsert.
+ * 
+ * Classes and messages are never deleted individually, thus the identifiers
+ * cached do not become stale; the cache can still be cleared, which is done
+ * if inserting an exception fails.
+ * 
+ * Thread-safe.
+ * 
+ * @version 1.0
+ */
+public class ExceptionDictionary
+{
+    // Constants ***************************************************************
+    private static final int MESSAGES_LIMIT = 10000;    // The maximum messages cached, before the cache is cleared.
+    // Fields ******************************************************************
+    private static final ConcurrentHashMap<String,Integer>  classes = new ConcurrentHashMap<>();     // Runtime flag and class-name mapped to ecid.
+    private static final ConcurrentHashMap<String,Integer>  messages = new ConcurrentHashMap<>();    // Messages mapped to emid.
+    // Methods - Constructors **************************************************
+    private ExceptionDictionary()
+    {
+    }
+    // Methods - Static ********************************************************
+    /**
+     * Fetches the identifier of an exception class, creating the class if it
+     * does not exist.
+     * 
+     * @param conn Database connector.
+     * @param className The class-name of the exception.
+     * @param runtime True = runtime error, false = compilation error.
+     * @return The identifier of the class.
+     * @throws DatabaseException Thrown if the class cannot be fetched or
+     * created.
+     */
+    public static int getClassID(Connector conn, String className, boolean runtime) throws DatabaseException
+    {
+        String key = (runtime ? "1" : "0") + className;
+        Integer ecid = classes.get(key);
+        if(ecid == null)
+        {
+            ecid = (int)conn.executeScalar("INSERT INTO pals_exception_classes (class_name, runtime) VALUES(?, ?) ON CONFLICT (class_name, runtime) DO UPDATE SET class_name=EXCLUDED.class_name RETURNING ecid;", className, runtime ? "1" : "0");
+            classes.put(key, ecid);
+        }
+        return ecid;
+    }
+    /**
+     * Fetches the identifier of an exception message, creating the message if
+     * it does not exist.
+     * 
+     * @param conn Database connector.
+     * @param message The message; can be null.
+     * @return The identifier of the message; null if the message is null.
+     * @throws DatabaseException Thrown if the message cannot be fetched or
+     * created.
+     */
+    public static Integer getMessageID(Connector conn, String message) throws DatabaseException
+    {
+        if(message == null)
+            return null;
+        Integer emid = messages.get(message);
+        if(emid == null)
+        {
+            emid = (int)conn.executeScalar("INSERT INTO pals_exception_messages (message) VALUES(?) ON CONFLICT (message) DO UPDATE SET message=EXCLUDED.message RETURNING emid;", message);
+            // Messages vary more than classes; avoid the cache growing without bound
+            if(messages.size() >= MESSAGES_LIMIT)
+                messages.clear();
+            messages.put(message, emid);
+        }
+        return emid;
+    }
+    /**
+     * Clears the cache.
+     */
+    public static void clear()
+    {
+        classes.clear();
+        messages.clear();
+    }
+}
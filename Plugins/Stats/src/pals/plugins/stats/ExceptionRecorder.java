@@ -0,0 +1,180 @@
+/*
+    The MIT License (MIT)
+
+    Copyright (c) 2014 Marcus Craske <limpygnome@gmail.com>
+
+    Permission is hereby granted, free of charge, to any person obtaining a copy
+    of this software and associated documentation files (the "Software"), to deal
+    in the Software without restriction, including without limitation the rights
+    to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+    copies of the Software, and to permit persons to whom the Software is
+    furnished to do so, subject to the following conditions:
+
+    The above copyright notice and this permission notice shall be included in
+    all copies or substantial portions of the Software.
+
+    THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+    IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+    FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+    AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+    LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+    OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+    THE SOFTWARE.
+    ----------------------------------------------------------------------------
+    Authors:    Marcus Craske           <limpygnome@gmail.com>
+    ----------------------------------------------------------------------------
+*/
+package pals.plugins.stats;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import pals.base.Logging;
+import pals.base.NodeCore;
+import pals.base.database.Connector;
+import pals.base.database.DatabaseException;
+import pals.base.utils.ExtendedThread;
+
+/**
+ * Records instances of exceptions in batches, off the thread marking work;
+ * exceptions are queued and inserted, by this thread, with a single
+ * statement for each batch. If the queue is full, or no recorder is running,
+ * exceptions are persisted by the caller instead.
+ * 
+ * If a batch fails to insert, e.g. an instance of an assignment has since been
+ * deleted, the rows of the batch are inserted individually, with any failing
+ * rows discarded.
+ * 
+ * Thread-safe.
+ * 
+ * @version 1.0
+ */
+public class ExceptionRecorder extends ExtendedThread
+{
+    // Constants ***************************************************************
+    private static final String LOGGING_ALIAS = "Stats";
+    // Fields - Static *********************************************************
+    private static volatile ExceptionRecorder instance = null;  // The recorder running on this node.
+    // Fields ******************************************************************
+    private final NodeCore                              core;
+    private final LinkedBlockingQueue<ModelException>   queue;      // The exceptions waiting to be inserted.
+    private final int                                   batchSize;  // The maximum exceptions inserted per statement.
+    private final int                                   interval;   // The maximum m/s an exception waits before being inserted.
+    // Methods - Constructors **************************************************
+    public ExceptionRecorder(NodeCore core, int queueSize, int batchSize, int interval)
+    {
+        this.core = core;
+        this.queue = new LinkedBlockingQueue<>(Math.max(1, queueSize));
+        this.batchSize = Math.max(1, batchSize);
+        this.interval = Math.max(1, interval);
+        setName("Stats exception recorder");
+        setDaemon(true);
+    }
+    // Methods - Overrides *****************************************************
+    @Override
+    public void run()
+    {
+        ArrayList<ModelException> batch = new ArrayList<>(batchSize);
+        ModelException e;
+        while(!extended_isStopped())
+        {
+            try
+            {
+                // Wait for an exception, then wait to gather a batch
+                if((e = queue.poll(interval, TimeUnit.MILLISECONDS)) == null)
+                    continue;
+                batch.add(e);
+                if(queue.size() < batchSize-1)
+                    Thread.sleep(interval);
+                queue.drainTo(batch, batchSize-1);
+                flush(batch);
+                batch.clear();
+            }
+            catch(InterruptedException ex)
+            {
+            }
+        }
+        // Insert any remaining exceptions
+        if(!batch.isEmpty())
+            flush(batch);
+        batch.clear();
+        while(queue.drainTo(batch, batchSize) > 0)
+        {
+            flush(batch);
+            batch.clear();
+        }
+    }
+    // Methods *****************************************************************
+    /**
+     * Queues an exception to be recorded.
+     * 
+     * @param e The exception.
+     * @return True = queued, false = queue full.
+     */
+    public boolean record(ModelException e)
+    {
+        return queue.offer(e);
+    }
+    private void flush(ArrayList<ModelException> batch)
+    {
+        Connector conn = core.createConnector();
+        if(conn == null)
+        {
+            core.getLogging().log(LOGGING_ALIAS, "Could not connect to the database; discarded "+batch.size()+" exception(s).", Logging.EntryType.Warning);
+            return;
+        }
+        try
+        {
+            // Attempt to insert the batch with a single statement
+            StringBuilder sb = new StringBuilder("INSERT INTO pals_exceptions (ecid, emid, aqid, aiid, exdate) VALUES");
+            Object[] values = new Object[batch.size()*5];
+            int i = 0;
+            for(ModelException e : batch)
+            {
+                sb.append(i == 0 ? "(?,?,?,?,?)" : ",(?,?,?,?,?)");
+                values[i++] = ExceptionDictionary.getClassID(conn, e.getClassName(), e.isRuntime());
+                values[i++] = ExceptionDictionary.getMessageID(conn, e.getMessage());
+                values[i++] = e.getAQID();
+                values[i++] = e.getAIID();
+                values[i++] = new Timestamp(e.getDateTime().getMillis());
+            }
+            sb.append(';');
+            conn.execute(sb.toString(), values);
+        }
+        catch(DatabaseException ex)
+        {
+            // Insert individually, in case of bad rows or stale identifiers
+            ExceptionDictionary.clear();
+            int failed = 0;
+            for(ModelException e : batch)
+            {
+                if(!e.persistNow(conn))
+                    failed++;
+            }
+            if(failed > 0)
+                core.getLogging().log(LOGGING_ALIAS, "Discarded "+failed+" exception(s) which could not be recorded.", Logging.EntryType.Warning);
+        }
+        finally
+        {
+            conn.disconnect();
+        }
+    }
+    // Methods - Static ********************************************************
+    /**
+     * Sets the recorder running on this node.
+     * 
+     * @param recorder The recorder; can be null.
+     */
+    public static void setInstance(ExceptionRecorder recorder)
+    {
+        instance = recorder;
+    }
+    /**
+     * @return The recorder running on this node; can be null.
+     */
+    public static ExceptionRecorder getInstance()
+    {
+        return instance;
+    }
+}
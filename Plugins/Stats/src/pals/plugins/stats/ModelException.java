@@ -26,6 +26,7 @@
 */
 package pals.plugins.stats;
 
+import java.sql.Timestamp;
 import java.util.ArrayList;
 import java.util.Date;
 import org.joda.time.DateTime;
@@ -84,6 +85,7 @@ public class ModelException
         this.aiid = iaq.getInstanceAssignment().getAIID();
         this.message = message;
         this.runtime = runtime;
+        this.dt = DateTime.now();
         this.aiidPage = -1;
     }
     /**
@@ -118,30 +120,37 @@ public class ModelException
      * Persists the instance; this only supports creating new instances. This
      * will not update a loaded model.
      * 
+     * The instance is queued with the recorder running on this node, to be
+     * inserted in a batch; if there is no recorder, or its queue is full, the
+     * instance is inserted immediately.
+     * 
      * @param conn Database connector.
-     * @return True = succeeded, false = failed.
+     * @return True = succeeded or queued, false = failed.
      */
     public boolean persist(Connector conn)
+    {
+        ExceptionRecorder recorder = ExceptionRecorder.getInstance();
+        if(recorder != null && recorder.record(this))
+            return true;
+        return persistNow(conn);
+    }
+    /**
+     * Inserts the instance immediately.
+     * 
+     * @param conn Database connector.
+     * @return True = succeeded, false = failed.
+     */
+    boolean persistNow(Connector conn)
     {
         try
         {
-            Object t;
-            int ecid, emid = -1;
-            // Check the class exists
-            t = conn.executeScalar("SELECT ecid FROM pals_exception_classes WHERE class_name=? AND runtime=?;", className, runtime ? "1" : "0");
-            if(t == null)
-                t = conn.executeScalar("INSERT INTO pals_exception_classes (class_name, runtime) VALUES(?, ?) RETURNING ecid;", className, runtime ? "1" : "0");
-            ecid = (int)t;
-            // Check the message exists
-            if(message != null)
-            {
-                t = conn.executeScalar("SELECT emid FROM pals_exception_messages WHERE message=?;", message);
-                if(t == null)
-                    t = conn.executeScalar("INSERT INTO pals_exception_messages (message) VALUES(?) RETURNING emid;", message);
-                emid = (int)t;
-            }
-            // Create instance
-            conn.execute("INSERT INTO pals_exceptions (ecid, emid, aqid, aiid, exdate) VALUES(?,?,?,?,current_timestamp);", ecid, message != null ? emid : null, aqid, aiid);
+            conn.execute("INSERT INTO pals_exceptions (ecid, emid, aqid, aiid, exdate) VALUES(?,?,?,?,?);",
+                    ExceptionDictionary.getClassID(conn, className, runtime),
+                    ExceptionDictionary.getMessageID(conn, message),
+                    aqid,
+                    aiid,
+                    new Timestamp(dt.getMillis())
+            );
         }
         catch(DatabaseException ex)
         {
@@ -188,12 +197,9 @@ public class ModelException
             return load(conn.read(
                     "SELECT e.exdate, e.aqid, e.aiid, em.message, aq.page "+
                     "FROM pals_exceptions AS e "+
-                    "LEFT OUTER JOIN pals_exception_classes AS ec ON e.ecid=ec.ecid "+
                     "LEFT OUTER JOIN pals_exception_messages AS em ON em.emid=e.emid "+
-                    "LEFT OUTER JOIN pals_assignment_instance AS ai ON ai.aiid=e.aiid "+
-                    "LEFT OUTER JOIN pals_assignment AS a ON a.assid=ai.assid "+
                     "LEFT OUTER JOIN pals_assignment_questions AS aq ON aq.aqid=e.aqid "+
-                    "WHERE e.ecid=ec.ecid AND ec.ecid=? AND a.moduleid=? ORDER BY e.exdate DESC LIMIT ? OFFSET ?;",
+                    "WHERE e.ecid=? AND e.moduleid=? ORDER BY e.exdate DESC LIMIT ? OFFSET ?;",
                     ecid, module.getModuleID(), limit, offset));
         }
         catch(DatabaseException ex)
@@ -216,11 +222,9 @@ public class ModelException
             return load(conn.read(
                     "SELECT e.exdate, e.aqid, e.aiid, em.message, aq.page "+
                     "FROM pals_exceptions AS e "+
-                    "LEFT OUTER JOIN pals_exception_classes AS ec ON e.ecid=ec.ecid "+
                     "LEFT OUTER JOIN pals_exception_messages AS em ON em.emid=e.emid "+
-                    "LEFT OUTER JOIN pals_assignment_instance AS ai ON ai.aiid=e.aiid "+
                     "LEFT OUTER JOIN pals_assignment_questions AS aq ON aq.aqid=e.aqid "+
-                    "WHERE e.ecid=ec.ecid AND ec.ecid=? AND ai.assid=? ORDER BY e.exdate DESC LIMIT ? OFFSET ?;",
+                    "WHERE e.ecid=? AND e.assid=? ORDER BY e.exdate DESC LIMIT ? OFFSET ?;",
                     ecid, ass.getAssID(), limit, offset));
         }
         catch(DatabaseException ex)
@@ -243,10 +247,9 @@ public class ModelException
             return load(conn.read(
                     "SELECT e.exdate, e.aqid, e.aiid, em.message, aq.page "+
                     "FROM pals_exceptions AS e "+
-                    "LEFT OUTER JOIN pals_exception_classes AS ec ON e.ecid=ec.ecid "+
                     "LEFT OUTER JOIN pals_exception_messages AS em ON em.emid=e.emid "+
                     "LEFT OUTER JOIN pals_assignment_questions AS aq ON aq.aqid=e.aqid "+
-                    "WHERE e.ecid=ec.ecid AND ec.ecid=? AND aq.qid=? ORDER BY e.exdate DESC LIMIT ? OFFSET ?;",
+                    "WHERE e.ecid=? AND e.qid=? ORDER BY e.exdate DESC LIMIT ? OFFSET ?;",
                     ecid, q.getQID(), limit, offset));
         }
         catch(DatabaseException ex)
@@ -318,7 +321,7 @@ public class ModelException
     {
         try
         {
-            conn.execute("DELETE FROM pals_exceptions WHERE exid IN (SELECT e.exid FROM pals_exception_classes AS ec, pals_exceptions AS e, pals_exception_messages AS em, pals_assignment_instance AS ai, pals_assignment AS a WHERE ec.ecid=? AND e.ecid=ec.ecid AND em.emid=e.emid AND ai.aiid=e.aiid AND a.assid=ai.assid AND a.moduleid=?);", ecid, module.getModuleID());
+            conn.execute("DELETE FROM pals_exceptions WHERE ecid=? AND moduleid=? AND emid IS NOT NULL;", ecid, module.getModuleID());
         }
         catch(DatabaseException ex)
         {
@@ -335,7 +338,7 @@ public class ModelException
     {
         try
         {
-            conn.execute("DELETE FROM pals_exceptions WHERE exid IN (SELECT e.exid FROM pals_exception_classes AS ec, pals_exceptions AS e, pals_assignment_instance AS ai, pals_exception_messages AS em WHERE ec.ecid=? AND e.ecid=ec.ecid AND em.emid=e.emid AND ai.aiid=e.aiid AND ai.assid=?);", ecid, ass.getAssID());
+            conn.execute("DELETE FROM pals_exceptions WHERE ecid=? AND assid=? AND emid IS NOT NULL;", ecid, ass.getAssID());
         }
         catch(DatabaseException ex)
         {
@@ -352,7 +355,7 @@ public class ModelException
     {
         try
         {
-            conn.execute("DELETE FROM pals_exceptions WHERE exid IN (SELECT e.exid FROM pals_exception_classes AS ec, pals_exceptions AS e, pals_exception_messages AS em, pals_assignment_questions AS aq WHERE ec.ecid=? AND em.emid=e.emid AND e.ecid=ec.ecid AND aq.aqid=e.aqid AND aq.qid=?);", ecid, q.getQID());
+            conn.execute("DELETE FROM pals_exceptions WHERE ecid=? AND qid=? AND emid IS NOT NULL;", ecid, q.getQID());
         }
         catch(DatabaseException ex)
         {
@@ -402,4 +405,11 @@ public class ModelException
     {
         return dt;
     }
+    /**
+     * @return True = runtime error, false = compilation error.
+     */
+    public boolean isRuntime()
+    {
+        return runtime;
+    }
 }
@@ -38,6 +38,9 @@ import pals.base.database.Result;
 /**
  * Fetches the class-name of classes and their frequencies; ordered by
  * frequency descending.
+ * 
+ * Frequencies are read from the statistics maintained by the database, as
+ * instances of exceptions are inserted and deleted.
  */
 public class ModelExceptionClass
 {
@@ -96,9 +99,9 @@ public class ModelExceptionClass
         try
         {
             if(lf == LoadRemoveFilter.None)
-                return load(conn, conn.read("SELECT ec.ecid, ec.class_name, ec.hint, ec.runtime, COUNT(e.ecid) AS freq FROM pals_exception_classes AS ec, pals_exceptions AS e WHERE ec.ecid=e.ecid GROUP BY ec.ecid ORDER BY freq DESC;"));
+                return load(conn, conn.read("SELECT ecid, class_name, hint, runtime, CAST(freq AS BIGINT) AS freq FROM pals_exception_classes WHERE freq > 0 ORDER BY freq DESC;"));
             else
-                return load(conn, conn.read("SELECT ec.ecid, ec.class_name, ec.hint, ec.runtime, COUNT(e.ecid) AS freq FROM pals_exception_classes AS ec, pals_exceptions AS e WHERE ec.ecid=e.ecid AND ec.runtime=? GROUP BY ec.ecid ORDER BY freq DESC;", lf == LoadRemoveFilter.FilterRuntime ? "1" : "0"));
+                return load(conn, conn.read("SELECT ecid, class_name, hint, runtime, CAST(freq AS BIGINT) AS freq FROM pals_exception_classes WHERE freq > 0 AND runtime=? ORDER BY freq DESC;", lf == LoadRemoveFilter.FilterRuntime ? "1" : "0"));
         }
         catch(DatabaseException ex)
         {
@@ -116,9 +119,9 @@ public class ModelExceptionClass
         try
         {
             if(lf == LoadRemoveFilter.None)
-                return load(conn, conn.read("SELECT ec.ecid, ec.class_name, ec.hint, ec.runtime, COUNT(e.ecid) AS freq FROM pals_exception_classes AS ec, pals_exceptions AS e, pals_assignment_instance AS ai, pals_assignment AS a WHERE e.ecid=ec.ecid AND ai.aiid=e.aiid AND a.assid=ai.assid AND a.moduleid=? GROUP BY ec.ecid ORDER BY freq DESC;", module.getModuleID()));
+                return load(conn, conn.read("SELECT ec.ecid, ec.class_name, ec.hint, ec.runtime, CAST(s.freq AS BIGINT) AS freq FROM pals_exception_stats_module AS s, pals_exception_classes AS ec WHERE s.moduleid=? AND ec.ecid=s.ecid ORDER BY s.freq DESC;", module.getModuleID()));
             else
-                return load(conn, conn.read("SELECT ec.ecid, ec.class_name, ec.hint, ec.runtime, COUNT(e.ecid) AS freq FROM pals_exception_classes AS ec, pals_exceptions AS e, pals_assignment_instance AS ai, pals_assignment AS a WHERE e.ecid=ec.ecid AND ec.runtime=? AND ai.aiid=e.aiid AND a.assid=ai.assid AND a.moduleid=? GROUP BY ec.ecid ORDER BY freq DESC;", lf == LoadRemoveFilter.FilterRuntime ? "1" : "0", module.getModuleID()));
+                return load(conn, conn.read("SELECT ec.ecid, ec.class_name, ec.hint, ec.runtime, CAST(s.freq AS BIGINT) AS freq FROM pals_exception_stats_module AS s, pals_exception_classes AS ec WHERE s.moduleid=? AND ec.ecid=s.ecid AND ec.runtime=? ORDER BY s.freq DESC;", module.getModuleID(), lf == LoadRemoveFilter.FilterRuntime ? "1" : "0"));
         }
         catch(DatabaseException ex)
         {
@@ -136,9 +139,9 @@ public class ModelExceptionClass
         try
         {
             if(lf == LoadRemoveFilter.None)
-                return load(conn, conn.read("SELECT ec.ecid, ec.class_name, ec.hint, ec.runtime, COUNT(e.ecid) AS freq FROM pals_exception_classes AS ec, pals_exceptions AS e, pals_assignment_instance AS ai WHERE e.ecid=ec.ecid AND ai.aiid=e.aiid AND ai.assid=? GROUP BY ec.ecid ORDER BY freq DESC;", ass.getAssID()));
+                return load(conn, conn.read("SELECT ec.ecid, ec.class_name, ec.hint, ec.runtime, CAST(s.freq AS BIGINT) AS freq FROM pals_exception_stats_assignment AS s, pals_exception_classes AS ec WHERE s.assid=? AND ec.ecid=s.ecid ORDER BY s.freq DESC;", ass.getAssID()));
             else
-                return load(conn, conn.read("SELECT ec.ecid, ec.class_name, ec.hint, ec.runtime, COUNT(e.ecid) AS freq FROM pals_exception_classes AS ec, pals_exceptions AS e, pals_assignment_instance AS ai WHERE e.ecid=ec.ecid AND ec.runtime=? AND ai.aiid=e.aiid AND ai.assid=? GROUP BY ec.ecid ORDER BY freq DESC;", lf == LoadRemoveFilter.FilterRuntime ? "1" : "0", ass.getAssID()));
+                return load(conn, conn.read("SELECT ec.ecid, ec.class_name, ec.hint, ec.runtime, CAST(s.freq AS BIGINT) AS freq FROM pals_exception_stats_assignment AS s, pals_exception_classes AS ec WHERE s.assid=? AND ec.ecid=s.ecid AND ec.runtime=? ORDER BY s.freq DESC;", ass.getAssID(), lf == LoadRemoveFilter.FilterRuntime ? "1" : "0"));
         }
         catch(DatabaseException ex)
         {
@@ -156,9 +159,9 @@ public class ModelExceptionClass
         try
         {
             if(lf == LoadRemoveFilter.None)
-                return load(conn, conn.read("SELECT ec.ecid, ec.class_name, ec.hint, ec.runtime, COUNT(e.ecid) AS freq FROM pals_exception_classes AS ec, pals_exceptions AS e, pals_assignment_questions AS aq WHERE e.ecid=ec.ecid AND aq.aqid=e.aqid AND aq.qid=? GROUP BY ec.ecid ORDER BY freq DESC;", q.getQID()));
+                return load(conn, conn.read("SELECT ec.ecid, ec.class_name, ec.hint, ec.runtime, CAST(s.freq AS BIGINT) AS freq FROM pals_exception_stats_question AS s, pals_exception_classes AS ec WHERE s.qid=? AND ec.ecid=s.ecid ORDER BY s.freq DESC;", q.getQID()));
             else
-                return load(conn, conn.read("SELECT ec.ecid, ec.class_name, ec.hint, ec.runtime, COUNT(e.ecid) AS freq FROM pals_exception_classes AS ec, pals_exceptions AS e, pals_assignment_questions AS aq WHERE e.ecid=ec.ecid AND ec.runtime=? AND aq.aqid=e.aqid AND aq.qid=? GROUP BY ec.ecid ORDER BY freq DESC;", lf == LoadRemoveFilter.FilterRuntime ? "1" : "0", q.getQID()));
+                return load(conn, conn.read("SELECT ec.ecid, ec.class_name, ec.hint, ec.runtime, CAST(s.freq AS BIGINT) AS freq FROM pals_exception_stats_question AS s, pals_exception_classes AS ec WHERE s.qid=? AND ec.ecid=s.ecid AND ec.runtime=? ORDER BY s.freq DESC;", q.getQID(), lf == LoadRemoveFilter.FilterRuntime ? "1" : "0"));
         }
         catch(DatabaseException ex)
         {
@@ -277,7 +280,7 @@ public class ModelExceptionClass
             if(lf == LoadRemoveFilter.None)
                 conn.execute("DELETE FROM pals_exceptions;");
             else
-                conn.execute("DELETE FROM pals_exceptions WHERE exid IN (SELECT e.exid FROM pals_exceptions AS e,pals_exception_classes AS ec WHERE ec.ecid=e.ecid AND ec.runtime=?);", lf == LoadRemoveFilter.FilterRuntime ? "1" : "0");
+                conn.execute("DELETE FROM pals_exceptions WHERE ecid IN (SELECT ecid FROM pals_exception_classes WHERE runtime=?);", lf == LoadRemoveFilter.FilterRuntime ? "1" : "0");
         }
         catch(DatabaseException ex)
         {
@@ -295,9 +298,9 @@ public class ModelExceptionClass
         try
         {
             if(lf == LoadRemoveFilter.None)
-                conn.execute("DELETE FROM pals_exceptions WHERE exid IN (SELECT e.exid FROM pals_exception_classes AS ec, pals_exceptions AS e, pals_assignment_instance AS ai, pals_assignment AS a WHERE e.ecid=ec.ecid AND ai.aiid=e.aiid AND a.assid=ai.assid AND a.moduleid=?);", module.getModuleID());
+                conn.execute("DELETE FROM pals_exceptions WHERE moduleid=? AND ecid IS NOT NULL;", module.getModuleID());
             else
-                conn.execute("DELETE FROM pals_exceptions WHERE exid IN (SELECT e.exid FROM pals_exception_classes AS ec, pals_exceptions AS e, pals_assignment_instance AS ai, pals_assignment AS a WHERE e.ecid=ec.ecid AND ec.runtime=? AND ai.aiid=e.aiid AND a.assid=ai.assid AND a.moduleid=?);", lf == LoadRemoveFilter.FilterRuntime ? "1" : "0", module.getModuleID());
+                conn.execute("DELETE FROM pals_exceptions WHERE moduleid=? AND ecid IN (SELECT ecid FROM pals_exception_classes WHERE runtime=?);", module.getModuleID(), lf == LoadRemoveFilter.FilterRuntime ? "1" : "0");
         }
         catch(DatabaseException ex)
         {
@@ -314,9 +317,9 @@ public class ModelExceptionClass
         try
         {
             if(lf == LoadRemoveFilter.None)
-                conn.execute("DELETE FROM pals_exceptions WHERE exid IN (SELECT e.exid FROM pals_exception_classes AS ec, pals_exceptions AS e, pals_assignment_instance AS ai WHERE e.ecid=ec.ecid AND ai.aiid=e.aiid AND ai.assid=?);", ass.getAssID());
+                conn.execute("DELETE FROM pals_exceptions WHERE assid=? AND ecid IS NOT NULL;", ass.getAssID());
             else
-                conn.execute("DELETE FROM pals_exceptions WHERE exid IN (SELECT e.exid FROM pals_exception_classes AS ec, pals_exceptions AS e, pals_assignment_instance AS ai WHERE e.ecid=ec.ecid AND ec.runtime=? AND ai.aiid=e.aiid AND ai.assid=?);", lf == LoadRemoveFilter.FilterRuntime ? "1" : "0", ass.getAssID());
+                conn.execute("DELETE FROM pals_exceptions WHERE assid=? AND ecid IN (SELECT ecid FROM pals_exception_classes WHERE runtime=?);", ass.getAssID(), lf == LoadRemoveFilter.FilterRuntime ? "1" : "0");
         }
         catch(DatabaseException ex)
         {
@@ -334,9 +337,9 @@ public class ModelExceptionClass
         try
         {
             if(lf == LoadRemoveFilter.None)
-                conn.execute("DELETE FROM pals_exceptions WHERE exid IN (SELECT e.exid FROM pals_exception_classes AS ec, pals_exceptions AS e, pals_assignment_questions AS aq WHERE e.ecid=ec.ecid AND aq.aqid=e.aqid AND aq.qid=?);", q.getQID());
+                conn.execute("DELETE FROM pals_exceptions WHERE qid=? AND ecid IS NOT NULL;", q.getQID());
             else
-                conn.execute("DELETE FROM pals_exceptions WHERE exid IN (SELECT e.exid FROM pals_exception_classes AS ec, pals_exceptions AS e, pals_assignment_questions AS aq WHERE e.ecid=ec.ecid AND ec.runtime=? AND aq.aqid=e.aqid AND aq.qid=?);", lf == LoadRemoveFilter.FilterRuntime ? "1" : "0", q.getQID());
+                conn.execute("DELETE FROM pals_exceptions WHERE qid=? AND ecid IN (SELECT ecid FROM pals_exception_classes WHERE runtime=?);", q.getQID(), lf == LoadRemoveFilter.FilterRuntime ? "1" : "0");
         }
         catch(DatabaseException ex)
         {
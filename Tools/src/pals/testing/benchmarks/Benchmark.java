@@ -0,0 +1,163 @@
+/*
+    The MIT License (MIT)
+
+    Copyright (c) 2014 Marcus Craske <limpygnome@gmail.com>
+
+    Permission is hereby granted, free of charge, to any person obtaining a copy
+    of this software and associated documentation files (the "Software"), to deal
+    in the Software without restriction, including without limitation the rights
+    to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+    copies of the Software, and to permit persons to whom the Software is
+    furnished to do so, subject to the following conditions:
+
+    The above copyright notice and this permission notice shall be included in
+    all copies or substantial portions of the Software.
+
+    THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+    IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+    FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+    AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+    LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+    OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+    THE SOFTWARE.
+    ----------------------------------------------------------------------------
+    Authors:    Marcus Craske           <limpygnome@gmail.com>
+    ----------------------------------------------------------------------------
+*/
+package pals.testing.benchmarks;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A simple harness for measuring the throughput of an operation across
+ * multiple threads; each benchmark is a program with its own entry-point.
+ * 
+ * Each run performs a warm-up period, so the JIT compiler has settled, followed
+ * by a measured period; the number of operations completed by all threads
+ * is then reported as operations per second.
+ * 
+ * @version 1.0
+ */
+public abstract class Benchmark
+{
+    // Fields - Constants ******************************************************
+    private static final long WARMUP_MS = 2000;
+    private static final long MEASURE_MS = 5000;
+    // Fields ******************************************************************
+    private volatile long sink;     // Prevents the JIT from eliminating the operation.
+    // Methods - Abstract ******************************************************
+    /**
+     * Invoked to perform a single operation being measured.
+     * 
+     * @param thread The index of the thread performing the operation.
+     * @param iteration The number of operations performed so far by the
+     * thread.
+     * @return Any value derived from the operation.
+     * @since 1.0
+     */
+    public abstract long operation(int thread, long iteration);
+    // Methods *****************************************************************
+    /**
+     * Measures the throughput for each number of threads, printing the
+     * results.
+     * 
+     * @param name The name of the benchmark.
+     * @param threadCounts The number of threads to use for each run.
+     * @since 1.0
+     */
+    public void run(String name, int[] threadCounts)
+    {
+        System.out.println("Benchmark: " + name);
+        for(int threads : threadCounts)
+        {
+            // Warm-up, then measure
+            run(threads, WARMUP_MS);
+            long ops = run(threads, MEASURE_MS);
+            System.out.println(String.format("  threads: %3d, ops/sec: %,15d", threads, (ops*1000L)/MEASURE_MS));
+        }
+    }
+    private long run(int threads, final long durationMs)
+    {
+        final AtomicBoolean running = new AtomicBoolean(true);
+        final AtomicLong total = new AtomicLong();
+        final CountDownLatch ready = new CountDownLatch(threads);
+        final CountDownLatch start = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(threads);
+        for(int i = 0; i < threads; i++)
+        {
+            final int index = i;
+            new Thread()
+            {
+                @Override
+                public void run()
+                {
+                    long iterations = 0, result = 0;
+                    ready.countDown();
+                    try
+                    {
+                        start.await();
+                        while(running.get())
+                            result += operation(index, iterations++);
+                        sink = result;
+                        total.addAndGet(iterations);
+                    }
+                    catch(InterruptedException ex)
+                    {
+                    }
+                    catch(RuntimeException ex)
+                    {
+                        System.err.println("Operation failed on thread #" + index + ":");
+                        ex.printStackTrace();
+                        running.set(false);
+                    }
+                    finally
+                    {
+                        done.countDown();
+                    }
+                }
+            }.start();
+        }
+        try
+        {
+            ready.await();
+            start.countDown();
+            Thread.sleep(durationMs);
+            running.set(false);
+            done.await();
+        }
+        catch(InterruptedException ex)
+        {
+            Thread.currentThread().interrupt();
+        }
+        return total.get();
+    }
+    /**
+     * Parses the thread counts from the program arguments.
+     * 
+     * @param args The program arguments; each argument is a number of
+     * threads.
+     * @return The thread counts; defaults to doubling up to twice the number of
+     * available processors.
+     * @since 1.0
+     */
+    public static int[] threadCounts(String[] args)
+    {
+        if(args.length > 0)
+        {
+            int[] counts = new int[args.length];
+            for(int i = 0; i < args.length; i++)
+                counts[i] = Integer.parseInt(args[i]);
+            return counts;
+        }
+        int max = Runtime.getRuntime().availableProcessors()*2;
+        int n = 0;
+        for(int t = 1; t <= max; t <<= 1)
+            n++;
+        int[] counts = new int[n];
+        for(int i = 0, t = 1; i < n; i++, t <<= 1)
+            counts[i] = t;
+        return counts;
+    }
+}
@@ -0,0 +1,78 @@
+/*
+    The MIT License (MIT)
+
+    Copyright (c) 2014 Marcus Craske <limpygnome@gmail.com>
+
+    Permission is hereby granted, free of charge, to any person obtaining a copy
+    of this software and associated documentation files (the "Software"), to deal
+    in the Software without restriction, including without limitation the rights
+    to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+    copies of the Software, and to permit persons to whom the Software is
+    furnished to do so, subject to the following conditions:
+
+    The above copyright notice and this permission notice shall be included in
+    all copies or substantial portions of the Software.
+
+    THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+    IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+    FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+    AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+    LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+    OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+    THE SOFTWARE.
+    ----------------------------------------------------------------------------
+    Authors:    Marcus Craske           <limpygnome@gmail.com>
+    ----------------------------------------------------------------------------
+*/
+package pals.testing.benchmarks;
+
+import java.io.File;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.util.EnumSet;
+import pals.base.Logging;
+import pals.base.NodeCore;
+import pals.base.TemplateManager;
+import pals.base.UUID;
+
+/**
+ * Prepares an instance of the core for benchmarks, without a database,
+ * plugins or RMI; only logging, which logs nothing, and the template
+ * manager are available.
+ * 
+ * The core is not started, thus its fields are set using reflection.
+ * 
+ * @version 1.0
+ */
+public class BenchmarkCore
+{
+    // Methods - Static ********************************************************
+    /**
+     * Fetches the instance of the core, prepared for benchmarks.
+     * 
+     * @return The instance of the core.
+     * @throws Exception Thrown if the core cannot be prepared.
+     * @since 1.0
+     */
+    public static NodeCore create() throws Exception
+    {
+        NodeCore core = NodeCore.getInstance();
+        // Use a temporary directory for shared storage
+        File shared = new File(System.getProperty("java.io.tmpdir"), "pals_benchmarks");
+        new File(shared, "logs").mkdirs();
+        set(core, "pathShared", shared.getAbsolutePath());
+        set(core, "uuidNode", UUID.generateVersion4());
+        set(core, "logging", Logging.createInstance(core, "benchmarks", false, EnumSet.noneOf(Logging.EntryType.class)));
+        // Create the template manager
+        Constructor<TemplateManager> ctor = TemplateManager.class.getDeclaredConstructor(NodeCore.class);
+        ctor.setAccessible(true);
+        set(core, "templates", ctor.newInstance(core));
+        return core;
+    }
+    private static void set(NodeCore core, String field, Object value) throws Exception
+    {
+        Field f = NodeCore.class.getDeclaredField(field);
+        f.setAccessible(true);
+        f.set(core, value);
+    }
+}
@@ -0,0 +1,69 @@
+/*
+    The MIT License (MIT)
+
+    Copyright (c) 2014 Marcus Craske <limpygnome@gmail.com>
+
+    Permission is hereby granted, free of charge, to any person obtaining a copy
+    of this software and associated documentation files (the "Software"), to deal
+    in the Software without restriction, including without limitation the rights
+    to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+    copies of the Software, and to permit persons to whom the Software is
+    furnished to do so, subject to the following conditions:
+
+    The above copyright notice and this permission notice shall be included in
+    all copies or substantial portions of the Software.
+
+    THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+    IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+    FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+    AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+    LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+    OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+    THE SOFTWARE.
+    ----------------------------------------------------------------------------
+    Authors:    Marcus Craske           <limpygnome@gmail.com>
+    ----------------------------------------------------------------------------
+*/
+package pals.testing.benchmarks;
+
+import pals.base.NodeCore;
+import pals.base.Plugin;
+import pals.base.UUID;
+import pals.base.database.Connector;
+
+/**
+ * A plugin with no behaviour, used as the owner of resources registered by
+ * benchmarks.
+ * 
+ * @version 1.0
+ */
+public class BenchmarkPlugin extends Plugin
+{
+    // Methods - Constructors **************************************************
+    /**
+     * Constructs a new plugin with a random identifier.
+     * 
+     * @param core The current instance of the core; can be null.
+     * @since 1.0
+     */
+    public BenchmarkPlugin(NodeCore core)
+    {
+        super(core, UUID.generateVersion4(), null, null, null, null);
+    }
+    // Methods - Mandatory *****************************************************
+    @Override
+    public boolean eventHandler_pluginLoad(NodeCore core)
+    {
+        return true;
+    }
+    @Override
+    public boolean eventHandler_pluginInstall(NodeCore core, Connector conn)
+    {
+        return true;
+    }
+    @Override
+    public boolean eventHandler_pluginUninstall(NodeCore core, Connector conn)
+    {
+        return true;
+    }
+}
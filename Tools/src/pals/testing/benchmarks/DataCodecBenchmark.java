@@ -0,0 +1,145 @@
+/*
+    The MIT License (MIT)
+
+    Copyright (c) 2014 Marcus Craske <limpygnome@gmail.com>
+
+    Permission is hereby granted, free of charge, to any person obtaining a copy
+    of this software and associated documentation files (the "Software"), to deal
+    in the Software without restriction, including without limitation the rights
+    to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+    copies of the Software, and to permit persons to whom the Software is
+    furnished to do so, subject to the following conditions:
+
+    The above copyright notice and this permission notice shall be included in
+    all copies or substantial portions of the Software.
+
+    THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+    IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+    FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+    AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+    LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+    OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+    THE SOFTWARE.
+    ----------------------------------------------------------------------------
+    Authors:    Marcus Craske           <limpygnome@gmail.com>
+    ----------------------------------------------------------------------------
+*/
+package pals.testing.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import pals.base.utils.DataCodecs;
+import pals.plugins.handlers.defaultqch.data.CodeError;
+import pals.plugins.handlers.defaultqch.data.CodeJava_Instance;
+import pals.plugins.handlers.defaultqch.data.CodeJava_Question;
+import pals.plugins.handlers.defaultqch.data.Codecs;
+import pals.plugins.handlers.defaultqch.data.JavaTestInputs_InstanceCriteria;
+import pals.plugins.handlers.defaultqch.data.JavaTestProgram_InstanceCriteria;
+import pals.plugins.handlers.defaultqch.data.MultipleChoice_Question;
+import pals.plugins.handlers.defaultqch.java.CompilerResult;
+
+/**
+ * Compares the size and throughput of the data of questions and criteria
+ * written with Java serialization against the codecs registered by the
+ * default question and criteria handlers; each operation writes and reads
+ * back one object.
+ * 
+ * @version 1.0
+ */
+public class DataCodecBenchmark extends Benchmark
+{
+    // Fields ******************************************************************
+    private final Object[]  samples;    // The objects written and read.
+    private final boolean   codec;      // Indicates if to use the codecs, otherwise Java serialization.
+    // Methods - Constructors **************************************************
+    private DataCodecBenchmark(Object[] samples, boolean codec)
+    {
+        this.samples = samples;
+        this.codec = codec;
+    }
+    // Methods *****************************************************************
+    @Override
+    public long operation(int thread, long iteration)
+    {
+        try
+        {
+            Object obj = samples[(int)((iteration+thread) % samples.length)];
+            byte[] data = codec ? DataCodecs.encode(obj) : serialize(obj);
+            return (codec ? DataCodecs.decode(data) : deserialize(data)) != null ? data.length : 0;
+        }
+        catch(IOException | ClassNotFoundException ex)
+        {
+            throw new RuntimeException(ex);
+        }
+    }
+    private static byte[] serialize(Object obj) throws IOException
+    {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        ObjectOutputStream oos = new ObjectOutputStream(baos);
+        oos.writeObject(obj);
+        oos.flush();
+        return baos.toByteArray();
+    }
+    private static Object deserialize(byte[] data) throws IOException, ClassNotFoundException
+    {
+        return new ObjectInputStream(new ByteArrayInputStream(data)).readObject();
+    }
+    private static Object[] samples()
+    {
+        // Question and answer for a typical Java question
+        StringBuilder code = new StringBuilder("public class Calculator\n{\n");
+        for(int i = 0; i < 20; i++)
+            code.append("    public int method").append(i).append("(int a, int b)\n    {\n        return a * b + ").append(i).append(";\n    }\n");
+        code.append("}\n");
+        CodeJava_Question cjq = new CodeJava_Question();
+        cjq.setText("Write a calculator class, with a method for each of the operations below.");
+        cjq.setSkeleton("public class Calculator\n{\n}\n");
+        cjq.setWhitelist(new String[]{"java.lang.Math", "java.util.ArrayList", "java.util.HashMap"});
+        cjq.codeAdd("Calculator", code.toString());
+        CodeJava_Instance cji = new CodeJava_Instance();
+        cji.codeAdd("Calculator", code.toString());
+        cji.setPrepared(true);
+        cji.setCompileStatus(CompilerResult.CompileStatus.Failed);
+        cji.errorsAdd(new CodeError("Calculator", "cannot find symbol", 12, 16));
+        cji.errorsAdd(new CodeError("Calculator", "';' expected", 40, 30));
+        // Multiple-choice question
+        MultipleChoice_Question mcq = new MultipleChoice_Question();
+        mcq.setText("Which of the following are primitive types?");
+        mcq.setAnswers(new String[]{"int", "String", "boolean", "Integer", "char"});
+        // Results of criteria
+        JavaTestInputs_InstanceCriteria jti = new JavaTestInputs_InstanceCriteria(10);
+        for(int i = 0; i < 10; i++)
+        {
+            jti.setInput(i, i + "," + (i*2));
+            jti.setOutputCorrect(i, String.valueOf(i*i*2 + i));
+            jti.setOutputStudent(i, String.valueOf(i*i*2));
+        }
+        JavaTestProgram_InstanceCriteria jtp = new JavaTestProgram_InstanceCriteria();
+        for(int i = 0; i < 15; i++)
+            jtp.addLine("Line of output #" + i, i % 3 == 0 ? JavaTestProgram_InstanceCriteria.Status.Input : JavaTestProgram_InstanceCriteria.Status.Correct);
+        return new Object[]{cjq, cji, mcq, jti, jtp};
+    }
+    /**
+     * Program entry-point.
+     * 
+     * @param args The thread counts to measure; optional.
+     * @throws Exception Thrown if a sample cannot be written.
+     * @since 1.0
+     */
+    public static void main(String[] args) throws Exception
+    {
+        Codecs.register();
+        Object[] samples = samples();
+        // Compare the sizes
+        System.out.println("Size (bytes):");
+        for(Object obj : samples)
+            System.out.println(String.format("  %-35s java: %,8d, codec: %,8d", obj.getClass().getSimpleName(), serialize(obj).length, DataCodecs.encode(obj).length));
+        // Compare the throughput
+        int[] threads = threadCounts(args);
+        new DataCodecBenchmark(samples, false).run("Java serialization", threads);
+        new DataCodecBenchmark(samples, true).run("DataCodecs", threads);
+    }
+}
@@ -0,0 +1,83 @@
+/*
+    The MIT License (MIT)
+
+    Copyright (c) 2014 Marcus Craske <limpygnome@gmail.com>
+
+    Permission is hereby granted, free of charge, to any person obtaining a copy
+    of this software and associated documentation files (the "Software"), to deal
+    in the Software without restriction, including without limitation the rights
+    to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+    copies of the Software, and to permit persons to whom the Software is
+    furnished to do so, subject to the following conditions:
+
+    The above copyright notice and this permission notice shall be included in
+    all copies or substantial portions of the Software.
+
+    THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+    IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+    FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+    AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+    LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+    OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+    THE SOFTWARE.
+    ----------------------------------------------------------------------------
+    Authors:    Marcus Craske           <limpygnome@gmail.com>
+    ----------------------------------------------------------------------------
+*/
+package pals.testing.benchmarks;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import pals.base.NodeCore;
+import pals.base.TemplateManager;
+
+/**
+ * Measures the throughput of rendering templates with {@link TemplateManager}
+ * from many concurrent threads, using a page template which includes a
+ * nested list, similar to pages listing modules or questions.
+ * 
+ * @version 1.0
+ */
+public class TemplateRenderBenchmark extends Benchmark
+{
+    // Fields ******************************************************************
+    private final TemplateManager           templates;
+    private final HashMap<String,Object>    kvs;
+    // Methods - Constructors **************************************************
+    private TemplateRenderBenchmark(NodeCore core)
+    {
+        templates = core.getTemplates();
+        templates.registerTemplate(null, "bench/page",
+                "<html><head><title>${title}</title></head><body>"
+              + "<#include \"/bench/nav\">"
+              + "<table><#list rows as row><tr><td>${row_index}</td><td>${row?html}</td></tr></#list></table>"
+              + "</body></html>");
+        templates.registerTemplate(null, "bench/nav",
+                "<ul><li><a href=\"/home\">Home</a></li><li><a href=\"/modules\">Modules</a></li><li><a href=\"/assignments\">Assignments</a></li></ul>");
+        kvs = new HashMap<>();
+        ArrayList<String> rows = new ArrayList<>();
+        for(int i = 0; i < 50; i++)
+            rows.add("Question <" + i + "> & answers");
+        kvs.put("title", "Benchmark");
+        kvs.put("rows", rows);
+    }
+    // Methods *****************************************************************
+    @Override
+    public long operation(int thread, long iteration)
+    {
+        return templates.render(null, kvs, "bench/page").length();
+    }
+    /**
+     * Program entry-point.
+     * 
+     * @param args The thread counts to measure; optional.
+     * @throws Exception Thrown if the core cannot be prepared.
+     * @since 1.0
+     */
+    public static void main(String[] args) throws Exception
+    {
+        NodeCore core = BenchmarkCore.create();
+        new TemplateRenderBenchmark(core).run("TemplateManager.render", threadCounts(args));
+        core.getLogging().dispose();
+    }
+}
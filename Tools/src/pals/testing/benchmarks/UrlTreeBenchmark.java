@@ -0,0 +1,91 @@
+/*
+    The MIT License (MIT)
+
+    Copyright (c) 2014 Marcus Craske <limpygnome@gmail.com>
+
+    Permission is hereby granted, free of charge, to any person obtaining a copy
+    of this software and associated documentation files (the "Software"), to deal
+    in the Software without restriction, including without limitation the rights
+    to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+    copies of the Software, and to permit persons to whom the Software is
+    furnished to do so, subject to the following conditions:
+
+    The above copyright notice and this permission notice shall be included in
+    all copies or substantial portions of the Software.
+
+    THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+    IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+    FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+    AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+    LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+    OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+    THE SOFTWARE.
+    ----------------------------------------------------------------------------
+    Authors:    Marcus Craske           <limpygnome@gmail.com>
+    ----------------------------------------------------------------------------
+*/
+package pals.testing.benchmarks;
+
+import pals.base.Plugin;
+import pals.base.UrlTree;
+
+/**
+ * Measures the throughput of routing look-ups against {@link UrlTree} with
+ * many concurrent threads, using paths similar to those registered by the
+ * default plugins.
+ * 
+ * @version 1.0
+ */
+public class UrlTreeBenchmark extends Benchmark
+{
+    // Fields ******************************************************************
+    private final UrlTree   tree;
+    private final String[]  paths;
+    // Methods - Constructors **************************************************
+    private UrlTreeBenchmark()
+    {
+        tree = new UrlTree();
+        // Register a few plugins, with nested paths, similar to a node
+        String[][] registered = new String[][]
+        {
+            {"home", "account/login", "account/logout", "account/recover", "account/register", "admin/users"},
+            {"modules", "admin/modules"},
+            {"assignments", "admin/assignments"},
+            {"questions", "admin/questions", "admin/questions/create"},
+            {"captcha", "content/captcha"},
+            {"stats", "admin/stats"},
+        };
+        for(String[] urls : registered)
+        {
+            Plugin p = new BenchmarkPlugin(null);
+            for(String url : urls)
+                tree.add(p, url);
+        }
+        paths = new String[]
+        {
+            "home",
+            "modules/12",
+            "assignments/instance/4231/question/12",
+            "admin/questions/create/code_java",
+            "admin/users/view/331",
+            "content/captcha",
+            "does/not/exist",
+        };
+    }
+    // Methods *****************************************************************
+    @Override
+    public long operation(int thread, long iteration)
+    {
+        return tree.getUUIDs(paths[(int)((iteration+thread) % paths.length)]).length;
+    }
+    /**
+     * Program entry-point.
+     * 
+     * @param args The thread counts to measure; optional.
+     * @since 1.0
+     */
+    public static void main(String[] args)
+    {
+        new UrlTreeBenchmark().run("UrlTree.getUUIDs", threadCounts(args));
+    }
+}
@@ -177,10 +177,21 @@ public class PALS_Servlet extends HttpServlet
                     response.setHeader(kv.getKey(), kv.getValue());
             }
             // -- Update the session ID cookie
-            Cookie cookieSess = new Cookie(SESSION_COOKIE_NAME, dataResponse.getSessionID());
-            cookieSess.setPath("/");
-            cookieSess.setMaxAge(dataResponse.isSessionPrivate() ? 3600 : 600);
-            response.addCookie(cookieSess);
+            // -- -- No session ID means the session is empty; remove any existing cookie
+            if(dataResponse.getSessionID() != null)
+            {
+                Cookie cookieSess = new Cookie(SESSION_COOKIE_NAME, dataResponse.getSessionID());
+                cookieSess.setPath("/");
+                cookieSess.setMaxAge(dataResponse.isSessionPrivate() ? 3600 : 600);
+                response.addCookie(cookieSess);
+            }
+            else if(sessid != null)
+            {
+                Cookie cookieSess = new Cookie(SESSION_COOKIE_NAME, "");
+                cookieSess.setPath("/");
+                cookieSess.setMaxAge(0);
+                response.addCookie(cookieSess);
+            }
             // -- Check for redirect
             String redirect = dataResponse.getRedirectUrl();
             if(redirect != null)